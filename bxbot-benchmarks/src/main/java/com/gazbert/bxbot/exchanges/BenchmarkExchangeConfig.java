@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.OptionalConfig;
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exchange config that lets any of the Exchange Adapters be initialised for benchmarking.
+ * <p>
+ * It has no rate limits, so the benchmarks are never throttled.
+ *
+ * @author gazbert
+ */
+final class BenchmarkExchangeConfig implements ExchangeConfig {
+
+    private static final String SECRET_ITEM_NAME = "secret";
+
+    // Base64 encoded, as GDAX and Kraken decode the secret before using it.
+    private static final String SECRET = "YmVuY2htYXJrLXNlY3JldA==";
+    private static final String OTHER_AUTHENTICATION_ITEM = "benchmark";
+
+    private static final Map<String, String> OPTIONAL_CONFIG_ITEMS = new HashMap<>();
+
+    static {
+        OPTIONAL_CONFIG_ITEMS.put("buy-fee", "0.25");
+        OPTIONAL_CONFIG_ITEMS.put("sell-fee", "0.25");
+        OPTIONAL_CONFIG_ITEMS.put("account-info-market", "usd");
+        OPTIONAL_CONFIG_ITEMS.put("keep-alive-during-maintenance", "false");
+    }
+
+    @Override
+    public String getExchangeName() {
+        return "Benchmark";
+    }
+
+    @Override
+    public String getExchangeAdapter() {
+        return null;
+    }
+
+    @Override
+    public AuthenticationConfig getAuthenticationConfig() {
+        return name -> SECRET_ITEM_NAME.equals(name) ? SECRET : OTHER_AUTHENTICATION_ITEM;
+    }
+
+    @Override
+    public NetworkConfig getNetworkConfig() {
+        return new BenchmarkNetworkConfig();
+    }
+
+    @Override
+    public OptionalConfig getOptionalConfig() {
+        return OPTIONAL_CONFIG_ITEMS::get;
+    }
+
+    /*
+     * The adapter defaults, without rate limits.
+     */
+    private static final class BenchmarkNetworkConfig implements NetworkConfig {
+
+        @Override
+        public List<Integer> getNonFatalErrorCodes() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getNonFatalErrorMessages() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Integer getConnectionTimeout() {
+            return 30;
+        }
+
+        @Override
+        public Integer getMaxConnectionsPerHost() {
+            return null;
+        }
+
+        @Override
+        public Integer getIdleConnectionTimeout() {
+            return null;
+        }
+
+        @Override
+        public List<RateLimitConfig> getRateLimits() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link DecimalFormat} formatting the adapters do on the price and quantity of every order they
+ * create, for each of the patterns they use.
+ *
+ * @author gazbert
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceFormattingBenchmark {
+
+    @Param({"#.##", "#.####", "#.#####", "#.######", "#.########"})
+    public String pattern;
+
+    private BigDecimal price = new BigDecimal("664.536123456789");
+
+    private DecimalFormatSymbols decimalFormatSymbols;
+    private DecimalFormat decimalFormat;
+
+    @Setup
+    public void setup() {
+        decimalFormatSymbols = new BitstampExchangeAdapter().getDecimalFormatSymbols();
+        decimalFormat = new DecimalFormat(pattern, decimalFormatSymbols);
+    }
+
+    /*
+     * As the adapters do it: a new DecimalFormat for each price or quantity.
+     */
+    @Benchmark
+    public String formatWithNewDecimalFormat() {
+        return new DecimalFormat(pattern, decimalFormatSymbols).format(price);
+    }
+
+    /*
+     * The format alone, to show what creating the DecimalFormat costs.
+     */
+    @Benchmark
+    public String formatWithReusedDecimalFormat() {
+        return decimalFormat.format(price);
+    }
+}
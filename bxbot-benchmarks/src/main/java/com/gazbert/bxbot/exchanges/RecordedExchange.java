@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.google.common.io.Resources;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+/**
+ * The exchanges the Exchange Adapter benchmarks are run against.
+ * <p>
+ * Each exchange has the order book payload recorded for its Exchange Adapter tests, and the authenticated API call its
+ * adapter makes to fetch the balance info.
+ *
+ * @author gazbert
+ */
+public enum RecordedExchange {
+
+    BITFINEX(BitfinexExchangeAdapter.class, "btcusd", "bitfinex/book.json",
+            () -> new Object[]{"balances", null}),
+    BITSTAMP(BitstampExchangeAdapter.class, "btcusd", "bitstamp/order_book.json",
+            () -> new Object[]{"balance", null}),
+    GDAX(GdaxExchangeAdapter.class, "BTC-GBP", "gdax/book.json",
+            () -> new Object[]{"GET", "accounts", null}),
+    GEMINI(GeminiExchangeAdapter.class, "btcusd", "gemini/book.json",
+            () -> new Object[]{"balances", null}),
+    HUOBI(HuobiExchangeAdapter.class, "BTC-USD", "huobi/detail_btc.json",
+            () -> new Object[]{"get_account_info", "usd", null}),
+    ITBIT(ItBitExchangeAdapter.class, "XBTUSD", "itbit/order_book.json",
+            () -> new Object[]{"GET", "wallets", new HashMap<>(Collections.singletonMap("userId", "benchmark"))}),
+    KRAKEN(KrakenExchangeAdapter.class, "XBTUSD", "kraken/Depth.json",
+            () -> new Object[]{"Balance", null}),
+    OKCOIN(OkCoinExchangeAdapter.class, "btc_usd", "okcoin/depth.json",
+            () -> new Object[]{"userinfo.do", null});
+
+    private static final String RECORDED_PAYLOADS_DIR = "exchange-data/";
+    private static final String AUTHENTICATED_REQUEST_METHOD_NAME = "sendAuthenticatedRequestToExchange";
+
+    private final Class<? extends AbstractExchangeAdapter> exchangeAdapterClass;
+    private final String marketId;
+    private final String orderBookPayload;
+    private final Supplier<Object[]> authenticatedRequestArgs;
+
+    RecordedExchange(Class<? extends AbstractExchangeAdapter> exchangeAdapterClass, String marketId,
+                     String orderBookPayload, Supplier<Object[]> authenticatedRequestArgs) {
+        this.exchangeAdapterClass = exchangeAdapterClass;
+        this.marketId = marketId;
+        this.orderBookPayload = orderBookPayload;
+        this.authenticatedRequestArgs = authenticatedRequestArgs;
+    }
+
+    String getMarketId() {
+        return marketId;
+    }
+
+    byte[] getOrderBookPayload() throws IOException {
+        return Resources.toByteArray(Resources.getResource(RECORDED_PAYLOADS_DIR + orderBookPayload));
+    }
+
+    /**
+     * Creates and initialises the Exchange Adapter, and swaps its HTTP client for one that answers every request with
+     * the given payload.
+     *
+     * @param recordedPayload the payload to answer every request with.
+     * @return the Exchange Adapter.
+     * @throws ReflectiveOperationException if the adapter cannot be created or its HTTP client cannot be swapped.
+     */
+    ExchangeAdapter createExchangeAdapter(byte[] recordedPayload) throws ReflectiveOperationException {
+
+        final AbstractExchangeAdapter exchangeAdapter = exchangeAdapterClass.getDeclaredConstructor().newInstance();
+        ((ExchangeAdapter) exchangeAdapter).init(new BenchmarkExchangeConfig());
+
+        final Field httpClient = AbstractExchangeAdapter.class.getDeclaredField("httpClient");
+        httpClient.setAccessible(true);
+        httpClient.set(exchangeAdapter, new RecordedResponseHttpClient(recordedPayload));
+
+        return (ExchangeAdapter) exchangeAdapter;
+    }
+
+    /**
+     * Returns the adapter's private sendAuthenticatedRequestToExchange method. Its parameters differ between the
+     * adapters, so call it with {@link #getAuthenticatedRequestArgs()}.
+     *
+     * @return the method.
+     * @throws NoSuchMethodException if the adapter does not have the method.
+     */
+    Method getAuthenticatedRequestMethod() throws NoSuchMethodException {
+        for (final Method method : exchangeAdapterClass.getDeclaredMethods()) {
+            if (method.getName().equals(AUTHENTICATED_REQUEST_METHOD_NAME)) {
+                method.setAccessible(true);
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(exchangeAdapterClass.getName() + "." + AUTHENTICATED_REQUEST_METHOD_NAME);
+    }
+
+    /**
+     * Returns new args for the authenticated API call made to fetch the balance info. The adapters add to the request
+     * params they are given, so they are not shared between calls.
+     *
+     * @return the args.
+     */
+    Object[] getAuthenticatedRequestArgs() {
+        return authenticatedRequestArgs.get();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * An HTTP client that answers every request with a recorded exchange response instead of going over the network, so
+ * the benchmarks measure the Exchange Adapters and not the exchange.
+ *
+ * @author gazbert
+ */
+final class RecordedResponseHttpClient extends CloseableHttpClient {
+
+    private final byte[] recordedPayload;
+
+    RecordedResponseHttpClient(byte[] recordedPayload) {
+        this.recordedPayload = recordedPayload;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) {
+        final RecordedResponse response = new RecordedResponse();
+        response.setEntity(new ByteArrayEntity(recordedPayload, ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    /*
+     * No requests go over the network, so there are no client params to set.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public HttpParams getParams() {
+        return new BasicHttpParams();
+    }
+
+    /*
+     * Only deprecated HttpClient 4.x callers ask for this, and the Exchange Adapters are not among them.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public ClientConnectionManager getConnectionManager() {
+        throw new UnsupportedOperationException(
+                "Recorded responses are not sent over a connection, so there is no connection manager");
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /*
+     * A 200 OK response; there is no connection to release when it is closed.
+     */
+    private static final class RecordedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        RecordedResponse() {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK"));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -24,6 +24,7 @@
 package com.gazbert.bxbot.core.config.exchange;
 
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
 import com.google.common.base.MoreObjects;
 
 import java.util.ArrayList;
@@ -39,10 +40,14 @@ public class NetworkConfigImpl implements NetworkConfig {
     private Integer connectionTimeout;
     private List<Integer> nonFatalErrorCodes;
     private List<String> nonFatalErrorMessages;
+    private Integer maxConnectionsPerHost;
+    private Integer idleConnectionTimeout;
+    private List<RateLimitConfig> rateLimits;
 
     public NetworkConfigImpl() {
         nonFatalErrorCodes = new ArrayList<>();
         nonFatalErrorMessages = new ArrayList<>();
+        rateLimits = new ArrayList<>();
     }
 
     @Override
@@ -72,12 +77,42 @@ public class NetworkConfigImpl implements NetworkConfig {
         this.nonFatalErrorMessages = nonFatalErrorMessages;
     }
 
+    @Override
+    public Integer getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(Integer maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    @Override
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(Integer idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    @Override
+    public List<RateLimitConfig> getRateLimits() {
+        return rateLimits;
+    }
+
+    public void setRateLimits(List<RateLimitConfig> rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("connectionTimeout", connectionTimeout)
                 .add("nonFatalErrorCodes", nonFatalErrorCodes)
                 .add("nonFatalErrorMessages", nonFatalErrorMessages)
+                .add("maxConnectionsPerHost", maxConnectionsPerHost)
+                .add("idleConnectionTimeout", idleConnectionTimeout)
+                .add("rateLimits", rateLimits)
                 .toString();
     }
 }
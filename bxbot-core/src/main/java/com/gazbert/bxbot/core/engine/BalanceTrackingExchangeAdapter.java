@@ -0,0 +1,609 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderState;
+import com.gazbert.bxbot.trading.api.OrderStatus;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorates the Exchange Adapter with a local copy of your balance info.
+ * <p>
+ * The balance info is fetched from the exchange, then kept up to date locally: placing an order moves its value from
+ * the available balance to the balance on hold, fills seen through {@link #getOrderStatus(String, String)} move it to
+ * the other currency of the market, and cancelling an order moves what is left of it back to the available balance.
+ * An order's value is put on hold before the exchange is called, so other callers never see it as available.
+ * {@link #getBalanceInfo()} returns the local copy, so the Emergency Stop check and the Trading Strategies do not
+ * need to call the exchange each trade cycle.
+ * <p>
+ * The local copy is reconciled with the exchange once the reconcile interval has passed, so it is never older than
+ * that. It is also reconciled on the next read if a change cannot be applied locally, e.g. an order call failed, the
+ * order was placed before the last reconcile or not through this adapter, or the market's currencies are not in the
+ * exchange's balance info. Exchange fees and fills that are not seen through {@link #getOrderStatus(String, String)}
+ * are only picked up when the local copy is reconciled.
+ * <p>
+ * The {@link AsyncTradingApi} calls are passed on to the Exchange Adapter if it supports async calls; if it does not,
+ * they run the blocking call on the caller's thread and return a completed future.
+ *
+ * @author gazbert
+ */
+final class BalanceTrackingExchangeAdapter implements ExchangeAdapter, AsyncTradingApi {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final ExchangeAdapter exchangeAdapter;
+
+    /*
+     * The Exchange Adapter's async API - null if it does not support async calls.
+     */
+    private final AsyncTradingApi asyncTradingApi;
+
+    private final long reconcileIntervalNanos;
+
+    /*
+     * The markets being traded, keyed by market id. Used to find the currencies an order moves between.
+     */
+    private final Map<String, Market> markets = new ConcurrentHashMap<>();
+
+    /*
+     * The orders placed through this adapter since the last reconcile that are still open, keyed by order id.
+     */
+    private final Map<String, TrackedOrder> trackedOrders = new HashMap<>();
+
+    /*
+     * The orders being placed through this adapter that the exchange has not answered for yet. Their value is already
+     * on hold.
+     */
+    private final Set<TrackedOrder> pendingOrders = new HashSet<>();
+
+    /*
+     * The local copy of the balance info. Null until first fetched, or after a change could not be applied locally.
+     */
+    private Map<String, BigDecimal> balancesAvailable;
+    private Map<String, BigDecimal> balancesOnHold;
+    private long lastReconciledAt;
+
+    /*
+     * Bumped by every local change, so a reconcile can tell if anything changed while it was fetching from the
+     * exchange.
+     */
+    private long changeCount;
+
+    private final AtomicLong localReadCount = new AtomicLong();
+    private final AtomicLong reconcileCount = new AtomicLong();
+
+
+    BalanceTrackingExchangeAdapter(ExchangeAdapter exchangeAdapter, long reconcileInterval,
+                                   TimeUnit reconcileIntervalUnit) {
+        this.exchangeAdapter = exchangeAdapter;
+        this.asyncTradingApi = exchangeAdapter instanceof AsyncTradingApi ? (AsyncTradingApi) exchangeAdapter : null;
+        this.reconcileIntervalNanos = reconcileIntervalUnit.toNanos(reconcileInterval);
+    }
+
+    /*
+     * Called by the Trading Engine for each market it trades.
+     */
+    void trackMarket(Market market) {
+        markets.put(market.getId(), market);
+    }
+
+    long getLocalReadCount() {
+        return localReadCount.get();
+    }
+
+    long getReconcileCount() {
+        return reconcileCount.get();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Exchange Adapter API
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public void init(ExchangeConfig config) {
+        exchangeAdapter.init(config);
+    }
+
+    @Override
+    public String getVersion() {
+        return exchangeAdapter.getVersion();
+    }
+
+    @Override
+    public String getImplName() {
+        return exchangeAdapter.getImplName();
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.getMarketOrders(marketId);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.getMarketOrders(marketId, depth);
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.getYourOpenOrders(marketId);
+    }
+
+    @Override
+    public OrderStatus getOrderStatus(String orderId, String marketId)
+            throws ExchangeNetworkException, TradingApiException {
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(orderId, marketId);
+        orderStatusSeen(orderStatus);
+        return orderStatus;
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException {
+        final TrackedOrder order = orderPending(marketId, orderType, quantity, price);
+        try {
+            final String orderId = exchangeAdapter.createOrder(marketId, orderType, quantity, price);
+            orderPlaced(orderId, order);
+            return orderId;
+        } catch (ExchangeNetworkException | TradingApiException | RuntimeException e) {
+            orderFailed(order);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+        try {
+            final boolean cancelled = exchangeAdapter.cancelOrder(orderId, marketId);
+            orderCancelled(orderId, cancelled);
+            return cancelled;
+        } catch (ExchangeNetworkException | TradingApiException | RuntimeException e) {
+            markStale();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> createOrders(List<OrderRequest> orderRequests)
+            throws ExchangeNetworkException, TradingApiException {
+        final List<TrackedOrder> orders = new ArrayList<>(orderRequests.size());
+        for (final OrderRequest orderRequest : orderRequests) {
+            orders.add(orderPending(orderRequest.getMarketId(), orderRequest.getOrderType(),
+                    orderRequest.getQuantity(), orderRequest.getPrice()));
+        }
+        try {
+            final List<String> orderIds = exchangeAdapter.createOrders(orderRequests);
+            for (int i = 0; i < orders.size(); i++) {
+                orderPlaced(orderIds.get(i), orders.get(i));
+            }
+            return orderIds;
+        } catch (ExchangeNetworkException | TradingApiException | RuntimeException e) {
+            orders.forEach(this::orderFailed);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean cancelOrders(List<String> orderIds, String marketId)
+            throws ExchangeNetworkException, TradingApiException {
+        try {
+            final boolean cancelled = exchangeAdapter.cancelOrders(orderIds, marketId);
+            for (final String orderId : orderIds) {
+                orderCancelled(orderId, cancelled);
+            }
+            return cancelled;
+        } catch (ExchangeNetworkException | TradingApiException | RuntimeException e) {
+            markStale();
+            throw e;
+        }
+    }
+
+    /*
+     * We cannot tell which orders were cancelled, so the balance info is always reconciled on the next read.
+     */
+    @Override
+    public boolean cancelAllOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        try {
+            return exchangeAdapter.cancelAllOrders(marketId);
+        } finally {
+            markStale();
+        }
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.getLatestMarketPrice(marketId);
+    }
+
+    /*
+     * The exchange is called without holding the lock, so orders can be placed and fills tracked while the balance
+     * info is being fetched.
+     */
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+
+        final long changeCountAtFetch;
+        synchronized (this) {
+            if (balancesAvailable != null && System.nanoTime() - lastReconciledAt < reconcileIntervalNanos) {
+                localReadCount.incrementAndGet();
+                return new TrackedBalanceInfo(balancesAvailable, balancesOnHold);
+            }
+            changeCountAtFetch = changeCount;
+        }
+
+        final BalanceInfo balanceInfo = exchangeAdapter.getBalanceInfo();
+
+        synchronized (this) {
+            final boolean changedDuringFetch = changeCount != changeCountAtFetch;
+            reconcile(balanceInfo);
+            final BalanceInfo reconciledBalanceInfo = new TrackedBalanceInfo(balancesAvailable, balancesOnHold);
+            if (changedDuringFetch) {
+                // we can't tell if the exchange's balance info includes those changes
+                markStale();
+            }
+            return reconciledBalanceInfo;
+        }
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+    }
+
+    @Override
+    public void invalidateExchangeFees() {
+        exchangeAdapter.invalidateExchangeFees();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Async Trading API
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId) {
+        return asyncTradingApi != null
+                ? asyncTradingApi.getMarketOrdersAsync(marketId)
+                : callNow(() -> exchangeAdapter.getMarketOrders(marketId));
+    }
+
+    @Override
+    public CompletableFuture<List<OpenOrder>> getYourOpenOrdersAsync(String marketId) {
+        return asyncTradingApi != null
+                ? asyncTradingApi.getYourOpenOrdersAsync(marketId)
+                : callNow(() -> exchangeAdapter.getYourOpenOrders(marketId));
+    }
+
+    @Override
+    public CompletableFuture<String> createOrderAsync(String marketId, OrderType orderType, BigDecimal quantity,
+                                                      BigDecimal price) {
+        final TrackedOrder order = orderPending(marketId, orderType, quantity, price);
+        final CompletableFuture<String> result = asyncTradingApi != null
+                ? asyncTradingApi.createOrderAsync(marketId, orderType, quantity, price)
+                : callNow(() -> exchangeAdapter.createOrder(marketId, orderType, quantity, price));
+        return result.whenComplete((orderId, e) -> {
+            if (e != null) {
+                orderFailed(order);
+            } else {
+                orderPlaced(orderId, order);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrderAsync(String orderId, String marketId) {
+        final CompletableFuture<Boolean> result = asyncTradingApi != null
+                ? asyncTradingApi.cancelOrderAsync(orderId, marketId)
+                : callNow(() -> exchangeAdapter.cancelOrder(orderId, marketId));
+        return result.whenComplete((cancelled, e) -> {
+            if (e != null) {
+                markStale();
+            } else {
+                orderCancelled(orderId, cancelled);
+            }
+        });
+    }
+
+    /*
+     * Answered from the local copy, so it only goes to the exchange when the local copy needs reconciling.
+     */
+    @Override
+    public CompletableFuture<BalanceInfo> getBalanceInfoAsync() {
+        return callNow(this::getBalanceInfo);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Balance tracking
+    // ------------------------------------------------------------------------------------------------
+
+    private void reconcile(BalanceInfo balanceInfo) {
+        balancesAvailable = copyOf(balanceInfo.getBalancesAvailable());
+        balancesOnHold = copyOf(balanceInfo.getBalancesOnHold());
+        lastReconciledAt = System.nanoTime();
+        // the exchange's balance info already includes these orders; later changes to them are picked up on the
+        // next reconcile
+        trackedOrders.clear();
+        // we can't tell if the exchange's balance info includes the orders still being placed
+        pendingOrders.forEach(order -> order.reconciledWhilePending = true);
+        reconcileCount.incrementAndGet();
+        LOG.debug(() -> "Balance info reconciled with exchange: " + balanceInfo);
+    }
+
+    private synchronized void markStale() {
+        changeCount++;
+        balancesAvailable = null;
+        balancesOnHold = null;
+    }
+
+    /*
+     * Called before the order is sent to the exchange. Moves the order's value from the available balance to the
+     * balance on hold: the counter currency for a buy order, the base currency for a sell order.
+     */
+    private synchronized TrackedOrder orderPending(String marketId, OrderType orderType, BigDecimal quantity,
+                                                   BigDecimal price) {
+        changeCount++;
+        final TrackedOrder order = new TrackedOrder(marketId, orderType, quantity, price);
+        pendingOrders.add(order);
+        if (orderType == OrderType.BUY) {
+            moveToOnHold(marketId, counterCurrency(marketId), quantity.multiply(price));
+        } else {
+            moveToOnHold(marketId, baseCurrency(marketId), quantity);
+        }
+        return order;
+    }
+
+    /*
+     * Starts tracking the order's fills. If the balance info was reconciled while the order was being placed, its
+     * hold may or may not be in it, so the balance info is reconciled again on the next read.
+     */
+    private synchronized void orderPlaced(String orderId, TrackedOrder order) {
+        changeCount++;
+        pendingOrders.remove(order);
+        if (order.reconciledWhilePending) {
+            markStale();
+            return;
+        }
+        trackedOrders.put(orderId, order);
+    }
+
+    /*
+     * The order might still have been placed, so the balance info is reconciled on the next read.
+     */
+    private synchronized void orderFailed(TrackedOrder order) {
+        pendingOrders.remove(order);
+        markStale();
+    }
+
+    /*
+     * Moves what is left of a cancelled order back to the available balance. The order might have been (partly)
+     * filled since we last saw it, so this is only as good as our last fill.
+     */
+    private synchronized void orderCancelled(String orderId, boolean cancelled) {
+        changeCount++;
+        final TrackedOrder order = trackedOrders.remove(orderId);
+        if (!cancelled || order == null) {
+            markStale();
+            return;
+        }
+        releaseRemaining(order);
+    }
+
+    /*
+     * Applies any new fill to the balances: a buy fill moves counter currency off hold and adds base currency to the
+     * available balance; a sell fill moves base currency off hold and adds counter currency.
+     */
+    private synchronized void orderStatusSeen(OrderStatus orderStatus) {
+        final TrackedOrder order = trackedOrders.get(orderStatus.getId());
+        if (order == null) {
+            return;
+        }
+        changeCount++;
+
+        final BigDecimal filledQuantity;
+        if (orderStatus.getFilledQuantity() != null) {
+            filledQuantity = orderStatus.getFilledQuantity();
+        } else if (orderStatus.getState() == OrderState.FILLED) {
+            // e.g. the Trading API's default getOrderStatus only knows the order has gone from the book
+            filledQuantity = order.quantity;
+        } else {
+            filledQuantity = order.filledQuantity;
+        }
+        final BigDecimal newlyFilled = filledQuantity.subtract(order.filledQuantity);
+        if (newlyFilled.signum() > 0) {
+            order.filledQuantity = filledQuantity;
+            final BigDecimal value = newlyFilled.multiply(order.price);
+            if (order.orderType == OrderType.BUY) {
+                adjust(order.marketId, balancesOnHold, counterCurrency(order.marketId), value.negate());
+                adjust(order.marketId, balancesAvailable, baseCurrency(order.marketId), newlyFilled);
+            } else {
+                adjust(order.marketId, balancesOnHold, baseCurrency(order.marketId), newlyFilled.negate());
+                adjust(order.marketId, balancesAvailable, counterCurrency(order.marketId), value);
+            }
+        }
+
+        final OrderState state = orderStatus.getState();
+        if (state == OrderState.FILLED) {
+            trackedOrders.remove(orderStatus.getId());
+        } else if (state == OrderState.CANCELLED) {
+            trackedOrders.remove(orderStatus.getId());
+            releaseRemaining(order);
+        }
+    }
+
+    private void releaseRemaining(TrackedOrder order) {
+        final BigDecimal remainingQuantity = order.quantity.subtract(order.filledQuantity);
+        if (order.orderType == OrderType.BUY) {
+            moveToOnHold(order.marketId, counterCurrency(order.marketId),
+                    remainingQuantity.multiply(order.price).negate());
+        } else {
+            moveToOnHold(order.marketId, baseCurrency(order.marketId), remainingQuantity.negate());
+        }
+    }
+
+    private void moveToOnHold(String marketId, String currency, BigDecimal amount) {
+        adjust(marketId, balancesAvailable, currency, amount.negate());
+        adjust(marketId, balancesOnHold, currency, amount);
+    }
+
+    /*
+     * Adds the amount to the balance. If there is no local copy, or the currency is not in it, there is nothing to
+     * adjust and the balance info is reconciled on the next read.
+     */
+    private void adjust(String marketId, Map<String, BigDecimal> balances, String currency, BigDecimal amount) {
+        if (balances == null) {
+            return;
+        }
+        if (currency == null || !balances.containsKey(currency)) {
+            LOG.warn(() -> "Cannot track balance locally for market " + marketId + " currency " + currency
+                    + " - balance info will be fetched from the exchange on the next read");
+            markStale();
+            return;
+        }
+        balances.put(currency, balances.get(currency).add(amount));
+    }
+
+    private String baseCurrency(String marketId) {
+        final Market market = markets.get(marketId);
+        return market != null ? market.getBaseCurrency() : null;
+    }
+
+    private String counterCurrency(String marketId) {
+        final Market market = markets.get(marketId);
+        return market != null ? market.getCounterCurrency() : null;
+    }
+
+    private static Map<String, BigDecimal> copyOf(Map<String, BigDecimal> balances) {
+        return balances != null ? new HashMap<>(balances) : new HashMap<>();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Runs a blocking call on the caller's thread for Exchange Adapters that do not support async calls.
+     */
+    private static <T> CompletableFuture<T> callNow(ExchangeCall<T> exchangeCall) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(exchangeCall.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /*
+     * A call to the exchange.
+     */
+    @FunctionalInterface
+    private interface ExchangeCall<T> {
+        T call() throws ExchangeNetworkException, TradingApiException;
+    }
+
+    /*
+     * An order placed through this adapter and how much of it we have seen filled. Compared by identity.
+     */
+    private static final class TrackedOrder {
+
+        private final String marketId;
+        private final OrderType orderType;
+        private final BigDecimal quantity;
+        private final BigDecimal price;
+        private BigDecimal filledQuantity = BigDecimal.ZERO;
+        private boolean reconciledWhilePending;
+
+        TrackedOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            this.marketId = marketId;
+            this.orderType = orderType;
+            this.quantity = quantity;
+            this.price = price;
+        }
+    }
+
+    /*
+     * A read-only snapshot of the local balance info.
+     */
+    private static final class TrackedBalanceInfo implements BalanceInfo {
+
+        private final Map<String, BigDecimal> balancesAvailable;
+        private final Map<String, BigDecimal> balancesOnHold;
+
+        TrackedBalanceInfo(Map<String, BigDecimal> balancesAvailable, Map<String, BigDecimal> balancesOnHold) {
+            this.balancesAvailable = Collections.unmodifiableMap(new HashMap<>(balancesAvailable));
+            this.balancesOnHold = Collections.unmodifiableMap(new HashMap<>(balancesOnHold));
+        }
+
+        @Override
+        public Map<String, BigDecimal> getBalancesAvailable() {
+            return balancesAvailable;
+        }
+
+        @Override
+        public Map<String, BigDecimal> getBalancesOnHold() {
+            return balancesOnHold;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("balancesAvailable", balancesAvailable)
+                    .add("balancesOnHold", balancesOnHold)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a Market's Trading Strategy with its trade cycle schedule.
+ * <p>
+ * Instances are held in the Trading Engine's DelayQueue and become available when the Market's next trade cycle
+ * is due. Each Market has its own trade cycle interval, so liquid markets can be traded more frequently than
+ * quiet ones.
+ * <p>
+ * The next trade cycle is scheduled using {@link TradeCycleScheduling#FIXED_DELAY} or
+ * {@link TradeCycleScheduling#FIXED_RATE} scheduling, and the Market's {@link TradeCycleStats} are updated after each
+ * trade cycle.
+ *
+ * @author gazbert
+ */
+final class ScheduledTradingStrategy implements Delayed {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final TradingStrategy tradingStrategy;
+    private final String marketName;
+    private final long tradeCycleIntervalInNanos;
+    private final int tradeCycleInterval;
+    private final TradeCycleScheduling tradeCycleScheduling;
+    private final MissedTradeCyclePolicy missedTradeCyclePolicy;
+    private final TradeCycleStats tradeCycleStats = new TradeCycleStats();
+
+    /*
+     * System.nanoTime() value when the next trade cycle is due.
+     */
+    private volatile long nextExecutionTime;
+
+
+    ScheduledTradingStrategy(TradingStrategy tradingStrategy, String marketName, int tradeCycleInterval,
+                             TradeCycleScheduling tradeCycleScheduling, MissedTradeCyclePolicy missedTradeCyclePolicy) {
+        this.tradingStrategy = tradingStrategy;
+        this.marketName = marketName;
+        this.tradeCycleInterval = tradeCycleInterval;
+        this.tradeCycleIntervalInNanos = TimeUnit.SECONDS.toNanos(tradeCycleInterval);
+        this.tradeCycleScheduling = tradeCycleScheduling;
+        this.missedTradeCyclePolicy = missedTradeCyclePolicy;
+
+        // 1st trade cycle is due immediately
+        this.nextExecutionTime = System.nanoTime();
+    }
+
+    TradingStrategy getTradingStrategy() {
+        return tradingStrategy;
+    }
+
+    String getMarketName() {
+        return marketName;
+    }
+
+    int getTradeCycleInterval() {
+        return tradeCycleInterval;
+    }
+
+    TradeCycleStats getTradeCycleStats() {
+        return tradeCycleStats;
+    }
+
+    long getNextExecutionTime() {
+        return nextExecutionTime;
+    }
+
+    /*
+     * Records the stats for the trade cycle that has just completed and schedules the next one.
+     * Times are System.nanoTime() values.
+     */
+    void scheduleNextExecution(long tradeCycleStartTime, long tradeCycleEndTime) {
+
+        final long scheduledStartTime = nextExecutionTime;
+        final long tradeCycleDuration = tradeCycleEndTime - tradeCycleStartTime;
+        tradeCycleStats.recordTradeCycle(
+                TimeUnit.NANOSECONDS.toMillis(Math.max(0, tradeCycleStartTime - scheduledStartTime)),
+                TimeUnit.NANOSECONDS.toMillis(tradeCycleDuration));
+
+        if (tradeCycleScheduling == TradeCycleScheduling.FIXED_DELAY) {
+
+            nextExecutionTime = tradeCycleEndTime + tradeCycleIntervalInNanos;
+            if (tradeCycleDuration > tradeCycleIntervalInNanos) {
+                tradeCycleStats.recordOverrun(0);
+                LOG.warn("Trade cycle for Market " + marketName + " took "
+                        + TimeUnit.NANOSECONDS.toMillis(tradeCycleDuration) + "ms - longer than its trade cycle"
+                        + " interval of " + tradeCycleInterval + "s");
+            }
+
+        } else {
+
+            final long nextScheduledStartTime = scheduledStartTime + tradeCycleIntervalInNanos;
+            final long overrunTime = tradeCycleEndTime - nextScheduledStartTime;
+            if (overrunTime < 0) {
+                nextExecutionTime = nextScheduledStartTime;
+                return;
+            }
+
+            // Overrun - 1 or more scheduled start times have already passed.
+            final long missedTradeCycles = overrunTime / tradeCycleIntervalInNanos + 1;
+            final long skippedTradeCycles;
+            if (missedTradeCyclePolicy == MissedTradeCyclePolicy.COALESCE) {
+                // run 1 trade cycle now in place of all the missed ones
+                nextExecutionTime = nextScheduledStartTime + (missedTradeCycles - 1) * tradeCycleIntervalInNanos;
+                skippedTradeCycles = missedTradeCycles - 1;
+            } else {
+                nextExecutionTime = nextScheduledStartTime + missedTradeCycles * tradeCycleIntervalInNanos;
+                skippedTradeCycles = missedTradeCycles;
+            }
+
+            tradeCycleStats.recordOverrun(skippedTradeCycles);
+            LOG.warn("Trade cycle for Market " + marketName + " overran its trade cycle interval of "
+                    + tradeCycleInterval + "s by " + TimeUnit.NANOSECONDS.toMillis(overrunTime) + "ms - "
+                    + missedTradeCycles + " trade cycle(s) missed and " + skippedTradeCycles + " skipped using "
+                    + missedTradeCyclePolicy + " policy. Stats: " + tradeCycleStats);
+        }
+    }
+
+    /*
+     * Schedules the next trade cycle without recording any stats - used when the Trading Strategy did not complete
+     * its trade cycle, i.e. it was skipped or interrupted for missing the strategy execution timeout.
+     * Any scheduled start times that have already passed are skipped.
+     */
+    void skipTradeCycle(long tradeCycleEndTime) {
+
+        if (tradeCycleScheduling == TradeCycleScheduling.FIXED_DELAY) {
+            nextExecutionTime = tradeCycleEndTime + tradeCycleIntervalInNanos;
+            return;
+        }
+
+        final long nextScheduledStartTime = nextExecutionTime + tradeCycleIntervalInNanos;
+        final long overrunTime = tradeCycleEndTime - nextScheduledStartTime;
+        nextExecutionTime = overrunTime < 0 ? nextScheduledStartTime
+                : nextScheduledStartTime + (overrunTime / tradeCycleIntervalInNanos + 1) * tradeCycleIntervalInNanos;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(nextExecutionTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other == this) {
+            return 0;
+        }
+        if (other instanceof ScheduledTradingStrategy) {
+            // nanoTime values must be compared by subtraction - they may overflow
+            final long diff = nextExecutionTime - ((ScheduledTradingStrategy) other).nextExecutionTime;
+            return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("tradingStrategy", tradingStrategy.getClass().getSimpleName())
+                .add("marketName", marketName)
+                .add("tradeCycleInterval", tradeCycleInterval)
+                .add("tradeCycleScheduling", tradeCycleScheduling)
+                .add("missedTradeCyclePolicy", missedTradeCyclePolicy)
+                .toString();
+    }
+}
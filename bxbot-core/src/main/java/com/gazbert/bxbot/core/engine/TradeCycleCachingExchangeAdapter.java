@@ -0,0 +1,428 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderStatus;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Decorates the Exchange Adapter with a cache that lasts for a single trade cycle.
+ * <p>
+ * Read-only Trading API calls are memoised until the Trading Engine starts the next trade cycle, so the Emergency Stop
+ * check and the Trading Strategies do not fetch identical data from the exchange more than once per trade cycle.
+ * Concurrent calls for the same data are single-flighted: the first caller goes to the exchange and the others wait
+ * for its result. Failed calls are not cached.
+ * <p>
+ * Creating or cancelling orders evicts the cached order books, open orders, and balance info, so the next call
+ * fetches fresh data from the exchange. Invalidating the exchange fees evicts the cached fees. Depth-limited order
+ * books and order statuses are cached separately for each depth and order id.
+ * <p>
+ * Cached results are shared between callers and must be treated as read-only.
+ * <p>
+ * The {@link AsyncTradingApi} calls share the same cache. They are passed on to the Exchange Adapter if it supports
+ * async calls; if it does not, they run the blocking call on the caller's thread and return a completed future.
+ *
+ * @author gazbert
+ */
+final class TradeCycleCachingExchangeAdapter implements ExchangeAdapter, AsyncTradingApi {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final String MARKET_ORDERS = "getMarketOrders";
+    private static final String MARKET_ORDERS_TO_DEPTH = "getMarketOrders/";
+    private static final String YOUR_OPEN_ORDERS = "getYourOpenOrders";
+    private static final String ORDER_STATUS = "getOrderStatus/";
+    private static final String LATEST_MARKET_PRICE = "getLatestMarketPrice";
+    private static final String BALANCE_INFO = "getBalanceInfo";
+    private static final String BUY_FEE = "getPercentageOfBuyOrderTakenForExchangeFee";
+    private static final String SELL_FEE = "getPercentageOfSellOrderTakenForExchangeFee";
+
+    private final ExchangeAdapter exchangeAdapter;
+
+    /*
+     * The Exchange Adapter's async API - null if it does not support async calls.
+     */
+    private final AsyncTradingApi asyncTradingApi;
+
+    /*
+     * Results for the current trade cycle. A future is added before the exchange is called so concurrent callers can
+     * wait for the same result.
+     */
+    private final ConcurrentMap<CacheKey, CompletableFuture<Object>> tradeCycleCache = new ConcurrentHashMap<>();
+
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+
+
+    TradeCycleCachingExchangeAdapter(ExchangeAdapter exchangeAdapter) {
+        this.exchangeAdapter = exchangeAdapter;
+        this.asyncTradingApi = exchangeAdapter instanceof AsyncTradingApi ? (AsyncTradingApi) exchangeAdapter : null;
+    }
+
+    /*
+     * Called by the Trading Engine at the start of each trade cycle to throw away the previous trade cycle's results.
+     */
+    void startTradeCycle() {
+        tradeCycleCache.clear();
+    }
+
+    long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Exchange Adapter API
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public void init(ExchangeConfig config) {
+        exchangeAdapter.init(config);
+    }
+
+    @Override
+    public String getVersion() {
+        return exchangeAdapter.getVersion();
+    }
+
+    @Override
+    public String getImplName() {
+        return exchangeAdapter.getImplName();
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return getFromCache(MARKET_ORDERS, marketId, () -> exchangeAdapter.getMarketOrders(marketId));
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        return getFromCache(MARKET_ORDERS_TO_DEPTH + depth, marketId,
+                () -> exchangeAdapter.getMarketOrders(marketId, depth));
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return getFromCache(YOUR_OPEN_ORDERS, marketId, () -> exchangeAdapter.getYourOpenOrders(marketId));
+    }
+
+    @Override
+    public OrderStatus getOrderStatus(String orderId, String marketId)
+            throws ExchangeNetworkException, TradingApiException {
+        return getFromCache(ORDER_STATUS + orderId, marketId, () -> exchangeAdapter.getOrderStatus(orderId, marketId));
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException {
+        try {
+            return exchangeAdapter.createOrder(marketId, orderType, quantity, price);
+        } finally {
+            evictOrderData(marketId);
+        }
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+        try {
+            return exchangeAdapter.cancelOrder(orderId, marketId);
+        } finally {
+            evictOrderData(marketId);
+        }
+    }
+
+    @Override
+    public List<String> createOrders(List<OrderRequest> orderRequests)
+            throws ExchangeNetworkException, TradingApiException {
+        try {
+            return exchangeAdapter.createOrders(orderRequests);
+        } finally {
+            orderRequests.stream().map(OrderRequest::getMarketId).distinct().forEach(this::evictOrderData);
+        }
+    }
+
+    @Override
+    public boolean cancelOrders(List<String> orderIds, String marketId)
+            throws ExchangeNetworkException, TradingApiException {
+        try {
+            return exchangeAdapter.cancelOrders(orderIds, marketId);
+        } finally {
+            evictOrderData(marketId);
+        }
+    }
+
+    @Override
+    public boolean cancelAllOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        try {
+            return exchangeAdapter.cancelAllOrders(marketId);
+        } finally {
+            evictOrderData(marketId);
+        }
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return getFromCache(LATEST_MARKET_PRICE, marketId, () -> exchangeAdapter.getLatestMarketPrice(marketId));
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+        return getFromCache(BALANCE_INFO, null, exchangeAdapter::getBalanceInfo);
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return getFromCache(BUY_FEE, marketId,
+                () -> exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return getFromCache(SELL_FEE, marketId,
+                () -> exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+    }
+
+    @Override
+    public void invalidateExchangeFees() {
+        exchangeAdapter.invalidateExchangeFees();
+        tradeCycleCache.keySet().removeIf(cacheKey -> cacheKey.operation.equals(BUY_FEE)
+                || cacheKey.operation.equals(SELL_FEE));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Async Trading API
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId) {
+        return getFromCacheAsync(MARKET_ORDERS, marketId, () -> asyncTradingApi != null
+                ? asyncTradingApi.getMarketOrdersAsync(marketId)
+                : callNow(() -> exchangeAdapter.getMarketOrders(marketId)));
+    }
+
+    @Override
+    public CompletableFuture<List<OpenOrder>> getYourOpenOrdersAsync(String marketId) {
+        return getFromCacheAsync(YOUR_OPEN_ORDERS, marketId, () -> asyncTradingApi != null
+                ? asyncTradingApi.getYourOpenOrdersAsync(marketId)
+                : callNow(() -> exchangeAdapter.getYourOpenOrders(marketId)));
+    }
+
+    @Override
+    public CompletableFuture<String> createOrderAsync(String marketId, OrderType orderType, BigDecimal quantity,
+                                                      BigDecimal price) {
+        final CompletableFuture<String> result = asyncTradingApi != null
+                ? asyncTradingApi.createOrderAsync(marketId, orderType, quantity, price)
+                : callNow(() -> exchangeAdapter.createOrder(marketId, orderType, quantity, price));
+        return result.whenComplete((orderId, e) -> evictOrderData(marketId));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrderAsync(String orderId, String marketId) {
+        final CompletableFuture<Boolean> result = asyncTradingApi != null
+                ? asyncTradingApi.cancelOrderAsync(orderId, marketId)
+                : callNow(() -> exchangeAdapter.cancelOrder(orderId, marketId));
+        return result.whenComplete((cancelled, e) -> evictOrderData(marketId));
+    }
+
+    @Override
+    public CompletableFuture<BalanceInfo> getBalanceInfoAsync() {
+        return getFromCacheAsync(BALANCE_INFO, null, () -> asyncTradingApi != null
+                ? asyncTradingApi.getBalanceInfoAsync()
+                : callNow(exchangeAdapter::getBalanceInfo));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private <T> T getFromCache(String operation, String marketId, ExchangeCall<T> exchangeCall)
+            throws ExchangeNetworkException, TradingApiException {
+
+        final CacheKey cacheKey = new CacheKey(operation, marketId);
+        final CompletableFuture<Object> newResult = new CompletableFuture<>();
+        final CompletableFuture<Object> cachedResult = tradeCycleCache.putIfAbsent(cacheKey, newResult);
+
+        if (cachedResult != null) {
+            cacheHitCount.incrementAndGet();
+            LOG.debug(() -> "Trade cycle cache hit: " + cacheKey);
+            return (T) waitForResult(cachedResult);
+        }
+
+        cacheMissCount.incrementAndGet();
+        try {
+            final T result = exchangeCall.call();
+            newResult.complete(result);
+            return result;
+        } catch (final Throwable e) {
+            // Don't cache failures - the next call will go to the exchange again.
+            tradeCycleCache.remove(cacheKey, newResult);
+            newResult.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> getFromCacheAsync(String operation, String marketId,
+                                                       Supplier<CompletableFuture<T>> exchangeCall) {
+
+        final CacheKey cacheKey = new CacheKey(operation, marketId);
+        final CompletableFuture<Object> newResult = new CompletableFuture<>();
+        final CompletableFuture<Object> cachedResult = tradeCycleCache.putIfAbsent(cacheKey, newResult);
+
+        if (cachedResult != null) {
+            cacheHitCount.incrementAndGet();
+            LOG.debug(() -> "Trade cycle cache hit: " + cacheKey);
+            // hand out a dependent future so callers cannot complete the cached one
+            return cachedResult.thenApply(result -> (T) result);
+        }
+
+        cacheMissCount.incrementAndGet();
+        exchangeCall.get().whenComplete((result, e) -> {
+            if (e != null) {
+                // Don't cache failures - the next call will go to the exchange again.
+                tradeCycleCache.remove(cacheKey, newResult);
+                newResult.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                        ? e.getCause() : e);
+            } else {
+                newResult.complete(result);
+            }
+        });
+        return newResult.thenApply(result -> (T) result);
+    }
+
+    /*
+     * Runs a blocking call on the caller's thread for Exchange Adapters that do not support async calls.
+     */
+    private static <T> CompletableFuture<T> callNow(ExchangeCall<T> exchangeCall) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(exchangeCall.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static Object waitForResult(CompletableFuture<Object> result)
+            throws ExchangeNetworkException, TradingApiException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExchangeNetworkException("Interrupted while waiting for exchange response", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ExchangeNetworkException) {
+                throw (ExchangeNetworkException) cause;
+            } else if (cause instanceof TradingApiException) {
+                throw (TradingApiException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TradingApiException("Unexpected error waiting for exchange response", cause);
+        }
+    }
+
+    private void evictOrderData(String marketId) {
+        tradeCycleCache.remove(new CacheKey(MARKET_ORDERS, marketId));
+        tradeCycleCache.keySet().removeIf(cacheKey -> cacheKey.operation.startsWith(MARKET_ORDERS_TO_DEPTH)
+                && Objects.equal(cacheKey.marketId, marketId));
+        tradeCycleCache.remove(new CacheKey(YOUR_OPEN_ORDERS, marketId));
+        tradeCycleCache.keySet().removeIf(cacheKey -> cacheKey.operation.startsWith(ORDER_STATUS)
+                && Objects.equal(cacheKey.marketId, marketId));
+        tradeCycleCache.remove(new CacheKey(BALANCE_INFO, null));
+    }
+
+    /*
+     * A call to the exchange that might be cached.
+     */
+    @FunctionalInterface
+    private interface ExchangeCall<T> {
+        T call() throws ExchangeNetworkException, TradingApiException;
+    }
+
+    private static final class CacheKey {
+
+        private final String operation;
+        private final String marketId;
+
+        CacheKey(String operation, String marketId) {
+            this.operation = operation;
+            this.marketId = marketId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final CacheKey that = (CacheKey) o;
+            return Objects.equal(operation, that.operation) && Objects.equal(marketId, that.marketId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(operation, marketId);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("operation", operation)
+                    .add("marketId", marketId)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+/**
+ * How the Trading Engine schedules each Market's next trade cycle.
+ *
+ * @author gazbert
+ */
+enum TradeCycleScheduling {
+
+    /**
+     * The next trade cycle starts 1 trade cycle interval after the previous one completed. The actual period between
+     * trade cycles drifts by however long each trade cycle takes. This is the default.
+     */
+    FIXED_DELAY,
+
+    /**
+     * The next trade cycle starts 1 trade cycle interval after the previous one was scheduled to start. The time taken
+     * to execute the trade cycle is subtracted from the wait, so the period does not drift. A trade cycle that takes
+     * longer than the interval is an overrun; the missed trade cycles are handled by the {@link MissedTradeCyclePolicy}.
+     */
+    FIXED_RATE
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Trade cycle statistics for a Market.
+ * <p>
+ * Jitter is how late a trade cycle started compared to when it was scheduled to start. An overrun is a trade cycle
+ * that did not complete before the next one was due.
+ * <p>
+ * Updated by the Trading Engine thread; safe to read from other threads.
+ *
+ * @author gazbert
+ */
+public final class TradeCycleStats {
+
+    private long tradeCycleCount;
+    private long overrunCount;
+    private long skippedTradeCycleCount;
+
+    private long lastJitterInMillis;
+    private long maxJitterInMillis;
+    private long totalJitterInMillis;
+
+    private long lastDurationInMillis;
+    private long maxDurationInMillis;
+
+
+    synchronized void recordTradeCycle(long jitterInMillis, long durationInMillis) {
+        tradeCycleCount++;
+
+        lastJitterInMillis = jitterInMillis;
+        maxJitterInMillis = Math.max(maxJitterInMillis, jitterInMillis);
+        totalJitterInMillis += jitterInMillis;
+
+        lastDurationInMillis = durationInMillis;
+        maxDurationInMillis = Math.max(maxDurationInMillis, durationInMillis);
+    }
+
+    synchronized void recordOverrun(long skippedTradeCycles) {
+        overrunCount++;
+        skippedTradeCycleCount += skippedTradeCycles;
+    }
+
+    public synchronized long getTradeCycleCount() {
+        return tradeCycleCount;
+    }
+
+    public synchronized long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public synchronized long getSkippedTradeCycleCount() {
+        return skippedTradeCycleCount;
+    }
+
+    public synchronized long getLastJitterInMillis() {
+        return lastJitterInMillis;
+    }
+
+    public synchronized long getMaxJitterInMillis() {
+        return maxJitterInMillis;
+    }
+
+    public synchronized long getMeanJitterInMillis() {
+        return tradeCycleCount == 0 ? 0 : totalJitterInMillis / tradeCycleCount;
+    }
+
+    public synchronized long getLastDurationInMillis() {
+        return lastDurationInMillis;
+    }
+
+    public synchronized long getMaxDurationInMillis() {
+        return maxDurationInMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("tradeCycleCount", tradeCycleCount)
+                .add("overrunCount", overrunCount)
+                .add("skippedTradeCycleCount", skippedTradeCycleCount)
+                .add("lastJitterInMillis", lastJitterInMillis)
+                .add("maxJitterInMillis", maxJitterInMillis)
+                .add("meanJitterInMillis", getMeanJitterInMillis())
+                .add("lastDurationInMillis", lastDurationInMillis)
+                .add("maxDurationInMillis", maxDurationInMillis)
+                .toString();
+    }
+}
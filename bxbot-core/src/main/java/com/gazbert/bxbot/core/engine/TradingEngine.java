@@ -27,6 +27,7 @@ import com.gazbert.bxbot.core.config.exchange.AuthenticationConfigImpl;
 import com.gazbert.bxbot.core.config.exchange.ExchangeConfigImpl;
 import com.gazbert.bxbot.core.config.exchange.NetworkConfigImpl;
 import com.gazbert.bxbot.core.config.exchange.OptionalConfigImpl;
+import com.gazbert.bxbot.core.config.exchange.RateLimitConfigImpl;
 import com.gazbert.bxbot.core.config.market.MarketImpl;
 import com.gazbert.bxbot.core.config.strategy.StrategyConfigItems;
 import com.gazbert.bxbot.core.mail.EmailAlerter;
@@ -36,6 +37,7 @@ import com.gazbert.bxbot.domain.exchange.AuthenticationConfig;
 import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
 import com.gazbert.bxbot.domain.exchange.NetworkConfig;
 import com.gazbert.bxbot.domain.exchange.OptionalConfig;
+import com.gazbert.bxbot.domain.exchange.RateLimitConfig;
 import com.gazbert.bxbot.domain.market.MarketConfig;
 import com.gazbert.bxbot.domain.strategy.StrategyConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
@@ -48,7 +50,9 @@ import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
 import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -61,6 +65,7 @@ import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * The main Trading Engine.
@@ -71,8 +76,20 @@ import java.util.*;
  * The only time the bot does not fail hard and fast is for network issues connecting to the exchange - it logs the error
  * and retries at next trade cycle.
  * <p>
+ * Each Market has its own trade cycle schedule: a Market can be configured with its own trade cycle interval, otherwise
+ * the engine's trade cycle interval is used. The engine's trade cycle interval is also the maximum time between
+ * Emergency Stop checks. Trade cycles are scheduled at a fixed delay by default; fixed rate scheduling can be configured
+ * to stop the period drifting by the time each trade cycle takes. Trade cycle jitter and overrun stats are kept for each
+ * Market.
+ * <p>
+ * If trade cycle caching is configured, read-only Trading API calls are cached for the duration of each trade cycle so
+ * the Emergency Stop check and the Trading Strategies share the data fetched from the exchange.
+ * <p>
  * To keep things simple:
- * - The engine is single threaded.
+ * - The engine is single threaded by default. If more than 1 strategy execution thread is configured, each Market's
+ *   Trading Strategy is executed on a worker from a bounded pool and the engine waits (up to a configured deadline)
+ *   for them all to complete before starting the next trade cycle. The Exchange Adapter must be thread safe to run
+ *   in this mode.
  * - The engine only supports trading on 1 exchange per instance of the bot, i.e. 1 Exchange Adapter per process.
  * - The engine only supports 1 Trading Strategy per Market.
  *
@@ -92,10 +109,48 @@ public class TradingEngine {
     private static final String HORIZONTAL_RULE = "--------------------------------------------------" + NEWLINE;
 
     /*
-     * Trade execution interval in secs. The time we wait/sleep in between trade cycles.
+     * Trade execution interval in secs. The time we wait/sleep in between trade cycles for Markets that do not have
+     * their own trade cycle interval configured.
      */
     private static int tradeExecutionInterval;
 
+    /*
+     * How each Market's next trade cycle is scheduled.
+     */
+    private TradeCycleScheduling tradeCycleScheduling;
+
+    /*
+     * What to do with missed trade cycles after an overrun when using fixed rate scheduling.
+     */
+    private MissedTradeCyclePolicy missedTradeCyclePolicy;
+
+    /*
+     * Trade cycle stats for each Market, keyed by Market name.
+     */
+    private final Map<String, TradeCycleStats> tradeCycleStats = new ConcurrentHashMap<>();
+
+    /*
+     * Number of worker threads used to execute the Trading Strategies. A value of 1 means the strategies are executed
+     * sequentially on the engine thread.
+     */
+    private int strategyExecutionThreads;
+
+    /*
+     * Deadline in secs for the Trading Strategies to complete a trade cycle when they are executed concurrently.
+     */
+    private int strategyExecutionTimeout;
+
+    /*
+     * Executes the Trading Strategies concurrently. Only created if more than 1 strategy execution thread is configured.
+     */
+    private ExecutorService strategyExecutor;
+
+    /*
+     * Trading Strategies currently being executed by a worker. A strategy that overran its deadline in a previous trade
+     * cycle is skipped until it has finished - we never send more than 1 thread through a strategy at a time.
+     */
+    private final Set<TradingStrategy> strategiesBeingExecuted = ConcurrentHashMap.newKeySet();
+
     /*
      * Control flag decides if the Trading Engine lives or dies.
      */
@@ -122,9 +177,15 @@ public class TradingEngine {
     private final Map<String, StrategyConfig> strategyDescriptions = new HashMap<>();
 
     /*
-     * List of cached Trading Strategy implementations for the Trade Engine to execute.
+     * Cached Trading Strategy implementations for the Trade Engine to execute, ordered by when each Market's next
+     * trade cycle is due.
+     */
+    private final DelayQueue<ScheduledTradingStrategy> tradingStrategySchedule = new DelayQueue<>();
+
+    /*
+     * Ids of the Markets being traded; their open orders are cancelled if the Emergency Stop is triggered.
      */
-    private final List<TradingStrategy> tradingStrategiesToExecute = new ArrayList<>();
+    private final List<String> tradingMarketIds = new ArrayList<>();
 
     /*
      * The emergency stop currency value is used to prevent a catastrophic loss on the exchange.
@@ -151,6 +212,23 @@ public class TradingEngine {
     private final EmailAlerter emailAlerter;
     private ExchangeAdapter exchangeAdapter;
 
+    /*
+     * The Trading API used by the engine and the Trading Strategies - the Exchange Adapter, or the trade cycle cache
+     * decorating it if trade cycle caching is configured.
+     */
+    private TradingApi tradingApi;
+
+    /*
+     * Caches exchange data for the duration of each trade cycle. Only created if trade cycle caching is configured.
+     */
+    private TradeCycleCachingExchangeAdapter tradeCycleCache;
+
+    /*
+     * Tracks balances locally between reconciles with the exchange. Only created if a balance reconcile interval is
+     * configured.
+     */
+    private BalanceTrackingExchangeAdapter balanceTracker;
+
     // Services
     private final ExchangeConfigService exchangeConfigService;
     private final EngineConfigService engineConfigService;
@@ -214,46 +292,55 @@ public class TradingEngine {
 
         while (keepAlive) {
 
+            final List<ScheduledTradingStrategy> dueTradingStrategies = new ArrayList<>();
+            final List<ScheduledTradingStrategy> executedTradingStrategies = new ArrayList<>();
+            long tradeCycleStartTime = System.nanoTime();
+
             try {
 
+                if (!waitForNextTradeCycle(dueTradingStrategies)) {
+                    continue; // interrupted - check if we've been asked to shutdown
+                }
+                tradeCycleStartTime = System.nanoTime();
+
+                if (tradeCycleCache != null) {
+                    tradeCycleCache.startTradeCycle();
+                }
+
                 LOG.info(() -> "*** Starting next trade cycle... ***");
 
                 // Emergency Stop Check MUST run at start of every trade cycle.
                 if (isEmergencyStopLimitBreached()) {
+                    cancelAllOpenOrders();
                     break;
                 }
 
-                // Execute the Trading Strategies
-                for (final TradingStrategy tradingStrategy : tradingStrategiesToExecute) {
-                    LOG.info(() -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
-                    tradingStrategy.execute();
+                // Execute the Trading Strategies for the Markets that are due
+                if (strategyExecutor == null) {
+                    for (final ScheduledTradingStrategy dueTradingStrategy : dueTradingStrategies) {
+                        final TradingStrategy tradingStrategy = dueTradingStrategy.getTradingStrategy();
+                        LOG.info(() -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName()
+                                + " for Market: " + dueTradingStrategy.getMarketName());
+                        tradingStrategy.execute();
+                        executedTradingStrategies.add(dueTradingStrategy);
+                    }
+                } else {
+                    executeTradingStrategiesConcurrently(dueTradingStrategies, executedTradingStrategies);
                 }
 
-                LOG.info(() -> "*** Sleeping " + tradeExecutionInterval + "s til next trade cycle... ***");
-
-                try {
-                    Thread.sleep(tradeExecutionInterval * 1000);
-                } catch (InterruptedException e) {
-                    LOG.warn("Control Loop thread interrupted when sleeping before next trade cycle");
-                    Thread.currentThread().interrupt();
-                }
+                scheduleNextTradeCycle(dueTradingStrategies, executedTradingStrategies, tradeCycleStartTime);
 
             } catch (ExchangeNetworkException e) {
 
                 /*
                  * We have a network connection issue reported by Exchange Adapter when called directly from
-                 * Trading Engine. Current policy is to log it and sleep until next trade cycle.
+                 * Trading Engine. Current policy is to log it and wait until next trade cycle.
                  */
                 final String WARNING_MSG = "A network error has occurred in Exchange Adapter! " +
-                        "BX-bot will attempt next trade in " + tradeExecutionInterval + "s...";
+                        "BX-bot will attempt next trade at next scheduled trade cycle...";
                 LOG.error(WARNING_MSG, e);
 
-                try {
-                    Thread.sleep(tradeExecutionInterval * 1000);
-                } catch (InterruptedException e1) {
-                    LOG.warn("Control Loop thread interrupted when sleeping before next trade cycle");
-                    Thread.currentThread().interrupt();
-                }
+                scheduleNextTradeCycle(dueTradingStrategies, executedTradingStrategies, tradeCycleStartTime);
 
             } catch (TradingApiException e) {
 
@@ -300,11 +387,158 @@ public class TradingEngine {
         }
 
         LOG.fatal("BX-bot " + botId + " is shutting down NOW!");
+        if (strategyExecutor != null) {
+            strategyExecutor.shutdownNow();
+        }
         synchronized (IS_RUNNING_MONITOR) {
             isRunning = false;
         }
     }
 
+    /*
+     * Waits for the next trade cycle to be due and collects the Trading Strategies of all Markets that are due.
+     * If no Market is due within the engine's trade cycle interval, the trade cycle only runs the Emergency Stop check.
+     *
+     * Returns false if the Control Loop thread was interrupted while waiting.
+     */
+    private boolean waitForNextTradeCycle(List<ScheduledTradingStrategy> dueTradingStrategies) {
+
+        try {
+            final ScheduledTradingStrategy nextDueTradingStrategy =
+                    tradingStrategySchedule.poll(tradeExecutionInterval, TimeUnit.SECONDS);
+            if (nextDueTradingStrategy != null) {
+                dueTradingStrategies.add(nextDueTradingStrategy);
+                tradingStrategySchedule.drainTo(dueTradingStrategies); // only drains Markets that are also due
+            }
+            return true;
+        } catch (InterruptedException e) {
+            LOG.warn("Control Loop thread interrupted when sleeping before next trade cycle");
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+     * Puts the Trading Strategies back on the schedule, each due again at its Market's next trade cycle.
+     * Trade cycle stats are only recorded for the Trading Strategies that completed their trade cycle - a strategy that
+     * was skipped or interrupted for missing the strategy execution timeout is rescheduled without recording one.
+     */
+    private void scheduleNextTradeCycle(List<ScheduledTradingStrategy> dueTradingStrategies,
+                                        List<ScheduledTradingStrategy> executedTradingStrategies,
+                                        long tradeCycleStartTime) {
+
+        final long tradeCycleEndTime = System.nanoTime();
+        for (final ScheduledTradingStrategy dueTradingStrategy : dueTradingStrategies) {
+            if (executedTradingStrategies.contains(dueTradingStrategy)) {
+                dueTradingStrategy.scheduleNextExecution(tradeCycleStartTime, tradeCycleEndTime);
+                LOG.debug(() -> "Trade cycle stats for Market " + dueTradingStrategy.getMarketName() + ": "
+                        + dueTradingStrategy.getTradeCycleStats());
+            } else {
+                dueTradingStrategy.skipTradeCycle(tradeCycleEndTime);
+            }
+            tradingStrategySchedule.add(dueTradingStrategy);
+        }
+
+        if (tradeCycleCache != null) {
+            LOG.info(() -> "Trade cycle cache hits: " + tradeCycleCache.getCacheHitCount()
+                    + " misses: " + tradeCycleCache.getCacheMissCount());
+        }
+
+        if (balanceTracker != null) {
+            LOG.info(() -> "Balance tracker local reads: " + balanceTracker.getLocalReadCount()
+                    + " reconciles: " + balanceTracker.getReconcileCount());
+        }
+
+        final ScheduledTradingStrategy nextDueTradingStrategy = tradingStrategySchedule.peek();
+        final long secsTilNextTradeCycle = nextDueTradingStrategy == null ? tradeExecutionInterval
+                : Math.min(tradeExecutionInterval, Math.max(0, nextDueTradingStrategy.getDelay(TimeUnit.SECONDS)));
+        LOG.info(() -> "*** Sleeping " + secsTilNextTradeCycle + "s til next trade cycle... ***");
+    }
+
+    /*
+     * Executes each Trading Strategy on a worker from the strategy executor pool and waits for them all to complete.
+     * Any strategy that has not completed by the strategy execution timeout is interrupted; the next trade cycle will
+     * skip it until it has finished executing.
+     *
+     * A StrategyException or unexpected exception thrown by a strategy is re-thrown to the main control loop so the
+     * engine's error policy is the same as for sequential execution.
+     *
+     * The strategies that completed their trade cycle are added to the executedTradingStrategies list.
+     */
+    private void executeTradingStrategiesConcurrently(List<ScheduledTradingStrategy> dueTradingStrategies,
+                                                      List<ScheduledTradingStrategy> executedTradingStrategies)
+            throws StrategyException {
+
+        final List<ScheduledTradingStrategy> strategiesToExecute = new ArrayList<>();
+        final List<Callable<Void>> executionTasks = new ArrayList<>();
+
+        for (final ScheduledTradingStrategy dueTradingStrategy : dueTradingStrategies) {
+
+            final TradingStrategy tradingStrategy = dueTradingStrategy.getTradingStrategy();
+
+            if (strategiesBeingExecuted.contains(tradingStrategy)) {
+                LOG.warn("Trading Strategy " + tradingStrategy.getClass().getSimpleName() + " is still executing from"
+                        + " a previous trade cycle - skipping it in this trade cycle");
+                continue;
+            }
+
+            strategiesToExecute.add(dueTradingStrategy);
+            executionTasks.add(() -> {
+                strategiesBeingExecuted.add(tradingStrategy);
+                try {
+                    LOG.info(() -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName()
+                            + " for Market: " + dueTradingStrategy.getMarketName());
+                    tradingStrategy.execute();
+                    return null;
+                } finally {
+                    strategiesBeingExecuted.remove(tradingStrategy);
+                }
+            });
+        }
+
+        final List<Future<Void>> executionResults;
+        try {
+            executionResults = strategyExecutor.invokeAll(executionTasks, strategyExecutionTimeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            LOG.warn("Control Loop thread interrupted when waiting for Trading Strategies to complete trade cycle");
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        for (int i = 0; i < executionResults.size(); i++) {
+
+            final ScheduledTradingStrategy executedTradingStrategy = strategiesToExecute.get(i);
+            final String tradingStrategyName =
+                    executedTradingStrategy.getTradingStrategy().getClass().getSimpleName();
+            final Future<Void> executionResult = executionResults.get(i);
+
+            if (executionResult.isCancelled()) {
+                LOG.warn("Trading Strategy " + tradingStrategyName + " did not complete within the strategy execution"
+                        + " timeout of " + strategyExecutionTimeout + "s - it has been interrupted");
+                continue;
+            }
+
+            try {
+                executionResult.get();
+                executedTradingStrategies.add(executedTradingStrategy);
+            } catch (InterruptedException e) {
+                // Should not happen - invokeAll only returns once every task has completed or been cancelled.
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                LOG.error("Trading Strategy " + tradingStrategyName + " failed to complete trade cycle", cause);
+                if (cause instanceof StrategyException) {
+                    throw (StrategyException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
     /*
      * Shutdown the Trading Engine.
      * Might be called from a different thread.
@@ -319,6 +553,15 @@ public class TradingEngine {
         engineThread.interrupt(); // poke it in case bot is sleeping
     }
 
+    /**
+     * Returns the trade cycle stats for each Market being traded, keyed by Market name.
+     *
+     * @return the trade cycle stats.
+     */
+    public Map<String, TradeCycleStats> getTradeCycleStats() {
+        return Collections.unmodifiableMap(tradeCycleStats);
+    }
+
     synchronized boolean isRunning() {
         LOG.info(() -> "isRunning: " + isRunning);
         return isRunning;
@@ -346,7 +589,7 @@ public class TradingEngine {
 
         BalanceInfo balanceInfo;
         try {
-            balanceInfo = exchangeAdapter.getBalanceInfo();
+            balanceInfo = tradingApi.getBalanceInfo();
         } catch (TradingApiException e) {
             final String errorMsg = "Failed to get Balance info from exchange to perform Emergency Stop check - letting"
                     + " Trade Engine error policy decide what to do next...";
@@ -392,6 +635,23 @@ public class TradingEngine {
         return isEmergencyStopLimitBreached;
     }
 
+    /*
+     * Cancels the open orders on every Market being traded so nothing is left on the exchange when the bot shuts down.
+     * A failure on one Market is logged and does not stop us cancelling the orders on the others.
+     */
+    private void cancelAllOpenOrders() {
+        for (final String marketId : tradingMarketIds) {
+            try {
+                LOG.warn(() -> "Emergency Stop: cancelling all open orders for Market: " + marketId);
+                if (!tradingApi.cancelAllOrders(marketId)) {
+                    LOG.error("Emergency Stop: failed to cancel all open orders for Market: " + marketId);
+                }
+            } catch (Exception e) {
+                LOG.error("Emergency Stop: failed to cancel all open orders for Market: " + marketId, e);
+            }
+        }
+    }
+
     private String buildCriticalEmailAlertMsgContent(String errorDetails, Throwable exception) {
 
         final StringBuilder msgContent = new StringBuilder("A CRITICAL error event has occurred on BX-bot.");
@@ -462,6 +722,8 @@ public class TradingEngine {
 
             final NetworkConfigImpl adapterNetworkConfig = new NetworkConfigImpl();
             adapterNetworkConfig.setConnectionTimeout(networkConfig.getConnectionTimeout());
+            adapterNetworkConfig.setMaxConnectionsPerHost(networkConfig.getMaxConnectionsPerHost());
+            adapterNetworkConfig.setIdleConnectionTimeout(networkConfig.getIdleConnectionTimeout());
 
             // Grab optional non-fatal error codes
             final List<Integer> nonFatalErrorCodes = networkConfig.getNonFatalErrorCodes();
@@ -483,6 +745,22 @@ public class TradingEngine {
                                 + exchangeAdapter.getImplName());
             }
 
+            // Grab optional rate limits
+            final List<RateLimitConfig> rateLimits = networkConfig.getRateLimits();
+            if (rateLimits != null) {
+                for (final RateLimitConfig rateLimit : rateLimits) {
+                    final RateLimitConfigImpl adapterRateLimit = new RateLimitConfigImpl();
+                    adapterRateLimit.setEndpointClass(rateLimit.getEndpointClass());
+                    adapterRateLimit.setMaxRequests(rateLimit.getMaxRequests());
+                    adapterRateLimit.setPeriod(rateLimit.getPeriod());
+                    adapterNetworkConfig.getRateLimits().add(adapterRateLimit);
+                }
+            } else {
+                LOG.info(() ->
+                        "No (optional) NetworkConfiguration RateLimits have been set for Exchange Adapter: "
+                                + exchangeAdapter.getImplName());
+            }
+
             adapterExchangeConfig.setNetworkConfig(adapterNetworkConfig);
             LOG.info(() -> "NetworkConfiguration has been set: " + adapterNetworkConfig);
 
@@ -533,6 +811,56 @@ public class TradingEngine {
         tradeExecutionInterval = engineConfig.getTradeCycleInterval();
         emergencyStopCurrency = engineConfig.getEmergencyStopCurrency();
         emergencyStopBalance = engineConfig.getEmergencyStopBalance();
+
+        // Optional config for trade cycle scheduling - defaults to fixed delay.
+        final String scheduling = engineConfig.getTradeCycleScheduling();
+        tradeCycleScheduling = scheduling != null
+                ? TradeCycleScheduling.valueOf(scheduling) : TradeCycleScheduling.FIXED_DELAY;
+
+        final String missedPolicy = engineConfig.getMissedTradeCyclePolicy();
+        missedTradeCyclePolicy = missedPolicy != null
+                ? MissedTradeCyclePolicy.valueOf(missedPolicy) : MissedTradeCyclePolicy.SKIP;
+
+        LOG.info(() -> "Trade cycles will be scheduled using " + tradeCycleScheduling + " scheduling with "
+                + missedTradeCyclePolicy + " policy for missed trade cycles");
+
+        // Optional config for concurrent strategy execution - defaults to sequential execution on the engine thread.
+        final Integer executionThreads = engineConfig.getStrategyExecutionThreads();
+        strategyExecutionThreads = executionThreads != null ? executionThreads : 1;
+
+        final Integer executionTimeout = engineConfig.getStrategyExecutionTimeout();
+        strategyExecutionTimeout = executionTimeout != null ? executionTimeout : tradeExecutionInterval;
+
+        if (strategyExecutionThreads > 1) {
+            LOG.info(() -> "Trading Strategies will be executed concurrently using " + strategyExecutionThreads
+                    + " threads with a strategy execution timeout of " + strategyExecutionTimeout + "s");
+            LOG.warn("Concurrent strategy execution is enabled - the Exchange Adapter MUST be thread safe!");
+
+            strategyExecutor = Executors.newFixedThreadPool(strategyExecutionThreads, new ThreadFactoryBuilder()
+                    .setNameFormat("bxbot-strategy-executor-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+
+        // Optional config for caching exchange data for the duration of each trade cycle - disabled by default.
+        final Boolean caching = engineConfig.getTradeCycleCaching();
+        if (caching != null && caching) {
+            LOG.info(() -> "Read-only Trading API calls will be cached for the duration of each trade cycle");
+            tradeCycleCache = new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+            tradingApi = tradeCycleCache;
+        } else {
+            tradingApi = exchangeAdapter;
+        }
+
+        // Optional config for tracking balances locally between reconciles with the exchange - disabled by default.
+        final Integer reconcileInterval = engineConfig.getBalanceReconcileInterval();
+        if (reconcileInterval != null) {
+            LOG.info(() -> "Balances will be tracked locally and reconciled with the exchange every "
+                    + reconcileInterval + "s");
+            balanceTracker = new BalanceTrackingExchangeAdapter(
+                    tradeCycleCache != null ? tradeCycleCache : exchangeAdapter, reconcileInterval, TimeUnit.SECONDS);
+            tradingApi = balanceTracker;
+        }
     }
 
     private void loadTradingStrategyConfig() {
@@ -596,12 +924,25 @@ public class TradingEngine {
                  * Trading Strategy execution list.
                  */
                 TradingStrategy strategyImpl = obtainTradingStrategyInstance(tradingStrategy);;
-                strategyImpl.init(exchangeAdapter, tradingMarket, tradingStrategyConfig);
+                strategyImpl.init(tradingApi, tradingMarket, tradingStrategyConfig);
+                tradingMarketIds.add(market.getId());
+                if (balanceTracker != null) {
+                    balanceTracker.trackMarket(tradingMarket);
+                }
 
                 LOG.info(() -> "Initialized trading strategy successfully. Name: [" + tradingStrategy.getName()
                         + "] Class: " + tradingStrategy.getClassName());
 
-                tradingStrategiesToExecute.add(strategyImpl);
+                // Use the Market's own trade cycle interval if it has one, otherwise the engine's.
+                final Integer marketTradeCycleInterval = market.getTradeCycleInterval();
+                final int tradeCycleInterval = marketTradeCycleInterval != null
+                        ? marketTradeCycleInterval : tradeExecutionInterval;
+                LOG.info(() -> marketName + " market trade cycle interval: " + tradeCycleInterval + "s");
+
+                final ScheduledTradingStrategy scheduledTradingStrategy = new ScheduledTradingStrategy(strategyImpl,
+                        marketName, tradeCycleInterval, tradeCycleScheduling, missedTradeCyclePolicy);
+                tradeCycleStats.put(marketName, scheduledTradingStrategy.getTradeCycleStats());
+                tradingStrategySchedule.add(scheduledTradingStrategy);
             } else {
 
                 // Game over. Config integrity blown - we can't find strat.
@@ -0,0 +1,416 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.core.config.market.MarketImpl;
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.OrderState;
+import com.gazbert.bxbot.trading.api.OrderStatus;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.makeThreadSafe;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the balance tracking around the Exchange Adapter behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestBalanceTrackingExchangeAdapter {
+
+    private static final String MARKET_ID = "btcusd";
+    private static final String UNKNOWN_MARKET_ID = "ltcusd";
+    private static final String ORDER_ID = "1234";
+    private static final String OTHER_ORDER_ID = "5678";
+
+    private static final long RECONCILE_INTERVAL = 300;
+
+    private ExchangeAdapter exchangeAdapter;
+    private BalanceInfo balanceInfo;
+
+
+    @Before
+    public void setupForEachTest() {
+        exchangeAdapter = createMock(ExchangeAdapter.class);
+
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        balancesAvailable.put("BTC", new BigDecimal("10"));
+        balancesAvailable.put("USD", new BigDecimal("1000"));
+        final Map<String, BigDecimal> balancesOnHold = new HashMap<>();
+        balancesOnHold.put("BTC", BigDecimal.ZERO);
+        balancesOnHold.put("USD", BigDecimal.ZERO);
+
+        balanceInfo = createMock(BalanceInfo.class);
+        expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).anyTimes();
+        expect(balanceInfo.getBalancesOnHold()).andReturn(balancesOnHold).anyTimes();
+        replay(balanceInfo);
+    }
+
+    @Test
+    public void testBalanceInfoIsReadLocallyUntilReconcileIntervalHasPassed() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+
+        assertEquals(new BigDecimal("1000"), balanceTracker.getBalanceInfo().getBalancesAvailable().get("USD"));
+        assertEquals(new BigDecimal("1000"), balanceTracker.getBalanceInfo().getBalancesAvailable().get("USD"));
+        assertEquals(new BigDecimal("10"), balanceTracker.getBalanceInfo().getBalancesAvailable().get("BTC"));
+
+        assertEquals(2, balanceTracker.getLocalReadCount());
+        assertEquals(1, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testBalanceInfoIsReconciledOnceReconcileIntervalHasPassed() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(2);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(0);
+        balanceTracker.getBalanceInfo();
+        balanceTracker.getBalanceInfo();
+
+        assertEquals(0, balanceTracker.getLocalReadCount());
+        assertEquals(2, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testPlacingOrdersMovesBalanceOnHold() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100")))
+                .andReturn(ORDER_ID);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, new BigDecimal("3"), new BigDecimal("110")))
+                .andReturn(OTHER_ORDER_ID);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+        balanceTracker.getBalanceInfo();
+
+        balanceTracker.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100"));
+        balanceTracker.createOrder(MARKET_ID, OrderType.SELL, new BigDecimal("3"), new BigDecimal("110"));
+
+        final BalanceInfo trackedBalanceInfo = balanceTracker.getBalanceInfo();
+        assertEquals(new BigDecimal("800"), trackedBalanceInfo.getBalancesAvailable().get("USD"));
+        assertEquals(new BigDecimal("200"), trackedBalanceInfo.getBalancesOnHold().get("USD"));
+        assertEquals(new BigDecimal("7"), trackedBalanceInfo.getBalancesAvailable().get("BTC"));
+        assertEquals(new BigDecimal("3"), trackedBalanceInfo.getBalancesOnHold().get("BTC"));
+        assertEquals(1, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testReconcileWhileOrderIsBeingPlacedDoesNotPutOrderOnHoldTwice() throws Exception {
+
+        // the exchange already has the order on hold when the balance info is reconciled
+        final BalanceInfo balanceInfoWithOrder = createBalanceInfo("800", "200");
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(1);
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100")))
+                .andAnswer(() -> {
+                    // another Trading Strategy reads the balance info after the reconcile interval has passed
+                    Thread.sleep(1100);
+                    executor.submit(balanceTracker::getBalanceInfo).get(5, TimeUnit.SECONDS);
+                    return ORDER_ID;
+                });
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfoWithOrder).times(2);
+        // the mock is called from the other thread while it is answering createOrder
+        makeThreadSafe(exchangeAdapter, false);
+        replay(exchangeAdapter);
+
+        balanceTracker.getBalanceInfo();
+        balanceTracker.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100"));
+        executor.shutdown();
+
+        final BalanceInfo trackedBalanceInfo = balanceTracker.getBalanceInfo();
+        assertEquals(new BigDecimal("800"), trackedBalanceInfo.getBalancesAvailable().get("USD"));
+        assertEquals(new BigDecimal("200"), trackedBalanceInfo.getBalancesOnHold().get("USD"));
+        assertEquals(3, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testOrdersCanBePlacedWhileBalanceInfoIsBeingFetched() throws Exception {
+
+        final BalanceInfo balanceInfoWithOrder = createBalanceInfo("800", "200");
+        final CountDownLatch fetchStarted = new CountDownLatch(1);
+        final CountDownLatch orderPlaced = new CountDownLatch(1);
+        final AtomicBoolean fetchWaitedForOrder = new AtomicBoolean();
+
+        expect(exchangeAdapter.getBalanceInfo()).andAnswer(() -> {
+            fetchStarted.countDown();
+            fetchWaitedForOrder.set(orderPlaced.await(5, TimeUnit.SECONDS));
+            return balanceInfo;
+        });
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100")))
+                .andReturn(ORDER_ID);
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfoWithOrder);
+        // the mock is called from this thread while it is answering getBalanceInfo on the other one
+        makeThreadSafe(exchangeAdapter, false);
+        replay(exchangeAdapter);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+
+        final Future<BalanceInfo> fetch = executor.submit(balanceTracker::getBalanceInfo);
+        assertTrue(fetchStarted.await(5, TimeUnit.SECONDS));
+        balanceTracker.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100"));
+        orderPlaced.countDown();
+        fetch.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertTrue(fetchWaitedForOrder.get());
+
+        // the order was placed during the fetch, so the balance info is fetched again
+        final BalanceInfo trackedBalanceInfo = balanceTracker.getBalanceInfo();
+        assertEquals(new BigDecimal("800"), trackedBalanceInfo.getBalancesAvailable().get("USD"));
+        assertEquals(new BigDecimal("200"), trackedBalanceInfo.getBalancesOnHold().get("USD"));
+        assertEquals(2, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testFilledOrderStatusWithoutFilledQuantityAppliesRemainingQuantity() throws Exception {
+
+        final OrderStatus partiallyFilled = createOrderStatus(ORDER_ID, "0.5", OrderState.PARTIALLY_FILLED);
+        final OrderStatus filled = createOrderStatus(ORDER_ID, null, OrderState.FILLED);
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100")))
+                .andReturn(ORDER_ID);
+        expect(exchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID)).andReturn(partiallyFilled);
+        expect(exchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID)).andReturn(filled);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+        balanceTracker.getBalanceInfo();
+        balanceTracker.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100"));
+        balanceTracker.getOrderStatus(ORDER_ID, MARKET_ID);
+        balanceTracker.getOrderStatus(ORDER_ID, MARKET_ID);
+
+        final BalanceInfo trackedBalanceInfo = balanceTracker.getBalanceInfo();
+        assertEquals(new BigDecimal("800"), trackedBalanceInfo.getBalancesAvailable().get("USD"));
+        assertEquals(0, trackedBalanceInfo.getBalancesOnHold().get("USD").signum());
+        assertEquals(new BigDecimal("12.0"), trackedBalanceInfo.getBalancesAvailable().get("BTC"));
+        assertEquals(1, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testFillsSeenThroughOrderStatusAreApplied() throws Exception {
+
+        final OrderStatus partiallyFilled = createOrderStatus(ORDER_ID, "0.5", OrderState.PARTIALLY_FILLED);
+        final OrderStatus filled = createOrderStatus(ORDER_ID, "2", OrderState.FILLED);
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100")))
+                .andReturn(ORDER_ID);
+        expect(exchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID)).andReturn(partiallyFilled);
+        expect(exchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID)).andReturn(partiallyFilled);
+        expect(exchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID)).andReturn(filled);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+        balanceTracker.getBalanceInfo();
+        balanceTracker.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("100"));
+
+        // the same fill seen twice is only applied once
+        balanceTracker.getOrderStatus(ORDER_ID, MARKET_ID);
+        balanceTracker.getOrderStatus(ORDER_ID, MARKET_ID);
+
+        BalanceInfo trackedBalanceInfo = balanceTracker.getBalanceInfo();
+        assertEquals(new BigDecimal("800"), trackedBalanceInfo.getBalancesAvailable().get("USD"));
+        assertEquals(new BigDecimal("150.0"), trackedBalanceInfo.getBalancesOnHold().get("USD"));
+        assertEquals(new BigDecimal("10.5"), trackedBalanceInfo.getBalancesAvailable().get("BTC"));
+
+        balanceTracker.getOrderStatus(ORDER_ID, MARKET_ID);
+
+        trackedBalanceInfo = balanceTracker.getBalanceInfo();
+        assertEquals(new BigDecimal("800"), trackedBalanceInfo.getBalancesAvailable().get("USD"));
+        assertEquals(0, trackedBalanceInfo.getBalancesOnHold().get("USD").signum());
+        assertEquals(new BigDecimal("12.0"), trackedBalanceInfo.getBalancesAvailable().get("BTC"));
+        assertEquals(1, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testCancellingOrderReleasesRemainingBalance() throws Exception {
+
+        final OrderStatus partiallyFilled = createOrderStatus(ORDER_ID, "1", OrderState.PARTIALLY_FILLED);
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, new BigDecimal("4"), new BigDecimal("100")))
+                .andReturn(ORDER_ID);
+        expect(exchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID)).andReturn(partiallyFilled);
+        expect(exchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID)).andReturn(true);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+        balanceTracker.getBalanceInfo();
+        balanceTracker.createOrder(MARKET_ID, OrderType.SELL, new BigDecimal("4"), new BigDecimal("100"));
+        balanceTracker.getOrderStatus(ORDER_ID, MARKET_ID);
+        balanceTracker.cancelOrder(ORDER_ID, MARKET_ID);
+
+        final BalanceInfo trackedBalanceInfo = balanceTracker.getBalanceInfo();
+        assertEquals(new BigDecimal("9"), trackedBalanceInfo.getBalancesAvailable().get("BTC"));
+        assertEquals(0, trackedBalanceInfo.getBalancesOnHold().get("BTC").signum());
+        assertEquals(new BigDecimal("1100"), trackedBalanceInfo.getBalancesAvailable().get("USD"));
+        assertEquals(1, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testFailedOrderCallForcesReconcileOnNextRead() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(2);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN))
+                .andThrow(new ExchangeNetworkException("Timeout!"));
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+        balanceTracker.getBalanceInfo();
+
+        try {
+            balanceTracker.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN);
+            fail("Expected ExchangeNetworkException to be passed on");
+        } catch (ExchangeNetworkException e) {
+            // expected - the order might still have been placed
+        }
+
+        balanceTracker.getBalanceInfo();
+        assertEquals(2, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testCancellingUntrackedOrAllOrdersForcesReconcileOnNextRead() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(3);
+        expect(exchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID)).andReturn(true);
+        expect(exchangeAdapter.cancelAllOrders(MARKET_ID)).andReturn(true);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+        balanceTracker.getBalanceInfo();
+
+        balanceTracker.cancelOrder(ORDER_ID, MARKET_ID);
+        balanceTracker.getBalanceInfo();
+
+        balanceTracker.cancelAllOrders(MARKET_ID);
+        balanceTracker.getBalanceInfo();
+
+        assertEquals(3, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testOrderForUntrackedMarketForcesReconcileOnNextRead() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(2);
+        expect(exchangeAdapter.createOrder(UNKNOWN_MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN))
+                .andReturn(ORDER_ID);
+        replay(exchangeAdapter);
+
+        final BalanceTrackingExchangeAdapter balanceTracker = createBalanceTracker(RECONCILE_INTERVAL);
+        balanceTracker.getBalanceInfo();
+        balanceTracker.createOrder(UNKNOWN_MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN);
+
+        assertEquals(new BigDecimal("1000"), balanceTracker.getBalanceInfo().getBalancesAvailable().get("USD"));
+        assertEquals(2, balanceTracker.getReconcileCount());
+
+        verify(exchangeAdapter);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private BalanceTrackingExchangeAdapter createBalanceTracker(long reconcileInterval) {
+        final BalanceTrackingExchangeAdapter balanceTracker =
+                new BalanceTrackingExchangeAdapter(exchangeAdapter, reconcileInterval, TimeUnit.SECONDS);
+        balanceTracker.trackMarket(new MarketImpl("BTC/USD", MARKET_ID, "BTC", "USD"));
+        return balanceTracker;
+    }
+
+    private static BalanceInfo createBalanceInfo(String usdAvailable, String usdOnHold) {
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        balancesAvailable.put("BTC", new BigDecimal("10"));
+        balancesAvailable.put("USD", new BigDecimal(usdAvailable));
+        final Map<String, BigDecimal> balancesOnHold = new HashMap<>();
+        balancesOnHold.put("BTC", BigDecimal.ZERO);
+        balancesOnHold.put("USD", new BigDecimal(usdOnHold));
+
+        final BalanceInfo balanceInfo = createMock(BalanceInfo.class);
+        expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).anyTimes();
+        expect(balanceInfo.getBalancesOnHold()).andReturn(balancesOnHold).anyTimes();
+        replay(balanceInfo);
+        return balanceInfo;
+    }
+
+    private static OrderStatus createOrderStatus(String orderId, String filledQuantity, OrderState state) {
+        final OrderStatus orderStatus = createMock(OrderStatus.class);
+        expect(orderStatus.getId()).andReturn(orderId).anyTimes();
+        expect(orderStatus.getFilledQuantity())
+                .andReturn(filledQuantity == null ? null : new BigDecimal(filledQuantity)).anyTimes();
+        expect(orderStatus.getState()).andReturn(state).anyTimes();
+        replay(orderStatus);
+        return orderStatus;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the trade cycle scheduling of a Market's Trading Strategy behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestScheduledTradingStrategy {
+
+    private static final String MARKET_NAME = "BTC/USD";
+    private static final int TRADE_CYCLE_INTERVAL = 10;
+    private static final long TRADE_CYCLE_INTERVAL_IN_NANOS = TimeUnit.SECONDS.toNanos(TRADE_CYCLE_INTERVAL);
+    private static final long ONE_SEC_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TradingStrategy tradingStrategy = EasyMock.createMock(TradingStrategy.class);
+
+
+    @Test
+    public void testFixedDelaySchedulesNextTradeCycleAfterPreviousOneCompleted() {
+
+        final ScheduledTradingStrategy scheduledTradingStrategy = new ScheduledTradingStrategy(tradingStrategy,
+                MARKET_NAME, TRADE_CYCLE_INTERVAL, TradeCycleScheduling.FIXED_DELAY, MissedTradeCyclePolicy.SKIP);
+
+        final long scheduledStartTime = scheduledTradingStrategy.getNextExecutionTime();
+        final long tradeCycleStartTime = scheduledStartTime + ONE_SEC_IN_NANOS;
+        final long tradeCycleEndTime = tradeCycleStartTime + 2 * ONE_SEC_IN_NANOS;
+        scheduledTradingStrategy.scheduleNextExecution(tradeCycleStartTime, tradeCycleEndTime);
+
+        assertEquals(tradeCycleEndTime + TRADE_CYCLE_INTERVAL_IN_NANOS, scheduledTradingStrategy.getNextExecutionTime());
+
+        final TradeCycleStats tradeCycleStats = scheduledTradingStrategy.getTradeCycleStats();
+        assertEquals(1, tradeCycleStats.getTradeCycleCount());
+        assertEquals(0, tradeCycleStats.getOverrunCount());
+        assertEquals(1000, tradeCycleStats.getLastJitterInMillis());
+        assertEquals(2000, tradeCycleStats.getLastDurationInMillis());
+    }
+
+    @Test
+    public void testFixedDelayCountsOverrunWhenTradeCycleTakesLongerThanInterval() {
+
+        final ScheduledTradingStrategy scheduledTradingStrategy = new ScheduledTradingStrategy(tradingStrategy,
+                MARKET_NAME, TRADE_CYCLE_INTERVAL, TradeCycleScheduling.FIXED_DELAY, MissedTradeCyclePolicy.SKIP);
+
+        final long tradeCycleStartTime = scheduledTradingStrategy.getNextExecutionTime();
+        final long tradeCycleEndTime = tradeCycleStartTime + TRADE_CYCLE_INTERVAL_IN_NANOS + ONE_SEC_IN_NANOS;
+        scheduledTradingStrategy.scheduleNextExecution(tradeCycleStartTime, tradeCycleEndTime);
+
+        assertEquals(tradeCycleEndTime + TRADE_CYCLE_INTERVAL_IN_NANOS, scheduledTradingStrategy.getNextExecutionTime());
+        assertEquals(1, scheduledTradingStrategy.getTradeCycleStats().getOverrunCount());
+        assertEquals(0, scheduledTradingStrategy.getTradeCycleStats().getSkippedTradeCycleCount());
+    }
+
+    @Test
+    public void testFixedRateSubtractsTradeCycleDurationFromWait() {
+
+        final ScheduledTradingStrategy scheduledTradingStrategy = new ScheduledTradingStrategy(tradingStrategy,
+                MARKET_NAME, TRADE_CYCLE_INTERVAL, TradeCycleScheduling.FIXED_RATE, MissedTradeCyclePolicy.SKIP);
+
+        final long scheduledStartTime = scheduledTradingStrategy.getNextExecutionTime();
+        long tradeCycleStartTime = scheduledStartTime + ONE_SEC_IN_NANOS;
+        scheduledTradingStrategy.scheduleNextExecution(tradeCycleStartTime, tradeCycleStartTime + 3 * ONE_SEC_IN_NANOS);
+        assertEquals(scheduledStartTime + TRADE_CYCLE_INTERVAL_IN_NANOS, scheduledTradingStrategy.getNextExecutionTime());
+
+        tradeCycleStartTime = scheduledTradingStrategy.getNextExecutionTime() + 2 * ONE_SEC_IN_NANOS;
+        scheduledTradingStrategy.scheduleNextExecution(tradeCycleStartTime, tradeCycleStartTime + ONE_SEC_IN_NANOS);
+        assertEquals(scheduledStartTime + 2 * TRADE_CYCLE_INTERVAL_IN_NANOS,
+                scheduledTradingStrategy.getNextExecutionTime());
+
+        final TradeCycleStats tradeCycleStats = scheduledTradingStrategy.getTradeCycleStats();
+        assertEquals(2, tradeCycleStats.getTradeCycleCount());
+        assertEquals(0, tradeCycleStats.getOverrunCount());
+        assertEquals(2000, tradeCycleStats.getLastJitterInMillis());
+        assertEquals(2000, tradeCycleStats.getMaxJitterInMillis());
+        assertEquals(1500, tradeCycleStats.getMeanJitterInMillis());
+        assertEquals(3000, tradeCycleStats.getMaxDurationInMillis());
+    }
+
+    @Test
+    public void testFixedRateSkipsMissedTradeCyclesAfterOverrun() {
+
+        final ScheduledTradingStrategy scheduledTradingStrategy = new ScheduledTradingStrategy(tradingStrategy,
+                MARKET_NAME, TRADE_CYCLE_INTERVAL, TradeCycleScheduling.FIXED_RATE, MissedTradeCyclePolicy.SKIP);
+
+        // overrun past the next 2 scheduled start times
+        final long scheduledStartTime = scheduledTradingStrategy.getNextExecutionTime();
+        scheduledTradingStrategy.scheduleNextExecution(scheduledStartTime,
+                scheduledStartTime + 2 * TRADE_CYCLE_INTERVAL_IN_NANOS + ONE_SEC_IN_NANOS);
+
+        assertEquals(scheduledStartTime + 3 * TRADE_CYCLE_INTERVAL_IN_NANOS,
+                scheduledTradingStrategy.getNextExecutionTime());
+        assertEquals(1, scheduledTradingStrategy.getTradeCycleStats().getOverrunCount());
+        assertEquals(2, scheduledTradingStrategy.getTradeCycleStats().getSkippedTradeCycleCount());
+    }
+
+    @Test
+    public void testFixedRateCoalescesMissedTradeCyclesAfterOverrun() {
+
+        final ScheduledTradingStrategy scheduledTradingStrategy = new ScheduledTradingStrategy(tradingStrategy,
+                MARKET_NAME, TRADE_CYCLE_INTERVAL, TradeCycleScheduling.FIXED_RATE, MissedTradeCyclePolicy.COALESCE);
+
+        // overrun past the next 2 scheduled start times - expect 1 trade cycle to be due immediately
+        final long scheduledStartTime = scheduledTradingStrategy.getNextExecutionTime();
+        scheduledTradingStrategy.scheduleNextExecution(scheduledStartTime,
+                scheduledStartTime + 2 * TRADE_CYCLE_INTERVAL_IN_NANOS + ONE_SEC_IN_NANOS);
+
+        assertEquals(scheduledStartTime + 2 * TRADE_CYCLE_INTERVAL_IN_NANOS,
+                scheduledTradingStrategy.getNextExecutionTime());
+        assertEquals(1, scheduledTradingStrategy.getTradeCycleStats().getOverrunCount());
+        assertEquals(1, scheduledTradingStrategy.getTradeCycleStats().getSkippedTradeCycleCount());
+    }
+
+    @Test
+    public void testSkippedTradeCycleIsRescheduledWithoutRecordingStats() {
+
+        final ScheduledTradingStrategy scheduledTradingStrategy = new ScheduledTradingStrategy(tradingStrategy,
+                MARKET_NAME, TRADE_CYCLE_INTERVAL, TradeCycleScheduling.FIXED_RATE, MissedTradeCyclePolicy.COALESCE);
+
+        // skipped past the next 2 scheduled start times - expect the next one after that to be due
+        final long scheduledStartTime = scheduledTradingStrategy.getNextExecutionTime();
+        scheduledTradingStrategy.skipTradeCycle(scheduledStartTime + 2 * TRADE_CYCLE_INTERVAL_IN_NANOS + ONE_SEC_IN_NANOS);
+
+        assertEquals(scheduledStartTime + 3 * TRADE_CYCLE_INTERVAL_IN_NANOS,
+                scheduledTradingStrategy.getNextExecutionTime());
+        assertEquals(0, scheduledTradingStrategy.getTradeCycleStats().getTradeCycleCount());
+        assertEquals(0, scheduledTradingStrategy.getTradeCycleStats().getOverrunCount());
+    }
+}
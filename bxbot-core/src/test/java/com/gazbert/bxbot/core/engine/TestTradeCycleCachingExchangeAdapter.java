@@ -0,0 +1,421 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderStatus;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the trade cycle cache around the Exchange Adapter behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestTradeCycleCachingExchangeAdapter {
+
+    private static final String MARKET_ID = "btcusd";
+    private static final String OTHER_MARKET_ID = "ltcusd";
+    private static final String ORDER_ID = "1234";
+
+    private ExchangeAdapter exchangeAdapter;
+    private MarketOrderBook marketOrderBook;
+    private BalanceInfo balanceInfo;
+    private List<OpenOrder> openOrders;
+
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setupForEachTest() {
+        exchangeAdapter = createMock(ExchangeAdapter.class);
+        marketOrderBook = createMock(MarketOrderBook.class);
+        balanceInfo = createMock(BalanceInfo.class);
+        openOrders = createMock(List.class);
+    }
+
+    @Test
+    public void testReadOnlyCallsAreCachedForRestOfTradeCycle() throws Exception {
+
+        expect(exchangeAdapter.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook);
+        expect(exchangeAdapter.getMarketOrders(OTHER_MARKET_ID)).andReturn(marketOrderBook);
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        assertSame(marketOrderBook, cachingExchangeAdapter.getMarketOrders(MARKET_ID));
+        assertSame(marketOrderBook, cachingExchangeAdapter.getMarketOrders(MARKET_ID));
+        assertSame(marketOrderBook, cachingExchangeAdapter.getMarketOrders(OTHER_MARKET_ID));
+        assertSame(balanceInfo, cachingExchangeAdapter.getBalanceInfo());
+        assertSame(balanceInfo, cachingExchangeAdapter.getBalanceInfo());
+
+        assertEquals(2, cachingExchangeAdapter.getCacheHitCount());
+        assertEquals(3, cachingExchangeAdapter.getCacheMissCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testInvalidatingExchangeFeesEvictsCachedFees() throws Exception {
+
+        final BigDecimal fee = new BigDecimal("0.0025");
+        expect(exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)).andReturn(fee).times(2);
+        exchangeAdapter.invalidateExchangeFees();
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        assertEquals(fee, cachingExchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID));
+        assertEquals(fee, cachingExchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID));
+        cachingExchangeAdapter.invalidateExchangeFees();
+        assertEquals(fee, cachingExchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID));
+
+        assertEquals(1, cachingExchangeAdapter.getCacheHitCount());
+        assertEquals(2, cachingExchangeAdapter.getCacheMissCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testCacheIsClearedAtStartOfNextTradeCycle() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(2);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+
+        cachingExchangeAdapter.startTradeCycle();
+        cachingExchangeAdapter.getBalanceInfo();
+        cachingExchangeAdapter.getBalanceInfo();
+
+        cachingExchangeAdapter.startTradeCycle();
+        cachingExchangeAdapter.getBalanceInfo();
+
+        assertEquals(1, cachingExchangeAdapter.getCacheHitCount());
+        assertEquals(2, cachingExchangeAdapter.getCacheMissCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testCreatingAndCancellingOrdersEvictsOrderData() throws Exception {
+
+        expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(openOrders).times(3);
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(3);
+        expect(exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)).andReturn(new BigDecimal("0.0025"));
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN)).andReturn(ORDER_ID);
+        expect(exchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID)).andReturn(true);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+        cachingExchangeAdapter.getBalanceInfo();
+        cachingExchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+
+        assertEquals(ORDER_ID, cachingExchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN));
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+        cachingExchangeAdapter.getBalanceInfo();
+
+        assertEquals(true, cachingExchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID));
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+        cachingExchangeAdapter.getBalanceInfo();
+
+        // fees are not affected by orders
+        cachingExchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testCreatingAndCancellingOrderBatchesEvictsOrderData() throws Exception {
+
+        final List<OrderRequest> orderRequests = Arrays.asList(
+                new OrderRequest(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.ONE),
+                new OrderRequest(OTHER_MARKET_ID, OrderType.SELL, BigDecimal.ONE, BigDecimal.TEN));
+        final List<String> orderIds = Arrays.asList(ORDER_ID, "5678");
+
+        expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(openOrders).times(3);
+        expect(exchangeAdapter.getYourOpenOrders(OTHER_MARKET_ID)).andReturn(openOrders).times(2);
+        expect(exchangeAdapter.createOrders(orderRequests)).andReturn(orderIds);
+        expect(exchangeAdapter.cancelOrders(Collections.singletonList(ORDER_ID), MARKET_ID)).andReturn(true);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+        cachingExchangeAdapter.getYourOpenOrders(OTHER_MARKET_ID);
+
+        // a batch evicts the order data for every market it places orders on
+        assertEquals(orderIds, cachingExchangeAdapter.createOrders(orderRequests));
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+        cachingExchangeAdapter.getYourOpenOrders(OTHER_MARKET_ID);
+
+        assertTrue(cachingExchangeAdapter.cancelOrders(Collections.singletonList(ORDER_ID), MARKET_ID));
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+        cachingExchangeAdapter.getYourOpenOrders(OTHER_MARKET_ID); // other market still cached
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testCancellingAllOrdersEvictsOrderData() throws Exception {
+
+        expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(openOrders).times(2);
+        expect(exchangeAdapter.cancelAllOrders(MARKET_ID)).andReturn(true);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+        assertTrue(cachingExchangeAdapter.cancelAllOrders(MARKET_ID));
+        cachingExchangeAdapter.getYourOpenOrders(MARKET_ID);
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testOrderStatusIsCachedPerOrderAndEvictedByOrders() throws Exception {
+
+        final OrderStatus orderStatus = createMock(OrderStatus.class);
+        final OrderStatus otherOrderStatus = createMock(OrderStatus.class);
+        expect(exchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID)).andReturn(orderStatus).times(2);
+        expect(exchangeAdapter.getOrderStatus("5678", MARKET_ID)).andReturn(otherOrderStatus);
+        expect(exchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID)).andReturn(true);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        assertSame(orderStatus, cachingExchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID));
+        assertSame(orderStatus, cachingExchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID));
+        assertSame(otherOrderStatus, cachingExchangeAdapter.getOrderStatus("5678", MARKET_ID));
+
+        // cancelling an order evicts the cached order statuses
+        cachingExchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID);
+        assertSame(orderStatus, cachingExchangeAdapter.getOrderStatus(ORDER_ID, MARKET_ID));
+
+        assertEquals(1, cachingExchangeAdapter.getCacheHitCount());
+        assertEquals(3, cachingExchangeAdapter.getCacheMissCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testDepthLimitedOrderBooksAreCachedPerDepthAndEvictedByOrders() throws Exception {
+
+        final MarketOrderBook topOfBook = createMock(MarketOrderBook.class);
+        expect(exchangeAdapter.getMarketOrders(MARKET_ID, 1)).andReturn(topOfBook).times(2);
+        expect(exchangeAdapter.getMarketOrders(MARKET_ID, 10)).andReturn(marketOrderBook);
+        expect(exchangeAdapter.getMarketOrders(OTHER_MARKET_ID, 1)).andReturn(topOfBook);
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, BigDecimal.ONE, BigDecimal.TEN)).andReturn(ORDER_ID);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        assertSame(topOfBook, cachingExchangeAdapter.getMarketOrders(MARKET_ID, 1));
+        assertSame(topOfBook, cachingExchangeAdapter.getMarketOrders(MARKET_ID, 1));
+        assertSame(marketOrderBook, cachingExchangeAdapter.getMarketOrders(MARKET_ID, 10));
+        assertSame(topOfBook, cachingExchangeAdapter.getMarketOrders(OTHER_MARKET_ID, 1));
+
+        cachingExchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, BigDecimal.ONE, BigDecimal.TEN);
+        assertSame(topOfBook, cachingExchangeAdapter.getMarketOrders(MARKET_ID, 1));
+        assertSame(topOfBook, cachingExchangeAdapter.getMarketOrders(OTHER_MARKET_ID, 1)); // other market still cached
+
+        assertEquals(2, cachingExchangeAdapter.getCacheHitCount());
+        assertEquals(4, cachingExchangeAdapter.getCacheMissCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testFailedCallsAreNotCached() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andThrow(new ExchangeNetworkException("Timeout!"));
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        try {
+            cachingExchangeAdapter.getBalanceInfo();
+            fail("Expected ExchangeNetworkException");
+        } catch (ExchangeNetworkException e) {
+            // expected
+        }
+        assertSame(balanceInfo, cachingExchangeAdapter.getBalanceInfo());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testConcurrentCallsForSameDataAreSingleFlighted() throws Exception {
+
+        final CountDownLatch exchangeCallStarted = new CountDownLatch(1);
+        final CountDownLatch exchangeCallCanComplete = new CountDownLatch(1);
+
+        expect(exchangeAdapter.getMarketOrders(MARKET_ID)).andAnswer(() -> {
+            exchangeCallStarted.countDown();
+            exchangeCallCanComplete.await(5, TimeUnit.SECONDS);
+            return marketOrderBook;
+        });
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<MarketOrderBook> firstCall =
+                    executor.submit(() -> cachingExchangeAdapter.getMarketOrders(MARKET_ID));
+            exchangeCallStarted.await(5, TimeUnit.SECONDS);
+
+            final Future<MarketOrderBook> secondCall =
+                    executor.submit(() -> cachingExchangeAdapter.getMarketOrders(MARKET_ID));
+            while (cachingExchangeAdapter.getCacheHitCount() == 0) {
+                Thread.sleep(10);
+            }
+            exchangeCallCanComplete.countDown();
+
+            assertSame(marketOrderBook, firstCall.get(5, TimeUnit.SECONDS));
+            assertSame(marketOrderBook, secondCall.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, cachingExchangeAdapter.getCacheHitCount());
+        assertEquals(1, cachingExchangeAdapter.getCacheMissCount());
+
+        verify(exchangeAdapter);
+    }
+
+    @Test
+    public void testAsyncCallsArePassedOnToAsyncExchangeAdapterAndShareCache() throws Exception {
+
+        final AsyncExchangeAdapter asyncExchangeAdapter = createMock(AsyncExchangeAdapter.class);
+        final CompletableFuture<MarketOrderBook> failedCall = new CompletableFuture<>();
+        failedCall.completeExceptionally(new ExchangeNetworkException("Timeout!"));
+        expect(asyncExchangeAdapter.getMarketOrdersAsync(MARKET_ID)).andReturn(failedCall);
+        expect(asyncExchangeAdapter.getMarketOrdersAsync(MARKET_ID))
+                .andReturn(CompletableFuture.completedFuture(marketOrderBook));
+        expect(asyncExchangeAdapter.createOrderAsync(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN))
+                .andReturn(CompletableFuture.completedFuture(ORDER_ID));
+        expect(asyncExchangeAdapter.getMarketOrdersAsync(MARKET_ID))
+                .andReturn(CompletableFuture.completedFuture(marketOrderBook));
+        replay(asyncExchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(asyncExchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        try {
+            cachingExchangeAdapter.getMarketOrdersAsync(MARKET_ID).get(5, TimeUnit.SECONDS);
+            fail("Expected ExchangeNetworkException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ExchangeNetworkException);
+        }
+
+        assertSame(marketOrderBook, cachingExchangeAdapter.getMarketOrdersAsync(MARKET_ID).get(5, TimeUnit.SECONDS));
+        assertSame(marketOrderBook, cachingExchangeAdapter.getMarketOrders(MARKET_ID)); // blocking call is cached too
+
+        // creating an order evicts the order book
+        assertEquals(ORDER_ID, cachingExchangeAdapter.createOrderAsync(MARKET_ID, OrderType.BUY, BigDecimal.ONE,
+                BigDecimal.TEN).get(5, TimeUnit.SECONDS));
+        assertSame(marketOrderBook, cachingExchangeAdapter.getMarketOrdersAsync(MARKET_ID).get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, cachingExchangeAdapter.getCacheHitCount());
+        assertEquals(3, cachingExchangeAdapter.getCacheMissCount());
+
+        verify(asyncExchangeAdapter);
+    }
+
+    @Test
+    public void testAsyncCallsRunBlockingCallWhenExchangeAdapterIsNotAsync() throws Exception {
+
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        replay(exchangeAdapter);
+
+        final TradeCycleCachingExchangeAdapter cachingExchangeAdapter =
+                new TradeCycleCachingExchangeAdapter(exchangeAdapter);
+        cachingExchangeAdapter.startTradeCycle();
+
+        final CompletableFuture<BalanceInfo> balanceInfoCall = cachingExchangeAdapter.getBalanceInfoAsync();
+        assertTrue(balanceInfoCall.isDone());
+        assertSame(balanceInfo, balanceInfoCall.get());
+        assertSame(balanceInfo, cachingExchangeAdapter.getBalanceInfoAsync().get());
+
+        verify(exchangeAdapter);
+    }
+
+    /*
+     * An Exchange Adapter that supports async calls.
+     */
+    interface AsyncExchangeAdapter extends ExchangeAdapter, AsyncTradingApi {
+    }
+}
@@ -42,7 +42,9 @@ import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
 import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -55,10 +57,13 @@ import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 /**
  * Tests the behaviour of the Trading Engine is as expected.
@@ -106,6 +111,8 @@ public class TestTradingEngine {
     private static final String ENGINE_EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal ENGINE_EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
     private static final int ENGINE_TRADE_CYCLE_INTERVAL = 1; // unrealistic, but 1 second speeds up tests ;-)
+    private static final int ENGINE_STRATEGY_EXECUTION_THREADS = 2;
+    private static final int ENGINE_BALANCE_RECONCILE_INTERVAL = 3600;
 
     // Strategies config
     private static final String STRATEGY_ID = "MyMacdStrategy_v3";
@@ -122,6 +129,7 @@ public class TestTradingEngine {
     private static final String MARKET_BASE_CURRENCY = "BTC";
     private static final String MARKET_COUNTER_CURRENCY = "USD";
     private static final boolean MARKET_IS_ENABLED = true;
+    private static final Integer MARKET_TRADE_CYCLE_INTERVAL = 60;
 
     // Mocks used by all tests
     private ExchangeAdapter exchangeAdapter;
@@ -184,6 +192,9 @@ public class TestTradingEngine {
                 contains("EMERGENCY STOP triggered! - Current Emergency Stop Currency [BTC] wallet balance [0.49999999]" +
                         " on exchange is lower than configured Emergency Stop balance [0.5] BTC"));
 
+        // expect open orders to be cancelled before shutdown
+        expect(exchangeAdapter.cancelAllOrders(MARKET_ID)).andReturn(true);
+
         PowerMock.replayAll();
 
         final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
@@ -308,6 +319,328 @@ public class TestTradingEngine {
         PowerMock.verifyAll();
     }
 
+    /*
+     * Tests the engine uses the Market's own trade cycle interval instead of the engine's trade cycle interval.
+     * Scenario is the Market's interval is much longer than the test runs for, so we expect its Trading Strategy to
+     * be executed only once - in the 1st trade cycle.
+     */
+    @Test
+    public void testEngineExecutesTradeCyclesUsingMarketTradeCycleInterval() throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        setupEngineConfigForNoEmergencyStopCheckExpectations();
+        expect(strategyConfigService.getAllStrategyConfig()).andReturn(allTheStrategiesConfig());
+        expect(marketConfigService.getAllMarketConfig()).andReturn(allTheMarketsConfigWithMarketTradeCycleInterval());
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS)).andReturn(tradingStrategy);
+        tradingStrategy.init(eq(exchangeAdapter), anyObject(Market.class), anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+
+        // expect Trading Strategy to be invoked once only
+        tradingStrategy.execute();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
+                strategyConfigService, marketConfigService, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        // let several engine trade cycle intervals elapse
+        Thread.sleep(3 * ENGINE_TRADE_CYCLE_INTERVAL * 1000);
+        waitForEngineStateChange(tradingEngine, EngineState.RUNNING, NUMBER_OF_TRADE_CYCLES);
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        waitForEngineStateChange(tradingEngine, EngineState.SHUTDOWN, NUMBER_OF_TRADE_CYCLES);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests the engine detects and counts trade cycle overruns when using fixed rate scheduling.
+     * Scenario is the Trading Strategy takes longer to execute than the trade cycle interval.
+     */
+    @Test
+    public void testEngineRecordsOverrunsWhenUsingFixedRateScheduling() throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigService.getEngineConfig()).andReturn(someEngineConfigForFixedRateScheduling());
+        setupStrategyAndMarketConfigExpectations();
+
+        // expect Trading Strategy to overrun the trade cycle interval
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            Thread.sleep(ENGINE_TRADE_CYCLE_INTERVAL * 1500);
+            return null;
+        }).atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
+                strategyConfigService, marketConfigService, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        Thread.sleep(3 * ENGINE_TRADE_CYCLE_INTERVAL * 1000);
+        waitForEngineStateChange(tradingEngine, EngineState.RUNNING, NUMBER_OF_TRADE_CYCLES);
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        waitForEngineStateChange(tradingEngine, EngineState.SHUTDOWN, NUMBER_OF_TRADE_CYCLES);
+        assertFalse(tradingEngine.isRunning());
+
+        final TradeCycleStats tradeCycleStats = tradingEngine.getTradeCycleStats().get(MARKET_NAME);
+        assertTrue(tradeCycleStats.getTradeCycleCount() > 0);
+        assertTrue(tradeCycleStats.getOverrunCount() > 0);
+        assertTrue(tradeCycleStats.getSkippedTradeCycleCount() > 0);
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests the engine shares exchange data fetched in a trade cycle when trade cycle caching is enabled.
+     * Scenario is the Emergency Stop check and the Trading Strategy both fetch the balance info in each trade cycle,
+     * but we only expect it to be fetched from the exchange once per trade cycle.
+     */
+    @Test
+    public void testEngineCachesExchangeDataForDurationOfTradeCycle() throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigService.getEngineConfig()).andReturn(someEngineConfigForTradeCycleCaching());
+        expect(strategyConfigService.getAllStrategyConfig()).andReturn(allTheStrategiesConfig());
+        expect(marketConfigService.getAllMarketConfig()).andReturn(allTheMarketsConfig());
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS)).andReturn(tradingStrategy);
+
+        final Capture<TradingApi> tradingApiUsedByStrategy = newCapture();
+        tradingStrategy.init(capture(tradingApiUsedByStrategy), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        // balance limit NOT breached for BTC
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("0.5"));
+        final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
+
+        final AtomicInteger balanceInfoFetchCount = new AtomicInteger();
+        expect(exchangeAdapter.getBalanceInfo()).andAnswer(() -> {
+            balanceInfoFetchCount.incrementAndGet();
+            return balanceInfo;
+        }).atLeastOnce();
+        expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).atLeastOnce();
+
+        // expect Trading Strategy to fetch the balance info too
+        final AtomicInteger tradeCycleCount = new AtomicInteger();
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            assertSame(balanceInfo, tradingApiUsedByStrategy.getValue().getBalanceInfo());
+            tradeCycleCount.incrementAndGet();
+            return null;
+        }).atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
+                strategyConfigService, marketConfigService, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        waitForEngineStateChange(tradingEngine, EngineState.RUNNING, NUMBER_OF_TRADE_CYCLES);
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        waitForEngineStateChange(tradingEngine, EngineState.SHUTDOWN, NUMBER_OF_TRADE_CYCLES);
+        assertFalse(tradingEngine.isRunning());
+
+        assertTrue(tradeCycleCount.get() > 0);
+        assertEquals(tradeCycleCount.get(), balanceInfoFetchCount.get());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests the engine reads the balance info locally between reconciles when a balance reconcile interval is
+     * configured. Scenario is the Emergency Stop check and the Trading Strategy both fetch the balance info in each
+     * trade cycle, but we only expect it to be fetched from the exchange once, as the reconcile interval is longer
+     * than the test.
+     */
+    @Test
+    public void testEngineTracksBalanceInfoLocallyBetweenReconciles() throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigService.getEngineConfig()).andReturn(someEngineConfigForBalanceTracking());
+        expect(strategyConfigService.getAllStrategyConfig()).andReturn(allTheStrategiesConfig());
+        expect(marketConfigService.getAllMarketConfig()).andReturn(allTheMarketsConfig());
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS)).andReturn(tradingStrategy);
+
+        final Capture<TradingApi> tradingApiUsedByStrategy = newCapture();
+        tradingStrategy.init(capture(tradingApiUsedByStrategy), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        // balance limit NOT breached for BTC
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("0.5"));
+        final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+        expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable);
+        expect(balanceInfo.getBalancesOnHold()).andReturn(new HashMap<>());
+
+        // expect Trading Strategy to fetch the balance info too
+        final AtomicInteger tradeCycleCount = new AtomicInteger();
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            assertEquals(balancesAvailable, tradingApiUsedByStrategy.getValue().getBalanceInfo().getBalancesAvailable());
+            tradeCycleCount.incrementAndGet();
+            return null;
+        }).atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
+                strategyConfigService, marketConfigService, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        waitForEngineStateChange(tradingEngine, EngineState.RUNNING, NUMBER_OF_TRADE_CYCLES);
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        waitForEngineStateChange(tradingEngine, EngineState.SHUTDOWN, NUMBER_OF_TRADE_CYCLES);
+        assertFalse(tradingEngine.isRunning());
+
+        assertTrue(tradeCycleCount.get() > 0);
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests the engine executes the Trading Strategies on the strategy executor pool when more than 1 strategy
+     * execution thread is configured.
+     */
+    @Test
+    public void testEngineExecutesTradeCyclesConcurrentlyAndCanBeShutdownSuccessfully() throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigService.getEngineConfig()).andReturn(someEngineConfigForConcurrentStrategyExecution());
+        setupStrategyAndMarketConfigExpectations();
+
+        // expect Trading Strategy to be invoked on a strategy executor thread
+        final Set<String> executingThreadNames = Collections.synchronizedSet(new HashSet<>());
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            executingThreadNames.add(Thread.currentThread().getName());
+            return null;
+        }).atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
+                strategyConfigService, marketConfigService, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        waitForEngineStateChange(tradingEngine, EngineState.RUNNING, NUMBER_OF_TRADE_CYCLES);
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        waitForEngineStateChange(tradingEngine, EngineState.SHUTDOWN, NUMBER_OF_TRADE_CYCLES);
+        assertFalse(tradingEngine.isRunning());
+
+        assertFalse(executingThreadNames.isEmpty());
+        for (final String threadName : executingThreadNames) {
+            assertTrue(threadName.startsWith("bxbot-strategy-executor-"));
+        }
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests the engine does not record a trade cycle for a concurrently executed Trading Strategy that misses the
+     * strategy execution timeout. Scenario is the Trading Strategy never completes within the timeout.
+     */
+    @Test
+    public void testEngineDoesNotRecordTradeCyclesForConcurrentlyExecutedTradingStrategyThatTimesOut()
+            throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigService.getEngineConfig()).andReturn(someEngineConfigForConcurrentStrategyExecution());
+        setupStrategyAndMarketConfigExpectations();
+
+        // expect Trading Strategy to be interrupted for missing the strategy execution timeout
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            try {
+                Thread.sleep(ENGINE_TRADE_CYCLE_INTERVAL * 3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }).atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
+                strategyConfigService, marketConfigService, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        Thread.sleep(3 * ENGINE_TRADE_CYCLE_INTERVAL * 1000);
+        waitForEngineStateChange(tradingEngine, EngineState.RUNNING, NUMBER_OF_TRADE_CYCLES);
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        waitForEngineStateChange(tradingEngine, EngineState.SHUTDOWN, NUMBER_OF_TRADE_CYCLES);
+        assertFalse(tradingEngine.isRunning());
+
+        final TradeCycleStats tradeCycleStats = tradingEngine.getTradeCycleStats().get(MARKET_NAME);
+        assertEquals(0, tradeCycleStats.getTradeCycleCount());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests the engine receives the StrategyException thrown by a concurrently executed Trading Strategy - we expect
+     * the engine to shutdown.
+     */
+    @Test
+    public void testEngineShutsDownWhenItReceivesStrategyExceptionFromConcurrentlyExecutedTradingStrategy()
+            throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigService.getEngineConfig()).andReturn(someEngineConfigForConcurrentStrategyExecution());
+        setupStrategyAndMarketConfigExpectations();
+
+        final String exceptionErrorMsg = "Eeek! My strat just broke on a worker thread. Please shutdown!";
+        tradingStrategy.execute();
+        expectLastCall().andThrow(new StrategyException(exceptionErrorMsg));
+
+        // expect Email Alert to be sent
+        emailAlerter.sendMessage(eq(CRITICAL_EMAIL_ALERT_SUBJECT), contains("A FATAL error has occurred in Trading" +
+                " Strategy! Details: " + exceptionErrorMsg));
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigService, engineConfigService,
+                strategyConfigService, marketConfigService, emailAlerter);
+
+        tradingEngine.start();
+
+        waitForEngineStateChange(tradingEngine, EngineState.SHUTDOWN, NUMBER_OF_TRADE_CYCLES);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
     /*
      * Tests the engine starts up, executes 1 trade cycle successfully, but then receives unexpected Exception from
      * Trading Strategy - we expect the engine to shutdown.
@@ -596,6 +929,32 @@ public class TestTradingEngine {
         return engineConfig;
     }
 
+    private static EngineConfig someEngineConfigForConcurrentStrategyExecution() {
+        final EngineConfig engineConfig = someEngineConfigForNoEmergencyStopCheck();
+        engineConfig.setStrategyExecutionThreads(ENGINE_STRATEGY_EXECUTION_THREADS);
+        engineConfig.setStrategyExecutionTimeout(ENGINE_TRADE_CYCLE_INTERVAL);
+        return engineConfig;
+    }
+
+    private static EngineConfig someEngineConfigForFixedRateScheduling() {
+        final EngineConfig engineConfig = someEngineConfigForNoEmergencyStopCheck();
+        engineConfig.setTradeCycleScheduling("FIXED_RATE");
+        engineConfig.setMissedTradeCyclePolicy("SKIP");
+        return engineConfig;
+    }
+
+    private static EngineConfig someEngineConfigForTradeCycleCaching() {
+        final EngineConfig engineConfig = someEngineConfig();
+        engineConfig.setTradeCycleCaching(true);
+        return engineConfig;
+    }
+
+    private static EngineConfig someEngineConfigForBalanceTracking() {
+        final EngineConfig engineConfig = someEngineConfig();
+        engineConfig.setBalanceReconcileInterval(ENGINE_BALANCE_RECONCILE_INTERVAL);
+        return engineConfig;
+    }
+
     private static List<StrategyConfig> allTheStrategiesConfig() {
 
         final Map<String, String> configItems = new HashMap<>();
@@ -617,6 +976,12 @@ public class TestTradingEngine {
         return allMarkets;
     }
 
+    private static List<MarketConfig> allTheMarketsConfigWithMarketTradeCycleInterval() {
+        final List<MarketConfig> allMarkets = allTheMarketsConfig();
+        allMarkets.get(0).setTradeCycleInterval(MARKET_TRADE_CYCLE_INTERVAL);
+        return allMarkets;
+    }
+
     private static void waitForEngineStateChange(TradingEngine engine, EngineState engineState, int numberOfTradeCycles) {
         for (int i = 0; i < numberOfTradeCycles; i++) {
             try {
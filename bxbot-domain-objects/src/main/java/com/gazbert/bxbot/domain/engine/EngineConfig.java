@@ -39,6 +39,12 @@ public class EngineConfig {
     private String emergencyStopCurrency;
     private BigDecimal emergencyStopBalance;
     private int tradeCycleInterval;
+    private Integer strategyExecutionThreads;
+    private Integer strategyExecutionTimeout;
+    private String tradeCycleScheduling;
+    private String missedTradeCyclePolicy;
+    private Boolean tradeCycleCaching;
+    private Integer balanceReconcileInterval;
 
     // required for jackson
     public EngineConfig() {
@@ -94,6 +100,54 @@ public class EngineConfig {
         this.tradeCycleInterval = tradeCycleInterval;
     }
 
+    public Integer getStrategyExecutionThreads() {
+        return strategyExecutionThreads;
+    }
+
+    public void setStrategyExecutionThreads(Integer strategyExecutionThreads) {
+        this.strategyExecutionThreads = strategyExecutionThreads;
+    }
+
+    public Integer getStrategyExecutionTimeout() {
+        return strategyExecutionTimeout;
+    }
+
+    public void setStrategyExecutionTimeout(Integer strategyExecutionTimeout) {
+        this.strategyExecutionTimeout = strategyExecutionTimeout;
+    }
+
+    public String getTradeCycleScheduling() {
+        return tradeCycleScheduling;
+    }
+
+    public void setTradeCycleScheduling(String tradeCycleScheduling) {
+        this.tradeCycleScheduling = tradeCycleScheduling;
+    }
+
+    public String getMissedTradeCyclePolicy() {
+        return missedTradeCyclePolicy;
+    }
+
+    public void setMissedTradeCyclePolicy(String missedTradeCyclePolicy) {
+        this.missedTradeCyclePolicy = missedTradeCyclePolicy;
+    }
+
+    public Boolean getTradeCycleCaching() {
+        return tradeCycleCaching;
+    }
+
+    public void setTradeCycleCaching(Boolean tradeCycleCaching) {
+        this.tradeCycleCaching = tradeCycleCaching;
+    }
+
+    public Integer getBalanceReconcileInterval() {
+        return balanceReconcileInterval;
+    }
+
+    public void setBalanceReconcileInterval(Integer balanceReconcileInterval) {
+        this.balanceReconcileInterval = balanceReconcileInterval;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -102,6 +156,12 @@ public class EngineConfig {
                 .add("emergencyStopCurrency", emergencyStopCurrency)
                 .add("emergencyStopBalance", emergencyStopBalance)
                 .add("tradeCycleInterval", tradeCycleInterval)
+                .add("strategyExecutionThreads", strategyExecutionThreads)
+                .add("strategyExecutionTimeout", strategyExecutionTimeout)
+                .add("tradeCycleScheduling", tradeCycleScheduling)
+                .add("missedTradeCyclePolicy", missedTradeCyclePolicy)
+                .add("tradeCycleCaching", tradeCycleCaching)
+                .add("balanceReconcileInterval", balanceReconcileInterval)
                 .toString();
     }
 }
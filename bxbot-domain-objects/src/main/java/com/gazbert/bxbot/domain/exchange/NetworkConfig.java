@@ -38,11 +38,15 @@ public class NetworkConfig {
     private Integer connectionTimeout;
     private List<Integer> nonFatalErrorCodes;
     private List<String> nonFatalErrorMessages;
+    private Integer maxConnectionsPerHost;
+    private Integer idleConnectionTimeout;
+    private List<RateLimitConfig> rateLimits;
 
 
     public NetworkConfig() {
         nonFatalErrorCodes = new ArrayList<>();
         nonFatalErrorMessages = new ArrayList<>();
+        rateLimits = new ArrayList<>();
     }
 
     public Integer getConnectionTimeout() {
@@ -69,12 +73,39 @@ public class NetworkConfig {
         this.nonFatalErrorMessages = nonFatalErrorMessages;
     }
 
+    public Integer getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(Integer maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(Integer idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    public List<RateLimitConfig> getRateLimits() {
+        return rateLimits;
+    }
+
+    public void setRateLimits(List<RateLimitConfig> rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("connectionTimeout", connectionTimeout)
                 .add("nonFatalErrorCodes", nonFatalErrorCodes)
                 .add("nonFatalErrorMessages", nonFatalErrorMessages)
+                .add("maxConnectionsPerHost", maxConnectionsPerHost)
+                .add("idleConnectionTimeout", idleConnectionTimeout)
+                .add("rateLimits", rateLimits)
                 .toString();
     }
 }
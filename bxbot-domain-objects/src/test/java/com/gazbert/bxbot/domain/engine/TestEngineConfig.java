@@ -41,6 +41,12 @@ public class TestEngineConfig {
     private static final String EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("1.5");
     private static final int TRADE_CYCLE_INTERVAL = 30;
+    private static final Integer STRATEGY_EXECUTION_THREADS = 4;
+    private static final Integer STRATEGY_EXECUTION_TIMEOUT = 20;
+    private static final String TRADE_CYCLE_SCHEDULING = "FIXED_RATE";
+    private static final String MISSED_TRADE_CYCLE_POLICY = "COALESCE";
+    private static final Boolean TRADE_CYCLE_CACHING = true;
+    private static final Integer BALANCE_RECONCILE_INTERVAL = 300;
 
     @Test
     public void testInitialisationWorksAsExpected() {
@@ -64,6 +70,12 @@ public class TestEngineConfig {
         assertEquals(null, engineConfig.getEmergencyStopCurrency());
         assertEquals(null, engineConfig.getEmergencyStopBalance());
         assertEquals(0, engineConfig.getTradeCycleInterval());
+        assertEquals(null, engineConfig.getStrategyExecutionThreads());
+        assertEquals(null, engineConfig.getStrategyExecutionTimeout());
+        assertEquals(null, engineConfig.getTradeCycleScheduling());
+        assertEquals(null, engineConfig.getMissedTradeCyclePolicy());
+        assertEquals(null, engineConfig.getTradeCycleCaching());
+        assertEquals(null, engineConfig.getBalanceReconcileInterval());
 
         engineConfig.setBotId(BOT_ID);
         assertEquals(BOT_ID, engineConfig.getBotId());
@@ -79,5 +91,23 @@ public class TestEngineConfig {
 
         engineConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
         assertEquals(TRADE_CYCLE_INTERVAL, engineConfig.getTradeCycleInterval());
+
+        engineConfig.setStrategyExecutionThreads(STRATEGY_EXECUTION_THREADS);
+        assertEquals(STRATEGY_EXECUTION_THREADS, engineConfig.getStrategyExecutionThreads());
+
+        engineConfig.setStrategyExecutionTimeout(STRATEGY_EXECUTION_TIMEOUT);
+        assertEquals(STRATEGY_EXECUTION_TIMEOUT, engineConfig.getStrategyExecutionTimeout());
+
+        engineConfig.setTradeCycleScheduling(TRADE_CYCLE_SCHEDULING);
+        assertEquals(TRADE_CYCLE_SCHEDULING, engineConfig.getTradeCycleScheduling());
+
+        engineConfig.setMissedTradeCyclePolicy(MISSED_TRADE_CYCLE_POLICY);
+        assertEquals(MISSED_TRADE_CYCLE_POLICY, engineConfig.getMissedTradeCyclePolicy());
+
+        engineConfig.setTradeCycleCaching(TRADE_CYCLE_CACHING);
+        assertEquals(TRADE_CYCLE_CACHING, engineConfig.getTradeCycleCaching());
+
+        engineConfig.setBalanceReconcileInterval(BALANCE_RECONCILE_INTERVAL);
+        assertEquals(BALANCE_RECONCILE_INTERVAL, engineConfig.getBalanceReconcileInterval());
     }
 }
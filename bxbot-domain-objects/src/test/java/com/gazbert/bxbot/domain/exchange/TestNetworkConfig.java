@@ -39,9 +39,13 @@ import static org.junit.Assert.assertTrue;
 public class TestNetworkConfig {
 
     private static final Integer CONNECTION_TIMEOUT = 30;
+    private static final Integer MAX_CONNECTIONS_PER_HOST = 4;
+    private static final Integer IDLE_CONNECTION_TIMEOUT = 60;
     private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504);
     private static final List<String> NON_FATAL_ERROR_MESSAGES = Arrays.asList(
             "Connection refused", "Connection reset", "Remote host closed connection during handshake");
+    private static final List<RateLimitConfig> RATE_LIMITS = Arrays.asList(
+            new RateLimitConfig("all", 600, 600), new RateLimitConfig("market-data", 1, 1));
 
     @Test
     public void testInitialisationWorksAsExpected() {
@@ -50,6 +54,9 @@ public class TestNetworkConfig {
         assertEquals(null, networkConfig.getConnectionTimeout());
         assertTrue(networkConfig.getNonFatalErrorCodes().isEmpty());
         assertTrue(networkConfig.getNonFatalErrorMessages().isEmpty());
+        assertEquals(null, networkConfig.getMaxConnectionsPerHost());
+        assertEquals(null, networkConfig.getIdleConnectionTimeout());
+        assertTrue(networkConfig.getRateLimits().isEmpty());
     }
 
     @Test
@@ -65,5 +72,14 @@ public class TestNetworkConfig {
 
         networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
         assertEquals(NON_FATAL_ERROR_MESSAGES, networkConfig.getNonFatalErrorMessages());
+
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        assertEquals(MAX_CONNECTIONS_PER_HOST, networkConfig.getMaxConnectionsPerHost());
+
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        assertEquals(IDLE_CONNECTION_TIMEOUT, networkConfig.getIdleConnectionTimeout());
+
+        networkConfig.setRateLimits(RATE_LIMITS);
+        assertEquals(RATE_LIMITS, networkConfig.getRateLimits());
     }
 }
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.domain.exchange;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests RateLimitConfig domain object behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestRateLimitConfig {
+
+    private static final String ENDPOINT_CLASS = "trading";
+    private static final Integer MAX_REQUESTS = 60;
+    private static final Integer PERIOD = 10;
+
+
+    @Test
+    public void testInitialisationWorksAsExpected() {
+
+        final RateLimitConfig rateLimitConfig = new RateLimitConfig(ENDPOINT_CLASS, MAX_REQUESTS, PERIOD);
+        assertEquals(ENDPOINT_CLASS, rateLimitConfig.getEndpointClass());
+        assertEquals(MAX_REQUESTS, rateLimitConfig.getMaxRequests());
+        assertEquals(PERIOD, rateLimitConfig.getPeriod());
+    }
+
+    @Test
+    public void testSettersWorkAsExpected() {
+
+        final RateLimitConfig rateLimitConfig = new RateLimitConfig();
+        assertEquals(null, rateLimitConfig.getEndpointClass());
+        assertEquals(null, rateLimitConfig.getMaxRequests());
+        assertEquals(null, rateLimitConfig.getPeriod());
+
+        rateLimitConfig.setEndpointClass(ENDPOINT_CLASS);
+        assertEquals(ENDPOINT_CLASS, rateLimitConfig.getEndpointClass());
+
+        rateLimitConfig.setMaxRequests(MAX_REQUESTS);
+        assertEquals(MAX_REQUESTS, rateLimitConfig.getMaxRequests());
+
+        rateLimitConfig.setPeriod(PERIOD);
+        assertEquals(PERIOD, rateLimitConfig.getPeriod());
+    }
+}
@@ -40,6 +40,7 @@ public class TestMarketConfig {
     private static final String COUNTER_CURRENCY = "USD";
     private static final boolean IS_ENABLED = true;
     private static final String TRADING_STRATEGY = "macd_trend_follower";
+    private static final Integer TRADE_CYCLE_INTERVAL = 5;
 
 
     @Test
@@ -52,6 +53,7 @@ public class TestMarketConfig {
         assertEquals(COUNTER_CURRENCY, marketConfig.getCounterCurrency());
         assertEquals(IS_ENABLED, marketConfig.isEnabled());
         assertEquals(TRADING_STRATEGY, marketConfig.getTradingStrategyId());
+        assertEquals(null, marketConfig.getTradeCycleInterval());
     }
 
     @Test
@@ -64,6 +66,7 @@ public class TestMarketConfig {
         assertEquals(null, marketConfig.getCounterCurrency());
         assertEquals(false, marketConfig.isEnabled());
         assertEquals(null, marketConfig.getTradingStrategyId());
+        assertEquals(null, marketConfig.getTradeCycleInterval());
 
         marketConfig.setId(ID);
         assertEquals(ID, marketConfig.getId());
@@ -82,13 +85,18 @@ public class TestMarketConfig {
 
         marketConfig.setTradingStrategyId(TRADING_STRATEGY);
         assertEquals(TRADING_STRATEGY, marketConfig.getTradingStrategyId());
+
+        marketConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+        assertEquals(TRADE_CYCLE_INTERVAL, marketConfig.getTradeCycleInterval());
     }
 
     @Test
     public void testCloningWorksAsExpected() {
         final MarketConfig marketConfig = new MarketConfig(
                 ID, NAME, BASE_CURRENCY, COUNTER_CURRENCY, IS_ENABLED, TRADING_STRATEGY);
+        marketConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
         final MarketConfig clonedMarketConfig = new MarketConfig(marketConfig);
         assertEquals(clonedMarketConfig, marketConfig);
+        assertEquals(TRADE_CYCLE_INTERVAL, clonedMarketConfig.getTradeCycleInterval());
     }
 }
@@ -31,7 +31,9 @@ import com.gazbert.bxbot.trading.api.TradingApi;
  * adapter its configuration on startup.
  * </p>
  * <p>
- * The Trading Engine will send only 1 thread through the Exchange Adapter code at a time - you do not have to code for concurrency.
+ * By default, the Trading Engine will send only 1 thread through the Exchange Adapter code at a time - you do not have
+ * to code for concurrency. If the engine is configured with more than 1 strategy execution thread, the Trading
+ * Strategies for different markets will call the adapter concurrently and the adapter must be thread safe.
  * </p>
  *
  * @author gazbert
@@ -53,4 +53,25 @@ public interface NetworkConfig {
      * @return the connection timeout value if present, null otherwise.
      */
     Integer getConnectionTimeout();
+
+    /**
+     * Fetches (optional) maximum number of pooled connections the adapter can open to each exchange host.
+     *
+     * @return the max connections per host value if present, null otherwise.
+     */
+    Integer getMaxConnectionsPerHost();
+
+    /**
+     * Fetches (optional) time in seconds a pooled connection can stay idle before it is closed.
+     *
+     * @return the idle connection timeout value if present, null otherwise.
+     */
+    Integer getIdleConnectionTimeout();
+
+    /**
+     * Fetches (optional) list of client-side rate limits.
+     *
+     * @return list of rate limits if present, an empty list otherwise.
+     */
+    List<RateLimitConfig> getRateLimits();
 }
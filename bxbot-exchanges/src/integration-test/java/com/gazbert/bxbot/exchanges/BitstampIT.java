@@ -84,12 +84,15 @@ public class BitstampIT {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         exchangeConfig = createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
         expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
 
-        // no optional config for this adapter
+        expect(exchangeConfig.getOptionalConfig()).andReturn(null); // no optional config for this adapter
     }
 
     @Test
@@ -80,11 +80,15 @@ public class HuobiIT {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         optionalConfig = createMock(OptionalConfig.class);
         expect(optionalConfig.getItem("buy-fee")).andReturn("0.25");
         expect(optionalConfig.getItem("sell-fee")).andReturn("0.25");
         expect(optionalConfig.getItem("account-info-market")).andReturn("usd");
+        expect(optionalConfig.getItem("hedge-percentile")).andReturn(null);
 
         exchangeConfig = createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -26,24 +26,69 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketDataListener;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.math.BigDecimal;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormatSymbols;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Base class for shared Exchange Adapter functionality.
+ * <p>
+ * It provides the {@link AsyncTradingApi} for all the adapters: async calls run the adapter's blocking Trading API
+ * calls on a pool of request threads, one per pooled connection, so independent calls to the exchange overlap.
+ * <p>
+ * Batches of orders are placed and cancelled in parallel on the same pool, so no more than one call per pooled
+ * connection is in flight at once. Adapters for exchanges with batch API calls override this.
  *
  * @author gazbert
  * @since 1.0
  */
-abstract class AbstractExchangeAdapter {
+abstract class AbstractExchangeAdapter implements AsyncTradingApi {
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -62,6 +107,21 @@ abstract class AbstractExchangeAdapter {
      */
     private static final String IO_5XX_TIMEOUT_ERROR_MSG = "Failed to connect to Exchange due to 5xx timeout.";
 
+    /**
+     * Dead exchange error message for logging.
+     */
+    private static final String EXCHANGE_DEAD_ERROR_MSG = "Failed to connect to Exchange. It's dead Jim!";
+
+    /**
+     * Open circuit breaker error message for logging.
+     */
+    private static final String CIRCUIT_BREAKER_OPEN_ERROR_MSG = "Exchange is degraded; failing fast until it recovers.";
+
+    /**
+     * Unexpected error message for when a batch Trading API call fails.
+     */
+    private static final String UNEXPECTED_ERROR_MSG_FOR_BATCH = "Batch Trading API call failed.";
+
     /**
      * Fatal error message for when AuthenticationConfig is missing in the exchange.xml config file.
      */
@@ -97,6 +157,62 @@ abstract class AbstractExchangeAdapter {
      */
     private static final String NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME = "non-fatal-error-messages";
 
+    /**
+     * Name of max-connections-per-host property in config file.
+     */
+    private static final String MAX_CONNECTIONS_PER_HOST_PROPERTY_NAME = "max-connections-per-host";
+
+    /**
+     * Name of idle-connection-timeout property in config file.
+     */
+    private static final String IDLE_CONNECTION_TIMEOUT_PROPERTY_NAME = "idle-connection-timeout";
+
+    /**
+     * Name of rate-limits property in config file.
+     */
+    private static final String RATE_LIMITS_PROPERTY_NAME = "rate-limits";
+
+    /**
+     * Name of hedge-percentile property in optional config.
+     */
+    private static final String HEDGE_PERCENTILE_PROPERTY_NAME = "hedge-percentile";
+
+    /**
+     * Name of fee-cache-ttl property in optional config.
+     */
+    private static final String FEE_CACHE_TTL_PROPERTY_NAME = "fee-cache-ttl";
+
+    /**
+     * Time in SECONDS an exchange fee fetched from the exchange is cached for, unless set in the optional config.
+     */
+    private static final long DEFAULT_FEE_CACHE_TTL = 600;
+
+    /**
+     * Adapters only talk to 1 or 2 API hosts; this caps the total size of the connection pool.
+     */
+    private static final int MAX_EXCHANGE_HOSTS = 4;
+
+    /**
+     * Max number of times a failed market data request is retried before the error is passed on.
+     */
+    private static final int MAX_RETRIES = 2;
+
+    /**
+     * Shortest and longest delay in millis before retrying a failed market data request.
+     */
+    private static final long RETRY_BASE_DELAY_MILLIS = 100;
+    private static final long RETRY_MAX_DELAY_MILLIS = 1000;
+
+    /**
+     * Number of consecutive network failures that opens the circuit breaker for an endpoint.
+     */
+    private static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+
+    /**
+     * Time in SECONDS a circuit breaker stays open before a trial request is let through.
+     */
+    private static final int CIRCUIT_BREAKER_OPEN_DURATION = 30;
+
     /**
      * Exchange Adapter config file location.
      */
@@ -107,6 +223,72 @@ abstract class AbstractExchangeAdapter {
      */
     private int connectionTimeout;
 
+    /**
+     * The max number of pooled connections to keep open to each exchange host.
+     */
+    private int maxConnectionsPerHost;
+
+    /**
+     * The time in SECONDS a pooled connection can be idle before it is evicted from the pool.
+     */
+    private int idleConnectionTimeout;
+
+    /**
+     * Holds back requests that would break the exchange's rate limits. No limits are set by default.
+     */
+    private RequestRateLimiter requestRateLimiter = new RequestRateLimiter(Collections.emptyList());
+
+    /**
+     * Decides when failed market data requests are retried.
+     */
+    private final RequestRetryPolicy requestRetryPolicy =
+            new RequestRetryPolicy(MAX_RETRIES, RETRY_BASE_DELAY_MILLIS, RETRY_MAX_DELAY_MILLIS);
+
+    /**
+     * The circuit breakers, one for each exchange host and endpoint class. Created on the first request to each.
+     */
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * Hedges slow market data requests. Null if hedging is not enabled for the adapter.
+     */
+    private RequestHedger requestHedger;
+
+    /**
+     * Caches the exchange fees for the adapters that fetch them from the exchange.
+     */
+    private ExchangeFeeCache exchangeFeeCache = new ExchangeFeeCache(DEFAULT_FEE_CACHE_TTL, TimeUnit.SECONDS);
+
+    /**
+     * Keep-alive connection pool shared by all API calls to the exchange. Created on the first request.
+     */
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * HTTP client that sends API calls to the exchange using the connection pool.
+     */
+    private CloseableHttpClient httpClient;
+
+    /**
+     * Runs the async Trading API calls. Created on the first async call.
+     */
+    private ExecutorService asyncRequestExecutor;
+
+    /**
+     * The open market data streams, one for each market data subscription.
+     */
+    private final List<MarketDataStream> marketDataStreams = new CopyOnWriteArrayList<>();
+
+    /**
+     * Number of requests sent to the exchange.
+     */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * Number of connections opened to the exchange. Fewer connections than requests means connections are being reused.
+     */
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
     /**
      * HTTP status codes for non-fatal network connection failures.
      * Used to decide to throw {@link ExchangeNetworkException}.
@@ -131,6 +313,8 @@ abstract class AbstractExchangeAdapter {
      */
     AbstractExchangeAdapter() {
         connectionTimeout = 30;
+        maxConnectionsPerHost = 10;
+        idleConnectionTimeout = 30;
         nonFatalNetworkErrorCodes = new HashSet<>();
         nonFatalNetworkErrorMessages = new HashSet<>();
 
@@ -141,11 +325,21 @@ abstract class AbstractExchangeAdapter {
 
     /**
      * Makes a request to the Exchange.
+     * <p>
+     * Market data requests that fail with a network error are retried a couple of times after a short, jittered
+     * delay, so a single flaky request does not cost the bot a whole trade cycle. Other requests are not retried:
+     * orders must not be placed twice, and signed requests cannot be replayed with the same nonce.
+     * <p>
+     * If the adapter has enabled hedging, a market data request that is slower than most is hedged with a duplicate
+     * request and the first response wins - see {@link RequestHedger}.
+     * <p>
+     * Each exchange host and endpoint class has a {@link CircuitBreaker}. After a run of network failures, requests
+     * fail fast with an {@link ExchangeNetworkException} until the exchange recovers.
      *
      * @param url            the URL to invoke.
      * @param postData       optional post data to send. This can be null.
      * @param httpMethod     the HTTP method to use, e.g. GET, POST, DELETE
-     * @param requestHeaders optional request headers to set on the {@link URLConnection} used to invoke the Exchange.
+     * @param requestHeaders optional request headers to set on the request used to invoke the Exchange.
      * @return the response from the Exchange.
      * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
      *                                  This exception allows for recovery from temporary network issues.
@@ -155,127 +349,367 @@ abstract class AbstractExchangeAdapter {
     ExchangeHttpResponse sendNetworkRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders)
             throws TradingApiException, ExchangeNetworkException {
 
-        HttpURLConnection exchangeConnection = null;
-        final StringBuilder exchangeResponse = new StringBuilder();
+        final EndpointClass endpointClass = getEndpointClass(url, httpMethod, postData);
+        final CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(
+                url.getHost() + " " + endpointClass.getConfigName(),
+                name -> new CircuitBreaker(name, CIRCUIT_BREAKER_FAILURE_THRESHOLD, CIRCUIT_BREAKER_OPEN_DURATION,
+                        TimeUnit.SECONDS));
+        final boolean idempotent = endpointClass == EndpointClass.MARKET_DATA && httpMethod.equalsIgnoreCase("GET");
+
+        long retryDelayMillis = requestRetryPolicy.getBaseDelayMillis();
+        for (int attempt = 0; ; attempt++) {
+
+            if (!circuitBreaker.allowRequest()) {
+                final String errorMsg = CIRCUIT_BREAKER_OPEN_ERROR_MSG + " " + circuitBreaker;
+                LOG.error(errorMsg);
+                throw new ExchangeNetworkException(errorMsg);
+            }
+
+            boolean networkFailure = false;
+            try {
+                if (idempotent && requestHedger != null) {
+                    return requestHedger.send(
+                            () -> executeNetworkRequest(url, httpMethod, postData, requestHeaders, endpointClass));
+                }
+                return executeNetworkRequest(url, httpMethod, postData, requestHeaders, endpointClass);
+
+            } catch (ExchangeNetworkException e) {
+                networkFailure = true;
+                if (!idempotent || attempt >= requestRetryPolicy.getMaxRetries()) {
+                    throw e;
+                }
+
+            } finally {
+                if (networkFailure) {
+                    circuitBreaker.recordFailure();
+                } else {
+                    circuitBreaker.recordSuccess();
+                }
+                LOG.debug(() -> "Circuit breaker stats: " + circuitBreaker);
+                if (idempotent && requestHedger != null) {
+                    LOG.debug(() -> "Request hedger stats: " + requestHedger);
+                }
+            }
+
+            retryDelayMillis = requestRetryPolicy.nextDelayMillis(retryDelayMillis);
+            final long delayMillis = retryDelayMillis;
+            LOG.warn(() -> "Retrying request in " + delayMillis + "ms: " + url);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                final String errorMsg = "Interrupted while waiting to retry request to the exchange.";
+                LOG.error(errorMsg, e);
+                throw new TradingApiException(errorMsg, e);
+            }
+        }
+    }
+
+    /*
+     * Sends a single request to the Exchange.
+     * <p>
+     * Requests are sent over a pool of keep-alive connections, so the TCP and TLS handshakes are only paid when a new
+     * connection is opened. All connections share a single SSLContext, letting new connections resume a cached
+     * TLS session instead of doing a full handshake.
+     */
+    private ExchangeHttpResponse executeNetworkRequest(URL url, String httpMethod, String postData,
+                                                       Map<String, String> requestHeaders, EndpointClass endpointClass)
+            throws TradingApiException, ExchangeNetworkException {
 
         try {
 
             LOG.debug(() -> "Using following URL for API call: " + url);
 
-            exchangeConnection = (HttpURLConnection) url.openConnection();
-            exchangeConnection.setUseCaches(false);
-            exchangeConnection.setDoOutput(true);
-            exchangeConnection.setRequestMethod(httpMethod); // GET|POST|DELETE
+            // Add a timeout so we don't get blocked indefinitely; timeout is in millis.
+            // It also bounds the wait for a free connection when the pool is exhausted.
+            final int timeoutInMillis = connectionTimeout * 1000;
+            final RequestBuilder requestBuilder = RequestBuilder.create(httpMethod.toUpperCase()) // GET|POST|DELETE
+                    .setUri(toUri(url))
+                    .setConfig(RequestConfig.custom()
+                            .setConnectTimeout(timeoutInMillis)
+                            .setSocketTimeout(timeoutInMillis)
+                            .setConnectionRequestTimeout(timeoutInMillis)
+                            .build());
 
             // Er, perhaps, I need to be a bit more stealth here... this was needed for some exchanges back in the day!
-            exchangeConnection.setRequestProperty("User-Agent",
+            requestBuilder.setHeader("User-Agent",
                     "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.78 Safari/537.36");
 
             if (requestHeaders != null) {
                 for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
-                    exchangeConnection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
+                    requestBuilder.setHeader(requestHeader.getKey(), requestHeader.getValue());
                     LOG.debug(() -> "Setting following request header: " + requestHeader);
                 }
             }
 
-            // Add a timeout so we don't get blocked indefinitely; timeout on URLConnection is in millis.
-            final int timeoutInMillis = connectionTimeout * 1000;
-            exchangeConnection.setConnectTimeout(timeoutInMillis);
-            exchangeConnection.setReadTimeout(timeoutInMillis);
-
             if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
                 LOG.debug(() -> "Doing POST with request body: " + postData);
-                final OutputStreamWriter outputPostStream = new OutputStreamWriter(exchangeConnection.getOutputStream(), "UTF-8");
-                outputPostStream.write(postData);
-                outputPostStream.close();
+                final StringEntity postEntity = new StringEntity(postData, StandardCharsets.UTF_8);
+                postEntity.setContentType("application/x-www-form-urlencoded"); // used if no Content-Type header set
+                requestBuilder.setEntity(postEntity);
             }
 
-            // Grab the response - we just block here as per Connection API
-            final BufferedReader responseInputStream = new BufferedReader(new InputStreamReader(
-                    exchangeConnection.getInputStream(), "UTF-8"));
+            requestRateLimiter.acquire(endpointClass);
+            requestCount.incrementAndGet();
 
-            // Read the JSON response lines into our response buffer
-            String responseLine;
-            while ((responseLine = responseInputStream.readLine()) != null) {
-                exchangeResponse.append(responseLine);
-            }
-            responseInputStream.close();
+            // Grab the response - we just block here. Closing the response returns the connection to the pool.
+            try (CloseableHttpResponse response = getHttpClient().execute(requestBuilder.build())) {
+
+                final int statusCode = response.getStatusLine().getStatusCode();
+                final HttpEntity responseEntity = response.getEntity();
+                final byte[] exchangeResponse = responseEntity == null
+                        ? new byte[0] : EntityUtils.toByteArray(responseEntity);
+
+                LOG.debug(() -> "Connection pool stats: " + getConnectionPoolStats());
 
-            return new ExchangeHttpResponse(exchangeConnection.getResponseCode(), exchangeConnection.getResponseMessage(),
-                    exchangeResponse.toString());
+                if (statusCode == HttpStatus.SC_NOT_FOUND && isNotFoundAnApiResponse(url, httpMethod)) {
+                    LOG.debug(() -> "Exchange API call returned HTTP status code: " + statusCode);
 
-        } catch (MalformedURLException e) {
+                } else if (statusCode == HttpStatus.SC_NOT_FOUND || statusCode == HttpStatus.SC_GONE) {
+                    // Huobi started returning 404s as of 8 Nov 2015 :-/
+                    final String errorMsg = EXCHANGE_DEAD_ERROR_MSG + " HTTP status code: " + statusCode;
+                    LOG.error(errorMsg);
+                    throw new ExchangeNetworkException(errorMsg);
+
+                } else if (statusCode >= HttpStatus.SC_BAD_REQUEST) {
+
+                    if (nonFatalNetworkErrorCodes.contains(statusCode)) {
+                        final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG + " HTTP status code: " + statusCode;
+                        LOG.error(errorMsg);
+                        throw new ExchangeNetworkException(errorMsg);
+                    }
+
+                    final String errorMsg = UNEXPECTED_IO_ERROR_MSG + " HTTP status code: " + statusCode
+                            + " ErrorStream Response: " + new String(exchangeResponse, StandardCharsets.UTF_8);
+                    LOG.error(errorMsg);
+                    throw new TradingApiException(errorMsg);
+                }
+
+                return new ExchangeHttpResponse(statusCode, response.getStatusLine().getReasonPhrase(), exchangeResponse);
+            }
+
+        } catch (URISyntaxException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
             LOG.error(errorMsg, e);
             throw new TradingApiException(errorMsg, e);
 
-        } catch (SocketTimeoutException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String errorMsg = "Interrupted while waiting for the exchange rate limit.";
+            LOG.error(errorMsg, e);
+            throw new TradingApiException(errorMsg, e);
+
+        } catch (ConnectTimeoutException | SocketTimeoutException e) {
             final String errorMsg = IO_SOCKET_TIMEOUT_ERROR_MSG;
             LOG.error(errorMsg, e);
             throw new ExchangeNetworkException(errorMsg, e);
 
-        } catch (FileNotFoundException | UnknownHostException e) {
-            // Huobi started throwing FileNotFoundException as of 8 Nov 2015 :-/
+        } catch (UnknownHostException e) {
             // EC2 started throwing UnknownHostException for BTC-e, GDAX, as of 14 July 2016 :-/
-            final String errorMsg = "Failed to connect to Exchange. It's dead Jim!";
+            final String errorMsg = EXCHANGE_DEAD_ERROR_MSG;
+            LOG.error(errorMsg, e);
+            throw new ExchangeNetworkException(errorMsg, e);
+
+        } catch (NoHttpResponseException e) {
+            // The exchange closed a pooled connection without responding - the next request will use a fresh one.
+            final String errorMsg = "Failed to connect to Exchange. Connection was closed by the server.";
             LOG.error(errorMsg, e);
             throw new ExchangeNetworkException(errorMsg, e);
 
         } catch (IOException e) {
 
             // Check if this is a non-fatal network error
-            try {
+            if (isNonFatalNetworkErrorMessage(e)) {
+                final String errorMsg = "Failed to connect to Exchange. SSL Connection was refused or reset by the server.";
+                LOG.error(errorMsg, e);
+                throw new ExchangeNetworkException(errorMsg, e);
+            }
 
-                if (e.getMessage() != null && nonFatalNetworkErrorMessages.contains(e.getMessage())) {
+            final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
+            LOG.error(errorMsg, e);
+            throw new TradingApiException(errorMsg, e);
+        }
+    }
 
-                    final String errorMsg = "Failed to connect to Exchange. SSL Connection was refused or reset by the server.";
-                    LOG.error(errorMsg, e);
-                    throw new ExchangeNetworkException(errorMsg, e);
+    /**
+     * Returns the class of API call a request is for, so it is rate limited in the right lane. Adapters override this
+     * to send their order and account requests ahead of market data requests; by default every request is treated as
+     * market data.
+     *
+     * @param url        the URL to invoke.
+     * @param httpMethod the HTTP method to use.
+     * @param postData   the post data to send. This can be null.
+     * @return the endpoint class of the request.
+     */
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        return EndpointClass.MARKET_DATA;
+    }
 
-                } else if (exchangeConnection != null && nonFatalNetworkErrorCodes.contains(exchangeConnection.getResponseCode())) {
+    /**
+     * Returns true if a 404 (Not Found) response to a request is a normal API response rather than the exchange being
+     * down, e.g. an order lookup for an order the exchange no longer knows about. The response is then given back to
+     * the adapter instead of being thrown as an {@link ExchangeNetworkException}, so it is not retried and does not
+     * count against the circuit breaker. By default every 404 means the exchange is down.
+     *
+     * @param url        the URL invoked.
+     * @param httpMethod the HTTP method used.
+     * @return true if a 404 response should be given back to the adapter.
+     */
+    boolean isNotFoundAnApiResponse(URL url, String httpMethod) {
+        return false;
+    }
 
-                    final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG;
-                    LOG.error(errorMsg, e);
-                    throw new ExchangeNetworkException(errorMsg, e);
+    /**
+     * Returns the circuit breakers for the exchange, one for each exchange host and endpoint class that has been
+     * called, so their state can be monitored.
+     *
+     * @return the circuit breakers.
+     */
+    List<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<>(circuitBreakers.values());
+    }
 
-                } else {
-                    String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-
-                    // Check for any clue in the response...
-                    if (exchangeConnection != null) {
-                        final InputStream rawErrorStream = exchangeConnection.getErrorStream();
-                        if (rawErrorStream != null) {
-                            final BufferedReader errorInputStream = new BufferedReader(new InputStreamReader(rawErrorStream, "UTF-8"));
-                            final StringBuilder errorResponse = new StringBuilder();
-                            String errorLine;
-                            while ((errorLine = errorInputStream.readLine()) != null) {
-                                errorResponse.append(errorLine);
-                            }
-                            errorInputStream.close();
-                            errorMsg += " ErrorStream Response: " + errorResponse;
-                        }
-                    }
-                    LOG.error(errorMsg, e);
-                    throw new TradingApiException(errorMsg, e);
-                }
-            } catch (IOException e1) {
+    /**
+     * Returns the request hedger for the exchange. Its stats, including the hedge rate and win rate, are also logged
+     * after each market data request.
+     *
+     * @return the request hedger, or null if hedging is not enabled.
+     */
+    RequestHedger getRequestHedger() {
+        return requestHedger;
+    }
 
-                final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-                LOG.error(errorMsg, e1);
-                throw new TradingApiException(errorMsg, e1);
-            }
-        } finally {
-            if (exchangeConnection != null) {
-                exchangeConnection.disconnect();
-            }
+    /**
+     * Returns the connection pool stats for the exchange.
+     *
+     * @return the connection pool stats.
+     */
+    ConnectionPoolStats getConnectionPoolStats() {
+        final PoolStats poolStats;
+        synchronized (this) {
+            poolStats = connectionManager == null ? new PoolStats(0, 0, 0, 0) : connectionManager.getTotalStats();
+        }
+        return new ConnectionPoolStats(requestCount.get(), connectionsOpened.get(), poolStats.getLeased(),
+                poolStats.getAvailable(), poolStats.getPending(), maxConnectionsPerHost);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Trading API calls implemented by the Exchange Adapters
+    // ------------------------------------------------------------------------------------------------
+
+    public abstract MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException;
+
+    public abstract List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException;
+
+    public abstract String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException;
+
+    public abstract boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException;
+
+    public abstract BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException;
+
+    // ------------------------------------------------------------------------------------------------
+    //  Batch Trading API calls
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Places the orders in parallel on the async request pool. Waits for every order before returning or throwing.
+     * If any order fails, the ids of the orders that were placed are attached to the exception thrown.
+     */
+    public List<String> createOrders(List<OrderRequest> orderRequests)
+            throws ExchangeNetworkException, TradingApiException {
+
+        final List<CompletableFuture<String>> orderIds = new ArrayList<>(orderRequests.size());
+        for (final OrderRequest orderRequest : orderRequests) {
+            orderIds.add(sendAsync(() -> createOrder(orderRequest.getMarketId(), orderRequest.getOrderType(),
+                    orderRequest.getQuantity(), orderRequest.getPrice())));
+        }
+
+        try {
+            return awaitAll(orderIds);
+        } catch (ExchangeNetworkException e) {
+            throw new ExchangeNetworkException(e.getMessage(), e, getPlacedOrderIds(orderIds));
+        } catch (TradingApiException e) {
+            throw new TradingApiException(e.getMessage(), e, getPlacedOrderIds(orderIds));
+        } catch (RuntimeException e) {
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG_FOR_BATCH, e, getPlacedOrderIds(orderIds));
         }
     }
 
+    /*
+     * Cancels the orders in parallel on the async request pool. Waits for every order before returning or throwing.
+     */
+    public boolean cancelOrders(List<String> orderIds, String marketId)
+            throws ExchangeNetworkException, TradingApiException {
+
+        final List<CompletableFuture<Boolean>> cancelled = new ArrayList<>(orderIds.size());
+        for (final String orderId : orderIds) {
+            cancelled.add(sendAsync(() -> cancelOrder(orderId, marketId)));
+        }
+        return !awaitAll(cancelled).contains(Boolean.FALSE);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Exchange fee cache
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Empties the exchange fee cache so the next fee lookups fetch the fees from the exchange. This implements
+     * {@link com.gazbert.bxbot.trading.api.TradingApi#invalidateExchangeFees()} for the adapters.
+     */
+    public void invalidateExchangeFees() {
+        exchangeFeeCache.invalidateAll();
+    }
+
+    /**
+     * Returns an exchange fee from the fee cache, fetching it from the exchange if it is not cached or has expired.
+     *
+     * @param key        the key the fee is cached under, e.g. the market id.
+     * @param feeFetcher fetches the fee from the exchange.
+     * @return the fee.
+     * @throws ExchangeNetworkException if the fee fetch failed with a network error.
+     * @throws TradingApiException      if the fee fetch failed for any other reason.
+     */
+    BigDecimal getCachedExchangeFee(String key, ExchangeFeeCache.FeeFetcher feeFetcher)
+            throws ExchangeNetworkException, TradingApiException {
+        return exchangeFeeCache.getFee(key, feeFetcher);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Async Trading API
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId) {
+        return sendAsync(() -> getMarketOrders(marketId));
+    }
+
+    @Override
+    public CompletableFuture<List<OpenOrder>> getYourOpenOrdersAsync(String marketId) {
+        return sendAsync(() -> getYourOpenOrders(marketId));
+    }
+
+    @Override
+    public CompletableFuture<String> createOrderAsync(String marketId, OrderType orderType, BigDecimal quantity,
+                                                      BigDecimal price) {
+        return sendAsync(() -> createOrder(marketId, orderType, quantity, price));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrderAsync(String orderId, String marketId) {
+        return sendAsync(() -> cancelOrder(orderId, marketId));
+    }
+
+    @Override
+    public CompletableFuture<BalanceInfo> getBalanceInfoAsync() {
+        return sendAsync(this::getBalanceInfo);
+    }
+
     /**
      * Sets the network config for the exchange adapter. This helper method expects the network config to be present.
      *
      * @param exchangeConfig the exchange config.
-     * @throws IllegalArgumentException if the network config is not set.
+     * @throws IllegalArgumentException if the network config is not set, or a rate limit in it is not valid.
      */
     void setNetworkConfig(ExchangeConfig exchangeConfig) {
 
@@ -305,6 +739,63 @@ abstract class AbstractExchangeAdapter {
             nonFatalNetworkErrorMessages.addAll(nonFatalErrorMessagesFromConfig);
         }
         LOG.info(() -> NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME + ": " + nonFatalNetworkErrorMessages);
+
+        final Integer maxConnectionsPerHostFromConfig = networkConfig.getMaxConnectionsPerHost();
+        if (maxConnectionsPerHostFromConfig != null) {
+            maxConnectionsPerHost = maxConnectionsPerHostFromConfig;
+        }
+        LOG.info(() -> MAX_CONNECTIONS_PER_HOST_PROPERTY_NAME + ": " + maxConnectionsPerHost);
+
+        final Integer idleConnectionTimeoutFromConfig = networkConfig.getIdleConnectionTimeout();
+        if (idleConnectionTimeoutFromConfig != null) {
+            idleConnectionTimeout = idleConnectionTimeoutFromConfig;
+        }
+        LOG.info(() -> IDLE_CONNECTION_TIMEOUT_PROPERTY_NAME + ": " + idleConnectionTimeout);
+
+        final List<RateLimitConfig> rateLimitsFromConfig = networkConfig.getRateLimits();
+        if (rateLimitsFromConfig != null) {
+            requestRateLimiter = new RequestRateLimiter(rateLimitsFromConfig);
+        }
+        LOG.info(() -> RATE_LIMITS_PROPERTY_NAME + ": " + requestRateLimiter);
+    }
+
+    /**
+     * Enables hedged market data requests if a hedge-percentile is set in the optional config. Adapters for exchanges
+     * with bad tail latency call this when they load their optional config.
+     *
+     * @param optionalConfig the optional config for the adapter.
+     * @throws IllegalArgumentException if the hedge-percentile is not valid.
+     */
+    void setHedgingConfig(OptionalConfig optionalConfig) {
+
+        final String hedgePercentileInConfig = optionalConfig.getItem(HEDGE_PERCENTILE_PROPERTY_NAME);
+        if (hedgePercentileInConfig != null && !hedgePercentileInConfig.isEmpty()) {
+            requestHedger = new RequestHedger(Integer.parseInt(hedgePercentileInConfig),
+                    Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                            .setNameFormat(getClass().getSimpleName() + "-hedged-request-%d")
+                            .setDaemon(true)
+                            .build()));
+        }
+        LOG.info(() -> HEDGE_PERCENTILE_PROPERTY_NAME + ": " + hedgePercentileInConfig);
+    }
+
+    /**
+     * Sets the time-to-live of the exchange fee cache if a fee-cache-ttl is set in the optional config. Adapters that
+     * fetch the exchange fees from the exchange call this when they are initialised. The optional config does not have
+     * to be present.
+     *
+     * @param exchangeConfig the exchange config.
+     * @throws IllegalArgumentException if the fee-cache-ttl is not valid.
+     */
+    void setFeeCacheConfig(ExchangeConfig exchangeConfig) {
+
+        final OptionalConfig optionalConfig = exchangeConfig.getOptionalConfig();
+        final String feeCacheTtlInConfig = optionalConfig == null
+                ? null : optionalConfig.getItem(FEE_CACHE_TTL_PROPERTY_NAME);
+        if (feeCacheTtlInConfig != null && !feeCacheTtlInConfig.isEmpty()) {
+            exchangeFeeCache = new ExchangeFeeCache(Long.parseLong(feeCacheTtlInConfig), TimeUnit.SECONDS);
+        }
+        LOG.info(() -> FEE_CACHE_TTL_PROPERTY_NAME + ": " + exchangeFeeCache);
     }
 
     /**
@@ -407,21 +898,91 @@ abstract class AbstractExchangeAdapter {
         return decimalFormatSymbols;
     }
 
+    /**
+     * Wrapper for holding the Exchange connection pool stats.
+     */
+    static class ConnectionPoolStats {
+
+        private final long requestCount;
+        private final long connectionsOpened;
+        private final int leasedConnections;
+        private final int availableConnections;
+        private final int pendingRequests;
+        private final int maxConnectionsPerHost;
+
+        ConnectionPoolStats(long requestCount, long connectionsOpened, int leasedConnections, int availableConnections,
+                            int pendingRequests, int maxConnectionsPerHost) {
+            this.requestCount = requestCount;
+            this.connectionsOpened = connectionsOpened;
+            this.leasedConnections = leasedConnections;
+            this.availableConnections = availableConnections;
+            this.pendingRequests = pendingRequests;
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+        }
+
+        long getRequestCount() {
+            return requestCount;
+        }
+
+        long getConnectionsOpened() {
+            return connectionsOpened;
+        }
+
+        int getLeasedConnections() {
+            return leasedConnections;
+        }
+
+        int getAvailableConnections() {
+            return availableConnections;
+        }
+
+        int getPendingRequests() {
+            return pendingRequests;
+        }
+
+        int getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("requestCount", requestCount)
+                    .add("connectionsOpened", connectionsOpened)
+                    .add("leasedConnections", leasedConnections)
+                    .add("availableConnections", availableConnections)
+                    .add("pendingRequests", pendingRequests)
+                    .add("maxConnectionsPerHost", maxConnectionsPerHost)
+                    .toString();
+        }
+    }
+
     /**
      * Wrapper for holding Exchange HTTP response.
+     * <p>
+     * The payload is kept as the raw UTF-8 bytes received from the exchange. Large responses like order books can be
+     * parsed straight from {@link #getPayloadReader()} without first being copied into a String.
      */
     static class ExchangeHttpResponse {
 
         private final int statusCode;
         private final String reasonPhrase;
-        private final String payload;
+        private final byte[] payloadBytes;
+        private String payload;
 
         ExchangeHttpResponse(int statusCode, String reasonPhrase, String payload) {
             this.statusCode = statusCode;
             this.reasonPhrase = reasonPhrase;
+            this.payloadBytes = null;
             this.payload = payload;
         }
 
+        ExchangeHttpResponse(int statusCode, String reasonPhrase, byte[] payloadBytes) {
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+            this.payloadBytes = payloadBytes;
+        }
+
         String getReasonPhrase() {
             return reasonPhrase;
         }
@@ -431,23 +992,209 @@ abstract class AbstractExchangeAdapter {
         }
 
         String getPayload() {
+            if (payload == null && payloadBytes != null) {
+                payload = new String(payloadBytes, StandardCharsets.UTF_8);
+            }
             return payload;
         }
 
+        Reader getPayloadReader() {
+            if (payload == null && payloadBytes != null) {
+                return new InputStreamReader(new ByteArrayInputStream(payloadBytes), StandardCharsets.UTF_8);
+            }
+            return new StringReader(payload);
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
                     .add("statusCode", statusCode)
                     .add("reasonPhrase", reasonPhrase)
-                    .add("payload", payload)
+                    .add("payload", getPayload())
                     .toString();
         }
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Market data streams for the adapters that implement MarketDataSubscription
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Opens a market data stream for a new market data subscription. Each subscription gets its own connection so
+     * its listener always starts with an order book snapshot.
+     *
+     * @param marketDataStream the market data stream.
+     * @throws ExchangeNetworkException if the connection to the exchange cannot be opened.
+     */
+    void openMarketDataStream(MarketDataStream marketDataStream) throws ExchangeNetworkException {
+        marketDataStreams.removeIf(stream -> !stream.isOpen()); // forget streams closed by the exchange
+        marketDataStreams.add(marketDataStream);
+        try {
+            marketDataStream.connect(connectionTimeout);
+        } catch (ExchangeNetworkException e) {
+            marketDataStreams.remove(marketDataStream);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the market data streams for a market data subscription.
+     *
+     * @param marketId the id of the market.
+     * @param listener the subscription's listener.
+     */
+    void closeMarketDataStream(String marketId, MarketDataListener listener) {
+        for (final MarketDataStream stream : marketDataStreams) {
+            if (stream.getMarketId().equals(marketId) && stream.getListener() == listener) {
+                marketDataStreams.remove(stream);
+                stream.close();
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Util methods
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Runs a blocking Trading API call on the async request pool. The future completes exceptionally with the
+     * ExchangeNetworkException or TradingApiException thrown by the call.
+     */
+    private <T> CompletableFuture<T> sendAsync(TradingApiCall<T> tradingApiCall) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        getAsyncRequestExecutor().execute(() -> {
+            try {
+                result.complete(tradingApiCall.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /*
+     * Returns the ids of a batch of orders that were placed, in order - null for each order that failed. Every order
+     * in the batch must have finished.
+     */
+    private static List<String> getPlacedOrderIds(List<CompletableFuture<String>> orderIds) {
+        final List<String> placedOrderIds = new ArrayList<>(orderIds.size());
+        for (final CompletableFuture<String> orderId : orderIds) {
+            placedOrderIds.add(orderId.isCompletedExceptionally() ? null : orderId.join());
+        }
+        return placedOrderIds;
+    }
+
+    /*
+     * Waits for all the async calls in a batch to finish, then returns their results in order or rethrows the first
+     * call's failure. An Error is rethrown as is.
+     */
+    private static <T> List<T> awaitAll(List<CompletableFuture<T>> asyncCalls)
+            throws ExchangeNetworkException, TradingApiException {
+
+        final List<T> results = new ArrayList<>(asyncCalls.size());
+        Throwable firstFailure = null;
+        for (final CompletableFuture<T> asyncCall : asyncCalls) {
+            try {
+                results.add(asyncCall.join());
+            } catch (CompletionException e) {
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+            }
+        }
+
+        if (firstFailure instanceof ExchangeNetworkException) {
+            throw (ExchangeNetworkException) firstFailure;
+        } else if (firstFailure instanceof TradingApiException) {
+            throw (TradingApiException) firstFailure;
+        } else if (firstFailure instanceof RuntimeException) {
+            throw (RuntimeException) firstFailure;
+        } else if (firstFailure instanceof Error) {
+            throw (Error) firstFailure;
+        } else if (firstFailure != null) {
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG_FOR_BATCH, firstFailure);
+        }
+        return results;
+    }
+
+    /*
+     * Lazily creates the async request pool. It is sized to the connection pool so an async call never waits for
+     * a connection.
+     */
+    private synchronized ExecutorService getAsyncRequestExecutor() {
+        if (asyncRequestExecutor == null) {
+            asyncRequestExecutor = Executors.newFixedThreadPool(maxConnectionsPerHost, new ThreadFactoryBuilder()
+                    .setNameFormat(getClass().getSimpleName() + "-async-request-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+        return asyncRequestExecutor;
+    }
+
+    /*
+     * Lazily creates the HTTP client so the network config has been set before the connection pool is sized.
+     */
+    private synchronized CloseableHttpClient getHttpClient() {
+
+        if (httpClient == null) {
+
+            final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", new SSLConnectionSocketFactory(SSLContexts.createSystemDefault(),
+                            SSLConnectionSocketFactory.getDefaultHostnameVerifier()))
+                    .build();
+
+            connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry,
+                    (route, connectionConfig) -> {
+                        connectionsOpened.incrementAndGet();
+                        LOG.debug(() -> "Opening new connection to: " + route);
+                        return ManagedHttpClientConnectionFactory.INSTANCE.create(route, connectionConfig);
+                    });
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+            connectionManager.setMaxTotal(maxConnectionsPerHost * MAX_EXCHANGE_HOSTS);
+
+            httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .evictExpiredConnections()
+                    .evictIdleConnections(idleConnectionTimeout, TimeUnit.SECONDS)
+                    .disableCookieManagement()
+                    .build();
+        }
+        return httpClient;
+    }
+
+    /*
+     * Some adapters build URLs with chars that java.net.URI rejects; these get quoted instead of failing the request.
+     */
+    private static URI toUri(URL url) throws URISyntaxException {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(), url.getPath(),
+                    url.getQuery(), url.getRef());
+        }
+    }
+
+    /*
+     * The pooled client wraps java.io exceptions, so the non-fatal error messages are checked down the cause chain.
+     */
+    private boolean isNonFatalNetworkErrorMessage(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && nonFatalNetworkErrorMessages.contains(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * A blocking Trading API call.
+     */
+    @FunctionalInterface
+    private interface TradingApiCall<T> {
+        T call() throws ExchangeNetworkException, TradingApiException;
+    }
+
     private static String assertItemExists(String itemName, String itemValue) {
         if (itemValue == null || itemValue.length() == 0) {
             final String errorMsg = itemName + CONFIG_IS_NULL_OR_ZERO_LENGTH + EXCHANGE_CONFIG_FILE + " ?";
@@ -30,19 +30,27 @@ import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OrderStatusImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.security.InvalidKeyException;
@@ -71,6 +79,10 @@ import java.util.*;
  * Furthermore, the adapter does not support sending 'hidden' orders.
  * </p>
  * <p>
+ * Market data can be streamed from v2 of the <a href="https://docs.bitfinex.com/v2/docs/ws-general">WebSocket API</a>
+ * using {@link MarketDataSubscription}.
+ * </p>
+ * <p>
  * There are different exchange fees for Takers and Makers - see <a href="https://www.bitfinex.com/pages/fees">here.</a>
  * This adapter will use the <em>Taker</em> fees to keep things simple for now.
  * </p>
@@ -87,7 +99,8 @@ import java.util.*;
  * @author gazbert
  * @since 1.0
  */
-public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter {
+public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter,
+        MarketDataSubscription {
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -106,6 +119,17 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
      */
     private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
+    /**
+     * The exchange rejects a nonce lower than the last one it has seen, so authenticated requests are sent one at a
+     * time.
+     */
+    private static final int NONCE_WINDOW = 1;
+
+    /**
+     * The WebSocket URI for streaming market data. It uses v2 of the API; the REST calls still use v1.
+     */
+    private static final String MARKET_DATA_WEBSOCKET_URL = "wss://api.bitfinex.com/ws/2";
+
     /**
      * Used for reporting unexpected errors.
      */
@@ -116,6 +140,16 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
      */
     private static final String UNEXPECTED_IO_ERROR_MSG = "Failed to connect to Exchange due to unexpected IO error.";
 
+    /**
+     * The max number of orders the exchange accepts in one 'order/new/multi' call.
+     */
+    private static final int MAX_ORDERS_PER_BATCH = 10;
+
+    /**
+     * The taker fee applies to all markets, so it is cached under a single key.
+     */
+    private static final String TAKER_FEE_CACHE_KEY = "taker_fees";
+
     /**
      * Name of PUBLIC key prop in config file.
      */
@@ -126,11 +160,6 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
      */
     private static final String SECRET_PROPERTY_NAME = "secret";
 
-    /**
-     * Nonce used for sending authenticated messages to the exchange.
-     */
-    private long nonce = 0;
-
     /**
      * Used to indicate if we have initialised the MAC authentication protocol.
      */
@@ -147,10 +176,10 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
-     * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
+     * Signs authenticated requests - it provides the nonces and the "Message Authentication Code" (MAC) algorithm
+     * used for the secure messaging layer.
      */
-    private Mac mac;
+    private SecureMessageLayer secureMessageLayer;
 
     /**
      * GSON engine used for parsing JSON in Bitfinex API call responses.
@@ -164,8 +193,8 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         LOG.info(() -> "About to initialise Bitfinex ExchangeConfig: " + config);
         setAuthenticationConfig(config);
         setNetworkConfig(config);
+        setFeeCacheConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -177,34 +206,28 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrderBook(marketId, null);
+    }
 
-        try {
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
-            LOG.debug(() -> "Market Orders response: " + response);
-
-            final BitfinexOrderBook orderBook = gson.fromJson(response.getPayload(), BitfinexOrderBook.class);
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth) throws TradingApiException,
+            ExchangeNetworkException {
+        MarketOrderBook.checkDepth(depth);
+        return MarketOrderBook.limitDepth(getMarketOrderBook(marketId, depth), depth);
+    }
 
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (BitfinexMarketOrder bitfinexBuyOrder : orderBook.bids) {
-                final MarketOrder buyOrder = new MarketOrderImpl(
-                        OrderType.BUY,
-                        bitfinexBuyOrder.price,
-                        bitfinexBuyOrder.amount,
-                        bitfinexBuyOrder.price.multiply(bitfinexBuyOrder.amount));
-                buyOrders.add(buyOrder);
-            }
+    private MarketOrderBook getMarketOrderBook(String marketId, Integer depth) throws TradingApiException,
+            ExchangeNetworkException {
 
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (BitfinexMarketOrder bitfinexSellOrder : orderBook.asks) {
-                final MarketOrder sellOrder = new MarketOrderImpl(
-                        OrderType.SELL,
-                        bitfinexSellOrder.price,
-                        bitfinexSellOrder.amount,
-                        bitfinexSellOrder.price.multiply(bitfinexSellOrder.amount));
-                sellOrders.add(sellOrder);
-            }
+        try {
+            final String apiMethod = depth == null
+                    ? "book/" + marketId
+                    : "book/" + marketId + "?limit_bids=" + depth + "&limit_asks=" + depth;
+            final ExchangeHttpResponse response = sendPublicRequestToExchange(apiMethod);
+            LOG.debug(() -> "Market Orders response: " + response);
 
-            return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+            final BitfinexOrderBook orderBook = gson.fromJson(response.getPayloadReader(), BitfinexOrderBook.class);
+            return new MarketOrderBookImpl(marketId, orderBook.asks, orderBook.bids);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -359,6 +382,119 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
+    /*
+     * Places the orders with 'order/new/multi', up to 10 orders per call.
+     */
+    @Override
+    public List<String> createOrders(List<OrderRequest> orderRequests) throws TradingApiException,
+            ExchangeNetworkException {
+
+        try {
+            final List<String> orderIds = new ArrayList<>(orderRequests.size());
+            for (final List<OrderRequest> batch : Lists.partition(orderRequests, MAX_ORDERS_PER_BATCH)) {
+
+                final List<Map<String, Object>> orders = new ArrayList<>(batch.size());
+                for (final OrderRequest orderRequest : batch) {
+                    orders.add(toBitfinexOrder(orderRequest));
+                }
+
+                final Map<String, Object> params = getRequestParamMap();
+                params.put("orders", orders);
+
+                final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("order/new/multi", params);
+                LOG.debug(() -> "Create Orders response: " + response);
+
+                final BitfinexNewOrdersResponse createOrdersResponse =
+                        gson.fromJson(response.getPayload(), BitfinexNewOrdersResponse.class);
+                if (!"success".equals(createOrdersResponse.status) || createOrdersResponse.order_ids == null
+                        || createOrdersResponse.order_ids.size() != batch.size()) {
+                    final String errorMsg = "Failed to place orders on exchange. Error response: " + response;
+                    LOG.error(errorMsg);
+                    throw new TradingApiException(errorMsg);
+                }
+
+                for (final BitfinexNewOrderResponse createOrderResponse : createOrdersResponse.order_ids) {
+                    orderIds.add(Long.toString(createOrderResponse.id));
+                }
+            }
+            return orderIds;
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    /*
+     * Cancels the orders with one 'order/cancel/multi' call. marketId is not needed for cancelling orders on this
+     * exchange.
+     */
+    @Override
+    public boolean cancelOrders(List<String> orderIds, String marketIdNotNeeded) throws TradingApiException,
+            ExchangeNetworkException {
+
+        try {
+            final List<Long> bitfinexOrderIds = new ArrayList<>(orderIds.size());
+            for (final String orderId : orderIds) {
+                bitfinexOrderIds.add(Long.parseLong(orderId));
+            }
+
+            final Map<String, Object> params = getRequestParamMap();
+            params.put("order_ids", bitfinexOrderIds);
+
+            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("order/cancel/multi", params);
+            LOG.debug(() -> "Cancel Orders response: " + response);
+
+            // Exchange returns a result message if successful, a 400 HTTP Status if an order id was not recognised.
+            final BitfinexCancelOrdersResponse cancelOrdersResponse =
+                    gson.fromJson(response.getPayload(), BitfinexCancelOrdersResponse.class);
+            return cancelOrdersResponse.result != null;
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            if (e.getCause() != null && e.getCause().getMessage().contains("400")) {
+                final String errorMsg = "Failed to cancel orders on exchange. Did not recognise Order Ids: " + orderIds;
+                LOG.error(errorMsg, e);
+                return false;
+            } else {
+                throw e;
+            }
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    @Override
+    public OrderStatus getOrderStatus(String orderId, String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        try {
+            final Map<String, Object> params = getRequestParamMap();
+            params.put("order_id", Long.parseLong(orderId));
+
+            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("order/status", params);
+            LOG.debug(() -> "Order Status response: " + response);
+
+            final BitfinexOpenOrder order = gson.fromJson(response.getPayload(), BitfinexOpenOrder.class);
+
+            final OrderState state;
+            if (order.is_live) {
+                state = order.executed_amount.signum() > 0 ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+            } else {
+                state = order.is_cancelled ? OrderState.CANCELLED : OrderState.FILLED;
+            }
+
+            return new OrderStatusImpl(orderId, marketId, state, order.executed_amount, order.original_amount);
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
     @Override
     public BigDecimal getLatestMarketPrice(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -418,33 +554,23 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
     @Override
     public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) throws TradingApiException,
             ExchangeNetworkException {
-
-        try {
-            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("account_infos", null);
-            LOG.debug(() -> "Buy Fee response: " + response);
-
-            // Nightmare to adapt! Just take the top-level taker fees.
-            final BitfinexAccountInfos bitfinexAccountInfos = gson.fromJson(response.getPayload(), BitfinexAccountInfos.class);
-            final BigDecimal fee = bitfinexAccountInfos.get(0).taker_fees;
-
-            // adapt the % into BigDecimal format
-            return fee.divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
-
-        } catch (ExchangeNetworkException | TradingApiException e) {
-            throw e;
-        } catch (Exception e) {
-            LOG.error(UNEXPECTED_ERROR_MSG, e);
-            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
-        }
+        return getCachedExchangeFee(TAKER_FEE_CACHE_KEY, this::fetchTakerFee);
     }
 
     @Override
     public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) throws TradingApiException,
             ExchangeNetworkException {
+        return getCachedExchangeFee(TAKER_FEE_CACHE_KEY, this::fetchTakerFee);
+    }
+
+    /*
+     * Fetches the taker fee from the account_infos call; it is only called when the fee is not in the fee cache.
+     */
+    private BigDecimal fetchTakerFee() throws TradingApiException, ExchangeNetworkException {
 
         try {
             final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("account_infos", null);
-            LOG.debug(() -> "Sell Fee response: " + response);
+            LOG.debug(() -> "Fee response: " + response);
 
             // Nightmare to adapt! Just take the top-level taker fees.
             final BitfinexAccountInfos bitfinexAccountInfos = gson.fromJson(response.getPayload(), BitfinexAccountInfos.class);
@@ -467,44 +593,144 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
     }
 
     // ------------------------------------------------------------------------------------------------
-    //  GSON classes for JSON responses.
-    //  See https://www.bitfinex.com/pages/api
+    //  Bitfinex WebSocket API v2.
+    //  See https://docs.bitfinex.com/v2/docs/ws-general
     // ------------------------------------------------------------------------------------------------
 
+    @Override
+    public void subscribeToMarketData(String marketId, MarketDataListener listener) throws ExchangeNetworkException {
+        openMarketDataStream(new BitfinexMarketDataStream(marketId, URI.create(MARKET_DATA_WEBSOCKET_URL), listener));
+    }
+
+    @Override
+    public void unsubscribeFromMarketData(String marketId, MarketDataListener listener) {
+        closeMarketDataStream(marketId, listener);
+    }
+
     /**
-     * GSON class for a market Order Book.
+     * Streams the 'book', 'ticker', and 'trades' channels for a market. The v2 API names markets as trading symbols,
+     * e.g. the btcusd market is tBTCUSD.
      */
-    private static class BitfinexOrderBook {
+    static final class BitfinexMarketDataStream extends MarketDataStream {
 
-        // field names map to the JSON arg names
-        public BitfinexMarketOrder[] bids;
-        public BitfinexMarketOrder[] asks;
+        /*
+         * The exchange numbers each channel when it confirms the subscription; data messages only carry the number.
+         */
+        private final Map<Integer, String> channelNames = new HashMap<>();
+
+        BitfinexMarketDataStream(String marketId, URI uri, MarketDataListener listener) {
+            super(marketId, uri, listener);
+        }
 
         @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
+        List<String> getSubscribeMessages() {
+            final String symbol = "\"symbol\":\"t" + getMarketId().toUpperCase() + "\"";
+            return Arrays.asList(
+                    "{\"event\":\"subscribe\",\"channel\":\"book\"," + symbol + ",\"prec\":\"P0\",\"len\":\"25\"}",
+                    "{\"event\":\"subscribe\",\"channel\":\"ticker\"," + symbol + "}",
+                    "{\"event\":\"subscribe\",\"channel\":\"trades\"," + symbol + "}");
+        }
+
+        @Override
+        void onMarketDataMessage(JsonElement message) {
+
+            if (message.isJsonObject()) {
+                onEvent(message.getAsJsonObject());
+                return;
+            }
+
+            final JsonArray channelMessage = message.getAsJsonArray();
+            final String channelName = channelNames.get(channelMessage.get(0).getAsInt());
+            final JsonElement data = channelMessage.get(1);
+            if (channelName == null || (data.isJsonPrimitive() && "hb".equals(data.getAsString()))) {
+                return; // heartbeat
+            }
+
+            switch (channelName) {
+
+                case "book":
+                    final JsonArray bookData = data.getAsJsonArray();
+                    if (bookData.size() > 0 && bookData.get(0).isJsonArray()) {
+                        final List<MarketOrder> sellOrders = new ArrayList<>();
+                        final List<MarketOrder> buyOrders = new ArrayList<>();
+                        for (final JsonElement priceLevel : bookData) {
+                            final MarketOrder marketOrder = toMarketOrder(priceLevel.getAsJsonArray());
+                            (marketOrder.getType() == OrderType.BUY ? buyOrders : sellOrders).add(marketOrder);
+                        }
+                        fireOrderBookSnapshot(sellOrders, buyOrders);
+                    } else {
+                        fireOrderBookUpdate(Collections.singletonList(toMarketOrder(bookData)));
+                    }
+                    break;
+
+                case "ticker":
+                    // [BID, BID_SIZE, ASK, ASK_SIZE, ...]
+                    final JsonArray ticker = data.getAsJsonArray();
+                    fireTopOfBook(createMarketOrder(OrderType.BUY, ticker.get(0), ticker.get(1)),
+                            createMarketOrder(OrderType.SELL, ticker.get(2), ticker.get(3)));
+                    break;
+
+                case "trades":
+                    // 'te' is sent as soon as the trade executes; the same trade is sent again as 'tu' when it is
+                    // settled. The snapshot of recent trades sent on subscribing is ignored.
+                    if (data.isJsonPrimitive() && "te".equals(data.getAsString())) {
+                        final JsonArray trade = channelMessage.get(2).getAsJsonArray(); // [ID, MTS, AMOUNT, PRICE]
+                        final BigDecimal amount = toBigDecimal(trade.get(2));
+                        fireTrade(new MarketOrderImpl(amount.signum() > 0 ? OrderType.BUY : OrderType.SELL,
+                                toBigDecimal(trade.get(3)), amount.abs()));
+                    }
+                    break;
+
+                default:
+                    LOG.warn("Unexpected Bitfinex market data channel: " + channelName);
+            }
+        }
+
+        private void onEvent(JsonObject event) {
+            switch (event.get("event").getAsString()) {
+                case "subscribed":
+                    channelNames.put(event.get("chanId").getAsInt(), event.get("channel").getAsString());
+                    break;
+                case "error":
+                    LOG.error("Bitfinex market data error for market " + getMarketId() + ": " + event);
+                    break;
+                default:
+                    // 'info' events are ignored.
+            }
+        }
+
+        /*
+         * Book levels are [PRICE, COUNT, AMOUNT]: a positive amount is a bid, a negative one an ask. A count of 0
+         * means the level has been removed.
+         */
+        private static MarketOrder toMarketOrder(JsonArray priceLevel) {
+            final BigDecimal amount = toBigDecimal(priceLevel.get(2));
+            final BigDecimal quantity = priceLevel.get(1).getAsInt() == 0 ? BigDecimal.ZERO : amount.abs();
+            return new MarketOrderImpl(amount.signum() > 0 ? OrderType.BUY : OrderType.SELL,
+                    toBigDecimal(priceLevel.get(0)), quantity);
         }
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  GSON classes for JSON responses.
+    //  See https://www.bitfinex.com/pages/api
+    // ------------------------------------------------------------------------------------------------
+
     /**
-     * GSON class for a Market Order.
+     * GSON class for a market Order Book.
+     * It is parsed by the {@link BitfinexOrderBookTypeAdapter}.
      */
-    private static class BitfinexMarketOrder {
+    private static class BitfinexOrderBook {
 
         // field names map to the JSON arg names
-        public BigDecimal price;
-        public BigDecimal amount;
-        public String timestamp;
+        public List<MarketOrder> bids;
+        public List<MarketOrder> asks;
 
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
-                    .add("price", price)
-                    .add("amount", amount)
-                    .add("timestamp", timestamp)
+                    .add("bids", bids)
+                    .add("asks", asks)
                     .toString();
         }
     }
@@ -770,6 +996,23 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
+    /**
+     * GSON class for Bitfinex 'order/new/multi' response.
+     */
+    private static class BitfinexNewOrdersResponse {
+
+        public List<BitfinexNewOrderResponse> order_ids;
+        public String status; // e.g. "success"
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("order_ids", order_ids)
+                    .add("status", status)
+                    .toString();
+        }
+    }
+
     /**
      * GSON class for Bitfinex 'order/cancel' response.
      */
@@ -813,10 +1056,68 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
+    /**
+     * GSON class for Bitfinex 'order/cancel/multi' response.
+     */
+    private static class BitfinexCancelOrdersResponse {
+
+        public String result; // e.g. "Orders cancelled"
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("result", result)
+                    .toString();
+        }
+    }
+
+    /**
+     * Streams the Bitfinex order book straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class BitfinexOrderBookTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<BitfinexOrderBook> {
+
+        @Override
+        public BitfinexOrderBook read(JsonReader in) throws IOException {
+            final BitfinexOrderBook orderBook = new BitfinexOrderBook();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelObjects(in, OrderType.BUY, "price", "amount");
+                        break;
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelObjects(in, OrderType.SELL, "price", "amount");
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer methods
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Puts new and cancelled orders in the trading lane and the other authenticated calls in the account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        final String path = url.getPath();
+        if (path.endsWith("/order/new") || path.endsWith("/order/cancel") || path.endsWith("/order/new/multi")
+                || path.endsWith("/order/cancel/multi")) {
+            return EndpointClass.TRADING;
+        } else if (path.endsWith("/orders") || path.endsWith("/order/status") || path.endsWith("/balances")
+                || path.endsWith("/account_infos")) {
+            return EndpointClass.ACCOUNT;
+        }
+        return EndpointClass.MARKET_DATA;
+    }
+
     /**
      * Makes a public API call to the Bitfinex exchange.
      *
@@ -884,6 +1185,15 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
             throw new IllegalStateException(errorMsg);
         }
 
+        return secureMessageLayer.sendInNonceOrder(() -> signAndSendRequestToExchange(apiMethod, params));
+    }
+
+    /*
+     * Takes the next nonce, signs the request with it, and sends it to the exchange.
+     */
+    private ExchangeHttpResponse signAndSendRequestToExchange(String apiMethod, Map<String, Object> params)
+            throws ExchangeNetworkException, TradingApiException {
+
         try {
 
             if (params == null) {
@@ -892,8 +1202,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
             }
 
             // nonce is required by Bitfinex in every request
-            params.put("nonce", Long.toString(nonce));
-            nonce++; // increment ready for next call.
+            params.put("nonce", Long.toString(secureMessageLayer.nextNonce()));
 
             // must include the method in request param too
             params.put("request", "/" + BITFINEX_API_VERSION + "/" + apiMethod);
@@ -910,7 +1219,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
             requestHeaders.put("X-BFX-PAYLOAD", base64payload);
 
             // Add the signature
-            mac.reset(); // force reset
+            final Mac mac = secureMessageLayer.getMac();
             mac.update(base64payload.getBytes("UTF-8"));
 
             /*
@@ -960,8 +1269,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         // Setup the MAC
         try {
             final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA384");
-            mac = Mac.getInstance("HmacSHA384");
-            mac.init(keyspec);
+            secureMessageLayer = new SecureMessageLayer(keyspec, NONCE_WINDOW);
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
@@ -994,9 +1302,42 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
      */
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
+        gsonBuilder.registerTypeAdapter(BitfinexOrderBook.class, new BitfinexOrderBookTypeAdapter());
         gson = gsonBuilder.create();
     }
 
+    /*
+     * Builds an order for an 'order/new/multi' call. Only 'exchange limit' orders are supported, the same as
+     * createOrder.
+     */
+    private Map<String, Object> toBitfinexOrder(OrderRequest orderRequest) {
+
+        final Map<String, Object> order = new HashMap<>();
+        order.put("symbol", orderRequest.getMarketId());
+
+        // note we need to limit amount and price to 8 decimal places else exchange will barf
+        order.put("amount", new DecimalFormat("#.########", getDecimalFormatSymbols()).format(orderRequest.getQuantity()));
+        order.put("price", new DecimalFormat("#.########", getDecimalFormatSymbols()).format(orderRequest.getPrice()));
+
+        order.put("exchange", "bitfinex");
+
+        if (orderRequest.getOrderType() == OrderType.BUY) {
+            order.put("side", "buy");
+        } else if (orderRequest.getOrderType() == OrderType.SELL) {
+            order.put("side", "sell");
+        } else {
+            final String errorMsg = "Invalid order type: " + orderRequest.getOrderType()
+                    + " - Can only be "
+                    + OrderType.BUY.getStringValue() + " or "
+                    + OrderType.SELL.getStringValue();
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        order.put("type", "exchange limit");
+        return order;
+    }
+
     /*
      * Hack for unit-testing map params passed to transport layer.
      */
@@ -28,21 +28,24 @@ import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OrderStatusImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
@@ -52,6 +55,7 @@ import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -87,11 +91,17 @@ import java.util.*;
  * truncates any prices with more than 2 decimal places and rounds using {@link java.math.RoundingMode#HALF_EVEN},
  * E.g. 250.176 would be sent to the exchange as 250.18.
  * </p>
+ * <p>
+ * Market data can be streamed from the <a href="https://www.bitstamp.net/websocket/v2/">WebSocket API</a> using
+ * {@link MarketDataSubscription}. Bitstamp only publishes whole order books, so listeners get a new snapshot for
+ * every change rather than updates.
+ * </p>
  *
  * @author gazbert
  * @since 1.0
  */
-public final class BitstampExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter {
+public final class BitstampExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter,
+        MarketDataSubscription {
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -100,6 +110,17 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
      */
     private static final String API_BASE_URL = "https://www.bitstamp.net/api/v2/";
 
+    /**
+     * The exchange rejects a nonce lower than the last one it has seen, so authenticated requests are sent one at a
+     * time.
+     */
+    private static final int NONCE_WINDOW = 1;
+
+    /**
+     * The WebSocket URI for streaming market data.
+     */
+    private static final String MARKET_DATA_WEBSOCKET_URL = "wss://ws.bitstamp.net";
+
     /**
      * Used for reporting unexpected errors.
      */
@@ -125,11 +146,6 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
      */
     private static final String SECRET_PROPERTY_NAME = "secret";
 
-    /**
-     * Nonce used for sending authenticated messages to the exchange.
-     */
-    private long nonce = 0;
-
     /**
      * Used to indicate if we have initialised the MAC authentication protocol.
      */
@@ -151,16 +167,21 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
-     * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
+     * Signs authenticated requests - it provides the nonces and the "Message Authentication Code" (MAC) algorithm
+     * used for the secure messaging layer.
      */
-    private Mac mac;
+    private SecureMessageLayer secureMessageLayer;
 
     /**
      * GSON engine used for parsing JSON in Bitstamp API call responses.
      */
     private Gson gson;
 
+    /**
+     * Base currency codes ('name' up to the slash in the Trading Pairs Info API call result) keyed by market id.
+     */
+    private final Map<String, String> baseCurrencies = new ConcurrentHashMap<>();
+
 
     @Override
     public void init(ExchangeConfig config) {
@@ -168,8 +189,8 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         LOG.info(() -> "About to initialise Bitstamp ExchangeConfig: " + config);
         setAuthenticationConfig(config);
         setNetworkConfig(config);
+        setFeeCacheConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -186,31 +207,8 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
             final ExchangeHttpResponse response = sendPublicRequestToExchange("order_book/" + marketId);
             LOG.debug(() -> "Market Orders response: " + response);
 
-            final BitstampOrderBook bitstampOrderBook = gson.fromJson(response.getPayload(), BitstampOrderBook.class);
-
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            final List<List<BigDecimal>> bitstampBuyOrders = bitstampOrderBook.bids;
-            for (final List<BigDecimal> order : bitstampBuyOrders) {
-                final MarketOrder buyOrder = new MarketOrderImpl(
-                        OrderType.BUY,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                buyOrders.add(buyOrder);
-            }
-
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            final List<List<BigDecimal>> bitstampSellOrders = bitstampOrderBook.asks;
-            for (final List<BigDecimal> order : bitstampSellOrders) {
-                final MarketOrder sellOrder = new MarketOrderImpl(
-                        OrderType.SELL,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                sellOrders.add(sellOrder);
-            }
-
-            return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+            final BitstampOrderBook bitstampOrderBook = gson.fromJson(response.getPayloadReader(), BitstampOrderBook.class);
+            return new MarketOrderBookImpl(marketId, bitstampOrderBook.asks, bitstampOrderBook.bids);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -344,6 +342,115 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
+    @Override
+    public boolean cancelAllOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        try {
+            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("cancel_all_orders/" + marketId, null);
+            LOG.debug(() -> "Cancel All Orders response: " + response);
+
+            final BitstampCancelAllOrdersResponse cancelAllOrdersResponse =
+                    gson.fromJson(response.getPayload(), BitstampCancelAllOrdersResponse.class);
+            if (!cancelAllOrdersResponse.success) {
+                final String errorMsg = "Failed to cancel all orders on exchange. Error response: " + response;
+                LOG.error(errorMsg);
+                return false;
+            } else {
+                return true;
+            }
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    @Override
+    public OrderStatus getOrderStatus(String orderId, String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        try {
+            final Map<String, String> params = getRequestParamMap();
+            params.put("id", orderId);
+
+            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("order_status", params);
+            LOG.debug(() -> "Order Status response: " + response);
+
+            final BitstampOrderStatus bitstampOrderStatus = gson.fromJson(response.getPayload(), BitstampOrderStatus.class);
+            if (bitstampOrderStatus.status == null) {
+                final String errorMsg = "Failed to get Order Status from exchange. Error response: " + response;
+                LOG.error(errorMsg);
+                throw new TradingApiException(errorMsg);
+            }
+
+            // Transactions hold the amount traded keyed by currency, e.g. 'btc' for the btcusd market
+            final String baseCurrency = getBaseCurrency(marketId);
+            BigDecimal filledQuantity = BigDecimal.ZERO;
+            for (final JsonObject transaction : bitstampOrderStatus.transactions) {
+                final JsonElement amount = transaction.get(baseCurrency);
+                if (amount != null) {
+                    filledQuantity = filledQuantity.add(amount.getAsBigDecimal());
+                }
+            }
+
+            final OrderState state;
+            switch (bitstampOrderStatus.status) {
+                case "Finished":
+                    state = OrderState.FILLED;
+                    break;
+                case "Canceled":
+                    state = OrderState.CANCELLED;
+                    break;
+                default: // 'Open' or 'In Queue'
+                    state = filledQuantity.signum() > 0 ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+            }
+
+            return new OrderStatusImpl(orderId, marketId, state, filledQuantity, null);
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    /*
+     * Looks up the base currency for a market, e.g. btc for the btcusd market and doge for the dogeusd market.
+     * Currency codes are not all the same length, so the code is taken from the Trading Pairs Info API call rather
+     * than derived from the market id. Codes are cached for the lifetime of the adapter.
+     */
+    private String getBaseCurrency(String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        final String cachedBaseCurrency = baseCurrencies.get(marketId);
+        if (cachedBaseCurrency != null) {
+            return cachedBaseCurrency;
+        }
+
+        final ExchangeHttpResponse response = sendPublicRequestToExchange("trading-pairs-info/");
+        LOG.debug(() -> "Trading Pairs Info response: " + response);
+
+        final BitstampTradingPair[] tradingPairs = gson.fromJson(response.getPayload(), BitstampTradingPair[].class);
+        if (tradingPairs != null) {
+            for (final BitstampTradingPair tradingPair : tradingPairs) {
+                if (tradingPair.url_symbol != null && tradingPair.name != null && tradingPair.name.contains("/")) {
+                    baseCurrencies.put(tradingPair.url_symbol,
+                            tradingPair.name.substring(0, tradingPair.name.indexOf('/')).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+
+        final String baseCurrency = baseCurrencies.get(marketId);
+        if (baseCurrency == null) {
+            final String errorMsg = "Market " + marketId + " is not listed in the Bitstamp trading pairs. Details: "
+                    + response;
+            LOG.error(errorMsg);
+            throw new TradingApiException(errorMsg);
+        }
+        return baseCurrency;
+    }
+
     @Override
     public BigDecimal getLatestMarketPrice(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -395,47 +502,29 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
+    /*
+     * Bitstamp charges the same fee for buy and sell orders.
+     */
     @Override
     public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) throws TradingApiException,
             ExchangeNetworkException {
-
-        try {
-            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("balance", null);
-            LOG.debug(() -> "Buy Fee response: " + response);
-
-            final BitstampBalance balances = gson.fromJson(response.getPayload(), BitstampBalance.class);
-
-            // Ouch!
-            final Class<?> clazz = balances.getClass();
-            final Field[] fields = clazz.getDeclaredFields();
-            for (final Field field : fields) {
-                if (field.getName().startsWith(marketId)) {
-                    final BigDecimal fee = (BigDecimal) field.get(balances);
-                    // adapt the % into BigDecimal format
-                    return fee.divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
-                }
-            }
-
-            final String errorMsg = "Unable to map marketId to currency balances returned from the Exchange. "
-                    + "MarketId: " + marketId + " BitstampBalances: " + balances;
-            LOG.error(errorMsg);
-            throw new IllegalArgumentException(errorMsg);
-
-        } catch (ExchangeNetworkException | TradingApiException e) {
-            throw e;
-        } catch (Exception e) {
-            LOG.error(UNEXPECTED_ERROR_MSG, e);
-            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
-        }
+        return getCachedExchangeFee(marketId, () -> fetchExchangeFee(marketId));
     }
 
     @Override
     public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) throws TradingApiException,
             ExchangeNetworkException {
+        return getCachedExchangeFee(marketId, () -> fetchExchangeFee(marketId));
+    }
+
+    /*
+     * Fetches the fee for the market from the balance call; it is only called when the fee is not in the fee cache.
+     */
+    private BigDecimal fetchExchangeFee(String marketId) throws TradingApiException, ExchangeNetworkException {
 
         try {
             final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("balance", null);
-            LOG.debug(() -> "Sell Fee response: " + response);
+            LOG.debug(() -> "Fee response: " + response);
 
             final BitstampBalance balances = gson.fromJson(response.getPayload(), BitstampBalance.class);
 
@@ -468,6 +557,75 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         return "Bitstamp HTTP API v2";
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Bitstamp WebSocket API v2.
+    //  See https://www.bitstamp.net/websocket/v2/
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public void subscribeToMarketData(String marketId, MarketDataListener listener) throws ExchangeNetworkException {
+        openMarketDataStream(new BitstampMarketDataStream(marketId, URI.create(MARKET_DATA_WEBSOCKET_URL), listener));
+    }
+
+    @Override
+    public void unsubscribeFromMarketData(String marketId, MarketDataListener listener) {
+        closeMarketDataStream(marketId, listener);
+    }
+
+    /**
+     * Streams the 'order_book' and 'live_trades' channels for a market. Bitstamp sends the top 100 bids and asks every
+     * time the book changes, so every order book message is a new snapshot and there are no updates. The top of book
+     * is taken from each snapshot.
+     */
+    static final class BitstampMarketDataStream extends MarketDataStream {
+
+        BitstampMarketDataStream(String marketId, URI uri, MarketDataListener listener) {
+            super(marketId, uri, listener);
+        }
+
+        @Override
+        List<String> getSubscribeMessages() {
+            return Arrays.asList(
+                    "{\"event\":\"bts:subscribe\",\"data\":{\"channel\":\"order_book_" + getMarketId() + "\"}}",
+                    "{\"event\":\"bts:subscribe\",\"data\":{\"channel\":\"live_trades_" + getMarketId() + "\"}}");
+        }
+
+        @Override
+        void onMarketDataMessage(JsonElement message) {
+
+            final JsonObject jsonMessage = message.getAsJsonObject();
+            switch (jsonMessage.get("event").getAsString()) {
+
+                case "data":
+                    final JsonObject orderBook = jsonMessage.getAsJsonObject("data");
+                    final List<MarketOrder> sellOrders = toMarketOrders(orderBook.getAsJsonArray("asks"),
+                            OrderType.SELL);
+                    final List<MarketOrder> buyOrders = toMarketOrders(orderBook.getAsJsonArray("bids"),
+                            OrderType.BUY);
+                    fireOrderBookSnapshot(sellOrders, buyOrders);
+                    if (!buyOrders.isEmpty() && !sellOrders.isEmpty()) {
+                        fireTopOfBook(buyOrders.get(0), sellOrders.get(0));
+                    }
+                    break;
+
+                case "trade":
+                    // the type is the taker's side: 0 is a buy, 1 is a sell
+                    final JsonObject trade = jsonMessage.getAsJsonObject("data");
+                    fireTrade(createMarketOrder(trade.get("type").getAsInt() == 0 ? OrderType.BUY : OrderType.SELL,
+                            trade.get("price"), trade.get("amount")));
+                    break;
+
+                case "bts:request_reconnect":
+                    LOG.warn("Bitstamp has asked for market data stream for market " + getMarketId()
+                            + " to reconnect; it will be closed by the exchange.");
+                    break;
+
+                default:
+                    // 'bts:subscription_succeeded' events are ignored.
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  GSON classes for JSON responses.
     //  See https://www.bitstamp.net/api/
@@ -557,12 +715,13 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
      * </pre>
      * </p>
      * Each is a list of open orders and each order is represented as a list of price and amount.
+     * It is parsed by the {@link BitstampOrderBookTypeAdapter}.
      */
     private static class BitstampOrderBook {
 
         public long timestamp; //unix timestamp date and time
-        public List<List<BigDecimal>> bids;
-        public List<List<BigDecimal>> asks;
+        public List<MarketOrder> bids;
+        public List<MarketOrder> asks;
 
         @Override
         public String toString() {
@@ -647,6 +806,58 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
+    /**
+     * GSON class for Bitstamp cancel all orders response.
+     */
+    private static class BitstampCancelAllOrdersResponse {
+
+        public boolean success;
+        public List<BitstampCancelOrderResponse> canceled;
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("success", success)
+                    .add("canceled", canceled)
+                    .toString();
+        }
+    }
+
+    /**
+     * GSON class for Bitstamp order status response.
+     */
+    private static class BitstampOrderStatus {
+
+        public String status; // Open, In Queue, Finished or Canceled
+        public List<JsonObject> transactions = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("status", status)
+                    .add("transactions", transactions)
+                    .toString();
+        }
+    }
+
+    /**
+     * GSON class for a Bitstamp trading pair in the trading pairs info response - only the names are used.
+     */
+    private static class BitstampTradingPair {
+
+        // field names map to the JSON arg names
+        public String name; // e.g. BTC/USD
+        public String url_symbol; // e.g. btcusd
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("name", name)
+                    .add("url_symbol", url_symbol)
+                    .toString();
+        }
+    }
+
     /**
      * Deserializer needed because stamp Date format is different in open_order response and causes default GSON parsing to barf:
      * <pre>
@@ -677,10 +888,55 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
+    /**
+     * Streams the Bitstamp order book straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class BitstampOrderBookTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<BitstampOrderBook> {
+
+        @Override
+        public BitstampOrderBook read(JsonReader in) throws IOException {
+            final BitstampOrderBook orderBook = new BitstampOrderBook();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "timestamp":
+                        orderBook.timestamp = in.nextLong();
+                        break;
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.BUY);
+                        break;
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.SELL);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer methods
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Puts buy, sell, cancel, and cancel all orders in the trading lane and open orders and balance calls in the account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        final String path = url.getPath();
+        if (path.contains("/buy/") || path.contains("/sell/") || path.contains("/cancel_order/")
+                || path.contains("/cancel_all_orders/")) {
+            return EndpointClass.TRADING;
+        } else if (path.contains("/open_orders/") || path.contains("/order_status/") || path.contains("/balance/")) {
+            return EndpointClass.ACCOUNT;
+        }
+        return EndpointClass.MARKET_DATA;
+    }
+
     /**
      * Makes a public API call to Bitstamp exchange.
      *
@@ -720,6 +976,15 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
             throw new IllegalStateException(errorMsg);
         }
 
+        return secureMessageLayer.sendInNonceOrder(() -> signAndSendRequestToExchange(apiMethod, params));
+    }
+
+    /*
+     * Takes the next nonce, signs the request with it, and sends it to the exchange.
+     */
+    private ExchangeHttpResponse signAndSendRequestToExchange(String apiMethod, Map<String, String> params) throws
+            ExchangeNetworkException, TradingApiException {
+
         try {
 
             // Setup common params for the API call
@@ -727,12 +992,13 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
                 params = new HashMap<>();
             }
 
+            final long nonce = secureMessageLayer.nextNonce();
             params.put("key", key);
             params.put("nonce", Long.toString(nonce));
 
             // Create MAC message for signature
             // message = nonce + client_id + api_key
-            mac.reset(); // force reset
+            final Mac mac = secureMessageLayer.getMac();
             mac.update(String.valueOf(nonce).getBytes("UTF-8"));
             mac.update(clientId.getBytes("UTF-8"));
             mac.update(key.getBytes("UTF-8"));
@@ -747,9 +1013,6 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
             final String signature = toHex(mac.doFinal()).toUpperCase();
             params.put("signature", signature);
 
-            // increment ready for next call...
-            nonce++;
-
             // Build the URL with query param args in it
             final StringBuilder postData = new StringBuilder("");
             for (final Map.Entry<String, String> param : params.entrySet()) {
@@ -800,8 +1063,7 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         // Setup the MAC
         try {
             final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA256");
-            mac = Mac.getInstance("HmacSHA256");
-            mac.init(keyspec);
+            secureMessageLayer = new SecureMessageLayer(keyspec, NONCE_WINDOW);
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
@@ -836,6 +1098,7 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(Date.class, new BitstampDateDeserializer());
+        gsonBuilder.registerTypeAdapter(BitstampOrderBook.class, new BitstampOrderBookTypeAdapter());
         gson = gsonBuilder.create();
     }
 
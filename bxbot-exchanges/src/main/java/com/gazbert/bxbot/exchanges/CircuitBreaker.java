@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fails requests fast while an exchange endpoint is degraded, instead of letting every call wait out the connection
+ * timeout.
+ * <p>
+ * The breaker starts CLOSED and lets all requests through. After a run of consecutive network failures it goes OPEN
+ * and rejects requests until the open duration has passed. It then goes HALF_OPEN and lets a single trial request
+ * through: if the trial succeeds the breaker closes again, if it fails the breaker re-opens.
+ *
+ * @author gazbert
+ */
+final class CircuitBreaker {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * The states of the breaker.
+     */
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialRequestInFlight;
+    private long timesOpened;
+    private long rejectedRequests;
+
+    /**
+     * Creates the circuit breaker.
+     *
+     * @param name             the name of the endpoint the breaker protects, used for logging.
+     * @param failureThreshold the number of consecutive failures that opens the breaker.
+     * @param openDuration     how long the breaker stays open before a trial request is let through.
+     * @param openDurationUnit the unit of the open duration.
+     * @throws IllegalArgumentException if the failure threshold or open duration is less than 1.
+     */
+    CircuitBreaker(String name, int failureThreshold, long openDuration, TimeUnit openDurationUnit) {
+        if (failureThreshold < 1 || openDuration < 1) {
+            final String errorMsg = "Circuit breaker failure threshold and open duration must be at least 1 for: "
+                    + name;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDurationUnit.toNanos(openDuration);
+    }
+
+    /**
+     * Asks the breaker if a request can be sent. Every request that is let through must have its outcome recorded.
+     *
+     * @return true if the request can be sent, false if it must fail fast.
+     */
+    synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (System.nanoTime() - openedAt >= openDurationNanos) {
+                    state = State.HALF_OPEN;
+                    trialRequestInFlight = true;
+                    LOG.info(() -> "Circuit breaker half-open, sending trial request: " + name);
+                    return true;
+                }
+                rejectedRequests++;
+                return false;
+
+            case HALF_OPEN:
+                if (trialRequestInFlight) {
+                    rejectedRequests++;
+                    return false;
+                }
+                trialRequestInFlight = true;
+                return true;
+
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Records a request that reached the exchange and got a response, even an error response.
+     */
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialRequestInFlight = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            LOG.info(() -> "Circuit breaker closed: " + name);
+        }
+    }
+
+    /**
+     * Records a request that failed with a network error.
+     */
+    synchronized void recordFailure() {
+        trialRequestInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            timesOpened++;
+            LOG.warn(() -> "Circuit breaker opened after " + consecutiveFailures + " consecutive failures: " + name);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    synchronized long getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("state", state)
+                .add("consecutiveFailures", consecutiveFailures)
+                .add("failureThreshold", failureThreshold)
+                .add("openDurationMillis", TimeUnit.NANOSECONDS.toMillis(openDurationNanos))
+                .add("timesOpened", timesOpened)
+                .add("rejectedRequests", rejectedRequests)
+                .toString();
+    }
+}
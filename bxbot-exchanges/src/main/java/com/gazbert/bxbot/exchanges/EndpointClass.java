@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+/**
+ * The classes of Exchange API call that client-side rate limits are set for in the exchange.xml file.
+ * <p>
+ * They are declared in priority order: when requests are waiting on the same rate limit, trading requests are sent
+ * first, then account requests, then market data requests.
+ *
+ * @author gazbert
+ */
+enum EndpointClass {
+
+    /**
+     * Creating and cancelling orders.
+     */
+    TRADING("trading"),
+
+    /**
+     * Fetching open orders, balances, and fees.
+     */
+    ACCOUNT("account"),
+
+    /**
+     * Fetching order books and tickers.
+     */
+    MARKET_DATA("market-data");
+
+    private final String configName;
+
+    EndpointClass(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * Returns the name used for the endpoint class in the exchange.xml file.
+     *
+     * @return the config name.
+     */
+    String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Returns the endpoint class for a name used in the exchange.xml file.
+     *
+     * @param configName the config name.
+     * @return the endpoint class.
+     * @throws IllegalArgumentException if there is no endpoint class with the name.
+     */
+    static EndpointClass fromConfigName(String configName) {
+        for (final EndpointClass endpointClass : values()) {
+            if (endpointClass.configName.equals(configName)) {
+                return endpointClass;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint class: " + configName);
+    }
+}
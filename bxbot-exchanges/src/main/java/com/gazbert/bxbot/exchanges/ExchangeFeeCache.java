@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the exchange fee percentages the adapters fetch from the exchange.
+ * <p>
+ * Exchange fees rarely change, but Trading Strategies ask for them on every order decision. A cached fee is used until
+ * its time-to-live has passed, so a fee lookup is usually just a map lookup instead of an API call to the exchange.
+ * The cache can be invalidated if the fees are known to have changed, e.g. after moving to a new trading volume tier.
+ *
+ * @author gazbert
+ */
+final class ExchangeFeeCache {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final long timeToLiveNanos;
+
+    /*
+     * The cached fees, keyed by whatever the adapter uses to look them up, e.g. the market id.
+     */
+    private final Map<String, CachedFee> fees = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates the exchange fee cache.
+     *
+     * @param timeToLive     how long a fee is cached for. 0 means fees are not cached.
+     * @param timeToLiveUnit the unit of the time-to-live.
+     * @throws IllegalArgumentException if the time-to-live is negative.
+     */
+    ExchangeFeeCache(long timeToLive, TimeUnit timeToLiveUnit) {
+        if (timeToLive < 0) {
+            final String errorMsg = "Exchange fee cache time-to-live cannot be negative: " + timeToLive;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+        this.timeToLiveNanos = timeToLiveUnit.toNanos(timeToLive);
+    }
+
+    /**
+     * Returns the cached fee, or fetches it from the exchange if it is not cached or has expired.
+     * <p>
+     * If the fetch fails, nothing is cached and the exception is passed on.
+     *
+     * @param key        the key the fee is cached under, e.g. the market id.
+     * @param feeFetcher fetches the fee from the exchange.
+     * @return the fee.
+     * @throws ExchangeNetworkException if the fee fetch failed with a network error.
+     * @throws TradingApiException      if the fee fetch failed for any other reason.
+     */
+    BigDecimal getFee(String key, FeeFetcher feeFetcher) throws ExchangeNetworkException, TradingApiException {
+
+        final CachedFee cachedFee = fees.get(key);
+        if (cachedFee != null && System.nanoTime() - cachedFee.fetchedAt < timeToLiveNanos) {
+            hitCount.incrementAndGet();
+            return cachedFee.fee;
+        }
+
+        missCount.incrementAndGet();
+        final BigDecimal fee = feeFetcher.fetch();
+        if (timeToLiveNanos > 0) {
+            fees.put(key, new CachedFee(fee, System.nanoTime()));
+        }
+        return fee;
+    }
+
+    /**
+     * Removes all the cached fees so the next lookups fetch them from the exchange.
+     */
+    void invalidateAll() {
+        fees.clear();
+        LOG.info(() -> "Exchange fee cache invalidated");
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timeToLiveNanos", timeToLiveNanos)
+                .add("cachedFees", fees.size())
+                .add("hitCount", hitCount)
+                .add("missCount", missCount)
+                .toString();
+    }
+
+    /*
+     * A fee and when it was fetched.
+     */
+    private static final class CachedFee {
+
+        private final BigDecimal fee;
+        private final long fetchedAt;
+
+        private CachedFee(BigDecimal fee, long fetchedAt) {
+            this.fee = fee;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    /**
+     * Fetches a fee from the exchange.
+     */
+    @FunctionalInterface
+    interface FeeFetcher {
+        BigDecimal fetch() throws ExchangeNetworkException, TradingApiException;
+    }
+}
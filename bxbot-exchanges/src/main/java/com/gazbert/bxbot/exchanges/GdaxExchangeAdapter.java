@@ -29,18 +29,23 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OrderStatusImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.*;
@@ -66,8 +71,9 @@ import java.util.*;
  * </strong>
  * </p>
  * <p>
- * This adapter only supports the GDAX <a href="https://docs.gdax.com/#api">REST API</a>. The design
- * of the API and documentation is excellent.
+ * Trading uses the GDAX <a href="https://docs.gdax.com/#api">REST API</a>. The design of the API and documentation
+ * is excellent. Market data can also be streamed from the <a href="https://docs.gdax.com/#websocket-feed">WebSocket
+ * feed</a> using {@link MarketDataSubscription}.
  * </p>
  * <p>
  * The adapter currently only supports <a href="https://docs.gdax.com/#place-a-new-order">Limit Orders</a>.
@@ -96,7 +102,8 @@ import java.util.*;
  * @author gazbert
  * @since 1.0
  */
-public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter {
+public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter,
+        MarketDataSubscription {
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -112,6 +119,11 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
      */
     private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
+    /**
+     * The WebSocket feed URI for streaming market data.
+     */
+    private static final String MARKET_DATA_WEBSOCKET_URL = "wss://ws-feed.gdax.com";
+
     /**
      * Used for reporting unexpected errors.
      */
@@ -178,10 +190,10 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
-     * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
+     * Signs authenticated requests - it provides the nonces and the "Message Authentication Code" (MAC) algorithm
+     * used for the secure messaging layer.
      */
-    private Mac mac;
+    private SecureMessageLayer secureMessageLayer;
 
     /**
      * GSON engine used for parsing JSON in GDAX API call responses.
@@ -297,6 +309,74 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         }
     }
 
+    @Override
+    public boolean cancelAllOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        try {
+
+            final ExchangeHttpResponse response =
+                    sendAuthenticatedRequestToExchange("DELETE", "orders?product_id=" + marketId, null);
+            LOG.debug(() -> "Cancel All Orders response: " + response);
+
+            if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+                // returns the ids of the orders that were cancelled
+                return true;
+            } else {
+                final String errorMsg = "Failed to cancel all orders on exchange. Details: " + response;
+                LOG.error(errorMsg);
+                return false;
+            }
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    @Override
+    public OrderStatus getOrderStatus(String orderId, String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        try {
+
+            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("GET", "orders/" + orderId, null);
+            LOG.debug(() -> "Order Status response: " + response);
+
+            if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+
+                final GdaxOrder gdaxOrder = gson.fromJson(response.getPayload(), GdaxOrder.class);
+
+                final OrderState state;
+                if ("done".equals(gdaxOrder.status)) {
+                    state = "canceled".equals(gdaxOrder.done_reason) ? OrderState.CANCELLED : OrderState.FILLED;
+                } else { // 'open', 'pending' or 'active'
+                    state = gdaxOrder.filled_size != null && gdaxOrder.filled_size.signum() > 0
+                            ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+                }
+
+                return new OrderStatusImpl(orderId, marketId, state, gdaxOrder.filled_size, gdaxOrder.size);
+
+            } else if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+
+                // GDAX forgets orders that were cancelled before any of them was filled
+                LOG.info(() -> "Order " + orderId + " was not found on the exchange - it was cancelled with no fills");
+                return new OrderStatusImpl(orderId, marketId, OrderState.CANCELLED, BigDecimal.ZERO, null);
+
+            } else {
+                final String errorMsg = "Failed to get Order Status from exchange. Details: " + response;
+                LOG.error(errorMsg);
+                throw new TradingApiException(errorMsg);
+            }
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
     @Override
     public List<OpenOrder> getYourOpenOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -361,40 +441,35 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrderBook(marketId, "2"); //  "2" = Top 50 bids and asks (aggregated)
+    }
+
+    /*
+     * GDAX only has a best bid and ask book (level 1) and a top 50 book (level 2); the top 50 book is truncated to
+     * the requested depth.
+     */
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth) throws TradingApiException,
+            ExchangeNetworkException {
+        MarketOrderBook.checkDepth(depth);
+        return MarketOrderBook.limitDepth(getMarketOrderBook(marketId, depth == 1 ? "1" : "2"), depth);
+    }
+
+    private MarketOrderBook getMarketOrderBook(String marketId, String level) throws TradingApiException,
+            ExchangeNetworkException {
 
         try {
 
             final Map<String, String> params = getRequestParamMap();
-            params.put("level", "2"); //  "2" = Top 50 bids and asks (aggregated)
+            params.put("level", level);
 
             final ExchangeHttpResponse response = sendPublicRequestToExchange("products/" + marketId + "/book", params);
             LOG.debug(() -> "Market Orders response: " + response);
 
             if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
 
-                final GdaxBookWrapper orderBook = gson.fromJson(response.getPayload(), GdaxBookWrapper.class);
-
-                final List<MarketOrder> buyOrders = new ArrayList<>();
-                for (GdaxMarketOrder gdaxBuyOrder : orderBook.bids) {
-                    final MarketOrder buyOrder = new MarketOrderImpl(
-                            OrderType.BUY,
-                            gdaxBuyOrder.get(0),
-                            gdaxBuyOrder.get(1),
-                            gdaxBuyOrder.get(0).multiply(gdaxBuyOrder.get(1)));
-                    buyOrders.add(buyOrder);
-                }
-
-                final List<MarketOrder> sellOrders = new ArrayList<>();
-                for (GdaxMarketOrder gdaxSellOrder : orderBook.asks) {
-                    final MarketOrder sellOrder = new MarketOrderImpl(
-                            OrderType.SELL,
-                            gdaxSellOrder.get(0),
-                            gdaxSellOrder.get(1),
-                            gdaxSellOrder.get(0).multiply(gdaxSellOrder.get(1)));
-                    sellOrders.add(sellOrder);
-                }
-
-                return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+                final GdaxBookWrapper orderBook = gson.fromJson(response.getPayloadReader(), GdaxBookWrapper.class);
+                return new MarketOrderBookImpl(marketId, orderBook.asks, orderBook.bids);
 
             } else {
                 final String errorMsg = "Failed to get market order book from exchange. Details: " + response;
@@ -492,6 +567,87 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         return "GDAX REST API v1";
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  GDAX WebSocket feed.
+    //  See https://docs.gdax.com/#websocket-feed
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public void subscribeToMarketData(String marketId, MarketDataListener listener) throws ExchangeNetworkException {
+        openMarketDataStream(new GdaxMarketDataStream(marketId, URI.create(MARKET_DATA_WEBSOCKET_URL), listener));
+    }
+
+    @Override
+    public void unsubscribeFromMarketData(String marketId, MarketDataListener listener) {
+        closeMarketDataStream(marketId, listener);
+    }
+
+    /**
+     * Streams the 'level2', 'ticker', and 'matches' channels for a market. The ticker only has the best bid and ask
+     * prices, so the top of book orders have no quantity.
+     */
+    static final class GdaxMarketDataStream extends MarketDataStream {
+
+        GdaxMarketDataStream(String marketId, URI uri, MarketDataListener listener) {
+            super(marketId, uri, listener);
+        }
+
+        @Override
+        List<String> getSubscribeMessages() {
+            return Collections.singletonList("{\"type\":\"subscribe\",\"product_ids\":[\"" + getMarketId()
+                    + "\"],\"channels\":[\"level2\",\"ticker\",\"matches\"]}");
+        }
+
+        @Override
+        void onMarketDataMessage(JsonElement message) {
+
+            final JsonObject jsonMessage = message.getAsJsonObject();
+            switch (jsonMessage.get("type").getAsString()) {
+
+                case "snapshot":
+                    fireOrderBookSnapshot(toMarketOrders(jsonMessage.getAsJsonArray("asks"), OrderType.SELL),
+                            toMarketOrders(jsonMessage.getAsJsonArray("bids"), OrderType.BUY));
+                    break;
+
+                case "l2update":
+                    final List<MarketOrder> changes = new ArrayList<>();
+                    for (final JsonElement change : jsonMessage.getAsJsonArray("changes")) {
+                        final JsonArray sidePriceAndSize = change.getAsJsonArray();
+                        changes.add(createMarketOrder(toOrderType(sidePriceAndSize.get(0)), sidePriceAndSize.get(1),
+                                sidePriceAndSize.get(2)));
+                    }
+                    fireOrderBookUpdate(changes);
+                    break;
+
+                case "ticker":
+                    // the first ticker message after subscribing can be missing the best bid and ask
+                    if (jsonMessage.has("best_bid") && jsonMessage.has("best_ask")) {
+                        fireTopOfBook(createMarketOrder(OrderType.BUY, jsonMessage.get("best_bid"), null),
+                                createMarketOrder(OrderType.SELL, jsonMessage.get("best_ask"), null));
+                    }
+                    break;
+
+                case "match":
+                    // the side is the maker order's side - the taker was on the other side
+                    final OrderType makerSide = toOrderType(jsonMessage.get("side"));
+                    fireTrade(createMarketOrder(makerSide == OrderType.BUY ? OrderType.SELL : OrderType.BUY,
+                            jsonMessage.get("price"), jsonMessage.get("size")));
+                    break;
+
+                case "error":
+                    LOG.error("GDAX market data error for market " + getMarketId() + ": " + jsonMessage);
+                    break;
+
+                default:
+                    // 'subscriptions' confirmation, 'last_match' sent on subscribing, and 'heartbeat' are ignored.
+            }
+        }
+
+        private static OrderType toOrderType(JsonElement side) {
+            return "buy".equals(side.getAsString()) ? OrderType.BUY : OrderType.SELL;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  GSON classes for JSON responses.
     //  See https://docs.gdax.com/#api
@@ -517,6 +673,7 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         public BigDecimal fill_fees;
         public BigDecimal filled_size;
         public String status;          // e.g. "open"
+        public String done_reason;     // "filled" or "canceled" once status is "done"
         public boolean settled;
 
         @Override
@@ -535,6 +692,7 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
                     .add("fill_fees", fill_fees)
                     .add("filled_size", filled_size)
                     .add("status", status)
+                    .add("done_reason", done_reason)
                     .add("settled", settled)
                     .toString();
         }
@@ -542,12 +700,13 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
 
     /**
      * GSON class for GDAX '/products/{marketId}/book' API call response.
+     * It is parsed by the {@link GdaxBookWrapperTypeAdapter}.
      */
     private static class GdaxBookWrapper {
 
         public long sequence;
-        public List<GdaxMarketOrder> bids;
-        public List<GdaxMarketOrder> asks;
+        public List<MarketOrder> bids;
+        public List<MarketOrder> asks;
 
         @Override
         public String toString() {
@@ -559,14 +718,6 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         }
     }
 
-    /**
-     * GSON class for holding Market Orders. First element in array is price, second element is amount, third is number
-     * of orders.
-     */
-    private static class GdaxMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4919711220797077759L;
-    }
-
     /**
      * GSON class for GDAX '/products/{marketId}/ticker' API call response.
      */
@@ -613,10 +764,63 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         }
     }
 
+    /**
+     * Streams the GDAX order book straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class GdaxBookWrapperTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<GdaxBookWrapper> {
+
+        @Override
+        public GdaxBookWrapper read(JsonReader in) throws IOException {
+            final GdaxBookWrapper orderBook = new GdaxBookWrapper();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "sequence":
+                        orderBook.sequence = in.nextLong();
+                        break;
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.BUY);
+                        break;
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.SELL);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer methods
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Puts order placement (POST) and cancellation (DELETE) in the trading lane, and fetching orders and accounts in
+     * the account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        final String path = url.getPath();
+        if (path.startsWith("/orders")) {
+            return "GET".equalsIgnoreCase(httpMethod) ? EndpointClass.ACCOUNT : EndpointClass.TRADING;
+        } else if (path.startsWith("/accounts")) {
+            return EndpointClass.ACCOUNT;
+        }
+        return EndpointClass.MARKET_DATA;
+    }
+
+    /*
+     * Fetching an order returns a 404 if the order was cancelled before any of it was filled - see getOrderStatus().
+     */
+    @Override
+    boolean isNotFoundAnApiResponse(URL url, String httpMethod) {
+        return "GET".equalsIgnoreCase(httpMethod) && url.getPath().startsWith("/orders/");
+    }
+
     /**
      * Makes a public API call to the GDAX exchange.
      *
@@ -782,7 +986,7 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
                     requestBody;
 
             // Sign the signature string and Base64 encode it
-            mac.reset();
+            final Mac mac = secureMessageLayer.getMac();
             mac.update(signatureBuilder.getBytes("UTF-8"));
             final String signature = DatatypeConverter.printBase64Binary(mac.doFinal());
 
@@ -818,8 +1022,8 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
             final byte[] decodedBase64Secret = DatatypeConverter.parseBase64Binary(secret);
 
             final SecretKeySpec keyspec = new SecretKeySpec(decodedBase64Secret, "HmacSHA256");
-            mac = Mac.getInstance("HmacSHA256");
-            mac.init(keyspec);
+            // GDAX requests are signed with a timestamp, not a nonce, so there is no nonce window
+            secureMessageLayer = new SecureMessageLayer(keyspec, 0);
             initializedMACAuthentication = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
@@ -866,6 +1070,7 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
      */
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
+        gsonBuilder.registerTypeAdapter(GdaxBookWrapper.class, new GdaxBookWrapperTypeAdapter());
         gson = gsonBuilder.create();
     }
 
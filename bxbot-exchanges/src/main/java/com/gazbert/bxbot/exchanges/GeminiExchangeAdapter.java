@@ -29,21 +29,26 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OrderStatusImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.security.InvalidKeyException;
@@ -51,6 +56,7 @@ import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.time.Instant;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -67,7 +73,9 @@ import java.util.*;
  * </strong>
  * </p>
  * <p>
- * The adapter only supports the REST implementation of the <a href="https://docs.gemini.com/rest-api/">Trading API</a>.
+ * Trading uses the REST implementation of the <a href="https://docs.gemini.com/rest-api/">Trading API</a>. Market
+ * data can also be streamed from the <a href="https://docs.gemini.com/websocket-api/#market-data">WebSocket API</a>
+ * using {@link MarketDataSubscription}.
  * </p>
  * <p>
  * Gemini operates <a href="https://docs.gemini.com/rest-api/#rate-limits">rate limits</a>:
@@ -100,7 +108,8 @@ import java.util.*;
  * @author gazbert
  * @since 1.0
  */
-public final class GeminiExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter {
+public final class GeminiExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter,
+        MarketDataSubscription {
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -119,6 +128,18 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
+    /**
+     * The exchange rejects a nonce lower than the last one it has seen, so authenticated requests are sent one at a
+     * time.
+     */
+    private static final int NONCE_WINDOW = 1;
+
+    /**
+     * The WebSocket URI for streaming market data - the market id is appended to it.
+     */
+    private static final String MARKET_DATA_WEBSOCKET_URL = "wss://api.gemini.com/" + GEMINI_API_VERSION
+            + "/marketdata/";
+
     /**
      * Used for reporting unexpected errors.
      */
@@ -149,11 +170,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
 
-    /**
-     * Nonce used for sending authenticated messages to the exchange.
-     */
-    private long nonce = 0;
-
     /**
      * Markets on the exchange. Used for determining order price truncation/rounding policy.
      * See: https://docs.gemini.com/rest-api/#symbols-and-minimums
@@ -199,10 +215,10 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
-     * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
+     * Signs authenticated requests - it provides the nonces and the "Message Authentication Code" (MAC) algorithm
+     * used for the secure messaging layer.
      */
-    private Mac mac;
+    private SecureMessageLayer secureMessageLayer;
 
     /**
      * GSON engine used for parsing JSON in Gemini API call responses.
@@ -218,7 +234,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
         setNetworkConfig(config);
         setOptionalConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -325,6 +340,35 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    @Override
+    public OrderStatus getOrderStatus(String orderId, String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        try {
+            final Map<String, String> params = getRequestParamMap();
+            params.put("order_id", orderId);
+
+            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("order/status", params);
+            LOG.debug(() -> "Order Status response: " + response);
+
+            final GeminiOpenOrder order = gson.fromJson(response.getPayload(), GeminiOpenOrder.class);
+
+            final OrderState state;
+            if (order.is_live) {
+                state = order.executed_amount.signum() > 0 ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+            } else {
+                state = order.is_cancelled ? OrderState.CANCELLED : OrderState.FILLED;
+            }
+
+            return new OrderStatusImpl(orderId, marketId, state, order.executed_amount, order.original_amount);
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
     @Override
     public List<OpenOrder> getYourOpenOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -380,35 +424,29 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrderBook(marketId, null);
+    }
 
-        try {
-
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
-            LOG.debug(() -> "Market Orders response: " + response);
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth) throws TradingApiException,
+            ExchangeNetworkException {
+        MarketOrderBook.checkDepth(depth);
+        return MarketOrderBook.limitDepth(getMarketOrderBook(marketId, depth), depth);
+    }
 
-            final GeminiOrderBook orderBook = gson.fromJson(response.getPayload(), GeminiOrderBook.class);
+    private MarketOrderBook getMarketOrderBook(String marketId, Integer depth) throws TradingApiException,
+            ExchangeNetworkException {
 
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (GeminiMarketOrder geminiBuyOrder : orderBook.bids) {
-                final MarketOrder buyOrder = new MarketOrderImpl(
-                        OrderType.BUY,
-                        geminiBuyOrder.price,
-                        geminiBuyOrder.amount,
-                        geminiBuyOrder.price.multiply(geminiBuyOrder.amount));
-                buyOrders.add(buyOrder);
-            }
+        try {
 
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (GeminiMarketOrder geminiSellOrder : orderBook.asks) {
-                final MarketOrder sellOrder = new MarketOrderImpl(
-                        OrderType.SELL,
-                        geminiSellOrder.price,
-                        geminiSellOrder.amount,
-                        geminiSellOrder.price.multiply(geminiSellOrder.amount));
-                sellOrders.add(sellOrder);
-            }
+            final String apiMethod = depth == null
+                    ? "book/" + marketId
+                    : "book/" + marketId + "?limit_bids=" + depth + "&limit_asks=" + depth;
+            final ExchangeHttpResponse response = sendPublicRequestToExchange(apiMethod);
+            LOG.debug(() -> "Market Orders response: " + response);
 
-            return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+            final GeminiOrderBook orderBook = gson.fromJson(response.getPayloadReader(), GeminiOrderBook.class);
+            return new MarketOrderBookImpl(marketId, orderBook.asks, orderBook.bids);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -489,42 +527,126 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
     }
 
     // ------------------------------------------------------------------------------------------------
-    //  GSON classes for JSON responses.
-    //  See https://docs.gemini.com/rest-api/
+    //  Gemini WebSocket market data.
+    //  See https://docs.gemini.com/websocket-api/#market-data
     // ------------------------------------------------------------------------------------------------
 
+    @Override
+    public void subscribeToMarketData(String marketId, MarketDataListener listener) throws ExchangeNetworkException {
+        openMarketDataStream(new GeminiMarketDataStream(marketId,
+                URI.create(MARKET_DATA_WEBSOCKET_URL + marketId), listener));
+    }
+
+    @Override
+    public void unsubscribeFromMarketData(String marketId, MarketDataListener listener) {
+        closeMarketDataStream(marketId, listener);
+    }
+
     /**
-     * GSON class for a market Order Book.
+     * Streams the market data feed for a market. The market is part of the WebSocket URI, so there is nothing to
+     * subscribe to once connected. The feed has no top of book; it can be taken from the order book instead.
+     * <p>
+     * Every message, heartbeats included, carries a socket sequence number. If a message is missed, the stream is
+     * closed: Gemini does not resend messages, and the listener must resubscribe to get a new snapshot. The heartbeats
+     * would leave gaps in the order book sequence, so it is numbered on from the snapshot instead.
      */
-    private static class GeminiOrderBook {
+    static final class GeminiMarketDataStream extends MarketDataStream {
 
-        // field names map to the JSON arg names
-        public List<GeminiMarketOrder> bids;
-        public List<GeminiMarketOrder> asks;
+        private long lastSocketSequence = -1;
+
+        GeminiMarketDataStream(String marketId, URI uri, MarketDataListener listener) {
+            super(marketId, uri, listener);
+        }
 
         @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
+        List<String> getSubscribeMessages() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        void onMarketDataMessage(JsonElement message) {
+
+            final JsonObject jsonMessage = message.getAsJsonObject();
+            if (jsonMessage.has("socket_sequence")) {
+                final long socketSequence = jsonMessage.get("socket_sequence").getAsLong();
+                if (lastSocketSequence >= 0 && socketSequence != lastSocketSequence + 1) {
+                    closeOnError(new ExchangeNetworkException("Missed Gemini market data for market " + getMarketId()
+                            + ": expected socket_sequence " + (lastSocketSequence + 1) + " but got " + socketSequence));
+                    return;
+                }
+                lastSocketSequence = socketSequence;
+            }
+
+            if (!"update".equals(jsonMessage.get("type").getAsString())) {
+                return; // heartbeat
+            }
+
+            final List<MarketOrder> changes = new ArrayList<>();
+            boolean initial = false;
+            for (final JsonElement eventElement : jsonMessage.getAsJsonArray("events")) {
+                final JsonObject event = eventElement.getAsJsonObject();
+                switch (event.get("type").getAsString()) {
+
+                    case "change":
+                        initial |= "initial".equals(event.get("reason").getAsString());
+                        changes.add(createMarketOrder("bid".equals(event.get("side").getAsString()) ? OrderType.BUY
+                                : OrderType.SELL, event.get("price"), event.get("remaining")));
+                        break;
+
+                    case "trade":
+                        // the maker side is 'bid' or 'ask' - the taker was on the other side. Auction trades are
+                        // ignored.
+                        final String makerSide = event.get("makerSide").getAsString();
+                        if ("bid".equals(makerSide) || "ask".equals(makerSide)) {
+                            fireTrade(createMarketOrder("bid".equals(makerSide) ? OrderType.SELL : OrderType.BUY,
+                                    event.get("price"), event.get("amount")));
+                        }
+                        break;
+
+                    default:
+                        // auction events are ignored.
+                }
+            }
+
+            if (initial) {
+                fireOrderBookSnapshot(sortedByPrice(changes, OrderType.SELL), sortedByPrice(changes, OrderType.BUY));
+            } else if (!changes.isEmpty()) {
+                fireOrderBookUpdate(changes);
+            }
+        }
+
+        /*
+         * Sell orders lowest price first, buy orders highest price first - the same as the REST order book.
+         */
+        private static List<MarketOrder> sortedByPrice(List<MarketOrder> marketOrders, OrderType orderType) {
+            final Comparator<MarketOrder> byPrice = Comparator.comparing(MarketOrder::getPrice);
+            return marketOrders.stream()
+                    .filter(marketOrder -> marketOrder.getType() == orderType)
+                    .sorted(orderType == OrderType.SELL ? byPrice : byPrice.reversed())
+                    .collect(Collectors.toList());
         }
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  GSON classes for JSON responses.
+    //  See https://docs.gemini.com/rest-api/
+    // ------------------------------------------------------------------------------------------------
+
     /**
-     * GSON class for a Market Order.
+     * GSON class for a market Order Book.
+     * It is parsed by the {@link GeminiOrderBookTypeAdapter}.
      */
-    private static class GeminiMarketOrder {
+    private static class GeminiOrderBook {
 
-        public BigDecimal price;
-        public BigDecimal amount;
-        // ignore the timestamp attribute as per the API spec
+        // field names map to the JSON arg names
+        public List<MarketOrder> bids;
+        public List<MarketOrder> asks;
 
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
-                    .add("price", price)
-                    .add("amount", amount)
+                    .add("bids", bids)
+                    .add("asks", asks)
                     .toString();
         }
     }
@@ -656,10 +778,51 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    /**
+     * Streams the Gemini order book straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class GeminiOrderBookTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<GeminiOrderBook> {
+
+        @Override
+        public GeminiOrderBook read(JsonReader in) throws IOException {
+            final GeminiOrderBook orderBook = new GeminiOrderBook();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelObjects(in, OrderType.BUY, "price", "amount");
+                        break;
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelObjects(in, OrderType.SELL, "price", "amount");
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Puts new and cancelled orders in the trading lane and the other authenticated calls in the account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        final String path = url.getPath();
+        if (path.endsWith("/order/new") || path.endsWith("/order/cancel")) {
+            return EndpointClass.TRADING;
+        } else if (path.endsWith("/orders") || path.endsWith("/order/status") || path.endsWith("/balances")) {
+            return EndpointClass.ACCOUNT;
+        }
+        return EndpointClass.MARKET_DATA;
+    }
+
     /**
      * Makes a public API call to the Gemini exchange.
      *
@@ -744,6 +907,15 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
             throw new IllegalStateException(errorMsg);
         }
 
+        return secureMessageLayer.sendInNonceOrder(() -> signAndSendRequestToExchange(apiMethod, params));
+    }
+
+    /*
+     * Takes the next nonce, signs the request with it, and sends it to the exchange.
+     */
+    private ExchangeHttpResponse signAndSendRequestToExchange(String apiMethod, Map<String, String> params)
+            throws ExchangeNetworkException, TradingApiException {
+
         try {
 
             if (params == null) {
@@ -755,8 +927,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
             params.put("request", "/" + GEMINI_API_VERSION + "/" + apiMethod);
 
             // nonce is required by Gemini in every request
-            params.put("nonce", Long.toString(nonce));
-            nonce++;
+            params.put("nonce", Long.toString(secureMessageLayer.nextNonce()));
 
             // JSON-ify the param dictionary
             final String paramsInJson = gson.toJson(params);
@@ -765,7 +936,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
             final String base64payload = DatatypeConverter.printBase64Binary(paramsInJson.getBytes("UTF-8"));
 
             // Create the signature
-            mac.reset(); // force reset
+            final Mac mac = secureMessageLayer.getMac();
             mac.update(base64payload.getBytes("UTF-8"));
             final String signature = toHex(mac.doFinal()).toLowerCase();
 
@@ -814,8 +985,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
 
         try {
             final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA384");
-            mac = Mac.getInstance("HmacSHA384");
-            mac.init(keyspec);
+            secureMessageLayer = new SecureMessageLayer(keyspec, NONCE_WINDOW);
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
@@ -861,6 +1031,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
+        gsonBuilder.registerTypeAdapter(GeminiOrderBook.class, new GeminiOrderBookTypeAdapter());
         gson = gsonBuilder.create();
     }
 
@@ -29,14 +29,15 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
@@ -203,10 +204,11 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
     private String secret = "";
 
     /**
-     * The Message Digest generator used by the secure messaging layer.
+     * The Message Digest generators used by the secure messaging layer - one per thread, as a MessageDigest is not
+     * thread-safe and requests can be sent from several threads.
      * Used to create the hash of the entire message with the private key to ensure message integrity.
      */
-    private MessageDigest messageDigest;
+    private ThreadLocal<MessageDigest> messageDigests;
 
     /**
      * GSON engine used for parsing JSON in Huobi API call responses.
@@ -435,31 +437,8 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
             final ExchangeHttpResponse response = sendPublicRequestToExchange(apiCall);
             LOG.debug(() -> "Market Orders response: " + response);
 
-            final HuobiOrderBookWrapper orderBook = gson.fromJson(response.getPayload(), HuobiOrderBookWrapper.class);
-
-            // adapt BUYs
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (HuobiMarketOrder okCoinBuyOrder : orderBook.buys) {
-                final MarketOrder buyOrder = new MarketOrderImpl(
-                        OrderType.BUY,
-                        okCoinBuyOrder.price,
-                        okCoinBuyOrder.amount,
-                        okCoinBuyOrder.price.multiply(okCoinBuyOrder.amount));
-                buyOrders.add(buyOrder);
-            }
-
-            // adapt SELLs
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (HuobiMarketOrder okCoinSellOrder : orderBook.sells) {
-                final MarketOrder sellOrder = new MarketOrderImpl(
-                        OrderType.SELL,
-                        okCoinSellOrder.price,
-                        okCoinSellOrder.amount,
-                        okCoinSellOrder.price.multiply(okCoinSellOrder.amount));
-                sellOrders.add(sellOrder);
-            }
-
-            return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+            final HuobiOrderBookWrapper orderBook = gson.fromJson(response.getPayloadReader(), HuobiOrderBookWrapper.class);
+            return new MarketOrderBookImpl(marketId, orderBook.sells, orderBook.buys);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -648,99 +627,19 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
     /**
      * GSON class for REST Order Book (detail_btc_json.js) API call response.
      * <p>
-     * This one is a bit crazy...
+     * This one is a bit crazy... it also carries the top orders, recent trades, and ticker stats. The
+     * {@link HuobiOrderBookWrapperTypeAdapter} skips all of that and only parses the buys and sells.
      */
     private static class HuobiOrderBookWrapper {
 
-        public BigDecimal total;
-        public BigDecimal p_high;
-        public BigDecimal p_open;
-        public BigDecimal p_new;
-        public BigDecimal p_low;
-        public List<HuobiTopMarketOrder> top_buy;
-        public List<HuobiMarketOrder> buys;
-        public List<HuobiTopMarketOrder> top_sell;
-        public BigDecimal amount;
-        public BigDecimal level;
-        public List<HuobiMarketOrder> sells;
-        public List<HuobiTrade> trades;
-        public BigDecimal amp;
-        public BigDecimal p_last;
+        public List<MarketOrder> buys;
+        public List<MarketOrder> sells;
 
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
-                    .add("total", total)
-                    .add("p_high", p_high)
-                    .add("p_open", p_open)
-                    .add("p_new", p_new)
-                    .add("p_low", p_low)
-                    .add("top_buy", top_buy)
                     .add("buys", buys)
-                    .add("top_sell", top_sell)
-                    .add("amount", amount)
-                    .add("level", level)
                     .add("sells", sells)
-                    .add("trades", trades)
-                    .add("amp", amp)
-                    .add("p_last", p_last)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Huobi Market Order.
-     */
-    private static class HuobiMarketOrder {
-
-        public BigDecimal amount;
-        public BigDecimal level;
-        public BigDecimal price;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("amount", amount)
-                    .add("level", level)
-                    .add("price", price)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Huobi top Market Order.
-     */
-    private static class HuobiTopMarketOrder extends HuobiMarketOrder {
-
-        public BigDecimal accu;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("accu", accu)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Huobi Trade.
-     */
-    private static class HuobiTrade {
-
-        public BigDecimal amount;
-        public String time;
-        public BigDecimal price;
-        public String en_type; // e.g 'bid'
-        public String type; // e.g. "买入"
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("amount", amount)
-                    .add("time", time)
-                    .add("price", price)
-                    .add("en_type", en_type)
-                    .add("type", type)
                     .toString();
         }
     }
@@ -918,10 +817,52 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
         }
     }
 
+    /**
+     * Streams the Huobi order book straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class HuobiOrderBookWrapperTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<HuobiOrderBookWrapper> {
+
+        @Override
+        public HuobiOrderBookWrapper read(JsonReader in) throws IOException {
+            final HuobiOrderBookWrapper orderBook = new HuobiOrderBookWrapper();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "buys":
+                        orderBook.buys = MarketOrderJsonReader.readPriceLevelObjects(in, OrderType.BUY, "price", "amount");
+                        break;
+                    case "sells":
+                        orderBook.sells = MarketOrderJsonReader.readPriceLevelObjects(in, OrderType.SELL, "price", "amount");
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer methods
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Authenticated calls all go to the same URL with the API method in the post data. Buy, sell, and cancel orders
+     * go in the trading lane and the other authenticated calls in the account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        if (postData == null) {
+            return EndpointClass.MARKET_DATA;
+        } else if (postData.startsWith("method=buy&") || postData.startsWith("method=sell&")
+                || postData.startsWith("method=cancel_order&")) {
+            return EndpointClass.TRADING;
+        }
+        return EndpointClass.ACCOUNT;
+    }
+
     /**
      * <p>
      * Makes a public API call to the Huobi exchange.
@@ -1070,8 +1011,9 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
             return "";
         }
 
-        messageDigest.update(stringToHash.getBytes("UTF-8"));
-        final byte[] md5HashInBytes = messageDigest.digest();
+        final MessageDigest messageDigest = messageDigests.get();
+        messageDigest.reset();
+        final byte[] md5HashInBytes = messageDigest.digest(stringToHash.getBytes("UTF-8"));
 
         final StringBuilder md5HashAsLowerCaseString = new StringBuilder();
         for (final byte md5HashByte : md5HashInBytes) {
@@ -1088,7 +1030,14 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
     private void initSecureMessageLayer() {
 
         try {
-            messageDigest = MessageDigest.getInstance("MD5");
+            MessageDigest.getInstance("MD5"); // fail fast if MD5 is not installed
+            messageDigests = ThreadLocal.withInitial(() -> {
+                try {
+                    return MessageDigest.getInstance("MD5");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("Failed to setup MessageDigest for thread", e);
+                }
+            });
             initializedSecureMessagingLayer = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MessageDigest for secure message layer. Details: " + e.getMessage();
@@ -1121,6 +1070,8 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
         LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
 
         accountInfoMarket = getOptionalConfigItem(optionalConfig, ACCOUNT_INFO_MARKET_PROPERTY_NAME);
+
+        setHedgingConfig(optionalConfig);
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -1133,6 +1084,7 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(HuobiOpenOrderResponseWrapper.class, new GetHuobiOpenOrdersDeserializer());
+        gsonBuilder.registerTypeAdapter(HuobiOrderBookWrapper.class, new HuobiOrderBookWrapperTypeAdapter());
         gson = gsonBuilder.create();
     }
 
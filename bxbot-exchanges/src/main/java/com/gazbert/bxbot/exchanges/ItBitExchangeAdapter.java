@@ -29,18 +29,19 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.HttpURLConnection;
@@ -128,6 +129,12 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
      */
     private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
+    /**
+     * The exchange rejects a nonce lower than the last one it has seen, so authenticated requests are sent one at a
+     * time.
+     */
+    private static final int NONCE_WINDOW = 1;
+
     /**
      * Used for reporting unexpected errors.
      */
@@ -178,11 +185,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
      */
     private static final String EXCHANGE_UNDERGOING_MAINTENANCE_RESPONSE = "The itBit API is currently undergoing maintenance";
 
-    /**
-     * Nonce used for sending authenticated messages to the exchange.
-     */
-    private long nonce = 0;
-
     /**
      * The UUID of the wallet in use on the exchange.
      */
@@ -224,10 +226,10 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
-     * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
+     * Signs authenticated requests - it provides the nonces and the "Message Authentication Code" (MAC) algorithm
+     * used for the secure messaging layer.
      */
-    private Mac mac;
+    private SecureMessageLayer secureMessageLayer;
 
     /**
      * GSON engine used for parsing JSON in itBit API call responses.
@@ -243,7 +245,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         setNetworkConfig(config);
         setOptionalConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -472,29 +473,9 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
 
             if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
 
-                final ItBitOrderBookWrapper orderBook = gson.fromJson(response.getPayload(), ItBitOrderBookWrapper.class);
-
-                final List<MarketOrder> buyOrders = new ArrayList<>();
-                for (ItBitMarketOrder itBitBuyOrder : orderBook.bids) {
-                    final MarketOrder buyOrder = new MarketOrderImpl(
-                            OrderType.BUY,
-                            itBitBuyOrder.get(0),
-                            itBitBuyOrder.get(1),
-                            itBitBuyOrder.get(0).multiply(itBitBuyOrder.get(1)));
-                    buyOrders.add(buyOrder);
-                }
-
-                final List<MarketOrder> sellOrders = new ArrayList<>();
-                for (ItBitMarketOrder itBitSellOrder : orderBook.asks) {
-                    final MarketOrder sellOrder = new MarketOrderImpl(
-                            OrderType.SELL,
-                            itBitSellOrder.get(0),
-                            itBitSellOrder.get(1),
-                            itBitSellOrder.get(0).multiply(itBitSellOrder.get(1)));
-                    sellOrders.add(sellOrder);
-                }
-
-                return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+                final ItBitOrderBookWrapper orderBook = gson.fromJson(response.getPayloadReader(),
+                        ItBitOrderBookWrapper.class);
+                return new MarketOrderBookImpl(marketId, orderBook.asks, orderBook.bids);
             } else {
                 final String errorMsg = "Failed to get market order book from exchange. Details: " + response;
                 LOG.error(errorMsg);
@@ -721,11 +702,12 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     /**
      * GSON class for holding itBit ticker returned from:
      * "Get Order Book" /markets/{tickerSymbol}/order_book API call.
+     * It is parsed by the {@link ItBitOrderBookWrapperTypeAdapter}.
      */
     private static class ItBitOrderBookWrapper {
 
-        public List<ItBitMarketOrder> bids;
-        public List<ItBitMarketOrder> asks;
+        public List<MarketOrder> bids;
+        public List<MarketOrder> asks;
 
         @Override
         public String toString() {
@@ -736,13 +718,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         }
     }
 
-    /**
-     * GSON class for holding Market Orders. First element in array is price, second element is amount.
-     */
-    private static class ItBitMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4959711260747077759L;
-    }
-
     /**
      * GSON class for holding itBit ticker returned from:
      * "Get Ticker" /markets/{tickerSymbol}/ticker API call.
@@ -833,10 +808,51 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         }
     }
 
+    /**
+     * Streams the itBit order book straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class ItBitOrderBookWrapperTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<ItBitOrderBookWrapper> {
+
+        @Override
+        public ItBitOrderBookWrapper read(JsonReader in) throws IOException {
+            final ItBitOrderBookWrapper orderBook = new ItBitOrderBookWrapper();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.BUY);
+                        break;
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.SELL);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Puts order placement (POST) and cancellation (DELETE) in the trading lane, and the other wallet calls in the
+     * account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        final String path = url.getPath();
+        if (path.contains("/wallets")) {
+            return path.contains("/orders") && !"GET".equalsIgnoreCase(httpMethod)
+                    ? EndpointClass.TRADING : EndpointClass.ACCOUNT;
+        }
+        return EndpointClass.MARKET_DATA;
+    }
+
     /**
      * Makes a public API call to the itBit exchange.
      *
@@ -884,13 +900,22 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
             throw new IllegalStateException(errorMsg);
         }
 
+        return secureMessageLayer.sendInNonceOrder(() -> signAndSendRequestToExchange(httpMethod, apiMethod, params));
+    }
+
+    /*
+     * Takes the next nonce, signs the request with it, and sends it to the exchange.
+     */
+    private ExchangeHttpResponse signAndSendRequestToExchange(String httpMethod, String apiMethod, Map<String, String> params)
+            throws ExchangeNetworkException, TradingApiException {
+
         try {
 
             // Generate new UNIX time in secs
             final String unixTime = Long.toString(System.currentTimeMillis());
 
-            // increment nonce for use in this call
-            nonce++;
+            // take the next nonce for use in this call
+            final long nonce = secureMessageLayer.nextNonce();
 
             if (params == null) {
                 // create empty map for non-param API calls
@@ -987,7 +1012,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
 
             // Prepend the UTF-8 encoded request URL to the message hash.
             // Generate the SHA-512 HMAC of the prependRequestUrlToMsgHash using your API secret as the key.
-            mac.reset(); // force reset
+            final Mac mac = secureMessageLayer.getMac();
             mac.update(invocationUrl.getBytes("UTF-8"));
             mac.update(messageHash);
 
@@ -1029,8 +1054,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
 
         try {
             final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA512");
-            mac = Mac.getInstance("HmacSHA512");
-            mac.init(keyspec);
+            secureMessageLayer = new SecureMessageLayer(keyspec, NONCE_WINDOW);
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA512 installed?";
@@ -1089,6 +1113,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         // We need to disable HTML escaping for this adapter else GSON will change = to unicode for query strings, e.g.
         // https://api.itbit.com/v1/wallets?userId=56DA621F --> https://api.itbit.com/v1/wallets?userId\u003d56DA621F
         final GsonBuilder gsonBuilder = new GsonBuilder().disableHtmlEscaping();
+        gsonBuilder.registerTypeAdapter(ItBitOrderBookWrapper.class, new ItBitOrderBookWrapperTypeAdapter());
         gson = gsonBuilder.create();
     }
 
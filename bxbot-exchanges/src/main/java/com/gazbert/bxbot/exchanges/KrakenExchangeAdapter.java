@@ -29,17 +29,20 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OrderStatusImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
@@ -49,6 +52,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -92,6 +96,10 @@ import java.util.*;
  * in the exchange.xml config file, the bot will stay alive and wait until the next trade cycle.
  * </p>
  * <p>
+ * Market data can be streamed from the <a href="https://www.kraken.com/features/websocket-api">WebSocket API</a>
+ * using {@link MarketDataSubscription}.
+ * </p>
+ * <p>
  * The Exchange Adapter is <em>not</em> thread safe. It expects to be called using a single thread in order to
  * preserve trade execution order. The {@link URLConnection} achieves this by blocking/waiting on the input stream
  * (response) for each API call.
@@ -104,7 +112,8 @@ import java.util.*;
  * @author gazbert
  * @since 1.0
  */
-public final class KrakenExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter {
+public final class KrakenExchangeAdapter extends AbstractExchangeAdapter implements ExchangeAdapter,
+        MarketDataSubscription {
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -138,6 +147,11 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private static final String AUTHENTICATED_API_URL = KRAKEN_BASE_URI + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH;
 
+    /**
+     * The WebSocket URI for streaming market data.
+     */
+    private static final String MARKET_DATA_WEBSOCKET_URL = "wss://ws.kraken.com";
+
     /**
      * Used for reporting unexpected errors.
      */
@@ -183,6 +197,21 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private static final String FAILED_TO_CANCEL_ORDER = "Failed to Cancel Order on exchange. Details: ";
 
+    /**
+     * Error message for when API call to Cancel Order Batch fails.
+     */
+    private static final String FAILED_TO_CANCEL_ORDERS = "Failed to Cancel Orders on exchange. Details: ";
+
+    /**
+     * Error message for when API call to get Order Status fails.
+     */
+    private static final String FAILED_TO_GET_ORDER_STATUS = "Failed to get Order Status from exchange. Details: ";
+
+    /**
+     * Error message for when API call to get Asset Pairs fails.
+     */
+    private static final String FAILED_TO_GET_ASSET_PAIRS = "Failed to get Asset Pairs from exchange. Details: ";
+
     /**
      * Name of PUBLIC key prop in config file.
      */
@@ -209,14 +238,25 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
     private static final String KEEP_ALIVE_DURING_MAINTENANCE_PROPERTY_NAME = "keep-alive-during-maintenance";
 
     /**
-     * Text in response indicating exchange is undergoing maintenance.
+     * Name of Nonce Window property in config file.
      */
-    private static final String EXCHANGE_UNDERGOING_MAINTENANCE_RESPONSE = "EService:Unavailable";
+    private static final String NONCE_WINDOW_PROPERTY_NAME = "nonce-window";
+
+    /**
+     * Kraken rejects a nonce lower than the last one it has seen unless the API key has a nonce window set, so by
+     * default authenticated requests are sent one at a time.
+     */
+    private static final int DEFAULT_NONCE_WINDOW = 1;
 
     /**
-     * Nonce used for sending authenticated messages to the exchange.
+     * The max number of orders that can be cancelled in one CancelOrderBatch call.
      */
-    private long nonce = 0;
+    private static final int MAX_CANCELS_PER_BATCH = 50;
+
+    /**
+     * Text in response indicating exchange is undergoing maintenance.
+     */
+    private static final String EXCHANGE_UNDERGOING_MAINTENANCE_RESPONSE = "EService:Unavailable";
 
     /**
      * Exchange buy fees in % in {@link BigDecimal} format.
@@ -233,6 +273,11 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private boolean keepAliveDuringMaintenance;
 
+    /**
+     * The maximum number of authenticated requests in flight at once.
+     */
+    private int nonceWindow = DEFAULT_NONCE_WINDOW;
+
     /**
      * Used to indicate if we have initialised the MAC authentication protocol.
      */
@@ -249,16 +294,21 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
-     * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
+     * Signs authenticated requests - it provides the nonces and the "Message Authentication Code" (MAC) algorithm
+     * used for the secure messaging layer.
      */
-    private Mac mac;
+    private SecureMessageLayer secureMessageLayer;
 
     /**
      * GSON engine used for parsing JSON in Kraken API call responses.
      */
     private Gson gson;
 
+    /**
+     * WebSocket API market names ('wsname' in the Asset Pairs API call result) keyed by market id.
+     */
+    private final Map<String, String> webSocketPairNames = new ConcurrentHashMap<>();
+
 
     @Override
     public void init(ExchangeConfig config) {
@@ -268,7 +318,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         setNetworkConfig(config);
         setOptionalConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -280,6 +329,18 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrderBook(marketId, null);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth) throws TradingApiException,
+            ExchangeNetworkException {
+        MarketOrderBook.checkDepth(depth);
+        return MarketOrderBook.limitDepth(getMarketOrderBook(marketId, depth), depth);
+    }
+
+    private MarketOrderBook getMarketOrderBook(String marketId, Integer depth) throws TradingApiException,
+            ExchangeNetworkException {
 
         ExchangeHttpResponse response = null;
 
@@ -287,6 +348,9 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
             final Map<String, String> params = getRequestParamMap();
             params.put("pair", marketId);
+            if (depth != null) {
+                params.put("count", String.valueOf(depth));
+            }
 
             response = sendPublicRequestToExchange("Depth", params);
 
@@ -298,7 +362,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
                 final Type resultType = new TypeToken<KrakenResponse<KrakenMarketOrderBookResult>>() {
                 }.getType();
-                final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+                final KrakenResponse krakenResponse = gson.fromJson(response.getPayloadReader(), resultType);
 
                 final List<String> errors = krakenResponse.error;
                 if (errors == null || errors.isEmpty()) {
@@ -307,28 +371,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
                     final KrakenMarketOrderBookResult krakenOrderBookResult = (KrakenMarketOrderBookResult) krakenResponse.result;
 
                     final KrakenOrderBook krakenOrderBook = krakenOrderBookResult.values().stream().findFirst().get();
-
-                    final List<MarketOrder> buyOrders = new ArrayList<>();
-                    for (KrakenMarketOrder krakenBuyOrder : krakenOrderBook.bids) {
-                        final MarketOrder buyOrder = new MarketOrderImpl(
-                                OrderType.BUY,
-                                krakenBuyOrder.get(0),
-                                krakenBuyOrder.get(1),
-                                krakenBuyOrder.get(0).multiply(krakenBuyOrder.get(1)));
-                        buyOrders.add(buyOrder);
-                    }
-
-                    final List<MarketOrder> sellOrders = new ArrayList<>();
-                    for (KrakenMarketOrder krakenSellOrder : krakenOrderBook.asks) {
-                        final MarketOrder sellOrder = new MarketOrderImpl(
-                                OrderType.SELL,
-                                krakenSellOrder.get(0),
-                                krakenSellOrder.get(1),
-                                krakenSellOrder.get(0).multiply(krakenSellOrder.get(1)));
-                        sellOrders.add(sellOrder);
-                    }
-
-                    return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+                    return new MarketOrderBookImpl(marketId, krakenOrderBook.asks, krakenOrderBook.bids);
 
                 } else {
 
@@ -593,6 +636,150 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    /*
+     * Cancels the orders with CancelOrderBatch, up to 50 orders per call. marketId is not needed for cancelling orders
+     * on this exchange.
+     */
+    @Override
+    public boolean cancelOrders(List<String> orderIds, String marketIdNotNeeded) throws TradingApiException,
+            ExchangeNetworkException {
+
+        ExchangeHttpResponse response = null;
+
+        try {
+
+            boolean allCancelled = true;
+            for (final List<String> batch : Lists.partition(orderIds, MAX_CANCELS_PER_BATCH)) {
+
+                final Map<String, String> params = getRequestParamMap();
+                for (int i = 0; i < batch.size(); i++) {
+                    params.put("orders[" + i + "]", batch.get(i));
+                }
+
+                response = sendAuthenticatedRequestToExchange("CancelOrderBatch", params);
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Cancel Orders response: " + response);
+                }
+
+                if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+
+                    final Type resultType = new TypeToken<KrakenResponse<KrakenCancelOrderResult>>() {
+                    }.getType();
+                    final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+
+                    final List<String> errors = krakenResponse.error;
+                    if (errors == null || errors.isEmpty()) {
+
+                        final KrakenCancelOrderResult krakenCancelOrderResult = (KrakenCancelOrderResult) krakenResponse.result;
+                        if (krakenCancelOrderResult == null || krakenCancelOrderResult.count != batch.size()) {
+                            final String errorMsg = FAILED_TO_CANCEL_ORDERS + response;
+                            LOG.error(errorMsg);
+                            allCancelled = false;
+                        }
+
+                    } else {
+
+                        if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
+                            LOG.warn(() -> UNDER_MAINTENANCE_WARNING_MESSAGE);
+                            throw new ExchangeNetworkException(UNDER_MAINTENANCE_WARNING_MESSAGE);
+                        }
+
+                        final String errorMsg = FAILED_TO_CANCEL_ORDERS + response;
+                        LOG.error(errorMsg);
+                        throw new TradingApiException(errorMsg);
+                    }
+
+                } else {
+                    final String errorMsg = FAILED_TO_CANCEL_ORDERS + response;
+                    LOG.error(errorMsg);
+                    throw new TradingApiException(errorMsg);
+                }
+            }
+            return allCancelled;
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    @Override
+    public OrderStatus getOrderStatus(String orderId, String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        ExchangeHttpResponse response = null;
+
+        try {
+            final Map<String, String> params = getRequestParamMap();
+            params.put("txid", orderId);
+
+            response = sendAuthenticatedRequestToExchange("QueryOrders", params);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Order Status response: " + response);
+            }
+
+            if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+
+                final Type resultType = new TypeToken<KrakenResponse<KrakenQueryOrdersResult>>() {
+                }.getType();
+                final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+
+                final List<String> errors = krakenResponse.error;
+                if (errors == null || errors.isEmpty()) {
+
+                    final KrakenQueryOrdersResult krakenQueryOrdersResult = (KrakenQueryOrdersResult) krakenResponse.result;
+                    final KrakenOpenOrder krakenOrder = krakenQueryOrdersResult == null
+                            ? null : krakenQueryOrdersResult.get(orderId);
+                    if (krakenOrder == null) {
+                        final String errorMsg = FAILED_TO_GET_ORDER_STATUS + response;
+                        LOG.error(errorMsg);
+                        throw new TradingApiException(errorMsg);
+                    }
+
+                    final OrderState state;
+                    switch (krakenOrder.status) {
+                        case "closed":
+                            state = OrderState.FILLED;
+                            break;
+                        case "canceled":
+                        case "expired":
+                            state = OrderState.CANCELLED;
+                            break;
+                        default: // 'pending' or 'open'
+                            state = krakenOrder.vol_exec.signum() > 0 ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+                    }
+
+                    return new OrderStatusImpl(orderId, marketId, state, krakenOrder.vol_exec, krakenOrder.vol);
+
+                } else {
+
+                    if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
+                        LOG.warn(() -> UNDER_MAINTENANCE_WARNING_MESSAGE);
+                        throw new ExchangeNetworkException(UNDER_MAINTENANCE_WARNING_MESSAGE);
+                    }
+
+                    final String errorMsg = FAILED_TO_GET_ORDER_STATUS + response;
+                    LOG.error(errorMsg);
+                    throw new TradingApiException(errorMsg);
+                }
+
+            } else {
+                final String errorMsg = FAILED_TO_GET_ORDER_STATUS + response;
+                LOG.error(errorMsg);
+                throw new TradingApiException(errorMsg);
+            }
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
     @Override
     public BigDecimal getLatestMarketPrice(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -740,6 +927,179 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         return "Kraken API v1";
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Kraken WebSocket public API.
+    //  See https://www.kraken.com/features/websocket-api
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public void subscribeToMarketData(String marketId, MarketDataListener listener)
+            throws ExchangeNetworkException, TradingApiException {
+        openMarketDataStream(new KrakenMarketDataStream(marketId, getWebSocketPairName(marketId),
+                URI.create(MARKET_DATA_WEBSOCKET_URL), listener));
+    }
+
+    @Override
+    public void unsubscribeFromMarketData(String marketId, MarketDataListener listener) {
+        closeMarketDataStream(marketId, listener);
+    }
+
+    /*
+     * Looks up the WebSocket API name for a market, e.g. XBT/USD for the XBTUSD market and DOT/USDT for the DOTUSDT
+     * market. Asset codes are not all the same length, so the name is taken from the Asset Pairs API call rather than
+     * derived from the market id. Names are cached for the lifetime of the adapter.
+     */
+    private String getWebSocketPairName(String marketId) throws TradingApiException, ExchangeNetworkException {
+
+        final String cachedPairName = webSocketPairNames.get(marketId);
+        if (cachedPairName != null) {
+            return cachedPairName;
+        }
+
+        ExchangeHttpResponse response = null;
+
+        try {
+
+            final Map<String, String> params = getRequestParamMap();
+            params.put("pair", marketId);
+
+            response = sendPublicRequestToExchange("AssetPairs", params);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Asset Pairs response: " + response);
+            }
+
+            if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+
+                final Type resultType = new TypeToken<KrakenResponse<KrakenAssetPairsResult>>() {
+                }.getType();
+                final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+
+                final List<String> errors = krakenResponse.error;
+                if (errors == null || errors.isEmpty()) {
+
+                    final KrakenAssetPairsResult assetPairsResult = (KrakenAssetPairsResult) krakenResponse.result;
+                    final KrakenAssetPair assetPair = assetPairsResult == null ? null
+                            : assetPairsResult.values().stream().findFirst().orElse(null);
+                    if (assetPair == null || assetPair.wsname == null) {
+                        final String errorMsg = "Market " + marketId + " is not available on the Kraken WebSocket"
+                                + " API. Details: " + response;
+                        LOG.error(errorMsg);
+                        throw new TradingApiException(errorMsg);
+                    }
+
+                    webSocketPairNames.put(marketId, assetPair.wsname);
+                    return assetPair.wsname;
+
+                } else {
+
+                    if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
+                        LOG.warn(() -> UNDER_MAINTENANCE_WARNING_MESSAGE);
+                        throw new ExchangeNetworkException(UNDER_MAINTENANCE_WARNING_MESSAGE);
+                    }
+
+                    final String errorMsg = FAILED_TO_GET_ASSET_PAIRS + response;
+                    LOG.error(errorMsg);
+                    throw new TradingApiException(errorMsg);
+                }
+
+            } else {
+                final String errorMsg = FAILED_TO_GET_ASSET_PAIRS + response;
+                LOG.error(errorMsg);
+                throw new TradingApiException(errorMsg);
+            }
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Streams the 'book', 'spread', and 'trade' channels for a market. The WebSocket API names markets with a slash
+     * between the assets, e.g. the XBTUSD market is XBT/USD - see {@link #getWebSocketPairName(String)}.
+     */
+    static final class KrakenMarketDataStream extends MarketDataStream {
+
+        private static final int ORDER_BOOK_DEPTH = 10;
+
+        private final String pairName;
+
+        KrakenMarketDataStream(String marketId, String pairName, URI uri, MarketDataListener listener) {
+            super(marketId, uri, listener);
+            this.pairName = pairName;
+        }
+
+        @Override
+        List<String> getSubscribeMessages() {
+            final String pair = "\"pair\":[\"" + pairName + "\"]";
+            return Arrays.asList(
+                    "{\"event\":\"subscribe\"," + pair + ",\"subscription\":{\"name\":\"book\",\"depth\":"
+                            + ORDER_BOOK_DEPTH + "}}",
+                    "{\"event\":\"subscribe\"," + pair + ",\"subscription\":{\"name\":\"spread\"}}",
+                    "{\"event\":\"subscribe\"," + pair + ",\"subscription\":{\"name\":\"trade\"}}");
+        }
+
+        @Override
+        void onMarketDataMessage(JsonElement message) {
+
+            if (message.isJsonObject()) {
+                final JsonObject event = message.getAsJsonObject();
+                if (event.has("errorMessage")) {
+                    LOG.error("Kraken market data error for market " + getMarketId() + ": " + event);
+                }
+                return; // 'heartbeat', 'systemStatus', and 'subscriptionStatus' events
+            }
+
+            // [channelID, data..., channelName, pair] - book updates can have separate ask and bid data
+            final JsonArray channelMessage = message.getAsJsonArray();
+            final String channelName = channelMessage.get(channelMessage.size() - 2).getAsString();
+            final List<JsonElement> data = new ArrayList<>();
+            for (int i = 1; i < channelMessage.size() - 2; i++) {
+                data.add(channelMessage.get(i));
+            }
+
+            if (channelName.startsWith("book")) {
+                final JsonObject firstBookData = data.get(0).getAsJsonObject();
+                if (firstBookData.has("as") || firstBookData.has("bs")) {
+                    fireOrderBookSnapshot(toMarketOrders(firstBookData, "as", OrderType.SELL),
+                            toMarketOrders(firstBookData, "bs", OrderType.BUY));
+                } else {
+                    final List<MarketOrder> changes = new ArrayList<>();
+                    for (final JsonElement bookData : data) {
+                        changes.addAll(toMarketOrders(bookData.getAsJsonObject(), "a", OrderType.SELL));
+                        changes.addAll(toMarketOrders(bookData.getAsJsonObject(), "b", OrderType.BUY));
+                    }
+                    fireOrderBookUpdate(changes);
+                }
+
+            } else if ("spread".equals(channelName)) {
+                // [bid, ask, timestamp, bidVolume, askVolume]
+                final JsonArray spread = data.get(0).getAsJsonArray();
+                fireTopOfBook(createMarketOrder(OrderType.BUY, spread.get(0), spread.get(3)),
+                        createMarketOrder(OrderType.SELL, spread.get(1), spread.get(4)));
+
+            } else if ("trade".equals(channelName)) {
+                // [[price, volume, time, side, orderType, misc], ...] - the side is the taker's: 'b' or 's'
+                for (final JsonElement tradeElement : data.get(0).getAsJsonArray()) {
+                    final JsonArray trade = tradeElement.getAsJsonArray();
+                    fireTrade(createMarketOrder("b".equals(trade.get(3).getAsString()) ? OrderType.BUY
+                            : OrderType.SELL, trade.get(0), trade.get(1)));
+                }
+            }
+        }
+
+        /*
+         * Book levels are [price, volume, timestamp]; a volume of 0 means the level has been removed.
+         */
+        private static List<MarketOrder> toMarketOrders(JsonObject bookData, String side, OrderType orderType) {
+            return bookData.has(side) ? MarketDataStream.toMarketOrders(bookData.getAsJsonArray(side), orderType)
+                    : Collections.emptyList();
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  GSON classes for JSON responses.
     //  See https://www.kraken.com/en-gb/help/api
@@ -784,6 +1144,30 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
     private static class KrakenMarketOrderBookResult extends HashMap<String, KrakenOrderBook> {
     }
 
+    /**
+     * GSON class that wraps an Asset Pairs API call result, keyed by pair name.
+     */
+    private static class KrakenAssetPairsResult extends HashMap<String, KrakenAssetPair> {
+    }
+
+    /**
+     * GSON class for an Asset Pair - only the names are used.
+     */
+    private static class KrakenAssetPair {
+
+        // field names map to the JSON arg names
+        public String altname;
+        public String wsname;
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("altname", altname)
+                    .add("wsname", wsname)
+                    .toString();
+        }
+    }
+
     /**
      * GSON class that wraps a Balance API call result.
      */
@@ -811,6 +1195,12 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    /**
+     * GSON class that wraps a QueryOrders API call result - your orders keyed by order id.
+     */
+    private static class KrakenQueryOrdersResult extends HashMap<String, KrakenOpenOrder> {
+    }
+
     /**
      * GSON class the represents a Kraken Open Order.
      */
@@ -929,11 +1319,12 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
     /**
      * GSON class for a Market Order Book.
+     * It is parsed by the {@link KrakenOrderBookTypeAdapter}.
      */
     private static class KrakenOrderBook {
 
-        public List<KrakenMarketOrder> bids;
-        public List<KrakenMarketOrder> asks;
+        public List<MarketOrder> bids;
+        public List<MarketOrder> asks;
 
         @Override
         public String toString() {
@@ -944,14 +1335,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
-    /**
-     * GSON class for holding Market Orders.
-     * First element in array is price, second element is amount, 3rd is UNIX time.
-     */
-    private static class KrakenMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4959711260742077759L;
-    }
-
     /**
      * Custom GSON Deserializer for Ticker API call result.
      * <p>
@@ -993,10 +1376,52 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    /**
+     * Streams the Kraken order book (the UNIX time of each price level is skipped) straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class KrakenOrderBookTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<KrakenOrderBook> {
+
+        @Override
+        public KrakenOrderBook read(JsonReader in) throws IOException {
+            final KrakenOrderBook orderBook = new KrakenOrderBook();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.BUY);
+                        break;
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.SELL);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer methods
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Puts AddOrder, CancelOrder and CancelOrderBatch in the trading lane and the other private calls in the account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        final String path = url.getPath();
+        if (path.endsWith(KRAKEN_PRIVATE_PATH + "AddOrder") || path.endsWith(KRAKEN_PRIVATE_PATH + "CancelOrder")
+                || path.endsWith(KRAKEN_PRIVATE_PATH + "CancelOrderBatch")) {
+            return EndpointClass.TRADING;
+        } else if (path.contains(KRAKEN_PRIVATE_PATH)) {
+            return EndpointClass.ACCOUNT;
+        }
+        return EndpointClass.MARKET_DATA;
+    }
+
     /**
      * Makes a public API call to the Kraken exchange.
      *
@@ -1079,6 +1504,15 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
             throw new IllegalStateException(errorMsg);
         }
 
+        return secureMessageLayer.sendInNonceOrder(() -> signAndSendRequestToExchange(apiMethod, params));
+    }
+
+    /*
+     * Takes the next nonce, signs the request with it, and sends it to the exchange.
+     */
+    private ExchangeHttpResponse signAndSendRequestToExchange(String apiMethod, Map<String, String> params)
+            throws ExchangeNetworkException, TradingApiException {
+
         try {
 
             if (params == null) {
@@ -1088,7 +1522,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
             // The nonce is required by Kraken in every request.
             // It MUST be incremented each time and the nonce param MUST match the value used in signature.
-            nonce++;
+            final long nonce = secureMessageLayer.nextNonce();
             params.put("nonce", Long.toString(nonce));
 
             // Current adapter does not support optional 2FA
@@ -1116,7 +1550,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
             final byte[] messageHash = md.digest();
 
             // Create hmac_sha512 digest of path and previous sha256 hash
-            mac.reset(); // force reset
+            final Mac mac = secureMessageLayer.getMac();
             mac.update(pathInBytes);
             mac.update(messageHash);
 
@@ -1152,8 +1586,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
             final byte[] base64DecodedSecret = Base64.getDecoder().decode(secret);
 
             final SecretKeySpec keyspec = new SecretKeySpec(base64DecodedSecret, "HmacSHA512");
-            mac = Mac.getInstance("HmacSHA512");
-            mac.init(keyspec);
+            secureMessageLayer = new SecureMessageLayer(keyspec, nonceWindow);
             initializedMACAuthentication = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HmacSHA512 installed?";
@@ -1196,6 +1629,13 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         } else {
             LOG.info(() -> KEEP_ALIVE_DURING_MAINTENANCE_PROPERTY_NAME + " is not set in exchange.xml");
         }
+
+        // optional - only needed if the API key has a nonce window set on the exchange
+        final String nonceWindowConfig = optionalConfig.getItem(NONCE_WINDOW_PROPERTY_NAME);
+        if (nonceWindowConfig != null && !nonceWindowConfig.isEmpty()) {
+            nonceWindow = Integer.parseInt(nonceWindowConfig);
+        }
+        LOG.info(() -> "Nonce window: " + nonceWindow);
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -1208,6 +1648,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(KrakenTickerResult.class, new KrakenTickerResultDeserializer());
+        gsonBuilder.registerTypeAdapter(KrakenOrderBook.class, new KrakenOrderBookTypeAdapter());
         gson = gsonBuilder.create();
     }
 
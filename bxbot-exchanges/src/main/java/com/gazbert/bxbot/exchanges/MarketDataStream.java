@@ -0,0 +1,280 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketDataListener;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.ContainerProvider;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A WebSocket connection that streams one market's data from an exchange to a {@link MarketDataListener}.
+ * <p>
+ * Exchange Adapters extend it with the exchange's subscribe messages and a parser for its market data messages. The
+ * parser turns each message into listener callbacks using the fire methods. Messages are delivered one at a time on
+ * the WebSocket client's thread.
+ * <p>
+ * A message that cannot be parsed, or a listener that throws, is logged and does not close the stream.
+ *
+ * @author gazbert
+ */
+abstract class MarketDataStream extends Endpoint {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * WebSocket client property for the connect and IO timeout in MILLIS.
+     */
+    private static final String IO_TIMEOUT_MS_PROPERTY = "org.apache.tomcat.websocket.IO_TIMEOUT_MS";
+
+    private final String marketId;
+    private final URI uri;
+    private final MarketDataListener listener;
+    private final AtomicBoolean disconnected = new AtomicBoolean();
+    private final JsonParser jsonParser = new JsonParser();
+
+    private volatile Session session;
+
+    /*
+     * Sequence number of the last order book snapshot or update, for exchanges that do not number their updates.
+     */
+    private long sequence;
+
+
+    MarketDataStream(String marketId, URI uri, MarketDataListener listener) {
+        this.marketId = marketId;
+        this.uri = uri;
+        this.listener = listener;
+    }
+
+    String getMarketId() {
+        return marketId;
+    }
+
+    MarketDataListener getListener() {
+        return listener;
+    }
+
+    boolean isOpen() {
+        final Session currentSession = session;
+        return currentSession != null && currentSession.isOpen();
+    }
+
+    /**
+     * Opens the WebSocket connection to the exchange. The subscribe messages are sent as soon as it is open.
+     *
+     * @param connectionTimeout the connection timeout in SECONDS.
+     * @throws ExchangeNetworkException if the connection cannot be opened.
+     */
+    void connect(int connectionTimeout) throws ExchangeNetworkException {
+
+        final ClientEndpointConfig config = ClientEndpointConfig.Builder.create().build();
+        config.getUserProperties().put(IO_TIMEOUT_MS_PROPERTY, String.valueOf(connectionTimeout * 1000L));
+
+        try {
+            LOG.info(() -> "Opening market data stream for market " + marketId + " to: " + uri);
+            session = ContainerProvider.getWebSocketContainer().connectToServer(this, config, uri);
+        } catch (DeploymentException | IOException e) {
+            final String errorMsg = "Failed to open market data stream to: " + uri;
+            LOG.error(errorMsg, e);
+            throw new ExchangeNetworkException(errorMsg, e);
+        }
+    }
+
+    /**
+     * Closes the WebSocket connection to the exchange.
+     */
+    void close() {
+        final Session currentSession = session;
+        if (currentSession != null && currentSession.isOpen()) {
+            try {
+                currentSession.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to cleanly close market data stream to: " + uri, e);
+            }
+        }
+    }
+
+    /**
+     * Closes the WebSocket connection when the stream can no longer be trusted, e.g. a message has been missed. The
+     * listener is told why before the connection closes.
+     *
+     * @param cause the reason for closing.
+     */
+    void closeOnError(Throwable cause) {
+        fireDisconnect(cause);
+        close();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Exchange specific methods
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the messages to send to the exchange to subscribe to the market's data.
+     *
+     * @return the subscribe messages; empty if the WebSocket URI selects the market data.
+     */
+    abstract List<String> getSubscribeMessages();
+
+    /**
+     * Parses a market data message from the exchange and fires the listener callbacks for it.
+     *
+     * @param message the parsed JSON message.
+     */
+    abstract void onMarketDataMessage(JsonElement message);
+
+    // ------------------------------------------------------------------------------------------------
+    //  WebSocket callbacks
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+
+        this.session = session;
+        session.addMessageHandler(String.class, this::onMessage);
+
+        try {
+            for (final String subscribeMessage : getSubscribeMessages()) {
+                LOG.debug(() -> "Sending market data subscribe message: " + subscribeMessage);
+                session.getBasicRemote().sendText(subscribeMessage);
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to subscribe to market data for market " + marketId, e);
+            closeOnError(e);
+        }
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        LOG.info(() -> "Market data stream for market " + marketId + " closed: " + closeReason);
+        fireDisconnect(closeReason.getCloseCode() == CloseReason.CloseCodes.NORMAL_CLOSURE ? null
+                : new ExchangeNetworkException("Market data stream closed by exchange: " + closeReason));
+    }
+
+    @Override
+    public void onError(Session session, Throwable cause) {
+        LOG.error("Market data stream for market " + marketId + " failed", cause);
+        fireDisconnect(cause);
+    }
+
+    private void onMessage(String message) {
+        LOG.debug(() -> "Market data message: " + message);
+        try {
+            onMarketDataMessage(jsonParser.parse(message));
+        } catch (Exception e) {
+            LOG.error("Failed to handle market data message for market " + marketId + ": " + message, e);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Listener callbacks
+    // ------------------------------------------------------------------------------------------------
+
+    void fireTopOfBook(MarketOrder bestBuyOrder, MarketOrder bestSellOrder) {
+        listener.onTopOfBook(marketId, bestBuyOrder, bestSellOrder);
+    }
+
+    void fireOrderBookSnapshot(List<MarketOrder> sellOrders, List<MarketOrder> buyOrders, long sequence) {
+        this.sequence = sequence;
+        listener.onOrderBookSnapshot(new MarketOrderBookImpl(marketId, sellOrders, buyOrders), sequence);
+    }
+
+    /*
+     * For exchanges that do not number their order book snapshots - the sequence starts again at 0.
+     */
+    void fireOrderBookSnapshot(List<MarketOrder> sellOrders, List<MarketOrder> buyOrders) {
+        fireOrderBookSnapshot(sellOrders, buyOrders, 0);
+    }
+
+    void fireOrderBookUpdate(List<MarketOrder> changes, long sequence) {
+        this.sequence = sequence;
+        listener.onOrderBookUpdate(marketId, changes, sequence);
+    }
+
+    /*
+     * For exchanges that do not number their order book updates - they are numbered on from the last snapshot.
+     */
+    void fireOrderBookUpdate(List<MarketOrder> changes) {
+        fireOrderBookUpdate(changes, sequence + 1);
+    }
+
+    void fireTrade(MarketOrder trade) {
+        listener.onTrade(marketId, trade);
+    }
+
+    private void fireDisconnect(Throwable cause) {
+        if (disconnected.compareAndSet(false, true)) {
+            listener.onDisconnect(marketId, cause);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Exchanges send prices and amounts as JSON strings or numbers; reading the text keeps all the digits.
+     */
+    static BigDecimal toBigDecimal(JsonElement jsonElement) {
+        return new BigDecimal(jsonElement.getAsString());
+    }
+
+    static MarketOrder createMarketOrder(OrderType orderType, JsonElement price, JsonElement quantity) {
+        return new MarketOrderImpl(orderType, toBigDecimal(price), quantity == null ? null : toBigDecimal(quantity));
+    }
+
+    /*
+     * Converts price levels sent as arrays with the price 1st and quantity 2nd, e.g. [["250.51","1.2"],...]
+     */
+    static List<MarketOrder> toMarketOrders(JsonArray priceLevels, OrderType orderType) {
+        final List<MarketOrder> marketOrders = new ArrayList<>(priceLevels.size());
+        for (final JsonElement priceLevel : priceLevels) {
+            final JsonArray priceAndQuantity = priceLevel.getAsJsonArray();
+            marketOrders.add(createMarketOrder(orderType, priceAndQuantity.get(0), priceAndQuantity.get(1)));
+        }
+        return marketOrders;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the bids or asks of an exchange order book straight into {@link MarketOrder}s.
+ * <p>
+ * The Exchange Adapters' order book TypeAdapters use it to avoid building a {@code List<List<BigDecimal>>} (or a list
+ * of GSON market order objects) and then copying every price level into a {@link MarketOrderImpl}.
+ * <p>
+ * Prices and quantities are read as strings, so no precision is lost whether the exchange sends them as JSON strings
+ * or numbers.
+ *
+ * @author gazbert
+ */
+final class MarketOrderJsonReader {
+
+    private MarketOrderJsonReader() {
+    }
+
+    /**
+     * Reads price levels sent as arrays, e.g. {@code [["250.51","1.2"],["250.50","0.5"]]}. The price must be the 1st
+     * element and the quantity the 2nd; any other elements are skipped.
+     *
+     * @param in        the JSON reader positioned at the start of the price levels array.
+     * @param orderType the type of the orders.
+     * @return the market orders.
+     * @throws IOException if the JSON cannot be read.
+     */
+    static List<MarketOrder> readPriceLevelArrays(JsonReader in, OrderType orderType) throws IOException {
+
+        final List<MarketOrder> marketOrders = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            in.beginArray();
+            final BigDecimal price = new BigDecimal(in.nextString());
+            final BigDecimal quantity = new BigDecimal(in.nextString());
+            while (in.hasNext()) {
+                in.skipValue();
+            }
+            in.endArray();
+            marketOrders.add(new MarketOrderImpl(orderType, price, quantity));
+        }
+        in.endArray();
+        return marketOrders;
+    }
+
+    /**
+     * Reads price levels sent as objects, e.g. {@code [{"price":"250.51","amount":"1.2","timestamp":"1442"}]}.
+     * Any other attributes are skipped.
+     *
+     * @param in           the JSON reader positioned at the start of the price levels array.
+     * @param orderType    the type of the orders.
+     * @param priceName    the name of the price attribute.
+     * @param quantityName the name of the quantity attribute.
+     * @return the market orders.
+     * @throws IOException if the JSON cannot be read.
+     */
+    static List<MarketOrder> readPriceLevelObjects(JsonReader in, OrderType orderType, String priceName,
+                                                   String quantityName) throws IOException {
+
+        final List<MarketOrder> marketOrders = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            BigDecimal price = null;
+            BigDecimal quantity = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                final String name = in.nextName();
+                if (name.equals(priceName)) {
+                    price = new BigDecimal(in.nextString());
+                } else if (name.equals(quantityName)) {
+                    quantity = new BigDecimal(in.nextString());
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            if (price == null || quantity == null) {
+                throw new IOException("Market order is missing '" + priceName + "' or '" + quantityName + "' at "
+                        + in.getPath());
+            }
+            marketOrders.add(new MarketOrderImpl(orderType, price, quantity));
+        }
+        in.endArray();
+        return marketOrders;
+    }
+
+    /**
+     * Base class for the Exchange Adapters' order book TypeAdapters. Order books are only ever read from the exchange,
+     * so writing one is not supported.
+     *
+     * @param <T> the order book type.
+     */
+    abstract static class OrderBookTypeAdapter<T> extends TypeAdapter<T> {
+
+        @Override
+        public final void write(JsonWriter out, T orderBook) {
+            throw new UnsupportedOperationException("Order books are never sent to the exchange");
+        }
+    }
+}
@@ -29,15 +29,21 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OrderStatusImpl;
 import com.gazbert.bxbot.trading.api.*;
+import com.google.common.base.Joiner;
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
@@ -105,6 +111,21 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
+    /**
+     * The most orders that can be fetched for each side of the order book in a depth.do API call.
+     */
+    private static final int MAX_ORDER_BOOK_DEPTH = 200;
+
+    /**
+     * The max number of orders that can be placed in one batch_trade.do API call.
+     */
+    private static final int MAX_ORDERS_PER_BATCH = 5;
+
+    /**
+     * The max number of orders that can be cancelled in one cancel_order.do API call.
+     */
+    private static final int MAX_CANCELS_PER_BATCH = 3;
+
     /**
      * Used for reporting unexpected errors.
      */
@@ -161,10 +182,11 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
     private String secret = "";
 
     /**
-     * The Message Digest generator used by the secure messaging layer.
+     * The Message Digest generators used by the secure messaging layer - one per thread, as a MessageDigest is not
+     * thread-safe and requests can be sent from several threads.
      * Used to create the hash of the entire message with the private key to ensure message integrity.
      */
-    private MessageDigest messageDigest;
+    private ThreadLocal<MessageDigest> messageDigests;
 
     /**
      * GSON engine used for parsing JSON in OKCoin API call responses.
@@ -264,6 +286,121 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    /*
+     * Places the orders with batch_trade.do. The exchange takes up to 5 orders per call, all for the same market.
+     * If any order fails, the ids of the orders that were placed are attached to the exception thrown.
+     */
+    @Override
+    public List<String> createOrders(List<OrderRequest> orderRequests) throws TradingApiException,
+            ExchangeNetworkException {
+
+        final String[] orderIds = new String[orderRequests.size()];
+
+        try {
+
+            // group the orders by market, remembering where each one goes in the list of order ids we return
+            final Map<String, List<Integer>> orderIndexesByMarket = new LinkedHashMap<>();
+            for (int i = 0; i < orderRequests.size(); i++) {
+                orderIndexesByMarket.computeIfAbsent(orderRequests.get(i).getMarketId(), marketId -> new ArrayList<>())
+                        .add(i);
+            }
+
+            for (final Map.Entry<String, List<Integer>> marketOrderIndexes : orderIndexesByMarket.entrySet()) {
+                for (final List<Integer> batch : Lists.partition(marketOrderIndexes.getValue(), MAX_ORDERS_PER_BATCH)) {
+
+                    final List<Map<String, String>> ordersData = new ArrayList<>(batch.size());
+                    for (final int orderIndex : batch) {
+                        ordersData.add(toOkCoinOrder(orderRequests.get(orderIndex)));
+                    }
+
+                    final Map<String, String> params = getRequestParamMap();
+                    params.put("symbol", marketOrderIndexes.getKey());
+                    params.put("orders_data", gson.toJson(ordersData));
+
+                    final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("batch_trade.do", params);
+                    LOG.debug(() -> "Create Orders response: " + response);
+
+                    final OKCoinBatchTradeResponse createOrdersResponse =
+                            gson.fromJson(response.getPayload(), OKCoinBatchTradeResponse.class);
+                    if (!createOrdersResponse.result || createOrdersResponse.order_info == null
+                            || createOrdersResponse.order_info.size() != batch.size()) {
+                        final String errorMsg = "Failed to place orders on exchange. Error response: " + response;
+                        LOG.error(errorMsg);
+                        throw new TradingApiException(errorMsg);
+                    }
+
+                    // the rest of the batch is placed even if some of its orders fail
+                    boolean batchFailed = false;
+                    for (int i = 0; i < batch.size(); i++) {
+                        final OKCoinBatchOrderInfo orderInfo = createOrdersResponse.order_info.get(i);
+                        if (orderInfo.error_code != 0) {
+                            batchFailed = true;
+                        } else {
+                            orderIds[batch.get(i)] = Long.toString(orderInfo.order_id);
+                        }
+                    }
+                    if (batchFailed) {
+                        final String errorMsg = "Failed to place order on exchange. Error response: " + response;
+                        LOG.error(errorMsg);
+                        throw new TradingApiException(errorMsg);
+                    }
+                }
+            }
+            return Arrays.asList(orderIds);
+
+        } catch (ExchangeNetworkException e) {
+            throw new ExchangeNetworkException(e.getMessage(), e, Arrays.asList(orderIds));
+        } catch (TradingApiException e) {
+            throw new TradingApiException(e.getMessage(), e, Arrays.asList(orderIds));
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e, Arrays.asList(orderIds));
+        }
+    }
+
+    /*
+     * Cancels the orders with cancel_order.do, which takes up to 3 comma separated order ids per call.
+     */
+    @Override
+    public boolean cancelOrders(List<String> orderIds, String marketId) throws TradingApiException,
+            ExchangeNetworkException {
+
+        try {
+
+            boolean allCancelled = true;
+            for (final List<String> batch : Lists.partition(orderIds, MAX_CANCELS_PER_BATCH)) {
+
+                final Map<String, String> params = getRequestParamMap();
+                params.put("order_id", Joiner.on(',').join(batch));
+                params.put("symbol", marketId);
+
+                final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("cancel_order.do", params);
+                LOG.debug(() -> "Cancel Orders response: " + response);
+
+                // the exchange only sends back the success and error order id lists when more than 1 order is cancelled
+                final OKCoinBatchCancelOrderResponse cancelOrdersResponse =
+                        gson.fromJson(response.getPayload(), OKCoinBatchCancelOrderResponse.class);
+                final int cancelledCount = batch.size() == 1
+                        ? (cancelOrdersResponse.result ? 1 : 0)
+                        : Splitter.on(',').omitEmptyStrings().splitToList(
+                        Strings.nullToEmpty(cancelOrdersResponse.success)).size();
+
+                if (cancelledCount != batch.size()) {
+                    final String errorMsg = "Failed to cancel orders on exchange. Error response: " + response;
+                    LOG.error(errorMsg);
+                    allCancelled = false;
+                }
+            }
+            return allCancelled;
+
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
     @Override
     public List<OpenOrder> getYourOpenOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
 
@@ -324,38 +461,86 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
     }
 
     @Override
-    public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+    public OrderStatus getOrderStatus(String orderId, String marketId) throws TradingApiException, ExchangeNetworkException {
 
         try {
 
             final Map<String, String> params = getRequestParamMap();
             params.put("symbol", marketId);
+            params.put("order_id", orderId);
 
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("depth.do", params);
-            LOG.debug(() -> "Market Orders response: " + response);
+            final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange("order_info.do", params);
+            LOG.debug(() -> "Order Status response: " + response);
+
+            final OKCoinOrderInfoWrapper orderInfoWrapper = gson.fromJson(response.getPayload(), OKCoinOrderInfoWrapper.class);
+            if (orderInfoWrapper.result && orderInfoWrapper.orders != null && !orderInfoWrapper.orders.isEmpty()) {
+
+                final OKCoinOpenOrder order = orderInfoWrapper.orders.get(0);
+                final OrderState state;
+                switch (order.status) {
+                    case 0:
+                        state = OrderState.OPEN;
+                        break;
+                    case 1:
+                    case 4: // still partially filled until the cancel request has been processed
+                        state = order.deal_amount.signum() > 0 ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+                        break;
+                    case 2:
+                        state = OrderState.FILLED;
+                        break;
+                    case -1:
+                        state = OrderState.CANCELLED;
+                        break;
+                    default:
+                        throw new TradingApiException(
+                                "Unrecognised order status received in getOrderStatus(). Value: " + order.status);
+                }
 
-            final OKCoinDepthWrapper orderBook = gson.fromJson(response.getPayload(), OKCoinDepthWrapper.class);
+                return new OrderStatusImpl(orderId, marketId, state, order.deal_amount, order.amount);
 
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (OKCoinMarketOrder okCoinBuyOrder : orderBook.bids) {
-                final MarketOrder buyOrder = new MarketOrderImpl(
-                        OrderType.BUY,
-                        okCoinBuyOrder.get(0),
-                        okCoinBuyOrder.get(1),
-                        okCoinBuyOrder.get(0).multiply(okCoinBuyOrder.get(1)));
-                buyOrders.add(buyOrder);
+            } else {
+                final String errorMsg = "Failed to get Order Status from exchange. Error response: " + response;
+                LOG.error(errorMsg);
+                throw new TradingApiException(errorMsg);
             }
 
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (OKCoinMarketOrder okCoinSellOrder : orderBook.asks) {
-                final MarketOrder sellOrder = new MarketOrderImpl(
-                        OrderType.SELL,
-                        okCoinSellOrder.get(0),
-                        okCoinSellOrder.get(1),
-                        okCoinSellOrder.get(0).multiply(okCoinSellOrder.get(1)));
-                sellOrders.add(sellOrder);
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error(UNEXPECTED_ERROR_MSG, e);
+            throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+        }
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrderBook(marketId, null);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth) throws TradingApiException,
+            ExchangeNetworkException {
+        MarketOrderBook.checkDepth(depth);
+        return MarketOrderBook.limitDepth(getMarketOrderBook(marketId, Math.min(depth, MAX_ORDER_BOOK_DEPTH)), depth);
+    }
+
+    private MarketOrderBook getMarketOrderBook(String marketId, Integer depth) throws TradingApiException,
+            ExchangeNetworkException {
+
+        try {
+
+            final Map<String, String> params = getRequestParamMap();
+            params.put("symbol", marketId);
+            if (depth != null) {
+                params.put("size", String.valueOf(depth));
             }
 
+            final ExchangeHttpResponse response = sendPublicRequestToExchange("depth.do", params);
+            LOG.debug(() -> "Market Orders response: " + response);
+
+            final OKCoinDepthWrapper orderBook = gson.fromJson(response.getPayloadReader(), OKCoinDepthWrapper.class);
+            final List<MarketOrder> sellOrders = orderBook.asks;
+
             // For some reason, OKCoin sorts ask orders in descending order instead of ascending.
             // We need to re-order price ascending - lowest ASK price will be first in list.
             sellOrders.sort((thisOrder, thatOrder) -> {
@@ -368,7 +553,7 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
                 }
             });
 
-            return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+            return new MarketOrderBookImpl(marketId, sellOrders, orderBook.bids);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -493,6 +678,55 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    /**
+     * GSON class for wrapping batch_trade.do response.
+     */
+    private static class OKCoinBatchTradeResponse extends OKCoinMessageBase {
+
+        public List<OKCoinBatchOrderInfo> order_info;
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("order_info", order_info)
+                    .toString();
+        }
+    }
+
+    /**
+     * GSON class for holding the result of each order placed in a batch_trade.do API call.
+     */
+    private static class OKCoinBatchOrderInfo {
+
+        public int error_code; // will be 0 if the order was placed
+        public long order_id; // will be -1 if the order was not placed
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("error_code", error_code)
+                    .add("order_id", order_id)
+                    .toString();
+        }
+    }
+
+    /**
+     * GSON class for wrapping cancel_order.do response when more than 1 order is cancelled.
+     */
+    private static class OKCoinBatchCancelOrderResponse extends OKCoinMessageBase {
+
+        public String success; // comma separated ids of the cancelled orders
+        public String error; // comma separated ids of the orders that could not be cancelled
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("success", success)
+                    .add("error", error)
+                    .toString();
+        }
+    }
+
     /**
      * GSON class for wrapping order_info.do response.
      */
@@ -545,11 +779,12 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
 
     /**
      * GSON class for wrapping depth.do response.
+     * It is parsed by the {@link OKCoinDepthWrapperTypeAdapter}.
      */
     private static class OKCoinDepthWrapper {
 
-        public List<OKCoinMarketOrder> asks;
-        public List<OKCoinMarketOrder> bids;
+        public List<MarketOrder> asks;
+        public List<MarketOrder> bids;
 
         @Override
         public String toString() {
@@ -560,13 +795,6 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
-    /**
-     * GSON class for holding Market Orders. First element in array is price, second element is amount.
-     */
-    private static class OKCoinMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4919711260747077759L;
-    }
-
     /**
      * GSON class for wrapping userinfo.do response.
      */
@@ -700,10 +928,51 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
+    /**
+     * Streams the OKCoin depth.do response straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class OKCoinDepthWrapperTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<OKCoinDepthWrapper> {
+
+        @Override
+        public OKCoinDepthWrapper read(JsonReader in) throws IOException {
+            final OKCoinDepthWrapper orderBook = new OKCoinDepthWrapper();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.SELL);
+                        break;
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.BUY);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer methods
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Puts trade, batch trade and cancel orders in the trading lane and order info and user info calls in the account lane.
+     */
+    @Override
+    EndpointClass getEndpointClass(URL url, String httpMethod, String postData) {
+        final String path = url.getPath();
+        if (path.endsWith("/trade.do") || path.endsWith("/batch_trade.do") || path.endsWith("/cancel_order.do")) {
+            return EndpointClass.TRADING;
+        } else if (path.endsWith("/order_info.do") || path.endsWith("/userinfo.do")) {
+            return EndpointClass.ACCOUNT;
+        }
+        return EndpointClass.MARKET_DATA;
+    }
+
     /**
      * Makes a public API call to the OKCoin exchange.
      *
@@ -859,8 +1128,9 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
             return "";
         }
 
-        messageDigest.update(stringToHash.getBytes("UTF-8"));
-        final byte[] md5HashInBytes = messageDigest.digest();
+        final MessageDigest messageDigest = messageDigests.get();
+        messageDigest.reset();
+        final byte[] md5HashInBytes = messageDigest.digest(stringToHash.getBytes("UTF-8"));
 
         final StringBuilder md5HashAsUpperCaseString = new StringBuilder();
         for (final byte md5HashByte : md5HashInBytes) {
@@ -877,7 +1147,14 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
     private void initSecureMessageLayer() {
 
         try {
-            messageDigest = MessageDigest.getInstance("MD5");
+            MessageDigest.getInstance("MD5"); // fail fast if MD5 is not installed
+            messageDigests = ThreadLocal.withInitial(() -> {
+                try {
+                    return MessageDigest.getInstance("MD5");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("Failed to setup MessageDigest for thread", e);
+                }
+            });
             initializedSecureMessagingLayer = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MessageDigest for secure message layer. Details: " + e.getMessage();
@@ -908,6 +1185,8 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         final String sellFeeInConfig = getOptionalConfigItem(optionalConfig, SELL_FEE_PROPERTY_NAME);
         sellFeePercentage = new BigDecimal(sellFeeInConfig).divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
         LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
+
+        setHedgingConfig(optionalConfig);
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -919,9 +1198,37 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
+        gsonBuilder.registerTypeAdapter(OKCoinDepthWrapper.class, new OKCoinDepthWrapperTypeAdapter());
         gson = gsonBuilder.create();
     }
 
+    /*
+     * Builds an order for the orders_data param of a batch_trade.do API call.
+     */
+    private Map<String, String> toOkCoinOrder(OrderRequest orderRequest) {
+
+        final Map<String, String> order = new LinkedHashMap<>();
+
+        if (orderRequest.getOrderType() == OrderType.BUY) {
+            order.put("type", "buy");
+        } else if (orderRequest.getOrderType() == OrderType.SELL) {
+            order.put("type", "sell");
+        } else {
+            final String errorMsg = "Invalid order type: " + orderRequest.getOrderType()
+                    + " - Can only be "
+                    + OrderType.BUY.getStringValue() + " or "
+                    + OrderType.SELL.getStringValue();
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        order.put("price", new DecimalFormat("#.########", getDecimalFormatSymbols()).format(orderRequest.getPrice()));
+
+        // note we need to limit amount to 8 decimal places else exchange will barf
+        order.put("amount", new DecimalFormat("#.########", getDecimalFormatSymbols()).format(orderRequest.getQuantity()));
+        return order;
+    }
+
     /*
      * Hack for unit-testing map params passed to transport layer.
      */
@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cuts the tail latency of idempotent requests by hedging them.
+ * <p>
+ * A request is sent as normal. If it has not answered within the hedge threshold, a duplicate request is sent and
+ * whichever answers first wins; the slower one is left to finish in the background. The threshold is a percentile of
+ * the latencies of recent requests, e.g. the 95th percentile, so only the slowest few requests get hedged and the
+ * extra load on the exchange stays small. No requests are hedged until enough latencies have been seen.
+ *
+ * @author gazbert
+ */
+final class RequestHedger {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Number of recent request latencies the hedge threshold is worked out from.
+     */
+    static final int LATENCY_SAMPLE_SIZE = 200;
+
+    /**
+     * Number of request latencies needed before requests are hedged.
+     */
+    static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final int percentile;
+    private final Executor executor;
+
+    /*
+     * Ring buffer of the latencies in nanos of the last LATENCY_SAMPLE_SIZE requests.
+     */
+    private final long[] latencies = new long[LATENCY_SAMPLE_SIZE];
+    private int latencyCount;
+    private int nextLatency;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+
+    /**
+     * Creates the request hedger.
+     *
+     * @param percentile the latency percentile, from 1 to 99, after which a request is hedged.
+     * @param executor   runs the requests, so the caller can stop waiting on a slow one. It must be able to run at
+     *                   least 2 requests for each caller at the same time.
+     * @throws IllegalArgumentException if the percentile is not valid.
+     */
+    RequestHedger(int percentile, Executor executor) {
+        if (percentile < 1 || percentile > 99) {
+            final String errorMsg = "Hedge percentile must be from 1 to 99 but was: " + percentile;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+        this.percentile = percentile;
+        this.executor = executor;
+    }
+
+    /**
+     * Sends a request, hedging it if it is slower than the hedge threshold.
+     *
+     * @param request the request to send. It must be safe to send more than once.
+     * @param <T>     the type of response.
+     * @return the first response received.
+     * @throws ExchangeNetworkException if every request sent failed with a network error.
+     * @throws TradingApiException      if every request sent failed, and one failed for any other reason.
+     */
+    <T> T send(HedgedRequest<T> request) throws ExchangeNetworkException, TradingApiException {
+
+        requestCount.incrementAndGet();
+        final long hedgeThresholdNanos = getHedgeThresholdNanos();
+        final CompletableFuture<T> firstRequest = sendAsync(request);
+
+        try {
+            if (hedgeThresholdNanos < 0) {
+                return firstRequest.get();
+            }
+
+            try {
+                return firstRequest.get(hedgeThresholdNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                hedgeCount.incrementAndGet();
+                LOG.debug(() -> "Hedging request slower than "
+                        + TimeUnit.NANOSECONDS.toMillis(hedgeThresholdNanos) + "ms");
+            }
+
+            final CompletableFuture<T> hedgedRequest = sendAsync(request);
+            final CompletableFuture<T> firstResponse = new CompletableFuture<>();
+            final AtomicInteger failures = new AtomicInteger();
+            final AtomicBoolean responded = new AtomicBoolean();
+
+            firstRequest.whenComplete((response, error) -> {
+                if (error == null) {
+                    if (responded.compareAndSet(false, true)) {
+                        firstResponse.complete(response);
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    firstResponse.completeExceptionally(error);
+                }
+            });
+            hedgedRequest.whenComplete((response, error) -> {
+                if (error == null) {
+                    // count the win before handing back the response so the caller sees the updated stats
+                    if (responded.compareAndSet(false, true)) {
+                        hedgeWinCount.incrementAndGet();
+                        firstResponse.complete(response);
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    firstResponse.completeExceptionally(error);
+                }
+            });
+            return firstResponse.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String errorMsg = "Interrupted while waiting for hedged request to the exchange.";
+            LOG.error(errorMsg, e);
+            throw new TradingApiException(errorMsg, e);
+
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ExchangeNetworkException) {
+                throw (ExchangeNetworkException) cause;
+            } else if (cause instanceof TradingApiException) {
+                throw (TradingApiException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new TradingApiException("Hedged request to the exchange failed.", cause);
+        }
+    }
+
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    /**
+     * Returns the fraction of requests that were hedged.
+     *
+     * @return the hedge rate, from 0 to 1.
+     */
+    double getHedgeRate() {
+        final long requests = requestCount.get();
+        return requests == 0 ? 0 : (double) hedgeCount.get() / requests;
+    }
+
+    /**
+     * Returns the fraction of hedged requests where the hedge answered first.
+     *
+     * @return the hedge win rate, from 0 to 1.
+     */
+    double getHedgeWinRate() {
+        final long hedges = hedgeCount.get();
+        return hedges == 0 ? 0 : (double) hedgeWinCount.get() / hedges;
+    }
+
+    /**
+     * Returns the current hedge threshold.
+     *
+     * @return the threshold in nanos, or -1 if not enough latencies have been seen yet.
+     */
+    synchronized long getHedgeThresholdNanos() {
+        if (latencyCount < MIN_LATENCY_SAMPLES) {
+            return -1;
+        }
+        final long[] sortedLatencies = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sortedLatencies);
+        return sortedLatencies[(latencyCount * percentile - 1) / 100];
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Runs the request on the executor and records its latency when it completes, even if it lost the race. Slow
+     * requests must stay in the sample or the threshold would creep down and every request would end up hedged.
+     */
+    private <T> CompletableFuture<T> sendAsync(HedgedRequest<T> request) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            final long startTime = System.nanoTime();
+            try {
+                final T response = request.send();
+                recordLatency(System.nanoTime() - startTime);
+                result.complete(response);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        latencies[nextLatency] = latencyNanos;
+        nextLatency = (nextLatency + 1) % LATENCY_SAMPLE_SIZE;
+        if (latencyCount < LATENCY_SAMPLE_SIZE) {
+            latencyCount++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("percentile", percentile)
+                .add("requestCount", requestCount)
+                .add("hedgeCount", hedgeCount)
+                .add("hedgeWinCount", hedgeWinCount)
+                .add("hedgeRate", getHedgeRate())
+                .add("hedgeWinRate", getHedgeWinRate())
+                .toString();
+    }
+
+    /**
+     * A request that can be hedged.
+     *
+     * @param <T> the type of response.
+     */
+    @FunctionalInterface
+    interface HedgedRequest<T> {
+        T send() throws ExchangeNetworkException, TradingApiException;
+    }
+}
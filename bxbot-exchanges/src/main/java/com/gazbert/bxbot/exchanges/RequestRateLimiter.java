@@ -0,0 +1,244 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds back requests to an exchange so they stay within the exchange's rate limits.
+ * <p>
+ * Each rate limit allows up to max requests in any period. It is enforced as a sliding window over the send times of
+ * the last max requests, so requests can be sent in a burst right up to the limit but never over it. A limit is set
+ * for all requests or for one {@link EndpointClass}; a request must be within every limit that applies to it.
+ * <p>
+ * When requests of different endpoint classes are waiting on the same 'all' limit, the higher priority class is sent
+ * first. So order placement and cancellation are not starved by market data polling when the budget is tight.
+ *
+ * @author gazbert
+ */
+final class RequestRateLimiter {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Endpoint class name for a rate limit that applies to all requests.
+     */
+    static final String ALL_ENDPOINT_CLASSES = "all";
+
+    private final List<Window> allWindows = new ArrayList<>();
+    private final Map<EndpointClass, List<Window>> endpointClassWindows = new EnumMap<>(EndpointClass.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition requestSent = lock.newCondition();
+
+    /*
+     * Number of requests waiting in each endpoint class lane, indexed by ordinal.
+     */
+    private final int[] waitingRequests = new int[EndpointClass.values().length];
+
+    /**
+     * Creates the rate limiter.
+     *
+     * @param rateLimits the rate limits from the exchange.xml file. If empty, requests are never held back.
+     * @throws IllegalArgumentException if a rate limit is not valid.
+     */
+    RequestRateLimiter(List<RateLimitConfig> rateLimits) {
+        this(rateLimits, TimeUnit.SECONDS);
+    }
+
+    /*
+     * For unit tests that cannot wait whole seconds.
+     */
+    RequestRateLimiter(List<RateLimitConfig> rateLimits, TimeUnit periodUnit) {
+
+        for (final EndpointClass endpointClass : EndpointClass.values()) {
+            endpointClassWindows.put(endpointClass, new ArrayList<>());
+        }
+
+        for (final RateLimitConfig rateLimit : rateLimits) {
+
+            if (rateLimit.getMaxRequests() == null || rateLimit.getMaxRequests() < 1
+                    || rateLimit.getPeriod() == null || rateLimit.getPeriod() < 1) {
+                final String errorMsg = "Rate limit max-requests and period must be at least 1: " + rateLimit;
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+
+            final Window window = new Window(rateLimit.getEndpointClass(), rateLimit.getMaxRequests(),
+                    periodUnit.toNanos(rateLimit.getPeriod()));
+
+            if (ALL_ENDPOINT_CLASSES.equals(rateLimit.getEndpointClass())) {
+                allWindows.add(window);
+            } else {
+                try {
+                    endpointClassWindows.get(EndpointClass.fromConfigName(rateLimit.getEndpointClass())).add(window);
+                } catch (IllegalArgumentException e) {
+                    final String errorMsg = "Rate limit endpoint-class is not valid: " + rateLimit;
+                    LOG.error(errorMsg, e);
+                    throw new IllegalArgumentException(errorMsg, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until a request of the given endpoint class can be sent without breaking a rate limit, and records it
+     * as sent.
+     *
+     * @param endpointClass the endpoint class of the request.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    void acquire(EndpointClass endpointClass) throws InterruptedException {
+
+        final List<Window> classWindows = endpointClassWindows.get(endpointClass);
+        if (allWindows.isEmpty() && classWindows.isEmpty()) {
+            return;
+        }
+
+        final int lane = endpointClass.ordinal();
+        final long startTime = System.nanoTime();
+
+        lock.lockInterruptibly();
+        try {
+            waitingRequests[lane]++;
+            try {
+                while (true) {
+                    final long now = System.nanoTime();
+                    final long waitTime = Math.max(getWaitTime(classWindows, now), getWaitTime(allWindows, now));
+
+                    if (waitTime > 0) {
+                        requestSent.awaitNanos(waitTime);
+
+                    } else if (isHigherPriorityRequestReady(lane, now)) {
+                        requestSent.await(); // it goes first and will signal when sent
+
+                    } else {
+                        classWindows.forEach(window -> window.recordRequest(now));
+                        allWindows.forEach(window -> window.recordRequest(now));
+
+                        final long waitedMillis = TimeUnit.NANOSECONDS.toMillis(now - startTime);
+                        if (waitedMillis > 0) {
+                            LOG.debug(() -> "Rate limit held back " + endpointClass + " request for "
+                                    + waitedMillis + "ms");
+                        }
+                        return;
+                    }
+                }
+            } finally {
+                waitingRequests[lane]--;
+                requestSent.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final List<Window> windows = new ArrayList<>(allWindows);
+        endpointClassWindows.values().forEach(windows::addAll);
+        return MoreObjects.toStringHelper(this)
+                .add("rateLimits", windows)
+                .toString();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * A higher priority request is ready if it is waiting only on the 'all' limits - it gets the next free slot.
+     */
+    private boolean isHigherPriorityRequestReady(int lane, long now) {
+        for (final EndpointClass endpointClass : EndpointClass.values()) {
+            if (endpointClass.ordinal() < lane && waitingRequests[endpointClass.ordinal()] > 0
+                    && getWaitTime(endpointClassWindows.get(endpointClass), now) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getWaitTime(List<Window> windows, long now) {
+        long waitTime = 0;
+        for (final Window window : windows) {
+            waitTime = Math.max(waitTime, window.getWaitTime(now));
+        }
+        return waitTime;
+    }
+
+    /*
+     * A sliding window rate limit. The send times of the last max requests are kept in a ring buffer; another request
+     * can be sent once the oldest of them is a whole period ago.
+     */
+    private static final class Window {
+
+        private final String endpointClass;
+        private final long periodNanos;
+        private final long[] sendTimes;
+        private int oldest;
+        private int sentCount;
+
+        Window(String endpointClass, int maxRequests, long periodNanos) {
+            this.endpointClass = endpointClass;
+            this.periodNanos = periodNanos;
+            this.sendTimes = new long[maxRequests];
+        }
+
+        long getWaitTime(long now) {
+            if (sentCount < sendTimes.length) {
+                return 0;
+            }
+            return Math.max(0, sendTimes[oldest] + periodNanos - now);
+        }
+
+        void recordRequest(long now) {
+            sendTimes[oldest] = now;
+            oldest = (oldest + 1) % sendTimes.length;
+            if (sentCount < sendTimes.length) {
+                sentCount++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("endpointClass", endpointClass)
+                    .add("maxRequests", sendTimes.length)
+                    .add("periodNanos", periodNanos)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how long to wait before retrying a failed request.
+ * <p>
+ * Uses decorrelated jitter: each delay is picked at random between the base delay and 3 times the previous delay,
+ * capped at the max delay. The delays grow roughly exponentially, but retries from many callers do not line up and
+ * hit a recovering exchange all at once.
+ *
+ * @author gazbert
+ */
+final class RequestRetryPolicy {
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * Creates the retry policy.
+     *
+     * @param maxRetries      the max number of times a request is retried after the first attempt.
+     * @param baseDelayMillis the shortest delay in millis.
+     * @param maxDelayMillis  the longest delay in millis.
+     * @throws IllegalArgumentException if the delays are not valid.
+     */
+    RequestRetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+        if (maxRetries < 0 || baseDelayMillis < 1 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Retry policy is not valid. maxRetries: " + maxRetries
+                    + " baseDelayMillis: " + baseDelayMillis + " maxDelayMillis: " + maxDelayMillis);
+        }
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    int getMaxRetries() {
+        return maxRetries;
+    }
+
+    long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    /**
+     * Returns the delay before the next retry.
+     *
+     * @param previousDelayMillis the previous delay, or the base delay before the first retry.
+     * @return the delay in millis.
+     */
+    long nextDelayMillis(long previousDelayMillis) {
+        final long upperBound = Math.max(baseDelayMillis, Math.min(maxDelayMillis, previousDelayMillis * 3));
+        return ThreadLocalRandom.current().nextLong(baseDelayMillis, upperBound + 1);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxRetries", maxRetries)
+                .add("baseDelayMillis", baseDelayMillis)
+                .add("maxDelayMillis", maxDelayMillis)
+                .toString();
+    }
+}
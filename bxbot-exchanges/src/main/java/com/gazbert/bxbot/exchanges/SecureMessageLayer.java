@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The secure messaging layer used by an Exchange Adapter to sign authenticated requests. It can be used by many
+ * threads at once.
+ * <p>
+ * Nonces come from an atomic counter, so every request gets its own and they always increase. Each thread signs with
+ * its own {@link Mac}, because a Mac holds the state of the message being signed.
+ * <p>
+ * Most exchanges reject a nonce lower than one they have already seen. Two threads can take nonces in one order and
+ * their requests can reach the exchange in the other order. The nonce window limits how many authenticated requests
+ * can be in flight at once. This keeps requests from arriving further out of order than the exchange accepts. A
+ * window of 1 sends requests one at a time, in nonce order. A window of 0 turns the limit off, for exchanges that do
+ * not use nonces.
+ *
+ * @author gazbert
+ */
+final class SecureMessageLayer {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final AtomicLong nonce = new AtomicLong(System.currentTimeMillis() / 1000);
+    private final Semaphore nonceWindow;
+    private final ThreadLocal<Mac> macs;
+
+
+    /**
+     * Creates the secure messaging layer. The first nonce is the current time in SECONDS, so a restarted bot starts
+     * from a higher nonce as long as it averaged less than one authenticated request a second.
+     *
+     * @param keySpec     the secret key and MAC algorithm to sign requests with.
+     * @param nonceWindow the maximum number of authenticated requests in flight; 0 for no limit.
+     * @throws NoSuchAlgorithmException if the MAC algorithm is not installed.
+     * @throws InvalidKeyException      if the secret key is not valid for the MAC algorithm.
+     */
+    SecureMessageLayer(SecretKeySpec keySpec, int nonceWindow) throws NoSuchAlgorithmException, InvalidKeyException {
+
+        createMac(keySpec); // fail fast if the MAC cannot be set up
+        this.nonceWindow = nonceWindow > 0 ? new Semaphore(nonceWindow, true) : null;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                return createMac(keySpec);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to setup MAC security for thread", e);
+            }
+        });
+    }
+
+    /**
+     * Returns the next nonce. It is higher than every nonce returned before.
+     *
+     * @return the nonce.
+     */
+    long nextNonce() {
+        return nonce.incrementAndGet();
+    }
+
+    /**
+     * Returns the calling thread's MAC, reset and ready to sign a new message.
+     *
+     * @return the MAC.
+     */
+    Mac getMac() {
+        final Mac mac = macs.get();
+        mac.reset();
+        return mac;
+    }
+
+    /**
+     * Sends an authenticated request once it is inside the nonce window. The request must take its nonce after it is
+     * called, not before.
+     *
+     * @param request the request to sign and send.
+     * @param <T>     the type of response.
+     * @return the response from the exchange.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens, including being interrupted while waiting.
+     */
+    <T> T sendInNonceOrder(AuthenticatedRequest<T> request) throws ExchangeNetworkException, TradingApiException {
+
+        if (nonceWindow == null) {
+            return request.send();
+        }
+
+        try {
+            nonceWindow.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String errorMsg = "Interrupted while waiting to send authenticated request.";
+            LOG.error(errorMsg, e);
+            throw new TradingApiException(errorMsg, e);
+        }
+
+        try {
+            return request.send();
+        } finally {
+            nonceWindow.release();
+        }
+    }
+
+    private static Mac createMac(SecretKeySpec keySpec) throws NoSuchAlgorithmException, InvalidKeyException {
+        final Mac mac = Mac.getInstance(keySpec.getAlgorithm());
+        mac.init(keySpec);
+        return mac;
+    }
+
+    /**
+     * An authenticated request that takes a nonce, signs, and sends itself.
+     *
+     * @param <T> the type of response.
+     */
+    @FunctionalInterface
+    interface AuthenticatedRequest<T> {
+        T send() throws ExchangeNetworkException, TradingApiException;
+    }
+}
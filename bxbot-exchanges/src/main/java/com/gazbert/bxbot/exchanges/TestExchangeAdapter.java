@@ -27,13 +27,14 @@ import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
@@ -97,31 +98,8 @@ public final class TestExchangeAdapter extends AbstractExchangeAdapter implement
             final ExchangeHttpResponse response = sendPublicRequestToExchange("order_book/" + marketId);
             LOG.debug(() -> "Market Orders response: " + response);
 
-            final BitstampOrderBook bitstampOrderBook = gson.fromJson(response.getPayload(), BitstampOrderBook.class);
-
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            final List<List<BigDecimal>> bitstampBuyOrders = bitstampOrderBook.bids;
-            for (final List<BigDecimal> order : bitstampBuyOrders) {
-                final MarketOrder buyOrder = new MarketOrderImpl(
-                        OrderType.BUY,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                buyOrders.add(buyOrder);
-            }
-
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            final List<List<BigDecimal>> bitstampSellOrders = bitstampOrderBook.asks;
-            for (final List<BigDecimal> order : bitstampSellOrders) {
-                final MarketOrder sellOrder = new MarketOrderImpl(
-                        OrderType.SELL,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                sellOrders.add(sellOrder);
-            }
-
-            return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+            final BitstampOrderBook bitstampOrderBook = gson.fromJson(response.getPayloadReader(), BitstampOrderBook.class);
+            return new MarketOrderBookImpl(marketId, bitstampOrderBook.asks, bitstampOrderBook.bids);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -226,12 +204,13 @@ public final class TestExchangeAdapter extends AbstractExchangeAdapter implement
      * </pre>
      * </p>
      * Each is a list of open orders and each order is represented as a list of price and amount.
+     * It is parsed by the {@link BitstampOrderBookTypeAdapter}.
      */
     private static class BitstampOrderBook {
 
         public long timestamp; //unix timestamp date and time
-        public List<List<BigDecimal>> bids;
-        public List<List<BigDecimal>> asks;
+        public List<MarketOrder> bids;
+        public List<MarketOrder> asks;
 
         @Override
         public String toString() {
@@ -302,6 +281,36 @@ public final class TestExchangeAdapter extends AbstractExchangeAdapter implement
         }
     }
 
+    /**
+     * Streams the Bitstamp order book straight into Market Orders - see {@link MarketOrderJsonReader}.
+     */
+    private static class BitstampOrderBookTypeAdapter
+            extends MarketOrderJsonReader.OrderBookTypeAdapter<BitstampOrderBook> {
+
+        @Override
+        public BitstampOrderBook read(JsonReader in) throws IOException {
+            final BitstampOrderBook orderBook = new BitstampOrderBook();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "timestamp":
+                        orderBook.timestamp = in.nextLong();
+                        break;
+                    case "bids":
+                        orderBook.bids = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.BUY);
+                        break;
+                    case "asks":
+                        orderBook.asks = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.SELL);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return orderBook;
+        }
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Transport layer methods
     // ------------------------------------------------------------------------------------------------
@@ -343,6 +352,7 @@ public final class TestExchangeAdapter extends AbstractExchangeAdapter implement
     private void initGson() {
         final GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(Date.class, new BitstampDateDeserializer());
+        gsonBuilder.registerTypeAdapter(BitstampOrderBook.class, new BitstampOrderBookTypeAdapter());
         gson = gsonBuilder.create();
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import com.gazbert.bxbot.trading.api.OrderState;
+import com.gazbert.bxbot.trading.api.OrderStatus;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+import java.math.BigDecimal;
+
+/**
+ * A Order Status implementation that can be used by Exchange Adapters.
+ *
+ * @author gazbert
+ */
+public final class OrderStatusImpl implements OrderStatus {
+
+    private String id;
+    private String marketId;
+    private OrderState state;
+    private BigDecimal filledQuantity;
+    private BigDecimal originalQuantity;
+
+
+    public OrderStatusImpl(String id, String marketId, OrderState state, BigDecimal filledQuantity,
+                           BigDecimal originalQuantity) {
+        this.id = id;
+        this.marketId = marketId;
+        this.state = state;
+        this.filledQuantity = filledQuantity;
+        this.originalQuantity = originalQuantity;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMarketId() {
+        return marketId;
+    }
+
+    public void setMarketId(String marketId) {
+        this.marketId = marketId;
+    }
+
+    public OrderState getState() {
+        return state;
+    }
+
+    public void setState(OrderState state) {
+        this.state = state;
+    }
+
+    public BigDecimal getFilledQuantity() {
+        return filledQuantity;
+    }
+
+    public void setFilledQuantity(BigDecimal filledQuantity) {
+        this.filledQuantity = filledQuantity;
+    }
+
+    public BigDecimal getOriginalQuantity() {
+        return originalQuantity;
+    }
+
+    public void setOriginalQuantity(BigDecimal originalQuantity) {
+        this.originalQuantity = originalQuantity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderStatusImpl orderStatus = (OrderStatusImpl) o;
+        return Objects.equal(id, orderStatus.id) &&
+                Objects.equal(marketId, orderStatus.marketId) &&
+                state == orderStatus.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id, marketId, state);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("marketId", marketId)
+                .add("state", state)
+                .add("filledQuantity", filledQuantity)
+                .add("originalQuantity", originalQuantity)
+                .toString();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.MarketDataListener;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the market data callbacks it gets so the tests can check them.
+ *
+ * @author gazbert
+ */
+final class RecordingMarketDataListener implements MarketDataListener {
+
+    final List<MarketOrder[]> topOfBooks = new CopyOnWriteArrayList<>();
+    final List<MarketOrderBook> snapshots = new CopyOnWriteArrayList<>();
+    final List<List<MarketOrder>> updates = new CopyOnWriteArrayList<>();
+    final List<Long> sequences = new CopyOnWriteArrayList<>();
+    final List<MarketOrder> trades = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+    private volatile Throwable disconnectCause;
+
+
+    @Override
+    public void onTopOfBook(String marketId, MarketOrder bestBuyOrder, MarketOrder bestSellOrder) {
+        topOfBooks.add(new MarketOrder[]{bestBuyOrder, bestSellOrder});
+    }
+
+    @Override
+    public void onOrderBookSnapshot(MarketOrderBook orderBook, long sequence) {
+        snapshots.add(orderBook);
+        sequences.add(sequence);
+    }
+
+    @Override
+    public void onOrderBookUpdate(String marketId, List<MarketOrder> changes, long sequence) {
+        updates.add(changes);
+        sequences.add(sequence);
+    }
+
+    @Override
+    public void onTrade(String marketId, MarketOrder trade) {
+        trades.add(trade);
+    }
+
+    @Override
+    public void onDisconnect(String marketId, Throwable cause) {
+        disconnectCause = cause;
+        disconnected.countDown();
+    }
+
+    boolean awaitDisconnect() throws InterruptedException {
+        return disconnected.await(5, TimeUnit.SECONDS);
+    }
+
+    Throwable getDisconnectCause() {
+        return disconnectCause;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Just enough of a WebSocket server (RFC 6455) to stand in for an exchange's market data feed in the tests.
+ * <p>
+ * It accepts a single client connection, records the text messages the client sends, and sends text and close
+ * frames back. Fragmented frames and extensions are not supported.
+ *
+ * @author gazbert
+ */
+final class StubWebSocketServer implements Closeable {
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int TIMEOUT_IN_SECS = 5;
+
+    private final ServerSocket serverSocket;
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private final BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>();
+
+    private volatile Socket socket;
+    private volatile DataOutputStream out;
+
+
+    StubWebSocketServer() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        final Thread serverThread = new Thread(this::acceptConnection, "stub-websocket-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    URI getUri() {
+        return URI.create("ws://127.0.0.1:" + serverSocket.getLocalPort() + "/");
+    }
+
+    void awaitConnection() throws InterruptedException {
+        if (!connected.await(TIMEOUT_IN_SECS, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("No WebSocket client connected");
+        }
+    }
+
+    /**
+     * Returns the next text message sent by the client, or null if none arrives in time.
+     */
+    String takeMessage() throws InterruptedException {
+        return receivedMessages.poll(TIMEOUT_IN_SECS, TimeUnit.SECONDS);
+    }
+
+    void sendText(String message) throws IOException {
+        sendFrame(0x1, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void sendClose(int closeCode) throws IOException {
+        sendFrame(0x8, new byte[]{(byte) (closeCode >> 8), (byte) closeCode});
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private void acceptConnection() {
+        try {
+            socket = serverSocket.accept();
+            final DataInputStream in = new DataInputStream(socket.getInputStream());
+            out = new DataOutputStream(socket.getOutputStream());
+            handshake(in);
+            connected.countDown();
+            readFrames(in);
+        } catch (IOException e) {
+            // the test has closed the server
+        }
+    }
+
+    private void handshake(DataInputStream in) throws IOException {
+        String key = null;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                key = line.substring(line.indexOf(':') + 1).trim();
+            }
+        }
+        if (key == null) {
+            throw new IOException("Not a WebSocket handshake");
+        }
+
+        final String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+        synchronized (this) {
+            out.write(response.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+
+    private void readFrames(DataInputStream in) throws IOException {
+        while (true) {
+            final int opcode = in.readUnsignedByte() & 0x0F;
+            final int maskAndLength = in.readUnsignedByte();
+            long length = maskAndLength & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+
+            final byte[] mask = new byte[4];
+            if ((maskAndLength & 0x80) != 0) {
+                in.readFully(mask);
+            }
+            final byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+
+            if (opcode == 0x1) {
+                receivedMessages.add(new String(payload, StandardCharsets.UTF_8));
+            } else if (opcode == 0x8) {
+                sendFrame(0x8, payload);
+                return;
+            } else if (opcode == 0x9) {
+                sendFrame(0xA, payload);
+            }
+        }
+    }
+
+    /*
+     * Server frames are never masked.
+     */
+    private synchronized void sendFrame(int opcode, byte[] payload) throws IOException {
+        out.writeByte(0x80 | opcode);
+        if (payload.length < 126) {
+            out.writeByte(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            out.writeByte(126);
+            out.writeShort(payload.length);
+        } else {
+            out.writeByte(127);
+            out.writeLong(payload.length);
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) {
+                throw new IOException("Connection closed during handshake");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static String acceptKey(String key) throws IOException {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+}
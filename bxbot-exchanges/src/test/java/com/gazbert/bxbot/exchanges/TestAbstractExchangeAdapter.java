@@ -0,0 +1,519 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.OptionalConfig;
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderRequest;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.gson.JsonElement;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the pooled HTTP transport and market data streams shared by the Exchange Adapters.
+ *
+ * @author gazbert
+ */
+public class TestAbstractExchangeAdapter {
+
+    private static final String OK_RESPONSE = "{\"result\":\"ok\"}";
+    private static final String ERROR_RESPONSE = "{\"error\":\"Invalid nonce\"}";
+    private static final int MAX_CONNECTIONS_PER_HOST = 2;
+
+    private HttpServer exchange;
+    private ExecutorService exchangeExecutor;
+    private URL exchangeUrl;
+    private AtomicReference<String> receivedPostData;
+    private CountDownLatch overlappingRequests;
+    private AtomicInteger overlappedRequestCount;
+    private AtomicInteger flakyFailuresLeft;
+    private StubExchangeAdapter exchangeAdapter;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+
+        receivedPostData = new AtomicReference<>();
+        overlappingRequests = new CountDownLatch(MAX_CONNECTIONS_PER_HOST);
+        overlappedRequestCount = new AtomicInteger();
+        flakyFailuresLeft = new AtomicInteger(2);
+
+        exchangeExecutor = Executors.newCachedThreadPool();
+        exchange = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        exchange.setExecutor(exchangeExecutor);
+        exchange.createContext("/ok", httpExchange -> {
+            receivedPostData.set(readFully(httpExchange.getRequestBody()));
+            sendResponse(httpExchange, 200, OK_RESPONSE);
+        });
+        exchange.createContext("/unavailable", httpExchange ->
+                sendResponse(httpExchange, 503, ERROR_RESPONSE));
+        exchange.createContext("/flaky", httpExchange -> {
+            // fails until there are no failures left, then recovers
+            readFully(httpExchange.getRequestBody());
+            if (flakyFailuresLeft.getAndDecrement() > 0) {
+                sendResponse(httpExchange, 503, ERROR_RESPONSE);
+            } else {
+                sendResponse(httpExchange, 200, OK_RESPONSE);
+            }
+        });
+        exchange.createContext("/bad-request", httpExchange ->
+                sendResponse(httpExchange, 400, ERROR_RESPONSE));
+        exchange.createContext("/not-found", httpExchange ->
+                sendResponse(httpExchange, 404, ERROR_RESPONSE));
+        exchange.createContext("/orders/", httpExchange ->
+                sendResponse(httpExchange, 404, ERROR_RESPONSE));
+        exchange.createContext("/overlapping", httpExchange -> {
+            // only responds once all the expected requests are in flight at the same time
+            overlappingRequests.countDown();
+            try {
+                if (overlappingRequests.await(5, TimeUnit.SECONDS)) {
+                    overlappedRequestCount.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sendResponse(httpExchange, 200, OK_RESPONSE);
+        });
+        exchange.start();
+        exchangeUrl = new URL("http://localhost:" + exchange.getAddress().getPort());
+
+        final NetworkConfig networkConfig = createMock(NetworkConfig.class);
+        expect(networkConfig.getConnectionTimeout()).andReturn(5);
+        expect(networkConfig.getNonFatalErrorCodes()).andReturn(Collections.singletonList(503));
+        expect(networkConfig.getNonFatalErrorMessages()).andReturn(Collections.emptyList());
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(MAX_CONNECTIONS_PER_HOST);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
+
+        final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+        expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+        replay(networkConfig, exchangeConfig);
+
+        exchangeAdapter = new StubExchangeAdapter(exchangeUrl);
+        exchangeAdapter.setNetworkConfig(exchangeConfig);
+
+        verify(networkConfig, exchangeConfig);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        exchange.stop(0);
+        exchangeExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testConnectionIsReusedAcrossRequests() throws Exception {
+
+        for (int i = 0; i < 5; i++) {
+            final AbstractExchangeAdapter.ExchangeHttpResponse response = exchangeAdapter.sendNetworkRequest(
+                    new URL(exchangeUrl, "/ok"), "GET", null, new HashMap<>());
+            assertEquals(200, response.getStatusCode());
+            assertEquals(OK_RESPONSE, response.getPayload());
+        }
+
+        final AbstractExchangeAdapter.ConnectionPoolStats poolStats = exchangeAdapter.getConnectionPoolStats();
+        assertEquals(5, poolStats.getRequestCount());
+        assertEquals(1, poolStats.getConnectionsOpened());
+        assertEquals(0, poolStats.getLeasedConnections());
+        assertEquals(1, poolStats.getAvailableConnections());
+        assertEquals(MAX_CONNECTIONS_PER_HOST, poolStats.getMaxConnectionsPerHost());
+    }
+
+    @Test
+    public void testPostDataIsSentToExchange() throws Exception {
+
+        final Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
+
+        final AbstractExchangeAdapter.ExchangeHttpResponse response = exchangeAdapter.sendNetworkRequest(
+                new URL(exchangeUrl, "/ok"), "POST", "nonce=1234&amount=0.01", requestHeaders);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("nonce=1234&amount=0.01", receivedPostData.get());
+    }
+
+    @Test(expected = ExchangeNetworkException.class)
+    public void testNonFatalErrorCodeThrowsExchangeNetworkException() throws Exception {
+        exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/unavailable"), "GET", null, new HashMap<>());
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testFatalErrorCodeThrowsTradingApiException() throws Exception {
+        exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/bad-request"), "GET", null, new HashMap<>());
+    }
+
+    @Test(expected = ExchangeNetworkException.class)
+    public void testNotFoundErrorCodeThrowsExchangeNetworkException() throws Exception {
+        exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/not-found"), "GET", null, new HashMap<>());
+    }
+
+    @Test
+    public void testNotFoundApiResponseIsReturnedToAdapter() throws Exception {
+
+        final AbstractExchangeAdapter.ExchangeHttpResponse response = exchangeAdapter.sendNetworkRequest(
+                new URL(exchangeUrl, "/orders/1234"), "GET", null, new HashMap<>());
+
+        assertEquals(404, response.getStatusCode());
+        assertEquals(1, exchangeAdapter.getConnectionPoolStats().getRequestCount()); // not retried
+        assertEquals(0, exchangeAdapter.getCircuitBreakers().get(0).getConsecutiveFailures());
+    }
+
+    @Test
+    public void testConnectionIsReusedAfterErrorResponse() throws Exception {
+
+        try {
+            exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/bad-request"), "GET", null, new HashMap<>());
+        } catch (TradingApiException e) {
+            // expected
+        }
+        exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/ok"), "GET", null, new HashMap<>());
+
+        assertEquals(1, exchangeAdapter.getConnectionPoolStats().getConnectionsOpened());
+    }
+
+    @Test
+    public void testFailedMarketDataRequestIsRetried() throws Exception {
+
+        final AbstractExchangeAdapter.ExchangeHttpResponse response = exchangeAdapter.sendNetworkRequest(
+                new URL(exchangeUrl, "/flaky"), "GET", null, new HashMap<>());
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(3, exchangeAdapter.getConnectionPoolStats().getRequestCount());
+    }
+
+    @Test
+    public void testFailedPostRequestIsNotRetried() throws Exception {
+
+        try {
+            exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/flaky"), "POST", "nonce=1234", new HashMap<>());
+            fail("Expected ExchangeNetworkException");
+        } catch (ExchangeNetworkException e) {
+            // expected
+        }
+        assertEquals(1, exchangeAdapter.getConnectionPoolStats().getRequestCount());
+    }
+
+    @Test
+    public void testCircuitBreakerFailsFastAfterConsecutiveFailures() throws Exception {
+
+        for (int i = 0; i < 5; i++) {
+            try {
+                exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/unavailable"), "POST", null, new HashMap<>());
+                fail("Expected ExchangeNetworkException");
+            } catch (ExchangeNetworkException e) {
+                // expected
+            }
+        }
+
+        try {
+            exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/ok"), "POST", null, new HashMap<>());
+            fail("Expected ExchangeNetworkException");
+        } catch (ExchangeNetworkException e) {
+            // expected
+        }
+
+        // the last request never reached the exchange
+        assertEquals(5, exchangeAdapter.getConnectionPoolStats().getRequestCount());
+        assertNull(receivedPostData.get());
+
+        final List<CircuitBreaker> circuitBreakers = exchangeAdapter.getCircuitBreakers();
+        assertEquals(1, circuitBreakers.size());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.get(0).getState());
+        assertEquals(1, circuitBreakers.get(0).getRejectedRequests());
+    }
+
+    @Test
+    public void testMarketDataRequestsAreHedgedWhenHedgePercentileIsSet() throws Exception {
+
+        final OptionalConfig optionalConfig = createMock(OptionalConfig.class);
+        expect(optionalConfig.getItem("hedge-percentile")).andReturn("95");
+        replay(optionalConfig);
+
+        exchangeAdapter.setHedgingConfig(optionalConfig);
+        for (int i = 0; i < 3; i++) {
+            exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/ok"), "GET", null, new HashMap<>());
+        }
+        exchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/ok"), "POST", "nonce=1234", new HashMap<>());
+
+        // only the market data GETs go through the hedger
+        assertEquals(3, exchangeAdapter.getRequestHedger().getRequestCount());
+        assertEquals(4, exchangeAdapter.getConnectionPoolStats().getRequestCount());
+
+        verify(optionalConfig);
+    }
+
+    @Test
+    public void testRequestsAreHeldBackByRateLimit() throws Exception {
+
+        final RateLimitConfig rateLimit = createMock(RateLimitConfig.class);
+        expect(rateLimit.getEndpointClass()).andStubReturn("market-data");
+        expect(rateLimit.getMaxRequests()).andStubReturn(2);
+        expect(rateLimit.getPeriod()).andStubReturn(1);
+
+        final NetworkConfig networkConfig = createMock(NetworkConfig.class);
+        expect(networkConfig.getConnectionTimeout()).andReturn(5);
+        expect(networkConfig.getNonFatalErrorCodes()).andReturn(null);
+        expect(networkConfig.getNonFatalErrorMessages()).andReturn(null);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(Collections.singletonList(rateLimit));
+
+        final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+        expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+        replay(rateLimit, networkConfig, exchangeConfig);
+
+        final StubExchangeAdapter rateLimitedExchangeAdapter = new StubExchangeAdapter(exchangeUrl);
+        rateLimitedExchangeAdapter.setNetworkConfig(exchangeConfig);
+
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            rateLimitedExchangeAdapter.sendNetworkRequest(new URL(exchangeUrl, "/ok"), "GET", null, new HashMap<>());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 1000);
+        assertEquals(3, rateLimitedExchangeAdapter.getConnectionPoolStats().getRequestCount());
+
+        verify(rateLimit, networkConfig, exchangeConfig);
+    }
+
+    @Test
+    public void testAsyncCallsOverlap() throws Exception {
+
+        final CompletableFuture<MarketOrderBook> marketOrders = exchangeAdapter.getMarketOrdersAsync("btcusd");
+        final CompletableFuture<BalanceInfo> balanceInfo = exchangeAdapter.getBalanceInfoAsync();
+
+        assertEquals("btcusd", marketOrders.get(10, TimeUnit.SECONDS).getMarketId());
+        assertTrue(balanceInfo.get(10, TimeUnit.SECONDS).getBalancesAvailable().isEmpty());
+
+        assertEquals(MAX_CONNECTIONS_PER_HOST, overlappedRequestCount.get());
+        assertEquals(MAX_CONNECTIONS_PER_HOST, exchangeAdapter.getConnectionPoolStats().getConnectionsOpened());
+    }
+
+    @Test
+    public void testAsyncCallCompletesExceptionallyWhenCallFails() throws Exception {
+
+        try {
+            exchangeAdapter.cancelOrderAsync("1234", "btcusd").get(10, TimeUnit.SECONDS);
+            fail("Expected ExchangeNetworkException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ExchangeNetworkException);
+        }
+    }
+
+    @Test
+    public void testOrderBatchIsPlacedInParallel() throws Exception {
+
+        final List<String> orderIds = exchangeAdapter.createOrders(Arrays.asList(
+                new OrderRequest("btcusd", OrderType.BUY, BigDecimal.ONE, new BigDecimal("100")),
+                new OrderRequest("btcusd", OrderType.SELL, BigDecimal.ONE, new BigDecimal("200"))));
+
+        assertEquals(Arrays.asList("BUY-100", "SELL-200"), orderIds);
+        assertEquals(MAX_CONNECTIONS_PER_HOST, overlappedRequestCount.get());
+    }
+
+    @Test
+    public void testOrderBatchFailureHasPlacedOrderIdsAttached() throws Exception {
+
+        try {
+            exchangeAdapter.createOrders(Arrays.asList(
+                    new OrderRequest("btcusd", OrderType.BUY, BigDecimal.ONE, new BigDecimal("100")),
+                    new OrderRequest("btcusd", OrderType.BUY, BigDecimal.ONE, BigDecimal.ZERO),
+                    new OrderRequest("btcusd", OrderType.SELL, BigDecimal.ONE, new BigDecimal("200"))));
+            fail("Expected TradingApiException");
+        } catch (TradingApiException e) {
+            assertEquals(Arrays.asList("BUY-100", null, "SELL-200"), e.getPlacedOrderIds());
+        }
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testOrderBatchRethrowsError() throws Exception {
+        exchangeAdapter.createOrders(Collections.singletonList(
+                new OrderRequest("btcusd", OrderType.BUY, BigDecimal.ONE, new BigDecimal("-1"))));
+    }
+
+    @Test
+    public void testOrderBatchCancelWaitsForAllOrdersThenThrowsFirstFailure() throws Exception {
+
+        try {
+            exchangeAdapter.cancelOrders(Arrays.asList("1234", "5678"), "btcusd");
+            fail("Expected ExchangeNetworkException");
+        } catch (ExchangeNetworkException e) {
+            assertEquals(2, exchangeAdapter.cancelOrderCount.get());
+        }
+    }
+
+    @Test
+    public void testMarketDataStreamIsClosedWhenUnsubscribed() throws Exception {
+
+        try (StubWebSocketServer marketDataExchange = new StubWebSocketServer()) {
+
+            final RecordingMarketDataListener listener = new RecordingMarketDataListener();
+            final MarketDataStream marketDataStream = new MarketDataStream("btcusd", marketDataExchange.getUri(),
+                    listener) {
+                @Override
+                List<String> getSubscribeMessages() {
+                    return Collections.emptyList();
+                }
+
+                @Override
+                void onMarketDataMessage(JsonElement message) {
+                }
+            };
+
+            exchangeAdapter.openMarketDataStream(marketDataStream);
+            marketDataExchange.awaitConnection();
+
+            exchangeAdapter.closeMarketDataStream("ethusd", listener);
+            assertTrue(marketDataStream.isOpen());
+
+            exchangeAdapter.closeMarketDataStream("btcusd", listener);
+            assertTrue(listener.awaitDisconnect());
+            assertNull(listener.getDisconnectCause());
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static String readFully(InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void sendResponse(HttpExchange httpExchange, int statusCode, String payload) throws IOException {
+        final byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        httpExchange.sendResponseHeaders(statusCode, bytes.length);
+        final OutputStream responseBody = httpExchange.getResponseBody();
+        responseBody.write(bytes);
+        responseBody.close();
+    }
+
+    /*
+     * Just enough of an Exchange Adapter to drive the async Trading API calls.
+     */
+    private static final class StubExchangeAdapter extends AbstractExchangeAdapter {
+
+        private final URL exchangeUrl;
+        private final AtomicInteger cancelOrderCount = new AtomicInteger();
+
+        StubExchangeAdapter(URL exchangeUrl) {
+            this.exchangeUrl = exchangeUrl;
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+            sendNetworkRequest(overlapping(), "GET", null, new HashMap<>());
+            return new MarketOrderBookImpl(marketId, Collections.emptyList(), Collections.emptyList());
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+                throws ExchangeNetworkException, TradingApiException {
+            if (price.signum() == 0) {
+                throw new TradingApiException("Invalid price");
+            } else if (price.signum() < 0) {
+                throw new AssertionError("Negative price");
+            }
+            sendNetworkRequest(overlapping(), "POST", null, new HashMap<>());
+            return orderType + "-" + price;
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+            cancelOrderCount.incrementAndGet();
+            throw new ExchangeNetworkException("Timeout!");
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+            sendNetworkRequest(overlapping(), "GET", null, new HashMap<>());
+            return new BalanceInfoImpl(Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        @Override
+        boolean isNotFoundAnApiResponse(URL url, String httpMethod) {
+            return url.getPath().startsWith("/orders/");
+        }
+
+        private URL overlapping() throws TradingApiException {
+            try {
+                return new URL(exchangeUrl, "/overlapping");
+            } catch (MalformedURLException e) {
+                throw new TradingApiException("Bad URL", e);
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,6 +38,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -69,6 +71,9 @@ public class TestBitfinexExchangeAdapter {
     private static final String ORDER_NEW_BUY_JSON_RESPONSE = "./src/test/exchange-data/bitfinex/order_new_buy.json";
     private static final String ORDER_NEW_SELL_JSON_RESPONSE = "./src/test/exchange-data/bitfinex/order_new_sell.json";
     private static final String ORDER_CANCEL_JSON_RESPONSE = "./src/test/exchange-data/bitfinex/order_cancel.json";
+    private static final String ORDER_STATUS_JSON_RESPONSE = "./src/test/exchange-data/bitfinex/order_status.json";
+    private static final String ORDER_NEW_MULTI_JSON_RESPONSE = "./src/test/exchange-data/bitfinex/order_new_multi.json";
+    private static final String ORDER_CANCEL_MULTI_JSON_RESPONSE = "./src/test/exchange-data/bitfinex/order_cancel_multi.json";
 
     // Exchange API calls
     private static final String BOOK = "book";
@@ -78,6 +83,9 @@ public class TestBitfinexExchangeAdapter {
     private static final String ACCOUNT_INFOS = "account_infos";
     private static final String ORDER_NEW = "order/new";
     private static final String ORDER_CANCEL = "order/cancel";
+    private static final String ORDER_STATUS = "order/status";
+    private static final String ORDER_NEW_MULTI = "order/new/multi";
+    private static final String ORDER_CANCEL_MULTI = "order/cancel/multi";
 
     // Canned test data
     private static final String MARKET_ID = "btcusd";
@@ -124,11 +132,14 @@ public class TestBitfinexExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
         expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
-        // optional config not needed for this adapter
+        expect(exchangeConfig.getOptionalConfig()).andReturn(null); // no fee-cache-ttl, so the default is used
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -321,6 +332,112 @@ public class TestBitfinexExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Create Orders and Cancel Orders batch tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateOrdersIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_NEW_MULTI_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, Object> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put(eq("orders"), anyObject(List.class))).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitfinexExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                eq(ORDER_NEW_MULTI), eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final List<String> orderIds = exchangeAdapter.createOrders(Arrays.asList(
+                new OrderRequest(MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE),
+                new OrderRequest(MARKET_ID, OrderType.SELL, SELL_ORDER_QUANTITY, SELL_ORDER_PRICE)));
+        assertEquals(Arrays.asList("426152651", "426152652"), orderIds);
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelOrdersIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_CANCEL_MULTI_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, Object> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("order_ids", Arrays.asList(426152651L, 426152652L))).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitfinexExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                eq(ORDER_CANCEL_MULTI), eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        // marketId arg not needed for cancelling orders on this exchange.
+        assertTrue(exchangeAdapter.cancelOrders(Arrays.asList("426152651", "426152652"), null));
+
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Get Order Status tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testGettingOrderStatusIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, Object> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("order_id", Long.parseLong(ORDER_ID_TO_CANCEL))).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitfinexExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(ORDER_STATUS),
+                eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, MARKET_ID);
+        assertEquals(ORDER_ID_TO_CANCEL, orderStatus.getId());
+        assertEquals(MARKET_ID, orderStatus.getMarketId());
+        assertEquals(OrderState.PARTIALLY_FILLED, orderStatus.getState());
+        assertEquals(0, orderStatus.getFilledQuantity().compareTo(new BigDecimal("0.01")));
+        assertEquals(0, orderStatus.getOriginalQuantity().compareTo(new BigDecimal("0.03")));
+
+        PowerMock.verifyAll();
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Get Market Orders tests
     // ------------------------------------------------------------------------------------------------
@@ -370,6 +487,34 @@ public class TestBitfinexExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                BOOK + "/" + MARKET_ID + "?limit_bids=1&limit_asks=1").andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 1);
+
+        assertTrue(marketOrderBook.getMarketId().equals(MARKET_ID));
+        assertTrue(marketOrderBook.getBuyOrders().size() == 1);
+        assertTrue(marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("239.43")) == 0);
+        assertTrue(marketOrderBook.getSellOrders().size() == 1);
+        assertTrue(marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("239.53")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
     @Test(expected = ExchangeNetworkException.class)
     public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
 
@@ -743,6 +888,89 @@ public class TestBitfinexExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Exchange Fee cache tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testExchangeFeesAreCachedUntilInvalidated() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ACCOUNT_INFOS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitfinexExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(ACCOUNT_INFOS),
+                eq(null)).andReturn(exchangeResponse).times(2);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        // the taker fee is the same for all markets, so only the first lookup goes to the exchange
+        assertTrue(exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)
+                .compareTo(new BigDecimal("0.0020")) == 0);
+        assertTrue(exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee("ltcusd")
+                .compareTo(new BigDecimal("0.0020")) == 0);
+
+        exchangeAdapter.invalidateExchangeFees();
+        assertTrue(exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)
+                .compareTo(new BigDecimal("0.0020")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Market Data Stream tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testMarketDataStreamSendsMarketDataToListener() {
+
+        final RecordingMarketDataListener listener = new RecordingMarketDataListener();
+        final BitfinexExchangeAdapter.BitfinexMarketDataStream marketDataStream =
+                new BitfinexExchangeAdapter.BitfinexMarketDataStream(MARKET_ID, URI.create("wss://api.bitfinex.com/ws/2"),
+                        listener);
+        final JsonParser jsonParser = new JsonParser();
+
+        assertTrue(marketDataStream.getSubscribeMessages().get(0).contains("\"symbol\":\"tBTCUSD\""));
+
+        marketDataStream.onMarketDataMessage(jsonParser.parse(
+                "{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":10,\"symbol\":\"tBTCUSD\"}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse(
+                "{\"event\":\"subscribed\",\"channel\":\"ticker\",\"chanId\":11,\"symbol\":\"tBTCUSD\"}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse(
+                "{\"event\":\"subscribed\",\"channel\":\"trades\",\"chanId\":12,\"symbol\":\"tBTCUSD\"}"));
+
+        marketDataStream.onMarketDataMessage(jsonParser.parse(
+                "[10,[[7254.7,3,3.3],[7254.6,1,0.25],[7255.2,2,-1.5]]]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[10,\"hb\"]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[10,[7254.6,0,1]]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse(
+                "[11,[7254.7,3.3,7255.2,1.5,-5.1,-0.0007,7255,8163.5,7399,7050]]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[12,[[1,1512345678000,0.1,7255]]]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[12,\"te\",[2,1512345679000,-0.25,7254.7]]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[12,\"tu\",[2,1512345679000,-0.25,7254.7]]"));
+
+        assertEquals(1, listener.snapshots.size());
+        assertEquals(2, listener.snapshots.get(0).getBuyOrders().size());
+        assertEquals(new BigDecimal("1.5"), listener.snapshots.get(0).getSellOrders().get(0).getQuantity());
+
+        assertEquals(1, listener.updates.size());
+        assertEquals(OrderType.BUY, listener.updates.get(0).get(0).getType());
+        assertEquals(BigDecimal.ZERO, listener.updates.get(0).get(0).getQuantity());
+        assertEquals(Arrays.asList(0L, 1L), listener.sequences);
+
+        assertEquals(new BigDecimal("3.3"), listener.topOfBooks.get(0)[0].getQuantity());
+        assertEquals(new BigDecimal("7255.2"), listener.topOfBooks.get(0)[1].getPrice());
+
+        assertEquals(1, listener.trades.size());
+        assertEquals(OrderType.SELL, listener.trades.get(0).getType());
+        assertEquals(new BigDecimal("0.25"), listener.trades.get(0).getQuantity());
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Non Exchange visiting tests
     // ------------------------------------------------------------------------------------------------
@@ -771,6 +999,18 @@ public class TestBitfinexExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testRequestsAreRateLimitedInTheRightEndpointClass() throws Exception {
+
+        final BitfinexExchangeAdapter exchangeAdapter = new BitfinexExchangeAdapter();
+        assertEquals(EndpointClass.TRADING,
+                exchangeAdapter.getEndpointClass(new URL("https://api.bitfinex.com/v1/order/new"), "POST", null));
+        assertEquals(EndpointClass.ACCOUNT,
+                exchangeAdapter.getEndpointClass(new URL("https://api.bitfinex.com/v1/balances"), "POST", null));
+        assertEquals(EndpointClass.MARKET_DATA,
+                exchangeAdapter.getEndpointClass(new URL("https://api.bitfinex.com/v1/book/btcusd"), "GET", null));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testExchangeAdapterThrowsExceptionIfPublicKeyConfigIsMissing() throws Exception {
 
@@ -28,6 +28,7 @@ import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.trading.api.*;
+import com.google.gson.JsonParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,6 +38,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -69,6 +71,9 @@ public class TestBitstampExchangeAdapter {
     private static final String BUY_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/buy.json";
     private static final String SELL_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/sell.json";
     private static final String CANCEL_ORDER_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/cancel_order.json";
+    private static final String ORDER_STATUS_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/order_status.json";
+    private static final String CANCEL_ALL_ORDERS_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/cancel_all_orders.json";
+    private static final String TRADING_PAIRS_INFO_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/trading_pairs_info.json";
 
     // Exchange API calls
     private static final String ORDER_BOOK = "order_book/";
@@ -78,6 +83,9 @@ public class TestBitstampExchangeAdapter {
     private static final String BUY = "buy/";
     private static final String SELL = "sell/";
     private static final String CANCEL_ORDER = "cancel_order";
+    private static final String ORDER_STATUS = "order_status";
+    private static final String CANCEL_ALL_ORDERS = "cancel_all_orders/";
+    private static final String TRADING_PAIRS_INFO = "trading-pairs-info/";
 
     // Canned test data
     private static final String MARKET_ID = "btcusd";
@@ -129,11 +137,14 @@ public class TestBitstampExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
         expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
-        // optional config not needed for this adapter
+        expect(exchangeConfig.getOptionalConfig()).andReturn(null); // no fee-cache-ttl, so the default is used
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -210,6 +221,154 @@ public class TestBitstampExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testCancelAllOrdersIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(CANCEL_ALL_ORDERS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final BitstampExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                eq(CANCEL_ALL_ORDERS + MARKET_ID), eq(null)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        assertTrue(exchangeAdapter.cancelAllOrders(MARKET_ID));
+
+        PowerMock.verifyAll();
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testCancelAllOrdersHandlesUnexpectedException() throws Exception {
+
+        // Partial mock so we do not send stuff down the wire
+        final BitstampExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                eq(CANCEL_ALL_ORDERS + MARKET_ID), eq(null)).
+                andThrow(new IllegalStateException("It's a trap!"));
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        exchangeAdapter.cancelAllOrders(MARKET_ID);
+
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Get Order Status tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testGettingOrderStatusIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("id", ORDER_ID_TO_CANCEL)).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final BitstampExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(ORDER_STATUS),
+                eq(requestParamMap)).andReturn(exchangeResponse);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(TRADING_PAIRS_INFO))
+                .andReturn(createTradingPairsInfoResponse());
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, MARKET_ID);
+        assertEquals(ORDER_ID_TO_CANCEL, orderStatus.getId());
+        assertEquals(MARKET_ID, orderStatus.getMarketId());
+        assertEquals(OrderState.PARTIALLY_FILLED, orderStatus.getState());
+        assertEquals(0, orderStatus.getFilledQuantity().compareTo(new BigDecimal("0.05")));
+        assertNull(orderStatus.getOriginalQuantity());
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testGettingOrderStatusUsesBaseCurrencyFromTradingPairsInfo() throws Exception {
+
+        // Base currency code is 4 letters long, so it cannot be sliced off the market id
+        final String dogeMarketId = "dogeusd";
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK",
+                        "{\"id\": 80894263, \"status\": \"Finished\", \"transactions\": ["
+                                + "{\"tid\": 43268951, \"usd\": \"12.50\", \"doge\": \"100.00000000\", \"type\": 2},"
+                                + "{\"tid\": 43268952, \"usd\": \"6.25\", \"doge\": \"50.00000000\", \"type\": 2}]}");
+
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("id", ORDER_ID_TO_CANCEL)).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final BitstampExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap).times(2);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(ORDER_STATUS),
+                eq(requestParamMap)).andReturn(exchangeResponse).times(2);
+        // Trading pairs are only fetched once, then cached
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(TRADING_PAIRS_INFO))
+                .andReturn(createTradingPairsInfoResponse());
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, dogeMarketId);
+        assertEquals(OrderState.FILLED, orderStatus.getState());
+        assertEquals(0, orderStatus.getFilledQuantity().compareTo(new BigDecimal("150")));
+
+        exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, dogeMarketId);
+
+        PowerMock.verifyAll();
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testGettingOrderStatusForMarketNotInTradingPairsInfoThrowsTradingApiException() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("id", ORDER_ID_TO_CANCEL)).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final BitstampExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(ORDER_STATUS),
+                eq(requestParamMap)).andReturn(exchangeResponse);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(TRADING_PAIRS_INFO))
+                .andReturn(createTradingPairsInfoResponse());
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, "unknownusd");
+
+        PowerMock.verifyAll();
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Create Orders tests
     // ------------------------------------------------------------------------------------------------
@@ -728,6 +887,76 @@ public class TestBitstampExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Exchange Fee cache tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testExchangeFeesAreCachedUntilInvalidated() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(BALANCE_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final BitstampExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(BALANCE),
+                eq(null)).andReturn(exchangeResponse).times(2);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        // buy and sell fees are the same, so the second lookup comes from the cache
+        final BigDecimal buyPercentageFee = exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+        final BigDecimal sellPercentageFee = exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID);
+        assertTrue(buyPercentageFee.compareTo(new BigDecimal("0.0025")) == 0);
+        assertTrue(sellPercentageFee.compareTo(new BigDecimal("0.0025")) == 0);
+
+        exchangeAdapter.invalidateExchangeFees();
+        assertTrue(exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)
+                .compareTo(new BigDecimal("0.0025")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Market Data Stream tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testMarketDataStreamSendsMarketDataToListener() {
+
+        final RecordingMarketDataListener listener = new RecordingMarketDataListener();
+        final BitstampExchangeAdapter.BitstampMarketDataStream marketDataStream =
+                new BitstampExchangeAdapter.BitstampMarketDataStream(MARKET_ID, URI.create("wss://ws.bitstamp.net"),
+                        listener);
+        final JsonParser jsonParser = new JsonParser();
+
+        assertEquals(2, marketDataStream.getSubscribeMessages().size());
+        assertTrue(marketDataStream.getSubscribeMessages().get(0).contains("\"channel\":\"order_book_btcusd\""));
+
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"event\":\"bts:subscription_succeeded\","
+                + "\"channel\":\"order_book_btcusd\",\"data\":{}}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"event\":\"data\",\"channel\":\"order_book_btcusd\","
+                + "\"data\":{\"timestamp\":\"1543430542\",\"microtimestamp\":\"1543430542104523\","
+                + "\"bids\":[[\"4196.01\",\"0.96000000\"],[\"4195.99\",\"2.00000000\"]],"
+                + "\"asks\":[[\"4198.50\",\"0.02500000\"]]}}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"event\":\"trade\",\"channel\":\"live_trades_btcusd\","
+                + "\"data\":{\"id\":78297134,\"amount\":0.025,\"price\":4198.5,\"type\":0}}"));
+
+        assertEquals(1, listener.snapshots.size());
+        assertEquals(2, listener.snapshots.get(0).getBuyOrders().size());
+        assertTrue(listener.updates.isEmpty());
+
+        assertEquals(new BigDecimal("4196.01"), listener.topOfBooks.get(0)[0].getPrice());
+        assertEquals(new BigDecimal("0.02500000"), listener.topOfBooks.get(0)[1].getQuantity());
+
+        assertEquals(OrderType.BUY, listener.trades.get(0).getType());
+        assertEquals(new BigDecimal("0.025"), listener.trades.get(0).getQuantity());
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Non Exchange visiting tests
     // ------------------------------------------------------------------------------------------------
@@ -756,6 +985,18 @@ public class TestBitstampExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testRequestsAreRateLimitedInTheRightEndpointClass() throws Exception {
+
+        final BitstampExchangeAdapter exchangeAdapter = new BitstampExchangeAdapter();
+        assertEquals(EndpointClass.TRADING,
+                exchangeAdapter.getEndpointClass(new URL("https://www.bitstamp.net/api/v2/cancel_order/"), "POST", "id=1234"));
+        assertEquals(EndpointClass.ACCOUNT,
+                exchangeAdapter.getEndpointClass(new URL("https://www.bitstamp.net/api/v2/open_orders/btcusd/"), "POST", null));
+        assertEquals(EndpointClass.MARKET_DATA,
+                exchangeAdapter.getEndpointClass(new URL("https://www.bitstamp.net/api/v2/order_book/btcusd"), "GET", null));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testExchangeAdapterThrowsExceptionIfClientIdConfigIsMissing() throws Exception {
 
@@ -1004,4 +1245,13 @@ public class TestBitstampExchangeAdapter {
 
         PowerMock.verifyAll();
     }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static AbstractExchangeAdapter.ExchangeHttpResponse createTradingPairsInfoResponse() throws Exception {
+        final byte[] encoded = Files.readAllBytes(Paths.get(TRADING_PAIRS_INFO_JSON_RESPONSE));
+        return new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Circuit Breaker opens and closes as expected. Open durations are in MILLIS to keep the tests quick.
+ *
+ * @author gazbert
+ */
+public class TestCircuitBreaker {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_DURATION = 200;
+
+
+    @Test
+    public void testBreakerOpensAfterConsecutiveFailuresAndFailsFast() {
+
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertTrue(circuitBreaker.allowRequest());
+            circuitBreaker.recordFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+        assertFalse(circuitBreaker.allowRequest());
+        assertEquals(1, circuitBreaker.getTimesOpened());
+        assertEquals(2, circuitBreaker.getRejectedRequests());
+    }
+
+    @Test
+    public void testSuccessResetsConsecutiveFailures() {
+
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            circuitBreaker.allowRequest();
+            circuitBreaker.recordFailure();
+        }
+        circuitBreaker.allowRequest();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.allowRequest();
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(1, circuitBreaker.getConsecutiveFailures());
+        assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void testBreakerLetsOneTrialRequestThroughAfterOpenDurationAndClosesOnSuccess() throws Exception {
+
+        final CircuitBreaker circuitBreaker = openCircuitBreaker();
+        Thread.sleep(OPEN_DURATION + 50);
+
+        assertTrue(circuitBreaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest()); // only 1 trial request at a time
+
+        circuitBreaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getConsecutiveFailures());
+        assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void testBreakerReopensWhenTrialRequestFails() throws Exception {
+
+        final CircuitBreaker circuitBreaker = openCircuitBreaker();
+        Thread.sleep(OPEN_DURATION + 50);
+
+        assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, circuitBreaker.getTimesOpened());
+        assertFalse(circuitBreaker.allowRequest());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroFailureThresholdIsRejected() {
+        new CircuitBreaker("localhost market-data", 0, OPEN_DURATION, TimeUnit.MILLISECONDS);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static CircuitBreaker createCircuitBreaker() {
+        return new CircuitBreaker("localhost market-data", FAILURE_THRESHOLD, OPEN_DURATION, TimeUnit.MILLISECONDS);
+    }
+
+    private static CircuitBreaker openCircuitBreaker() {
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            circuitBreaker.allowRequest();
+            circuitBreaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Exchange Fee Cache caches fees until they expire or are invalidated. Time-to-lives are in MILLIS to keep
+ * the tests quick.
+ *
+ * @author gazbert
+ */
+public class TestExchangeFeeCache {
+
+    private static final String MARKET_ID = "btcusd";
+    private static final String OTHER_MARKET_ID = "ltcusd";
+    private static final BigDecimal FEE = new BigDecimal("0.0025");
+    private static final long TIME_TO_LIVE = 200;
+
+
+    @Test
+    public void testFeeIsFetchedOnceThenServedFromCache() throws Exception {
+
+        final ExchangeFeeCache exchangeFeeCache = new ExchangeFeeCache(TIME_TO_LIVE, TimeUnit.MILLISECONDS);
+        final AtomicInteger fetchCount = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FEE, exchangeFeeCache.getFee(MARKET_ID, () -> {
+                fetchCount.incrementAndGet();
+                return FEE;
+            }));
+        }
+
+        assertEquals(1, fetchCount.get());
+        assertEquals(1, exchangeFeeCache.getMissCount());
+        assertEquals(2, exchangeFeeCache.getHitCount());
+    }
+
+    @Test
+    public void testFeeIsFetchedAgainAfterTimeToLive() throws Exception {
+
+        final ExchangeFeeCache exchangeFeeCache = new ExchangeFeeCache(TIME_TO_LIVE, TimeUnit.MILLISECONDS);
+        exchangeFeeCache.getFee(MARKET_ID, () -> FEE);
+
+        Thread.sleep(TIME_TO_LIVE + 50);
+
+        final BigDecimal newFee = new BigDecimal("0.0020");
+        assertEquals(newFee, exchangeFeeCache.getFee(MARKET_ID, () -> newFee));
+        assertEquals(2, exchangeFeeCache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidateRemovesCachedFees() throws Exception {
+
+        final ExchangeFeeCache exchangeFeeCache = new ExchangeFeeCache(1, TimeUnit.HOURS);
+        exchangeFeeCache.getFee(MARKET_ID, () -> FEE);
+        exchangeFeeCache.getFee(OTHER_MARKET_ID, () -> FEE);
+
+        exchangeFeeCache.getFee(MARKET_ID, () -> FEE);
+        assertEquals(2, exchangeFeeCache.getMissCount());
+
+        exchangeFeeCache.invalidateAll();
+        exchangeFeeCache.getFee(MARKET_ID, () -> FEE);
+        exchangeFeeCache.getFee(OTHER_MARKET_ID, () -> FEE);
+        assertEquals(4, exchangeFeeCache.getMissCount());
+    }
+
+    @Test
+    public void testFailedFetchIsNotCached() throws Exception {
+
+        final ExchangeFeeCache exchangeFeeCache = new ExchangeFeeCache(1, TimeUnit.HOURS);
+        try {
+            exchangeFeeCache.getFee(MARKET_ID, () -> {
+                throw new ExchangeNetworkException("These aren't the droids you're looking for.");
+            });
+            fail();
+        } catch (ExchangeNetworkException e) {
+            // expected
+        }
+
+        assertEquals(FEE, exchangeFeeCache.getFee(MARKET_ID, () -> FEE));
+        assertEquals(2, exchangeFeeCache.getMissCount());
+    }
+
+    @Test
+    public void testZeroTimeToLiveDisablesCaching() throws Exception {
+
+        final ExchangeFeeCache exchangeFeeCache = new ExchangeFeeCache(0, TimeUnit.SECONDS);
+        exchangeFeeCache.getFee(MARKET_ID, () -> FEE);
+        exchangeFeeCache.getFee(MARKET_ID, () -> FEE);
+
+        assertEquals(0, exchangeFeeCache.getHitCount());
+        assertEquals(2, exchangeFeeCache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeToLiveIsRejected() {
+        new ExchangeFeeCache(-1, TimeUnit.SECONDS);
+    }
+}
@@ -26,6 +26,7 @@ package com.gazbert.bxbot.exchanges;
 import com.gazbert.bxbot.exchange.api.*;
 import com.gazbert.bxbot.trading.api.*;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -35,6 +36,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -44,7 +46,10 @@ import java.time.Instant;
 import java.util.*;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -65,6 +70,8 @@ public class TestGdaxExchangeAdapter {
     private static final String NEW_BUY_ORDER_JSON_RESPONSE = "./src/test/exchange-data/gdax/new_buy_order.json";
     private static final String NEW_SELL_ORDER_JSON_RESPONSE = "./src/test/exchange-data/gdax/new_sell_order.json";
     private static final String CANCEL_ORDER_JSON_RESPONSE = "./src/test/exchange-data/gdax/cancel.json";
+    private static final String CANCEL_ALL_ORDERS_JSON_RESPONSE = "./src/test/exchange-data/gdax/cancel_all.json";
+    private static final String ORDER_STATUS_JSON_RESPONSE = "./src/test/exchange-data/gdax/order.json";
 
     // Canned test data
     private static final String MARKET_ID = "BTC-GBP";
@@ -82,6 +89,8 @@ public class TestGdaxExchangeAdapter {
     private static final String TICKER = "products/" + MARKET_ID + "/ticker";
     private static final String NEW_ORDER = "orders";
     private static final String CANCEL_ORDER = "orders/" + ORDER_ID_TO_CANCEL;
+    private static final String ORDER_STATUS = "orders/" + ORDER_ID_TO_CANCEL;
+    private static final String CANCEL_ALL_ORDERS = "orders?product_id=" + MARKET_ID;
 
     // Mocked out methods
     private static final String MOCKED_GET_REQUEST_PARAM_MAP_METHOD = "getRequestParamMap";
@@ -122,6 +131,9 @@ public class TestGdaxExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         optionalConfig = PowerMock.createMock(OptionalConfig.class);
         expect(optionalConfig.getItem("buy-fee")).andReturn("0.25");
@@ -308,6 +320,118 @@ public class TestGdaxExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testCancelAllOrdersIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(CANCEL_ALL_ORDERS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final GdaxExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                GdaxExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq("DELETE"),
+                eq(CANCEL_ALL_ORDERS), eq(null)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        assertTrue(exchangeAdapter.cancelAllOrders(MARKET_ID));
+        PowerMock.verifyAll();
+    }
+
+    @Test(expected = ExchangeNetworkException.class)
+    public void testCancelAllOrdersHandlesExchangeNetworkException() throws Exception {
+
+        // Partial mock so we do not send stuff down the wire
+        final GdaxExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                GdaxExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq("DELETE"),
+                eq(CANCEL_ALL_ORDERS), eq(null)).andThrow(
+                new ExchangeNetworkException("Do. Or do not. There is no try."));
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        exchangeAdapter.cancelAllOrders(MARKET_ID);
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Get Order Status tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testGettingOrderStatusIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final GdaxExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                GdaxExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq("GET"),
+                eq(ORDER_STATUS), eq(null)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, MARKET_ID);
+        assertEquals(ORDER_ID_TO_CANCEL, orderStatus.getId());
+        assertEquals(MARKET_ID, orderStatus.getMarketId());
+        assertEquals(OrderState.PARTIALLY_FILLED, orderStatus.getState());
+        assertEquals(0, orderStatus.getFilledQuantity().compareTo(new BigDecimal("0.04")));
+        assertEquals(0, orderStatus.getOriginalQuantity().compareTo(new BigDecimal("0.1")));
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testGettingOrderStatusOfOrderCancelledWithNoFillsIsCancelled() throws Exception {
+
+        // GDAX sends back a 404 for an order cancelled before any of it was filled
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(404, "Not Found", "{\"message\":\"NotFound\"}");
+
+        // Partial mock so we do not send stuff down the wire
+        final GdaxExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                GdaxExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq("GET"),
+                eq(ORDER_STATUS), eq(null)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, MARKET_ID);
+        assertEquals(ORDER_ID_TO_CANCEL, orderStatus.getId());
+        assertEquals(OrderState.CANCELLED, orderStatus.getState());
+        assertEquals(0, orderStatus.getFilledQuantity().signum());
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testNotFoundResponseToOrderLookupIsReturnedToAdapter() throws Exception {
+
+        PowerMock.replayAll();
+        final GdaxExchangeAdapter exchangeAdapter = new GdaxExchangeAdapter();
+
+        assertTrue(exchangeAdapter.isNotFoundAnApiResponse(
+                new URL("https://api.gdax.com/orders/" + ORDER_ID_TO_CANCEL), "GET"));
+        assertFalse(exchangeAdapter.isNotFoundAnApiResponse(new URL("https://api.gdax.com/orders"), "GET"));
+        assertFalse(exchangeAdapter.isNotFoundAnApiResponse(
+                new URL("https://api.gdax.com/products/BTC-GBP/book"), "GET"));
+
+        PowerMock.verifyAll();
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Get Your Open Orders tests
     // ------------------------------------------------------------------------------------------------
@@ -436,6 +560,41 @@ public class TestGdaxExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGettingTopOfMarketOrderBookUsesLevelOneBook() throws Exception {
+
+        // Load the canned response from the exchange - the level 2 book will do as it gets truncated anyway
+        final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("level", "1")).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final GdaxExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                GdaxExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(BOOK),
+                eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 1);
+
+        assertTrue(marketOrderBook.getBuyOrders().size() == 1);
+        assertTrue(marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("165.87")) == 0);
+        assertTrue(marketOrderBook.getSellOrders().size() == 1);
+        assertTrue(marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("165.96")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
     @Test(expected = ExchangeNetworkException.class)
     public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
 
@@ -605,6 +764,48 @@ public class TestGdaxExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Market Data Stream tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testMarketDataStreamSendsMarketDataToListener() {
+
+        final RecordingMarketDataListener listener = new RecordingMarketDataListener();
+        final GdaxExchangeAdapter.GdaxMarketDataStream marketDataStream = new GdaxExchangeAdapter.GdaxMarketDataStream(
+                MARKET_ID, URI.create("wss://ws-feed.gdax.com"), listener);
+        final JsonParser jsonParser = new JsonParser();
+
+        assertTrue(marketDataStream.getSubscribeMessages().get(0).contains("\"product_ids\":[\"BTC-GBP\"]"));
+
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"snapshot\",\"product_id\":\"BTC-GBP\","
+                + "\"bids\":[[\"10101.10\",\"0.45054140\"]],\"asks\":[[\"10102.55\",\"0.57753524\"]]}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"l2update\",\"product_id\":\"BTC-GBP\","
+                + "\"changes\":[[\"buy\",\"10101.80\",\"0.162567\"],[\"sell\",\"10102.55\",\"0\"]]}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"ticker\",\"product_id\":\"BTC-GBP\","
+                + "\"best_bid\":\"10101.80\",\"best_ask\":\"10102.60\"}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"match\",\"product_id\":\"BTC-GBP\","
+                + "\"side\":\"sell\",\"size\":\"0.05\",\"price\":\"10102.60\"}"));
+
+        assertEquals(1, listener.snapshots.size());
+        assertEquals(new BigDecimal("10101.10"), listener.snapshots.get(0).getBuyOrders().get(0).getPrice());
+        assertEquals(new BigDecimal("0.57753524"), listener.snapshots.get(0).getSellOrders().get(0).getQuantity());
+
+        assertEquals(1, listener.updates.size());
+        assertEquals(OrderType.BUY, listener.updates.get(0).get(0).getType());
+        assertEquals(OrderType.SELL, listener.updates.get(0).get(1).getType());
+        assertEquals(BigDecimal.ZERO, listener.updates.get(0).get(1).getQuantity());
+        assertEquals(Arrays.asList(0L, 1L), listener.sequences);
+
+        assertEquals(new BigDecimal("10101.80"), listener.topOfBooks.get(0)[0].getPrice());
+        assertNull(listener.topOfBooks.get(0)[0].getQuantity());
+        assertEquals(new BigDecimal("10102.60"), listener.topOfBooks.get(0)[1].getPrice());
+
+        // the maker sold, so the taker bought
+        assertEquals(OrderType.BUY, listener.trades.get(0).getType());
+        assertEquals(new BigDecimal("0.05"), listener.trades.get(0).getQuantity());
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Non Exchange visiting tests
     // ------------------------------------------------------------------------------------------------
@@ -660,6 +861,20 @@ public class TestGdaxExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testRequestsAreRateLimitedInTheRightEndpointClass() throws Exception {
+
+        final GdaxExchangeAdapter exchangeAdapter = new GdaxExchangeAdapter();
+        assertEquals(EndpointClass.TRADING,
+                exchangeAdapter.getEndpointClass(new URL("https://api.gdax.com/orders"), "POST", "{}"));
+        assertEquals(EndpointClass.TRADING,
+                exchangeAdapter.getEndpointClass(new URL("https://api.gdax.com/orders/1234"), "DELETE", null));
+        assertEquals(EndpointClass.ACCOUNT,
+                exchangeAdapter.getEndpointClass(new URL("https://api.gdax.com/orders"), "GET", null));
+        assertEquals(EndpointClass.MARKET_DATA,
+                exchangeAdapter.getEndpointClass(new URL("https://api.gdax.com/products/BTC-GBP/book?level=2"), "GET", null));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testExchangeAdapterThrowsExceptionIfPassphraseConfigIsMissing() throws Exception {
 
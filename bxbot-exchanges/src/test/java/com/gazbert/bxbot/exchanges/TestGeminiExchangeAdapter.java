@@ -28,6 +28,7 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OptionalConfig;
 import com.gazbert.bxbot.trading.api.*;
+import com.google.gson.JsonParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,6 +38,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -68,6 +70,7 @@ public class TestGeminiExchangeAdapter {
     private static final String ORDER_NEW_BUY_JSON_RESPONSE = "./src/test/exchange-data/gemini/order_new_buy.json";
     private static final String ORDER_NEW_SELL_JSON_RESPONSE = "./src/test/exchange-data/gemini/order_new_sell.json";
     private static final String ORDER_CANCEL_JSON_RESPONSE = "./src/test/exchange-data/gemini/order_cancel.json";
+    private static final String ORDER_STATUS_JSON_RESPONSE = "./src/test/exchange-data/gemini/order_status.json";
 
     // Exchange API calls
     private static final String BOOK = "book";
@@ -76,6 +79,7 @@ public class TestGeminiExchangeAdapter {
     private static final String ORDERS = "orders";
     private static final String ORDER_NEW = "order/new";
     private static final String ORDER_CANCEL = "order/cancel";
+    private static final String ORDER_STATUS = "order/status";
 
     // Canned test data
     private static final String ETH_BTC_MARKET_ID = "ethbtc";
@@ -124,6 +128,9 @@ public class TestGeminiExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         optionalConfig = PowerMock.createMock(OptionalConfig.class);
         expect(optionalConfig.getItem("buy-fee")).andReturn("0.25");
@@ -405,6 +412,44 @@ public class TestGeminiExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Get Order Status tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testGettingOrderStatusIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("order_id", ORDER_ID_TO_CANCEL)).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final GeminiExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                GeminiExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(ORDER_STATUS),
+                eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(ORDER_ID_TO_CANCEL, BTC_USD_MARKET_ID);
+        assertEquals(ORDER_ID_TO_CANCEL, orderStatus.getId());
+        assertEquals(BTC_USD_MARKET_ID, orderStatus.getMarketId());
+        assertEquals(OrderState.FILLED, orderStatus.getState());
+        assertEquals(0, orderStatus.getFilledQuantity().compareTo(new BigDecimal("0.001")));
+        assertEquals(0, orderStatus.getOriginalQuantity().compareTo(new BigDecimal("0.001")));
+
+        PowerMock.verifyAll();
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Get Balance Info tests
     // ------------------------------------------------------------------------------------------------
@@ -607,6 +652,69 @@ public class TestGeminiExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Market Data Stream tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testMarketDataStreamSendsMarketDataToListener() {
+
+        final RecordingMarketDataListener listener = new RecordingMarketDataListener();
+        final GeminiExchangeAdapter.GeminiMarketDataStream marketDataStream =
+                new GeminiExchangeAdapter.GeminiMarketDataStream(BTC_USD_MARKET_ID,
+                        URI.create("wss://api.gemini.com/v1/marketdata/btcusd"), listener);
+        final JsonParser jsonParser = new JsonParser();
+
+        assertTrue(marketDataStream.getSubscribeMessages().isEmpty());
+
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"update\",\"eventId\":5375461993,"
+                + "\"socket_sequence\":0,\"events\":["
+                + "{\"type\":\"change\",\"reason\":\"initial\",\"price\":\"3641.61\",\"delta\":\"0.83372051\","
+                + "\"remaining\":\"0.83372051\",\"side\":\"bid\"},"
+                + "{\"type\":\"change\",\"reason\":\"initial\",\"price\":\"3641.62\",\"delta\":\"1.2\","
+                + "\"remaining\":\"1.2\",\"side\":\"bid\"},"
+                + "{\"type\":\"change\",\"reason\":\"initial\",\"price\":\"3641.99\",\"delta\":\"0.5\","
+                + "\"remaining\":\"0.5\",\"side\":\"ask\"}]}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"heartbeat\",\"socket_sequence\":1}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"update\",\"eventId\":5375503736,"
+                + "\"socket_sequence\":2,\"events\":["
+                + "{\"type\":\"trade\",\"tid\":5375503736,\"price\":\"3641.99\",\"amount\":\"0.2\","
+                + "\"makerSide\":\"ask\"},"
+                + "{\"type\":\"change\",\"side\":\"ask\",\"price\":\"3641.99\",\"remaining\":\"0.3\","
+                + "\"delta\":\"-0.2\",\"reason\":\"trade\"}]}"));
+
+        assertEquals(1, listener.snapshots.size());
+        assertEquals(new BigDecimal("3641.62"), listener.snapshots.get(0).getBuyOrders().get(0).getPrice());
+        assertEquals(new BigDecimal("3641.99"), listener.snapshots.get(0).getSellOrders().get(0).getPrice());
+
+        assertEquals(1, listener.updates.size());
+        assertEquals(new BigDecimal("0.3"), listener.updates.get(0).get(0).getQuantity());
+        assertEquals(Arrays.asList(0L, 1L), listener.sequences);
+
+        // the maker was selling, so the taker bought
+        assertEquals(OrderType.BUY, listener.trades.get(0).getType());
+        assertEquals(new BigDecimal("0.2"), listener.trades.get(0).getQuantity());
+        assertNull(listener.getDisconnectCause());
+    }
+
+    @Test
+    public void testMarketDataStreamIsClosedWhenMessageIsMissed() {
+
+        final RecordingMarketDataListener listener = new RecordingMarketDataListener();
+        final GeminiExchangeAdapter.GeminiMarketDataStream marketDataStream =
+                new GeminiExchangeAdapter.GeminiMarketDataStream(BTC_USD_MARKET_ID,
+                        URI.create("wss://api.gemini.com/v1/marketdata/btcusd"), listener);
+        final JsonParser jsonParser = new JsonParser();
+
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"heartbeat\",\"socket_sequence\":0}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"type\":\"update\",\"socket_sequence\":2,"
+                + "\"events\":[{\"type\":\"change\",\"side\":\"ask\",\"price\":\"3641.99\",\"remaining\":\"0.3\","
+                + "\"delta\":\"-0.2\",\"reason\":\"cancel\"}]}"));
+
+        assertTrue(listener.updates.isEmpty());
+        assertTrue(listener.getDisconnectCause() instanceof ExchangeNetworkException);
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Non Exchange visiting tests
     // ------------------------------------------------------------------------------------------------
@@ -659,6 +767,18 @@ public class TestGeminiExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testRequestsAreRateLimitedInTheRightEndpointClass() throws Exception {
+
+        final GeminiExchangeAdapter exchangeAdapter = new GeminiExchangeAdapter();
+        assertEquals(EndpointClass.TRADING,
+                exchangeAdapter.getEndpointClass(new URL("https://api.gemini.com/v1/order/cancel"), "POST", null));
+        assertEquals(EndpointClass.ACCOUNT,
+                exchangeAdapter.getEndpointClass(new URL("https://api.gemini.com/v1/orders"), "POST", null));
+        assertEquals(EndpointClass.MARKET_DATA,
+                exchangeAdapter.getEndpointClass(new URL("https://api.gemini.com/v1/book/btcusd"), "GET", null));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testExchangeAdapterThrowsExceptionIfPublicKeyConfigIsMissing() throws Exception {
 
@@ -35,6 +35,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
 import java.math.BigDecimal;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -134,11 +135,15 @@ public class TestHuobiExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         optionalConfig = PowerMock.createMock(OptionalConfig.class);
         expect(optionalConfig.getItem("buy-fee")).andReturn("0.2");
         expect(optionalConfig.getItem("sell-fee")).andReturn("0.2");
         expect(optionalConfig.getItem("account-info-market")).andReturn("usd");
+        expect(optionalConfig.getItem("hedge-percentile")).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -785,6 +790,18 @@ public class TestHuobiExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testRequestsAreRateLimitedInTheRightEndpointClass() throws Exception {
+
+        final HuobiExchangeAdapter exchangeAdapter = new HuobiExchangeAdapter();
+        assertEquals(EndpointClass.TRADING,
+                exchangeAdapter.getEndpointClass(new URL("https://api.huobi.com/apiv3/"), "POST", "method=sell&access_key=key"));
+        assertEquals(EndpointClass.ACCOUNT,
+                exchangeAdapter.getEndpointClass(new URL("https://api.huobi.com/apiv3/"), "POST", "method=get_orders&access_key=key"));
+        assertEquals(EndpointClass.MARKET_DATA,
+                exchangeAdapter.getEndpointClass(new URL("http://api.huobi.com/staticmarket/depth_btc_json.js"), "GET", null));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testExchangeAdapterThrowsExceptionIfPublicKeyConfigIsMissing() throws Exception {
 
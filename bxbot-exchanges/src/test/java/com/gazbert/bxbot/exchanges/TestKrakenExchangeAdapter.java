@@ -25,6 +25,7 @@ package com.gazbert.bxbot.exchanges;
 
 import com.gazbert.bxbot.exchange.api.*;
 import com.gazbert.bxbot.trading.api.*;
+import com.google.gson.JsonParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,8 +33,10 @@ import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -71,14 +74,20 @@ public class TestKrakenExchangeAdapter {
     private static final String ADD_ORDER_ERROR_JSON_RESPONSE = "./src/test/exchange-data/kraken/AddOrder-error.json";
     private static final String CANCEL_ORDER_JSON_RESPONSE = "./src/test/exchange-data/kraken/CancelOrder.json";
     private static final String CANCEL_ORDER_ERROR_JSON_RESPONSE = "./src/test/exchange-data/kraken/CancelOrder-error.json";
+    private static final String CANCEL_ORDER_BATCH_JSON_RESPONSE = "./src/test/exchange-data/kraken/CancelOrderBatch.json";
+    private static final String QUERY_ORDERS_JSON_RESPONSE = "./src/test/exchange-data/kraken/QueryOrders.json";
+    private static final String ASSET_PAIRS_JSON_RESPONSE = "./src/test/exchange-data/kraken/AssetPairs.json";
 
     // Exchange API calls
     private static final String DEPTH = "Depth";
     private static final String BALANCE = "Balance";
     private static final String TICKER = "Ticker";
+    private static final String ASSET_PAIRS = "AssetPairs";
     private static final String OPEN_ORDERS = "OpenOrders";
     private static final String ADD_ORDER = "AddOrder";
     private static final String CANCEL_ORDER = "CancelOrder";
+    private static final String CANCEL_ORDER_BATCH = "CancelOrderBatch";
+    private static final String QUERY_ORDERS = "QueryOrders";
 
     // Canned test data
     // Market id must be the same as the Asset Pair id. See: https://www.kraken.com/help/api#get-tradable-pairs
@@ -88,6 +97,7 @@ public class TestKrakenExchangeAdapter {
     private static final BigDecimal SELL_ORDER_PRICE = new BigDecimal("758.17");
     private static final BigDecimal SELL_ORDER_QUANTITY = new BigDecimal("0.001");
     private static final String ORDER_ID_TO_CANCEL = "OLD2Z4-L4C7H-MKH5BW";
+    private static final String ORDER_ID_TO_QUERY = "OQCLML-BW3P3-BUCMWZ";
 
     // Mocked out methods
     private static final String MOCKED_GET_REQUEST_PARAM_MAP_METHOD = "getRequestParamMap";
@@ -131,11 +141,15 @@ public class TestKrakenExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getIdleConnectionTimeout()).andReturn(null);
+        expect(networkConfig.getRateLimits()).andReturn(null);
 
         optionalConfig = PowerMock.createMock(OptionalConfig.class);
         expect(optionalConfig.getItem("buy-fee")).andReturn("0.1");
         expect(optionalConfig.getItem("sell-fee")).andReturn("0.2");
         expect(optionalConfig.getItem("keep-alive-during-maintenance")).andReturn("false");
+        expect(optionalConfig.getItem("nonce-window")).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -201,6 +215,56 @@ public class TestKrakenExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(DEPTH_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("pair", MARKET_ID)).andStubReturn(null);
+        expect(requestParamMap.put("count", "2")).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final KrakenExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(DEPTH),
+                eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 2);
+
+        // canned response has the full book; the adapter must not return more than was asked for
+        assertTrue(marketOrderBook.getBuyOrders().size() == 2);
+        assertTrue(marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("662.55000")) == 0);
+        assertTrue(marketOrderBook.getSellOrders().size() == 2);
+        assertTrue(marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("664.53600")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGettingMarketOrdersToDepthLessThanOneIsRejected() throws Exception {
+
+        // Partial mock so we do not send stuff down the wire
+        final KrakenExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        exchangeAdapter.getMarketOrders(MARKET_ID, 0);
+    }
+
     @Test(expected = TradingApiException.class)
     @SuppressWarnings("unchecked")
     public void testGettingMarketOrdersHandlesErrorResponse() throws Exception {
@@ -587,6 +651,100 @@ public class TestKrakenExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Cancel Orders batch tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelOrdersIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(CANCEL_ORDER_BATCH_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("orders[0]", ORDER_ID_TO_CANCEL)).andStubReturn(null);
+        expect(requestParamMap.put("orders[1]", "OGTT3Y-C6I3P-XRI6HX")).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final KrakenExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                KrakenExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                eq(CANCEL_ORDER_BATCH), eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        assertTrue(exchangeAdapter.cancelOrders(Arrays.asList(ORDER_ID_TO_CANCEL, "OGTT3Y-C6I3P-XRI6HX"), MARKET_ID));
+
+        PowerMock.verifyAll();
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testCancelOrdersExchangeErrorResponse() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(CANCEL_ORDER_ERROR_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final KrakenExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                KrakenExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                eq(CANCEL_ORDER_BATCH), anyObject(Map.class)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        exchangeAdapter.cancelOrders(Arrays.asList(ORDER_ID_TO_CANCEL, "OGTT3Y-C6I3P-XRI6HX"), MARKET_ID);
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Get Order Status tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testGettingOrderStatusIsSuccessful() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(QUERY_ORDERS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("txid", ORDER_ID_TO_QUERY)).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final KrakenExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                KrakenExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD, eq(QUERY_ORDERS),
+                eq(requestParamMap)).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final OrderStatus orderStatus = exchangeAdapter.getOrderStatus(ORDER_ID_TO_QUERY, MARKET_ID);
+        assertEquals(ORDER_ID_TO_QUERY, orderStatus.getId());
+        assertEquals(MARKET_ID, orderStatus.getMarketId());
+        assertEquals(OrderState.FILLED, orderStatus.getState());
+        assertEquals(0, orderStatus.getFilledQuantity().compareTo(new BigDecimal("0.01")));
+        assertEquals(0, orderStatus.getOriginalQuantity().compareTo(new BigDecimal("0.01")));
+
+        PowerMock.verifyAll();
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Get Balance Info tests
     // ------------------------------------------------------------------------------------------------
@@ -768,6 +926,90 @@ public class TestKrakenExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    // ------------------------------------------------------------------------------------------------
+    //  Market Data Stream tests
+    // ------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testMarketDataStreamSendsMarketDataToListener() {
+
+        final RecordingMarketDataListener listener = new RecordingMarketDataListener();
+        final KrakenExchangeAdapter.KrakenMarketDataStream marketDataStream =
+                new KrakenExchangeAdapter.KrakenMarketDataStream(MARKET_ID, "XBT/USD",
+                        URI.create("wss://ws.kraken.com"), listener);
+        final JsonParser jsonParser = new JsonParser();
+
+        assertTrue(marketDataStream.getSubscribeMessages().get(0).contains("\"pair\":[\"XBT/USD\"]"));
+
+        marketDataStream.onMarketDataMessage(jsonParser.parse("{\"event\":\"heartbeat\"}"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[336,{"
+                + "\"as\":[[\"5541.30000\",\"2.50700000\",\"1534614248.123678\"]],"
+                + "\"bs\":[[\"5541.20000\",\"1.52900000\",\"1534614248.765567\"],"
+                + "[\"5539.90000\",\"0.30000000\",\"1534614241.769870\"]]},\"book-10\",\"XBT/USD\"]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[336,"
+                + "{\"a\":[[\"5541.30000\",\"0.00000000\",\"1534614335.345903\"]]},"
+                + "{\"b\":[[\"5541.25000\",\"0.40100000\",\"1534614335.345903\"]]},\"book-10\",\"XBT/USD\"]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[337,[\"5698.40000\",\"5700.00000\","
+                + "\"1542057299.545897\",\"1.01234567\",\"0.98765432\"],\"spread\",\"XBT/USD\"]"));
+        marketDataStream.onMarketDataMessage(jsonParser.parse("[338,[[\"5541.20000\",\"0.15850568\","
+                + "\"1534614057.321597\",\"s\",\"l\",\"\"]],\"trade\",\"XBT/USD\"]"));
+
+        assertEquals(1, listener.snapshots.size());
+        assertEquals(2, listener.snapshots.get(0).getBuyOrders().size());
+        assertEquals(new BigDecimal("5541.30000"), listener.snapshots.get(0).getSellOrders().get(0).getPrice());
+
+        assertEquals(1, listener.updates.size());
+        assertEquals(OrderType.SELL, listener.updates.get(0).get(0).getType());
+        assertEquals(0, listener.updates.get(0).get(0).getQuantity().signum());
+        assertEquals(OrderType.BUY, listener.updates.get(0).get(1).getType());
+        assertEquals(Arrays.asList(0L, 1L), listener.sequences);
+
+        assertEquals(new BigDecimal("1.01234567"), listener.topOfBooks.get(0)[0].getQuantity());
+        assertEquals(new BigDecimal("5700.00000"), listener.topOfBooks.get(0)[1].getPrice());
+
+        assertEquals(OrderType.SELL, listener.trades.get(0).getType());
+        assertEquals(new BigDecimal("0.15850568"), listener.trades.get(0).getQuantity());
+    }
+
+    @Test
+    public void testMarketDataStreamSubscribesUsingWebSocketPairName() throws Exception {
+
+        // Load the canned response from the exchange - the quote currency code is 4 letters
+        final byte[] encoded = Files.readAllBytes(Paths.get(ASSET_PAIRS_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("pair", "DOTUSDT")).andStubReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final KrakenExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        // expect the name to be looked up once and then cached
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(ASSET_PAIRS),
+                eq(requestParamMap)).andReturn(exchangeResponse).once();
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final String pairName = Whitebox.invokeMethod(exchangeAdapter, "getWebSocketPairName", "DOTUSDT");
+        assertEquals("DOT/USDT", pairName);
+        assertEquals(pairName, Whitebox.invokeMethod(exchangeAdapter, "getWebSocketPairName", "DOTUSDT"));
+
+        final KrakenExchangeAdapter.KrakenMarketDataStream marketDataStream =
+                new KrakenExchangeAdapter.KrakenMarketDataStream("DOTUSDT", pairName,
+                        URI.create("wss://ws.kraken.com"), new RecordingMarketDataListener());
+        for (final String subscribeMessage : marketDataStream.getSubscribeMessages()) {
+            assertTrue(subscribeMessage.contains("\"pair\":[\"DOT/USDT\"]"));
+        }
+
+        PowerMock.verifyAll();
+    }
+
     // ------------------------------------------------------------------------------------------------
     //  Non Exchange visiting tests
     // ------------------------------------------------------------------------------------------------
@@ -824,6 +1066,18 @@ public class TestKrakenExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testRequestsAreRateLimitedInTheRightEndpointClass() throws Exception {
+
+        final KrakenExchangeAdapter exchangeAdapter = new KrakenExchangeAdapter();
+        assertEquals(EndpointClass.TRADING,
+                exchangeAdapter.getEndpointClass(new URL("https://api.kraken.com/0/private/AddOrder"), "POST", null));
+        assertEquals(EndpointClass.ACCOUNT,
+                exchangeAdapter.getEndpointClass(new URL("https://api.kraken.com/0/private/Balance"), "POST", null));
+        assertEquals(EndpointClass.MARKET_DATA,
+                exchangeAdapter.getEndpointClass(new URL("https://api.kraken.com/0/public/Depth?pair=XXBTZUSD"), "GET", null));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testExchangeAdapterThrowsExceptionIfPublicKeyConfigIsMissing() throws Exception {
 
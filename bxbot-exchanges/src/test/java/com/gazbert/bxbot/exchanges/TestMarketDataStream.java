@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketDataListener;
+import com.google.gson.JsonElement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Market Data Stream behaves as expected against a stub WebSocket server.
+ *
+ * @author gazbert
+ */
+public class TestMarketDataStream {
+
+    private static final String MARKET_ID = "btcusd";
+    private static final int CONNECTION_TIMEOUT = 5;
+
+    private StubWebSocketServer exchange;
+    private RecordingMarketDataListener listener;
+    private StubMarketDataStream marketDataStream;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        exchange = new StubWebSocketServer();
+        listener = new RecordingMarketDataListener();
+        marketDataStream = new StubMarketDataStream(exchange.getUri(), listener);
+    }
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        marketDataStream.close();
+        exchange.close();
+    }
+
+    @Test
+    public void testSubscribeMessagesAreSentWhenConnected() throws Exception {
+
+        marketDataStream.connect(CONNECTION_TIMEOUT);
+        exchange.awaitConnection();
+
+        assertTrue(marketDataStream.isOpen());
+        assertEquals("{\"subscribe\":\"book\"}", exchange.takeMessage());
+        assertEquals("{\"subscribe\":\"trades\"}", exchange.takeMessage());
+    }
+
+    @Test
+    public void testBadMessageDoesNotCloseStream() throws Exception {
+
+        marketDataStream.connect(CONNECTION_TIMEOUT);
+        exchange.awaitConnection();
+
+        exchange.sendText("{\"bids\": [");
+        exchange.sendText("{\"fail\": true}");
+        exchange.sendText("{\"bids\": []}");
+
+        assertEquals("{\"fail\":true}", marketDataStream.messages.poll(5, TimeUnit.SECONDS));
+        assertEquals("{\"bids\":[]}", marketDataStream.messages.poll(5, TimeUnit.SECONDS));
+        assertTrue(marketDataStream.isOpen());
+    }
+
+    @Test
+    public void testListenerIsToldWhenExchangeClosesStream() throws Exception {
+
+        marketDataStream.connect(CONNECTION_TIMEOUT);
+        exchange.awaitConnection();
+
+        exchange.sendClose(1011); // server error
+
+        assertTrue(listener.awaitDisconnect());
+        assertTrue(listener.getDisconnectCause() instanceof ExchangeNetworkException);
+    }
+
+    @Test
+    public void testListenerIsToldWhenStreamIsClosed() throws Exception {
+
+        marketDataStream.connect(CONNECTION_TIMEOUT);
+        exchange.awaitConnection();
+
+        marketDataStream.close();
+
+        assertTrue(listener.awaitDisconnect());
+        assertNull(listener.getDisconnectCause());
+        assertFalse(marketDataStream.isOpen());
+    }
+
+    @Test(expected = ExchangeNetworkException.class)
+    public void testConnectFailureThrowsExchangeNetworkException() throws Exception {
+        final URI closedPort = exchange.getUri();
+        exchange.close();
+        new StubMarketDataStream(closedPort, listener).connect(CONNECTION_TIMEOUT);
+    }
+
+    /*
+     * Records the messages it parses; a message with a 'fail' field throws as a broken parser would.
+     */
+    private static final class StubMarketDataStream extends MarketDataStream {
+
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        StubMarketDataStream(URI uri, MarketDataListener listener) {
+            super(MARKET_ID, uri, listener);
+        }
+
+        @Override
+        List<String> getSubscribeMessages() {
+            return Arrays.asList("{\"subscribe\":\"book\"}", "{\"subscribe\":\"trades\"}");
+        }
+
+        @Override
+        void onMarketDataMessage(JsonElement message) {
+            messages.add(message.toString());
+            if (message.getAsJsonObject().has("fail")) {
+                throw new IllegalStateException("Unexpected message");
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.stream.JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the Market Order JSON reader behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestMarketOrderJsonReader {
+
+    @Test
+    public void testReadingPriceLevelArrays() throws Exception {
+
+        final JsonReader in = new JsonReader(new StringReader(
+                "[[\"521.86\", \"0.00017398\", 1442], [519.58, 0.251]]"));
+        final List<MarketOrder> marketOrders = MarketOrderJsonReader.readPriceLevelArrays(in, OrderType.BUY);
+
+        assertEquals(2, marketOrders.size());
+        assertEquals(OrderType.BUY, marketOrders.get(0).getType());
+        assertEquals(new BigDecimal("521.86"), marketOrders.get(0).getPrice());
+        assertEquals(new BigDecimal("0.00017398"), marketOrders.get(0).getQuantity());
+        assertEquals(new BigDecimal("521.86").multiply(new BigDecimal("0.00017398")),
+                marketOrders.get(0).getTotal());
+        assertEquals(new BigDecimal("519.58"), marketOrders.get(1).getPrice());
+        assertEquals(new BigDecimal("0.251"), marketOrders.get(1).getQuantity());
+    }
+
+    @Test
+    public void testReadingPriceLevelObjects() throws Exception {
+
+        final JsonReader in = new JsonReader(new StringReader(
+                "[{\"price\":\"250.51\",\"amount\":\"1.2\",\"timestamp\":\"1442\"},{\"amount\":0.5,\"price\":250.5}]"));
+        final List<MarketOrder> marketOrders = MarketOrderJsonReader.readPriceLevelObjects(
+                in, OrderType.SELL, "price", "amount");
+
+        assertEquals(2, marketOrders.size());
+        assertEquals(OrderType.SELL, marketOrders.get(1).getType());
+        assertEquals(new BigDecimal("250.51"), marketOrders.get(0).getPrice());
+        assertEquals(new BigDecimal("1.2"), marketOrders.get(0).getQuantity());
+        assertEquals(new BigDecimal("250.5"), marketOrders.get(1).getPrice());
+        assertEquals(new BigDecimal("0.5"), marketOrders.get(1).getQuantity());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadingPriceLevelObjectWithoutQuantityFails() throws Exception {
+
+        final JsonReader in = new JsonReader(new StringReader("[{\"price\":\"250.51\"}]"));
+        MarketOrderJsonReader.readPriceLevelObjects(in, OrderType.SELL, "price", "amount");
+    }
+}
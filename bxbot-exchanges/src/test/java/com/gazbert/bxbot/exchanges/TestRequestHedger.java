@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Request Hedger hedges slow requests as expected.
+ *
+ * @author gazbert
+ */
+public class TestRequestHedger {
+
+    private static final int HEDGE_PERCENTILE = 95;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch slowRequestReleased = new CountDownLatch(1);
+
+
+    @After
+    public void tearDown() {
+        slowRequestReleased.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRequestsAreNotHedgedUntilEnoughLatenciesHaveBeenSeen() throws Exception {
+
+        final RequestHedger requestHedger = new RequestHedger(HEDGE_PERCENTILE, executor);
+        final AtomicInteger requestsSent = new AtomicInteger();
+
+        for (int i = 0; i < RequestHedger.MIN_LATENCY_SAMPLES - 1; i++) {
+            assertEquals("ok", requestHedger.send(() -> {
+                requestsSent.incrementAndGet();
+                return "ok";
+            }));
+        }
+
+        assertEquals(-1, requestHedger.getHedgeThresholdNanos());
+        assertEquals(RequestHedger.MIN_LATENCY_SAMPLES - 1, requestsSent.get());
+        assertEquals(0, requestHedger.getHedgeCount());
+    }
+
+    @Test
+    public void testSlowRequestIsHedgedAndFirstResponseWins() throws Exception {
+
+        final RequestHedger requestHedger = warmedUpRequestHedger();
+        final AtomicInteger requestsSent = new AtomicInteger();
+
+        final long startTime = System.nanoTime();
+        final String response = requestHedger.send(() -> {
+            if (requestsSent.incrementAndGet() == 1) {
+                awaitSlowRequestRelease();
+                return "slow";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", response);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 5000);
+        assertEquals(2, requestsSent.get());
+        assertEquals(RequestHedger.MIN_LATENCY_SAMPLES + 1, requestHedger.getRequestCount());
+        assertEquals(1, requestHedger.getHedgeCount());
+        assertEquals(1, requestHedger.getHedgeWinCount());
+        assertEquals(1.0 / (RequestHedger.MIN_LATENCY_SAMPLES + 1), requestHedger.getHedgeRate(), 1e-9);
+        assertEquals(1.0, requestHedger.getHedgeWinRate(), 1e-9);
+    }
+
+    @Test
+    public void testHedgedRequestFailsOnlyWhenBothRequestsFail() throws Exception {
+
+        final RequestHedger requestHedger = warmedUpRequestHedger();
+        final AtomicInteger requestsSent = new AtomicInteger();
+
+        try {
+            requestHedger.send(() -> {
+                if (requestsSent.incrementAndGet() == 1) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                throw new ExchangeNetworkException("Timeout!");
+            });
+            fail("Expected ExchangeNetworkException");
+        } catch (ExchangeNetworkException e) {
+            // expected
+        }
+
+        assertEquals(2, requestsSent.get());
+        assertEquals(1, requestHedger.getHedgeCount());
+        assertEquals(0, requestHedger.getHedgeWinCount());
+        assertEquals(0.0, requestHedger.getHedgeWinRate(), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHundredthPercentileIsRejected() {
+        new RequestHedger(100, executor);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Sends enough fast requests for hedging to kick in.
+     */
+    private RequestHedger warmedUpRequestHedger() throws Exception {
+        final RequestHedger requestHedger = new RequestHedger(HEDGE_PERCENTILE, executor);
+        for (int i = 0; i < RequestHedger.MIN_LATENCY_SAMPLES; i++) {
+            requestHedger.send(() -> "ok");
+        }
+        assertTrue(requestHedger.getHedgeThresholdNanos() >= 0);
+        return requestHedger;
+    }
+
+    private void awaitSlowRequestRelease() {
+        try {
+            slowRequestReleased.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Request Rate Limiter holds back requests as expected. Periods are in MILLIS to keep the tests quick.
+ *
+ * @author gazbert
+ */
+public class TestRequestRateLimiter {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRequestsAreNeverHeldBackWhenNoRateLimitsAreSet() throws Exception {
+
+        final RequestRateLimiter rateLimiter = new RequestRateLimiter(Collections.emptyList());
+
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.acquire(EndpointClass.MARKET_DATA);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 1000);
+    }
+
+    @Test
+    public void testRequestsAreSentInBurstUpToTheLimitThenHeldBackForThePeriod() throws Exception {
+
+        final RequestRateLimiter rateLimiter = new RequestRateLimiter(
+                Collections.singletonList(rateLimit("all", 3, 300)), TimeUnit.MILLISECONDS);
+
+        final long startTime = System.nanoTime();
+        rateLimiter.acquire(EndpointClass.TRADING);
+        rateLimiter.acquire(EndpointClass.ACCOUNT);
+        rateLimiter.acquire(EndpointClass.MARKET_DATA);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 300);
+
+        rateLimiter.acquire(EndpointClass.MARKET_DATA);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 300);
+    }
+
+    @Test
+    public void testEndpointClassRateLimitOnlyHoldsBackThatClass() throws Exception {
+
+        final RequestRateLimiter rateLimiter = new RequestRateLimiter(
+                Collections.singletonList(rateLimit("market-data", 1, 60000)), TimeUnit.MILLISECONDS);
+
+        rateLimiter.acquire(EndpointClass.MARKET_DATA);
+        final Future<?> heldBackRequest = executor.submit(() -> {
+            rateLimiter.acquire(EndpointClass.MARKET_DATA);
+            return null;
+        });
+
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.acquire(EndpointClass.TRADING);
+            rateLimiter.acquire(EndpointClass.ACCOUNT);
+        }
+
+        try {
+            heldBackRequest.get(100, TimeUnit.MILLISECONDS);
+            fail("Expected market data request to be held back");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        heldBackRequest.cancel(true);
+    }
+
+    @Test
+    public void testTradingRequestsGoAheadOfMarketDataRequestsWaitingOnTheSameLimit() throws Exception {
+
+        final RequestRateLimiter rateLimiter = new RequestRateLimiter(
+                Collections.singletonList(rateLimit("all", 1, 300)), TimeUnit.MILLISECONDS);
+        final List<EndpointClass> sendOrder = new CopyOnWriteArrayList<>();
+
+        rateLimiter.acquire(EndpointClass.MARKET_DATA);
+        final Future<?> marketDataRequest = executor.submit(() -> {
+            rateLimiter.acquire(EndpointClass.MARKET_DATA);
+            sendOrder.add(EndpointClass.MARKET_DATA);
+            return null;
+        });
+        Thread.sleep(100); // market data request is now waiting
+
+        final Future<?> tradingRequest = executor.submit(() -> {
+            rateLimiter.acquire(EndpointClass.TRADING);
+            sendOrder.add(EndpointClass.TRADING);
+            return null;
+        });
+
+        tradingRequest.get(5, TimeUnit.SECONDS);
+        marketDataRequest.get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(EndpointClass.TRADING, EndpointClass.MARKET_DATA), sendOrder);
+    }
+
+    @Test
+    public void testHigherPriorityRequestHeldBackByItsOwnLimitDoesNotBlockOtherClasses() throws Exception {
+
+        final RequestRateLimiter rateLimiter = new RequestRateLimiter(Arrays.asList(
+                rateLimit("all", 10, 60000), rateLimit("trading", 1, 60000)), TimeUnit.MILLISECONDS);
+
+        rateLimiter.acquire(EndpointClass.TRADING);
+        final Future<?> tradingRequest = executor.submit(() -> {
+            rateLimiter.acquire(EndpointClass.TRADING);
+            return null;
+        });
+        Thread.sleep(100); // trading request is now waiting on the trading limit
+
+        final Future<?> marketDataRequest = executor.submit(() -> {
+            rateLimiter.acquire(EndpointClass.MARKET_DATA);
+            return null;
+        });
+        marketDataRequest.get(5, TimeUnit.SECONDS);
+
+        assertFalse(tradingRequest.isDone());
+        tradingRequest.cancel(true);
+    }
+
+    @Test
+    public void testWaitingRequestCanBeInterrupted() throws Exception {
+
+        final RequestRateLimiter rateLimiter = new RequestRateLimiter(
+                Collections.singletonList(rateLimit("all", 1, 60000)), TimeUnit.MILLISECONDS);
+
+        rateLimiter.acquire(EndpointClass.ACCOUNT);
+        final Future<?> heldBackRequest = executor.submit(() -> {
+            rateLimiter.acquire(EndpointClass.ACCOUNT);
+            return null;
+        });
+        Thread.sleep(100);
+        executor.shutdownNow();
+
+        try {
+            heldBackRequest.get(5, TimeUnit.SECONDS);
+            fail("Expected InterruptedException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownEndpointClassIsRejected() {
+        new RequestRateLimiter(Collections.singletonList(rateLimit("orders", 1, 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroMaxRequestsIsRejected() {
+        new RequestRateLimiter(Collections.singletonList(rateLimit("all", 0, 1)));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static RateLimitConfig rateLimit(String endpointClass, Integer maxRequests, Integer period) {
+        return new RateLimitConfig() {
+            @Override
+            public String getEndpointClass() {
+                return endpointClass;
+            }
+
+            @Override
+            public Integer getMaxRequests() {
+                return maxRequests;
+            }
+
+            @Override
+            public Integer getPeriod() {
+                return period;
+            }
+        };
+    }
+}
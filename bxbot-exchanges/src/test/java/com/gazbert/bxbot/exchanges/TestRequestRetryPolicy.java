@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Request Retry Policy picks retry delays as expected.
+ *
+ * @author gazbert
+ */
+public class TestRequestRetryPolicy {
+
+    private static final long BASE_DELAY_MILLIS = 100;
+    private static final long MAX_DELAY_MILLIS = 1000;
+
+
+    @Test
+    public void testDelaysStayBetweenBaseDelayAndThreeTimesPreviousDelay() {
+
+        final RequestRetryPolicy retryPolicy = new RequestRetryPolicy(2, BASE_DELAY_MILLIS, MAX_DELAY_MILLIS);
+
+        for (int i = 0; i < 1000; i++) {
+            final long delay = retryPolicy.nextDelayMillis(200);
+            assertTrue(delay >= BASE_DELAY_MILLIS && delay <= 600);
+        }
+    }
+
+    @Test
+    public void testDelaysAreCappedAtMaxDelay() {
+
+        final RequestRetryPolicy retryPolicy = new RequestRetryPolicy(2, BASE_DELAY_MILLIS, MAX_DELAY_MILLIS);
+
+        long delay = BASE_DELAY_MILLIS;
+        for (int i = 0; i < 1000; i++) {
+            delay = retryPolicy.nextDelayMillis(delay);
+            assertTrue(delay >= BASE_DELAY_MILLIS && delay <= MAX_DELAY_MILLIS);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxDelayBelowBaseDelayIsRejected() {
+        new RequestRetryPolicy(2, BASE_DELAY_MILLIS, BASE_DELAY_MILLIS - 1);
+    }
+}
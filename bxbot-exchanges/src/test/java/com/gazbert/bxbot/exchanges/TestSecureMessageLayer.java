@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Secure Message Layer behaves as expected when used by many threads.
+ *
+ * @author gazbert
+ */
+public class TestSecureMessageLayer {
+
+    private static final SecretKeySpec KEY_SPEC =
+            new SecretKeySpec("your_client_secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    private static final int THREAD_COUNT = 8;
+
+
+    @Test
+    public void testNoncesAreUniqueAndIncreaseAcrossThreads() throws Exception {
+
+        final SecureMessageLayer secureMessageLayer = new SecureMessageLayer(KEY_SPEC, 0);
+        final Set<Long> nonces = ConcurrentHashMap.newKeySet();
+
+        final List<Long> lastNonces = runOnThreads(() -> {
+            long lastNonce = 0;
+            for (int i = 0; i < 1000; i++) {
+                final long nonce = secureMessageLayer.nextNonce();
+                assertTrue(nonce > lastNonce);
+                nonces.add(nonce);
+                lastNonce = nonce;
+            }
+            return lastNonce;
+        });
+
+        assertEquals(THREAD_COUNT * 1000, nonces.size());
+        assertEquals(THREAD_COUNT, lastNonces.size());
+    }
+
+    @Test
+    public void testEachThreadSignsWithItsOwnMac() throws Exception {
+
+        final SecureMessageLayer secureMessageLayer = new SecureMessageLayer(KEY_SPEC, 0);
+        final Mac mainThreadMac = secureMessageLayer.getMac();
+        assertSame(mainThreadMac, secureMessageLayer.getMac());
+
+        final Mac expectedMac = Mac.getInstance("HmacSHA256");
+        expectedMac.init(KEY_SPEC);
+        final byte[] expectedSignature = expectedMac.doFinal("nonce=1234".getBytes(StandardCharsets.UTF_8));
+
+        final List<byte[]> signatures = runOnThreads(() -> {
+            final Mac mac = secureMessageLayer.getMac();
+            assertNotSame(mainThreadMac, mac);
+            byte[] signature = null;
+            for (int i = 0; i < 1000; i++) {
+                mac.update("junk".getBytes(StandardCharsets.UTF_8));
+                signature = secureMessageLayer.getMac().doFinal("nonce=1234".getBytes(StandardCharsets.UTF_8));
+            }
+            return signature;
+        });
+
+        for (final byte[] signature : signatures) {
+            assertArrayEquals(expectedSignature, signature);
+        }
+    }
+
+    @Test
+    public void testNonceWindowLimitsRequestsInFlight() throws Exception {
+
+        final int nonceWindow = 2;
+        final SecureMessageLayer secureMessageLayer = new SecureMessageLayer(KEY_SPEC, nonceWindow);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        runOnThreads(() -> {
+            for (int i = 0; i < 20; i++) {
+                secureMessageLayer.sendInNonceOrder(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    inFlight.decrementAndGet();
+                    return secureMessageLayer.nextNonce();
+                });
+            }
+            return null;
+        });
+
+        assertEquals(nonceWindow, maxInFlight.get());
+    }
+
+    @Test
+    public void testNonceWindowIsReleasedWhenRequestFails() throws Exception {
+
+        final SecureMessageLayer secureMessageLayer = new SecureMessageLayer(KEY_SPEC, 1);
+
+        try {
+            secureMessageLayer.sendInNonceOrder(() -> {
+                throw new ExchangeNetworkException("Connection refused");
+            });
+            fail("Expected ExchangeNetworkException");
+        } catch (ExchangeNetworkException e) {
+            // expected
+        }
+
+        final CountDownLatch sent = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> secureMessageLayer.sendInNonceOrder(() -> {
+            sent.countDown();
+            return null;
+        }));
+        executor.shutdown();
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void testMissingMacAlgorithmFailsFast() throws Exception {
+        new SecureMessageLayer(new SecretKeySpec(new byte[]{1}, "HmacJunk"), 1);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Runs the task on many threads at once and returns their results.
+     */
+    private static <T> List<T> runOnThreads(Callable<T> task) throws Exception {
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            final List<T> results = new ArrayList<>();
+            for (final Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -53,6 +53,17 @@ public class TestMarketOrderImpl {
         assertEquals(TOTAL, marketOrder.getTotal());
     }
 
+    @Test
+    public void testTotalIsCalculatedWhenNotSet() {
+
+        final MarketOrderImpl marketOrder = new MarketOrderImpl(OrderType.SELL, PRICE, QUANTITY);
+
+        assertEquals(OrderType.SELL, marketOrder.getType());
+        assertEquals(PRICE, marketOrder.getPrice());
+        assertEquals(QUANTITY, marketOrder.getQuantity());
+        assertEquals(TOTAL, marketOrder.getTotal());
+    }
+
     @Test
     public void testSettersWorkAsExpected() {
 
@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import com.gazbert.bxbot.trading.api.OrderState;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the Order Status impl behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestOrderStatusImpl {
+
+    private static final String ID = "abc_123_def_456_ghi_789";
+    private static final String MARKET_ID = "BTC_USD";
+    private static final BigDecimal FILLED_QUANTITY = new BigDecimal("0.00112112");
+    private static final BigDecimal ORIGINAL_QUANTITY = new BigDecimal("0.01433434");
+
+
+    @Test
+    public void testOrderStatusIsInitialisedAsExpected() {
+
+        final OrderStatusImpl orderStatus = new OrderStatusImpl(ID, MARKET_ID, OrderState.PARTIALLY_FILLED,
+                FILLED_QUANTITY, ORIGINAL_QUANTITY);
+
+        assertEquals(ID, orderStatus.getId());
+        assertEquals(MARKET_ID, orderStatus.getMarketId());
+        assertEquals(OrderState.PARTIALLY_FILLED, orderStatus.getState());
+        assertEquals(FILLED_QUANTITY, orderStatus.getFilledQuantity());
+        assertEquals(ORIGINAL_QUANTITY, orderStatus.getOriginalQuantity());
+    }
+
+    @Test
+    public void testSettersWorkAsExpected() {
+
+        final OrderStatusImpl orderStatus = new OrderStatusImpl(null, null, null, null, null);
+        assertEquals(null, orderStatus.getId());
+        assertEquals(null, orderStatus.getMarketId());
+        assertEquals(null, orderStatus.getState());
+        assertEquals(null, orderStatus.getFilledQuantity());
+        assertEquals(null, orderStatus.getOriginalQuantity());
+
+        orderStatus.setId(ID);
+        assertEquals(ID, orderStatus.getId());
+
+        orderStatus.setMarketId(MARKET_ID);
+        assertEquals(MARKET_ID, orderStatus.getMarketId());
+
+        orderStatus.setState(OrderState.FILLED);
+        assertEquals(OrderState.FILLED, orderStatus.getState());
+
+        orderStatus.setFilledQuantity(FILLED_QUANTITY);
+        assertEquals(FILLED_QUANTITY, orderStatus.getFilledQuantity());
+
+        orderStatus.setOriginalQuantity(ORIGINAL_QUANTITY);
+        assertEquals(ORIGINAL_QUANTITY, orderStatus.getOriginalQuantity());
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.datastore.log;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * An embedded key-value store backed by a single append-only log file.
+ * <p>
+ * Every put and delete appends one record to the log and fsyncs it, so an update costs the same however many
+ * records the store holds. All live values are held in memory, in the order their keys were first put; the store is
+ * sized for the bot's config, not for bulk data.
+ * <p>
+ * Each record's header and body are checksummed separately. When the log is opened, it is replayed to rebuild the in-memory values, and a
+ * torn record at the end of the log (from a crash mid-append) is truncated away. A bad record anywhere else means the
+ * log is corrupt, and the store will not open rather than lose the records after it. When more than half of the log is
+ * overwritten or deleted records, it is compacted: the live records are written to a new log, which is fsynced and
+ * renamed over the old one.
+ * <p>
+ * Safe to use from any thread.
+ *
+ * @author gazbert
+ */
+public final class LogStructuredStore implements Closeable {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    /* record length + CRC32 of the record body + CRC32 of those two, so a bad length is never trusted */
+    private static final int RECORD_HEADER_LENGTH = 12;
+    private static final int CHECKED_HEADER_LENGTH = 8;
+
+    /* don't bother compacting small logs */
+    private static final long MIN_COMPACTION_LOG_LENGTH = 64 * 1024;
+
+    private final Path logFile;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, byte[]> values = new LinkedHashMap<>();
+
+    private FileChannel logChannel;
+    private long logLength;
+    private long liveLength;
+
+
+    private LogStructuredStore(Path logFile) {
+        this.logFile = logFile;
+    }
+
+    /*
+     * Opens the store, creating the log file if it does not exist.
+     * Throws an IllegalStateException if the log can't be read or is corrupt before its last record.
+     */
+    public static LogStructuredStore open(Path logFile) {
+        final LogStructuredStore store = new LogStructuredStore(logFile.toAbsolutePath());
+        try {
+            store.replayLog();
+        } catch (IOException e) {
+            final String errorMsg = "Failed to open log datastore [" + logFile + "]";
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        }
+        return store;
+    }
+
+    /*
+     * Returns the value for the given key, or null if there isn't one.
+     */
+    public byte[] get(String key) {
+        lock.readLock().lock();
+        try {
+            final byte[] value = values.get(key);
+            return value == null ? null : value.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the values of all the keys that start with the given prefix, in the order the keys were first put.
+     */
+    public Map<String, byte[]> getAll(String keyPrefix) {
+        lock.readLock().lock();
+        try {
+            final Map<String, byte[]> matchingValues = new LinkedHashMap<>();
+            values.forEach((key, value) -> {
+                if (key.startsWith(keyPrefix)) {
+                    matchingValues.put(key, value.clone());
+                }
+            });
+            return matchingValues;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return values.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(String key, byte[] value) {
+        lock.writeLock().lock();
+        try {
+            final ByteBuffer record = encodeRecord(PUT, key, value);
+            append(record);
+
+            final byte[] previousValue = values.put(key, value.clone());
+            if (previousValue != null) {
+                liveLength -= recordLength(key, previousValue);
+            }
+            liveLength += record.capacity();
+
+            compactIfWorthwhile();
+        } catch (IOException e) {
+            throw writeFailed(key, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Deletes the given key. Returns false if it was not in the store.
+     */
+    public boolean delete(String key) {
+        lock.writeLock().lock();
+        try {
+            if (!values.containsKey(key)) {
+                return false;
+            }
+            append(encodeRecord(DELETE, key, new byte[0]));
+
+            liveLength -= recordLength(key, values.remove(key));
+            compactIfWorthwhile();
+            return true;
+        } catch (IOException e) {
+            throw writeFailed(key, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Rewrites the log with only the live records.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            rewriteLog();
+        } catch (IOException e) {
+            final String errorMsg = "Failed to compact log datastore [" + logFile + "]";
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the length of the log file in bytes.
+     */
+    public long getLogLength() {
+        lock.readLock().lock();
+        try {
+            return logLength;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            logChannel.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close log datastore [" + logFile + "]", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private void replayLog() throws IOException {
+
+        logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        final long fileLength = logChannel.size();
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        long position = 0;
+
+        while (position < fileLength) {
+
+            header.clear();
+            if (!readFully(header, position)) {
+                break;
+            }
+            final byte[] headerBytes = header.array();
+            header.flip();
+            final int bodyLength = header.getInt();
+            final long checksum = header.getInt() & 0xFFFFFFFFL;
+            final long headerChecksum = header.getInt() & 0xFFFFFFFFL;
+            final long recordEnd = position + RECORD_HEADER_LENGTH + bodyLength;
+
+            if (checksum(Arrays.copyOf(headerBytes, CHECKED_HEADER_LENGTH)) != headerChecksum || bodyLength <= 0) {
+                if (isZeroFilled(position, fileLength)) {
+                    break;
+                }
+                throw corruptRecord(position);
+            }
+            if (recordEnd > fileLength) {
+                // the header is good, so the rest of the record was never written
+                break;
+            }
+            final ByteBuffer body = ByteBuffer.allocate(bodyLength);
+            if (!readFully(body, position + RECORD_HEADER_LENGTH) || checksum(body.array()) != checksum) {
+                if (recordEnd == fileLength) {
+                    break;
+                }
+                throw corruptRecord(position);
+            }
+            body.flip();
+            applyRecord(body);
+            position = recordEnd;
+        }
+
+        // anything left is the last record, torn by a crash part way through appending it
+        if (position < fileLength) {
+            LOG.warn("Log datastore [" + logFile + "] has a torn record at byte " + position
+                    + "; truncating " + (fileLength - position) + " bytes");
+            logChannel.truncate(position);
+            logChannel.force(true);
+        }
+        logLength = position;
+
+        liveLength = 0;
+        values.forEach((key, value) -> liveLength += recordLength(key, value));
+
+        LOG.info(() -> "Opened log datastore [" + logFile + "] with " + values.size() + " records");
+        compactIfWorthwhile();
+    }
+
+    /*
+     * A crash can leave the end of the log extended but not yet written.
+     */
+    private boolean isZeroFilled(long position, long fileLength) throws IOException {
+        final ByteBuffer tail = ByteBuffer.allocate((int) (fileLength - position));
+        readFully(tail, position);
+        for (final byte b : tail.array()) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IOException corruptRecord(long position) throws IOException {
+        logChannel.close();
+        return new IOException("Log datastore [" + logFile + "] has a corrupt record at byte " + position
+                + ", before the end of the log");
+    }
+
+    private void applyRecord(ByteBuffer body) {
+        final byte op = body.get();
+        final byte[] key = new byte[body.getInt()];
+        body.get(key);
+        final byte[] value = new byte[body.getInt()];
+        body.get(value);
+
+        final String keyString = new String(key, StandardCharsets.UTF_8);
+        if (op == PUT) {
+            values.put(keyString, value);
+        } else {
+            values.remove(keyString);
+        }
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        long readPosition = position;
+        while (buffer.hasRemaining()) {
+            final int bytesRead = logChannel.read(buffer, readPosition);
+            if (bytesRead < 0) {
+                return false;
+            }
+            readPosition += bytesRead;
+        }
+        return true;
+    }
+
+    private void append(ByteBuffer record) throws IOException {
+        long position = logLength;
+        while (record.hasRemaining()) {
+            position += logChannel.write(record, position);
+        }
+        logChannel.force(false);
+        logLength = position;
+    }
+
+    private void compactIfWorthwhile() {
+        if (logLength >= MIN_COMPACTION_LOG_LENGTH && liveLength * 2 < logLength) {
+            try {
+                rewriteLog();
+            } catch (IOException e) {
+                // the log is still good, just bigger than it needs to be; we'll try again on the next update
+                LOG.warn("Failed to compact log datastore [" + logFile + "]", e);
+            }
+        }
+    }
+
+    private void rewriteLog() throws IOException {
+
+        final Path compactedLogFile = logFile.resolveSibling(logFile.getFileName() + ".compacting");
+        long compactedLength = 0;
+
+        try (FileChannel compactedChannel = FileChannel.open(compactedLogFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (final Map.Entry<String, byte[]> entry : values.entrySet()) {
+                final ByteBuffer record = encodeRecord(PUT, entry.getKey(), entry.getValue());
+                while (record.hasRemaining()) {
+                    compactedLength += compactedChannel.write(record);
+                }
+            }
+            compactedChannel.force(true);
+        }
+
+        final long previousLogLength = logLength;
+        logChannel.close();
+        try {
+            Files.move(compactedLogFile, logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compactedLogFile, logFile, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            logChannel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logLength = logChannel.size();
+        }
+
+        // make the rename itself durable; not every platform lets a directory be opened for this
+        final Path logDirectory = logFile.getParent();
+        try (FileChannel directoryChannel = FileChannel.open(logDirectory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            LOG.debug("Could not fsync log datastore directory [" + logDirectory + "]", e);
+        }
+
+        liveLength = compactedLength;
+        LOG.info(() -> "Compacted log datastore [" + logFile + "] from " + previousLogLength + " to "
+                + logLength + " bytes");
+    }
+
+    private static ByteBuffer encodeRecord(byte op, String key, byte[] value) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final int bodyLength = 1 + 4 + keyBytes.length + 4 + value.length;
+
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + bodyLength);
+        record.putInt(bodyLength);
+        record.putInt(0); // checksum, filled in below
+        record.putInt(0); // header checksum, filled in below
+        record.put(op);
+        record.putInt(keyBytes.length);
+        record.put(keyBytes);
+        record.putInt(value.length);
+        record.put(value);
+
+        final byte[] recordBytes = record.array();
+        record.putInt(4, (int) checksum(Arrays.copyOfRange(recordBytes, RECORD_HEADER_LENGTH, recordBytes.length)));
+        record.putInt(8, (int) checksum(Arrays.copyOf(recordBytes, CHECKED_HEADER_LENGTH)));
+        record.flip();
+        return record;
+    }
+
+    private static int recordLength(String key, byte[] value) {
+        return RECORD_HEADER_LENGTH + 1 + 4 + key.getBytes(StandardCharsets.UTF_8).length + 4 + value.length;
+    }
+
+    private static long checksum(byte[] bytes) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        return crc32.getValue();
+    }
+
+    private IllegalStateException writeFailed(String key, IOException e) {
+        final String errorMsg = "Failed to write [" + key + "] to log datastore [" + logFile + "]";
+        LOG.error(errorMsg, e);
+        return new IllegalStateException(errorMsg, e);
+    }
+}
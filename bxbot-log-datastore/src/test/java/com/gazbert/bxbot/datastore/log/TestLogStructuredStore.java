@@ -0,0 +1,294 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.datastore.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the log-structured store behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestLogStructuredStore {
+
+    private static final String MARKET_1_KEY = "market/btc_usd";
+    private static final String MARKET_2_KEY = "market/ltc_usd";
+    private static final String ENGINE_KEY = "engine";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path logFile;
+    private LogStructuredStore store;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        logFile = folder.getRoot().toPath().resolve("config.log");
+        store = LogStructuredStore.open(logFile);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        store.close();
+    }
+
+    @Test
+    public void testPutValuesAreThereAfterReopening() {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        store.put(ENGINE_KEY, bytes("engine config"));
+        store.put(MARKET_1_KEY, bytes("BTC/USD updated"));
+
+        reopen();
+
+        assertArrayEquals(bytes("BTC/USD updated"), store.get(MARKET_1_KEY));
+        assertArrayEquals(bytes("engine config"), store.get(ENGINE_KEY));
+        assertNull(store.get(MARKET_2_KEY));
+    }
+
+    @Test
+    public void testDeletedValuesAreGoneAfterReopening() {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+
+        assertTrue(store.delete(MARKET_1_KEY));
+        assertFalse(store.delete(MARKET_1_KEY));
+
+        reopen();
+
+        assertNull(store.get(MARKET_1_KEY));
+        assertArrayEquals(bytes("LTC/USD"), store.get(MARKET_2_KEY));
+    }
+
+    @Test
+    public void testGetAllReturnsMatchingKeysInTheOrderTheyWereFirstPut() {
+
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+        store.put(ENGINE_KEY, bytes("engine config"));
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        store.put(MARKET_2_KEY, bytes("LTC/USD updated"));
+
+        final Map<String, byte[]> markets = store.getAll("market/");
+
+        assertEquals(2, markets.size());
+        assertEquals(MARKET_2_KEY, new ArrayList<>(markets.keySet()).get(0));
+        assertEquals(MARKET_1_KEY, new ArrayList<>(markets.keySet()).get(1));
+        assertArrayEquals(bytes("LTC/USD updated"), markets.get(MARKET_2_KEY));
+    }
+
+    @Test
+    public void testReturnedValuesCannotChangeTheStore() {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        store.get(MARKET_1_KEY)[0] = 'X';
+        store.getAll("market/").get(MARKET_1_KEY)[0] = 'X';
+
+        assertArrayEquals(bytes("BTC/USD"), store.get(MARKET_1_KEY));
+    }
+
+    @Test
+    public void testTornRecordAtEndOfLogIsTruncatedOnReopen() throws Exception {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+        final long goodLength = store.getLogLength();
+        store.close();
+
+        // simulate a crash part way through appending a record
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        store = LogStructuredStore.open(logFile);
+
+        assertEquals(goodLength, Files.size(logFile));
+        assertArrayEquals(bytes("BTC/USD"), store.get(MARKET_1_KEY));
+        assertArrayEquals(bytes("LTC/USD"), store.get(MARKET_2_KEY));
+
+        store.put(ENGINE_KEY, bytes("engine config"));
+        reopen();
+        assertArrayEquals(bytes("engine config"), store.get(ENGINE_KEY));
+    }
+
+    @Test
+    public void testZeroFilledEndOfLogIsTruncatedOnReopen() throws Exception {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        final long goodLength = store.getLogLength();
+        store.close();
+
+        // simulate a crash after the file was extended but before the record was written
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[20]));
+        }
+
+        store = LogStructuredStore.open(logFile);
+
+        assertEquals(goodLength, Files.size(logFile));
+        assertArrayEquals(bytes("BTC/USD"), store.get(MARKET_1_KEY));
+    }
+
+    @Test
+    public void testCorruptLastRecordIsNotReplayed() throws Exception {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        final long firstRecordLength = store.getLogLength();
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+        store.close();
+
+        // flip the last byte of the second record's value
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), Files.size(logFile) - 1);
+        }
+
+        store = LogStructuredStore.open(logFile);
+
+        assertEquals(firstRecordLength, Files.size(logFile));
+        assertArrayEquals(bytes("BTC/USD"), store.get(MARKET_1_KEY));
+        assertNull(store.get(MARKET_2_KEY));
+    }
+
+    @Test
+    public void testCorruptRecordBeforeEndOfLogFailsOpen() throws Exception {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        final long firstRecordLength = store.getLogLength();
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+        final long logLength = store.getLogLength();
+        store.close();
+
+        // flip the last byte of the first record's value
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), firstRecordLength - 1);
+        }
+
+        try {
+            store = LogStructuredStore.open(logFile);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // the records after the corrupt one are left for someone to recover
+            assertEquals(logLength, Files.size(logFile));
+        }
+
+        // leave a good log for tearDownAfterEachTest to close
+        Files.delete(logFile);
+        store = LogStructuredStore.open(logFile);
+    }
+
+    @Test
+    public void testCorruptRecordLengthBeforeEndOfLogFailsOpen() throws Exception {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+        final long logLength = store.getLogLength();
+        store.close();
+
+        // make the first record's length point past the end of the log, so it looks like a torn record
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 4, 0}), 0);
+        }
+
+        try {
+            store = LogStructuredStore.open(logFile);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals(logLength, Files.size(logFile));
+        }
+
+        // leave a good log for tearDownAfterEachTest to close
+        Files.delete(logFile);
+        store = LogStructuredStore.open(logFile);
+    }
+
+    @Test
+    public void testLogIsCompactedWhenMostOfItIsDeadRecords() {
+
+        final byte[] bigValue = new byte[1024];
+        for (int i = 0; i < 200; i++) {
+            store.put(MARKET_1_KEY, bigValue);
+        }
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+
+        assertTrue(store.getLogLength() < 64 * 1024);
+
+        reopen();
+        assertArrayEquals(bigValue, store.get(MARKET_1_KEY));
+        assertArrayEquals(bytes("LTC/USD"), store.get(MARKET_2_KEY));
+    }
+
+    @Test
+    public void testCompactKeepsLiveValues() throws Exception {
+
+        store.put(MARKET_1_KEY, bytes("BTC/USD"));
+        store.put(MARKET_1_KEY, bytes("BTC/USD updated"));
+        store.put(MARKET_2_KEY, bytes("LTC/USD"));
+        store.delete(MARKET_2_KEY);
+        final long uncompactedLength = store.getLogLength();
+
+        store.compact();
+
+        assertTrue(store.getLogLength() < uncompactedLength);
+        assertEquals(store.getLogLength(), Files.size(logFile));
+        assertFalse(Files.exists(logFile.resolveSibling("config.log.compacting")));
+
+        reopen();
+        assertArrayEquals(bytes("BTC/USD updated"), store.get(MARKET_1_KEY));
+        assertNull(store.get(MARKET_2_KEY));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private void reopen() {
+        store.close();
+        store = LogStructuredStore.open(logFile);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
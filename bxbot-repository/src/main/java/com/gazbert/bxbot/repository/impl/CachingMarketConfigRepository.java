@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.repository.MarketConfigRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static com.gazbert.bxbot.datastore.FileLocations.MARKETS_CONFIG_XML_FILENAME;
+
+/**
+ * Keeps the Market configs in memory so reads don't parse the XML file every time.
+ * <p>
+ * Reads go through a {@link ConfigCache}; saves and deletes go straight to the XML datastore and then invalidate the
+ * cache. The cache is also invalidated when the config file changes on disk. If the file can't be watched for
+ * changes, or stops being watched, every read goes to the XML datastore.
+ *
+ * @author gazbert
+ */
+@Primary
+@Repository("cachingMarketConfigRepository")
+@Profile("!" + LogDatastore.PROFILE)
+public class CachingMarketConfigRepository implements MarketConfigRepository {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final MarketConfigRepository delegate;
+    private final ConfigCache<MarketConfig> cache;
+
+
+    @Autowired
+    CachingMarketConfigRepository(@Qualifier("marketConfigRepository") MarketConfigRepository delegate,
+                                  ConfigFileWatcher configFileWatcher) {
+        this.delegate = delegate;
+        cache = new ConfigCache<>(delegate::findAll, MarketConfig::getId, MarketConfig::new);
+
+        if (!configFileWatcher.watch(Paths.get(MARKETS_CONFIG_XML_FILENAME), cache::invalidate, cache::disable)) {
+            LOG.warn("Changes to [" + MARKETS_CONFIG_XML_FILENAME + "] cannot be detected. "
+                    + "Market config will not be cached.");
+            cache.disable();
+        }
+    }
+
+    @Override
+    public List<MarketConfig> findAll() {
+        return cache.findAll();
+    }
+
+    @Override
+    public MarketConfig findById(String id) {
+        return cache.findById(id);
+    }
+
+    @Override
+    public MarketConfig save(MarketConfig config) {
+        try {
+            return delegate.save(config);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public MarketConfig delete(String id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            cache.invalidate();
+        }
+    }
+}
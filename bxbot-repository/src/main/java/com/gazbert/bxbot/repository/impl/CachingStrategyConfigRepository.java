@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.strategy.StrategyConfig;
+import com.gazbert.bxbot.repository.StrategyConfigRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+
+import static com.gazbert.bxbot.datastore.FileLocations.STRATEGIES_CONFIG_XML_FILENAME;
+
+/**
+ * Keeps the Strategy configs in memory so reads don't parse the XML file every time.
+ * <p>
+ * Reads go through a {@link ConfigCache}; saves and deletes go straight to the XML datastore and then invalidate the
+ * cache. The cache is also invalidated when the config file changes on disk. If the file can't be watched for
+ * changes, or stops being watched, every read goes to the XML datastore.
+ *
+ * @author gazbert
+ */
+@Primary
+@Repository("cachingStrategyConfigRepository")
+@Profile("!" + LogDatastore.PROFILE)
+public class CachingStrategyConfigRepository implements StrategyConfigRepository {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final StrategyConfigRepository delegate;
+    private final ConfigCache<StrategyConfig> cache;
+
+
+    @Autowired
+    CachingStrategyConfigRepository(@Qualifier("strategyConfigRepository") StrategyConfigRepository delegate,
+                                    ConfigFileWatcher configFileWatcher) {
+        this.delegate = delegate;
+        cache = new ConfigCache<>(delegate::findAll, StrategyConfig::getId, CachingStrategyConfigRepository::copy);
+
+        if (!configFileWatcher.watch(Paths.get(STRATEGIES_CONFIG_XML_FILENAME), cache::invalidate, cache::disable)) {
+            LOG.warn("Changes to [" + STRATEGIES_CONFIG_XML_FILENAME + "] cannot be detected. "
+                    + "Strategy config will not be cached.");
+            cache.disable();
+        }
+    }
+
+    @Override
+    public List<StrategyConfig> findAll() {
+        return cache.findAll();
+    }
+
+    @Override
+    public StrategyConfig findById(String id) {
+        return cache.findById(id);
+    }
+
+    @Override
+    public StrategyConfig save(StrategyConfig config) {
+        try {
+            return delegate.save(config);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public StrategyConfig delete(String id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static StrategyConfig copy(StrategyConfig strategyConfig) {
+        final StrategyConfig copy = new StrategyConfig(strategyConfig);
+        if (strategyConfig.getConfigItems() != null) {
+            copy.setConfigItems(new HashMap<>(strategyConfig.getConfigItems()));
+        }
+        return copy;
+    }
+}
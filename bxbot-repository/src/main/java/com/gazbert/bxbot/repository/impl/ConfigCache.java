@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * A read-through cache of config items, indexed by id.
+ * <p>
+ * The first read loads every item and later reads are served from memory until {@link #invalidate()} is called.
+ * If invalidate() is called while a load is in progress, the loaded items are returned to the caller but not
+ * cached, so a stale load never replaces a newer invalidation.
+ * <p>
+ * Items are copied on the way out so callers cannot change what is cached.
+ *
+ * @author gazbert
+ */
+final class ConfigCache<T> {
+
+    private final Supplier<List<T>> loader;
+    private final Function<T, String> idFunction;
+    private final UnaryOperator<T> copyFunction;
+
+    private final Object lock = new Object();
+    private volatile Map<String, T> itemsById;
+    private long generation;
+    private volatile boolean enabled = true;
+
+
+    ConfigCache(Supplier<List<T>> loader, Function<T, String> idFunction, UnaryOperator<T> copyFunction) {
+        this.loader = loader;
+        this.idFunction = idFunction;
+        this.copyFunction = copyFunction;
+    }
+
+    List<T> findAll() {
+        return getItemsById().values()
+                .stream()
+                .map(copyFunction)
+                .collect(Collectors.toList());
+    }
+
+    T findById(String id) {
+        final T item = getItemsById().get(id);
+        return item == null ? null : copyFunction.apply(item);
+    }
+
+    void invalidate() {
+        synchronized (lock) {
+            generation++;
+            itemsById = null;
+        }
+    }
+
+    /*
+     * Stops caching; every read goes to the loader. Used when changes to the underlying config can't be detected.
+     */
+    void disable() {
+        enabled = false;
+        invalidate();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private Map<String, T> getItemsById() {
+
+        final Map<String, T> cachedItemsById = itemsById;
+        if (cachedItemsById != null) {
+            return cachedItemsById;
+        }
+
+        final long loadGeneration;
+        synchronized (lock) {
+            loadGeneration = generation;
+        }
+
+        final Map<String, T> loadedItemsById = new LinkedHashMap<>();
+        loader.get().forEach(item -> loadedItemsById.put(idFunction.apply(item), item));
+        final Map<String, T> unmodifiableItemsById = Collections.unmodifiableMap(loadedItemsById);
+
+        synchronized (lock) {
+            if (enabled && generation == loadGeneration) {
+                itemsById = unmodifiableItemsById;
+            }
+        }
+        return unmodifiableItemsById;
+    }
+}
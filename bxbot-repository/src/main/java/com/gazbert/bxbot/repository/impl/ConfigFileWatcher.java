@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches config files for changes made outside of the bot, e.g. someone editing config/markets.xml by hand, and
+ * tells the registered listeners so they can drop anything they have cached. If a file's directory can no longer be
+ * watched, e.g. because it was deleted, the file's watch-lost listeners are run so they can stop caching altogether.
+ * <p>
+ * One {@link WatchService} and one daemon thread serve all the watched files. Some platforms poll for changes, so
+ * listeners can be told a few seconds after the file changed.
+ *
+ * @author gazbert
+ */
+@Component
+@Profile("!" + LogDatastore.PROFILE)
+class ConfigFileWatcher {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final Map<Path, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    private final Map<Path, List<Runnable>> watchLostListeners = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+    private WatchService watchService;
+
+
+    /*
+     * Registers a listener to be run whenever the given file is created, modified or deleted, and a listener to be run
+     * if the file stops being watched, after which neither listener is run again.
+     * Returns false if the file's directory cannot be watched; the caller will not be told about changes.
+     */
+    synchronized boolean watch(Path file, Runnable listener, Runnable watchLostListener) {
+
+        final Path absoluteFile = file.toAbsolutePath().normalize();
+        final Path directory = absoluteFile.getParent();
+
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                final Thread watcherThread = new Thread(this::processEvents, "bxbot-config-file-watcher");
+                watcherThread.setDaemon(true);
+                watcherThread.start();
+            }
+
+            if (!watchedDirectories.containsKey(directory)) {
+                watchedDirectories.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+            }
+
+        } catch (IOException | ClosedWatchServiceException e) {
+            LOG.warn("Failed to watch config file [" + absoluteFile + "] for changes", e);
+            return false;
+        }
+
+        listeners.computeIfAbsent(absoluteFile, key -> new CopyOnWriteArrayList<>()).add(listener);
+        watchLostListeners.computeIfAbsent(absoluteFile, key -> new CopyOnWriteArrayList<>()).add(watchLostListener);
+        LOG.info(() -> "Watching config file [" + absoluteFile + "] for changes");
+        return true;
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close config file WatchService", e);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private void processEvents() {
+
+        while (true) {
+
+            final WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (ClosedWatchServiceException e) {
+                LOG.info(() -> "Config file WatchService closed; no longer watching config files");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            final Path directory = (Path) watchKey.watchable();
+            for (final WatchEvent<?> event : watchKey.pollEvents()) {
+
+                if (event.kind() == OVERFLOW) {
+                    // events were lost - could have been any of them
+                    notifyDirectoryListeners(directory);
+                } else {
+                    final Path file = directory.resolve((Path) event.context());
+                    final List<Runnable> fileListeners = listeners.get(file);
+                    if (fileListeners != null) {
+                        notifyListeners(file, fileListeners);
+                    }
+                }
+            }
+
+            if (!watchKey.reset()) {
+                LOG.error("Config directory [" + directory + "] can no longer be watched. "
+                        + "Changes to its config files will not be detected.");
+                notifyWatchLost(directory);
+            }
+        }
+    }
+
+    private void notifyDirectoryListeners(Path directory) {
+        listeners.forEach((file, fileListeners) -> {
+            if (file.getParent().equals(directory)) {
+                notifyListeners(file, fileListeners);
+            }
+        });
+    }
+
+    private synchronized void notifyWatchLost(Path directory) {
+        watchedDirectories.remove(directory);
+        listeners.keySet().removeIf(file -> file.getParent().equals(directory));
+        watchLostListeners.entrySet().removeIf(fileListeners -> {
+            final Path file = fileListeners.getKey();
+            if (!file.getParent().equals(directory)) {
+                return false;
+            }
+            fileListeners.getValue().forEach(listener -> {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Config file watch-lost listener failed for [" + file + "]", e);
+                }
+            });
+            return true;
+        });
+    }
+
+    private static void notifyListeners(Path file, List<Runnable> fileListeners) {
+        LOG.info(() -> "Config file [" + file + "] has changed");
+        fileListeners.forEach(listener -> {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                LOG.error("Config file listener failed for [" + file + "]", e);
+            }
+        });
+    }
+}
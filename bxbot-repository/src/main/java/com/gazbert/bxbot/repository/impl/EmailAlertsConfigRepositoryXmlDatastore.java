@@ -31,6 +31,7 @@ import com.gazbert.bxbot.domain.emailalerts.SmtpConfig;
 import com.gazbert.bxbot.repository.EmailAlertsConfigRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,6 +45,7 @@ import static com.gazbert.bxbot.datastore.FileLocations.EMAIL_ALERTS_CONFIG_XSD_
  * @author gazbert
  */
 @Repository("emailAlertsConfigRepository")
+@Profile("!" + LogDatastore.PROFILE)
 @Transactional
 public class EmailAlertsConfigRepositoryXmlDatastore implements EmailAlertsConfigRepository {
 
@@ -29,6 +29,7 @@ import com.gazbert.bxbot.domain.engine.EngineConfig;
 import com.gazbert.bxbot.repository.EngineConfigRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,6 +42,7 @@ import static com.gazbert.bxbot.datastore.FileLocations.ENGINE_CONFIG_XSD_FILENA
  * @author gazbert
  */
 @Repository("engineConfigRepository")
+@Profile("!" + LogDatastore.PROFILE)
 @Transactional
 public class EngineConfigRepositoryXmlDatastore implements EngineConfigRepository {
 
@@ -81,6 +83,12 @@ public class EngineConfigRepositoryXmlDatastore implements EngineConfigRepositor
         externalEngineConfig.setEmergencyStopCurrency(internalEngineConfig.getEmergencyStopCurrency());
         externalEngineConfig.setEmergencyStopBalance(internalEngineConfig.getEmergencyStopBalance());
         externalEngineConfig.setTradeCycleInterval(internalEngineConfig.getTradeCycleInterval());
+        externalEngineConfig.setStrategyExecutionThreads(internalEngineConfig.getStrategyExecutionThreads());
+        externalEngineConfig.setStrategyExecutionTimeout(internalEngineConfig.getStrategyExecutionTimeout());
+        externalEngineConfig.setTradeCycleScheduling(internalEngineConfig.getTradeCycleScheduling());
+        externalEngineConfig.setMissedTradeCyclePolicy(internalEngineConfig.getMissedTradeCyclePolicy());
+        externalEngineConfig.setTradeCycleCaching(internalEngineConfig.isTradeCycleCaching());
+        externalEngineConfig.setBalanceReconcileInterval(internalEngineConfig.getBalanceReconcileInterval());
         return externalEngineConfig;
     }
 
@@ -92,6 +100,12 @@ public class EngineConfigRepositoryXmlDatastore implements EngineConfigRepositor
         internalEngineConfig.setEmergencyStopCurrency(externalEngineConfig.getEmergencyStopCurrency());
         internalEngineConfig.setEmergencyStopBalance(externalEngineConfig.getEmergencyStopBalance());
         internalEngineConfig.setTradeCycleInterval(externalEngineConfig.getTradeCycleInterval());
+        internalEngineConfig.setStrategyExecutionThreads(externalEngineConfig.getStrategyExecutionThreads());
+        internalEngineConfig.setStrategyExecutionTimeout(externalEngineConfig.getStrategyExecutionTimeout());
+        internalEngineConfig.setTradeCycleScheduling(externalEngineConfig.getTradeCycleScheduling());
+        internalEngineConfig.setMissedTradeCyclePolicy(externalEngineConfig.getMissedTradeCyclePolicy());
+        internalEngineConfig.setTradeCycleCaching(externalEngineConfig.getTradeCycleCaching());
+        internalEngineConfig.setBalanceReconcileInterval(externalEngineConfig.getBalanceReconcileInterval());
         return internalEngineConfig;
     }
 }
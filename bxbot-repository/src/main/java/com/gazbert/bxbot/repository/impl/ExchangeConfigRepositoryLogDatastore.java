@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
+import com.gazbert.bxbot.repository.ExchangeConfigRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * A log datastore implementation of the Exchange config repository.
+ *
+ * @author gazbert
+ */
+@Repository("exchangeConfigRepository")
+@Profile(LogDatastore.PROFILE)
+@Transactional
+public class ExchangeConfigRepositoryLogDatastore implements ExchangeConfigRepository {
+
+    static final String KEY = "exchange";
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final LogDatastore logDatastore;
+
+
+    @Autowired
+    public ExchangeConfigRepositoryLogDatastore(LogDatastore logDatastore) {
+        this.logDatastore = logDatastore;
+    }
+
+    @Override
+    public ExchangeConfig get() {
+        LOG.info(() -> "Fetching ExchangeConfig...");
+        return logDatastore.get(KEY, ExchangeConfig.class);
+    }
+
+    @Override
+    public ExchangeConfig save(ExchangeConfig config) {
+        LOG.info(() -> "About to save ExchangeConfig: " + config);
+        logDatastore.put(KEY, config);
+        return logDatastore.get(KEY, ExchangeConfig.class);
+    }
+}
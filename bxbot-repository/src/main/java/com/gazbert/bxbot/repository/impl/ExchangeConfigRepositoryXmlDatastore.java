@@ -29,12 +29,16 @@ import com.gazbert.bxbot.domain.exchange.AuthenticationConfig;
 import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
 import com.gazbert.bxbot.domain.exchange.NetworkConfig;
 import com.gazbert.bxbot.domain.exchange.OptionalConfig;
+import com.gazbert.bxbot.domain.exchange.RateLimitConfig;
 import com.gazbert.bxbot.repository.ExchangeConfigRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XML_FILENAME;
 import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XSD_FILENAME;
 
@@ -44,6 +48,7 @@ import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XSD_FILE
  * @author gazbert
  */
 @Repository("exchangeConfigRepository")
+@Profile("!" + LogDatastore.PROFILE)
 @Transactional
 public class ExchangeConfigRepositoryXmlDatastore implements ExchangeConfigRepository {
 
@@ -87,6 +92,13 @@ public class ExchangeConfigRepositoryXmlDatastore implements ExchangeConfigRepos
         networkConfig.setConnectionTimeout(internalExchangeConfig.getNetworkConfig().getConnectionTimeout());
         networkConfig.setNonFatalErrorCodes(internalExchangeConfig.getNetworkConfig().getNonFatalErrorCodes().getCodes());
         networkConfig.setNonFatalErrorMessages(internalExchangeConfig.getNetworkConfig().getNonFatalErrorMessages().getMessages());
+        networkConfig.setMaxConnectionsPerHost(internalExchangeConfig.getNetworkConfig().getMaxConnectionsPerHost());
+        networkConfig.setIdleConnectionTimeout(internalExchangeConfig.getNetworkConfig().getIdleConnectionTimeout());
+        final RateLimitsType internalRateLimits = internalExchangeConfig.getNetworkConfig().getRateLimits();
+        if (internalRateLimits != null) { // it's optional
+            internalRateLimits.getRateLimits().forEach(rateLimit -> networkConfig.getRateLimits().add(
+                    new RateLimitConfig(rateLimit.getEndpointClass(), rateLimit.getMaxRequests(), rateLimit.getPeriod())));
+        }
 
         final OptionalConfig optionalConfig = new OptionalConfig();
         final OptionalConfigType internalOptionalConfig = internalExchangeConfig.getOptionalConfig();
@@ -114,6 +126,20 @@ public class ExchangeConfigRepositoryXmlDatastore implements ExchangeConfigRepos
         networkConfig.setConnectionTimeout(externalExchangeConfig.getNetworkConfig().getConnectionTimeout());
         networkConfig.setNonFatalErrorCodes(nonFatalErrorCodes);
         networkConfig.setNonFatalErrorMessages(nonFatalErrorMessages);
+        networkConfig.setMaxConnectionsPerHost(externalExchangeConfig.getNetworkConfig().getMaxConnectionsPerHost());
+        networkConfig.setIdleConnectionTimeout(externalExchangeConfig.getNetworkConfig().getIdleConnectionTimeout());
+        final List<RateLimitConfig> externalRateLimits = externalExchangeConfig.getNetworkConfig().getRateLimits();
+        if (externalRateLimits != null && !externalRateLimits.isEmpty()) { // it's optional
+            final RateLimitsType rateLimits = new RateLimitsType();
+            externalRateLimits.forEach(externalRateLimit -> {
+                final RateLimitType rateLimit = new RateLimitType();
+                rateLimit.setEndpointClass(externalRateLimit.getEndpointClass());
+                rateLimit.setMaxRequests(externalRateLimit.getMaxRequests());
+                rateLimit.setPeriod(externalRateLimit.getPeriod());
+                rateLimits.getRateLimits().add(rateLimit);
+            });
+            networkConfig.setRateLimits(rateLimits);
+        }
 
         final OptionalConfigType optionalConfig = new OptionalConfigType();
         externalExchangeConfig.getOptionalConfig().getItems().forEach((key, value) -> {
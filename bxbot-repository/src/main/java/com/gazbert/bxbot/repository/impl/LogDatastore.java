@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.datastore.log.LogStructuredStore;
+import com.google.gson.Gson;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the bot's config in an embedded {@link LogStructuredStore} instead of the XML config files.
+ * <p>
+ * Enabled by the <code>log-datastore</code> Spring profile. Each config item is stored as JSON under its own key,
+ * so updating one Market rewrites one record, not the whole config file.
+ * <p>
+ * The first time the store is opened, the existing XML config is copied into it by the {@link XmlDatastoreMigrator}.
+ *
+ * @author gazbert
+ */
+@Component
+@Profile(LogDatastore.PROFILE)
+public class LogDatastore {
+
+    static final String PROFILE = "log-datastore";
+
+    static final String MIGRATED_FROM_XML_KEY = "meta/migrated-from-xml";
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final LogStructuredStore store;
+    private final Gson gson = new Gson();
+
+
+    @Autowired
+    public LogDatastore(@Value("${bxbot.datastore.log.file:./config/bxbot-config.log}") String logFile) {
+        this(logFile, XmlDatastoreMigrator::migrate);
+    }
+
+    /*
+     * The XML migrator can be swapped out for testing.
+     */
+    LogDatastore(String logFile, Consumer<LogDatastore> xmlDatastoreMigrator) {
+
+        store = LogStructuredStore.open(Paths.get(logFile));
+
+        if (store.get(MIGRATED_FROM_XML_KEY) == null) {
+            LOG.info(() -> "Log datastore [" + logFile + "] has not been migrated from the XML config yet");
+            try {
+                xmlDatastoreMigrator.accept(this);
+            } catch (RuntimeException e) {
+                // not marked as migrated, so the migration is tried again next time
+                store.close();
+                throw e;
+            }
+            store.put(MIGRATED_FROM_XML_KEY, toJson(Boolean.TRUE));
+        }
+    }
+
+    <T> T get(String key, Class<T> configClass) {
+        final byte[] json = store.get(key);
+        return json == null ? null : fromJson(json, configClass);
+    }
+
+    <T> List<T> getAll(String keyPrefix, Class<T> configClass) {
+        return store.getAll(keyPrefix).values()
+                .stream()
+                .map(json -> fromJson(json, configClass))
+                .collect(Collectors.toList());
+    }
+
+    void put(String key, Object config) {
+        store.put(key, toJson(config));
+    }
+
+    boolean delete(String key) {
+        return store.delete(key);
+    }
+
+    @PreDestroy
+    void close() {
+        store.close();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private byte[] toJson(Object config) {
+        return gson.toJson(config).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private <T> T fromJson(byte[] json, Class<T> configClass) {
+        return gson.fromJson(new String(json, StandardCharsets.UTF_8), configClass);
+    }
+}
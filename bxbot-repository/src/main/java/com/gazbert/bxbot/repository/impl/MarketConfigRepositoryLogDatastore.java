@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.repository.MarketConfigRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A log datastore implementation of the Market config repository.
+ * <p>
+ * Each Market config is its own record, keyed by id.
+ *
+ * @author gazbert
+ */
+@Repository("marketConfigRepository")
+@Profile(LogDatastore.PROFILE)
+@Transactional
+public class MarketConfigRepositoryLogDatastore implements MarketConfigRepository {
+
+    static final String KEY_PREFIX = "market/";
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final LogDatastore logDatastore;
+
+
+    @Autowired
+    public MarketConfigRepositoryLogDatastore(LogDatastore logDatastore) {
+        this.logDatastore = logDatastore;
+    }
+
+    @Override
+    public List<MarketConfig> findAll() {
+        LOG.info(() -> "Fetching all Market configs...");
+        return logDatastore.getAll(KEY_PREFIX, MarketConfig.class);
+    }
+
+    @Override
+    public MarketConfig findById(String id) {
+        LOG.info(() -> "Fetching Market config for id: " + id);
+        return logDatastore.get(KEY_PREFIX + id, MarketConfig.class);
+    }
+
+    @Override
+    public MarketConfig save(MarketConfig config) {
+
+        if (config.getId() == null || config.getId().isEmpty()) {
+
+            LOG.info(() -> "About to create MarketConfig: " + config);
+
+            final MarketConfig newMarketConfig = new MarketConfig(config);
+            newMarketConfig.setId(generateUuid());
+            logDatastore.put(KEY_PREFIX + newMarketConfig.getId(), newMarketConfig);
+            return logDatastore.get(KEY_PREFIX + newMarketConfig.getId(), MarketConfig.class);
+
+        } else {
+
+            LOG.info(() -> "About to update MarketConfig: " + config);
+
+            if (logDatastore.get(KEY_PREFIX + config.getId(), MarketConfig.class) != null) {
+                logDatastore.put(KEY_PREFIX + config.getId(), config);
+                return logDatastore.get(KEY_PREFIX + config.getId(), MarketConfig.class);
+            } else {
+                LOG.warn("Trying to update MarketConfig but id does not exist MarketConfig: " + config);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public MarketConfig delete(String id) {
+
+        LOG.info(() -> "Deleting Market config for id: " + id);
+
+        final MarketConfig marketToRemove = logDatastore.get(KEY_PREFIX + id, MarketConfig.class);
+        if (marketToRemove != null) {
+            logDatastore.delete(KEY_PREFIX + id);
+            return marketToRemove;
+        } else {
+            LOG.warn("Trying to delete MarketConfig but id does not exist. MarketConfig id: " + id);
+            return null;
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private String generateUuid() {
+        return UUID.randomUUID().toString();
+    }
+}
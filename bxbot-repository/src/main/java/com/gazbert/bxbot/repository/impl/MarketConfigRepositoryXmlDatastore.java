@@ -30,6 +30,7 @@ import com.gazbert.bxbot.domain.market.MarketConfig;
 import com.gazbert.bxbot.repository.MarketConfigRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,6 +49,7 @@ import static com.gazbert.bxbot.datastore.FileLocations.MARKETS_CONFIG_XSD_FILEN
  * @author gazbert
  */
 @Repository("marketConfigRepository")
+@Profile("!" + LogDatastore.PROFILE)
 @Transactional
 public class MarketConfigRepositoryXmlDatastore implements MarketConfigRepository {
 
@@ -101,19 +103,12 @@ public class MarketConfigRepositoryXmlDatastore implements MarketConfigRepositor
                 final MarketConfig newMarketConfig = new MarketConfig(config);
                 newMarketConfig.setId(generateUuid());
 
-                internalMarketsConfig.getMarkets().add(adaptExternalToInternalConfig(newMarketConfig));
+                final MarketType savedMarket = adaptExternalToInternalConfig(newMarketConfig);
+                internalMarketsConfig.getMarkets().add(savedMarket);
                 ConfigurationManager.saveConfig(MarketsType.class, internalMarketsConfig,
                         MARKETS_CONFIG_XML_FILENAME);
 
-                final MarketsType updatedInternalMarketsConfig = ConfigurationManager.loadConfig(
-                        MarketsType.class, MARKETS_CONFIG_XML_FILENAME, MARKETS_CONFIG_XSD_FILENAME);
-
-                return adaptInternalToExternalConfig(
-                        updatedInternalMarketsConfig.getMarkets()
-                                .stream()
-                                .filter((item) -> item.getId().equals(newMarketConfig.getId()))
-                                .distinct()
-                                .collect(Collectors.toList()));
+                return adaptInternalToExternalConfig(Collections.singletonList(savedMarket));
             } else {
                 throw new IllegalStateException("Trying to create new MarketConfig but null/empty id already exists. " +
                         "MarketConfig: " + config + " Existing MarketConfig: "
@@ -127,19 +122,12 @@ public class MarketConfigRepositoryXmlDatastore implements MarketConfigRepositor
             if (!marketTypes.isEmpty()) {
 
                 internalMarketsConfig.getMarkets().remove(marketTypes.get(0)); // will only be 1 unique strat
-                internalMarketsConfig.getMarkets().add(adaptExternalToInternalConfig(config));
+                final MarketType savedMarket = adaptExternalToInternalConfig(config);
+                internalMarketsConfig.getMarkets().add(savedMarket);
                 ConfigurationManager.saveConfig(MarketsType.class, internalMarketsConfig,
                         MARKETS_CONFIG_XML_FILENAME);
 
-                final MarketsType updatedInternalMarketsConfig = ConfigurationManager.loadConfig(
-                        MarketsType.class, MARKETS_CONFIG_XML_FILENAME, MARKETS_CONFIG_XSD_FILENAME);
-
-                return adaptInternalToExternalConfig(
-                        updatedInternalMarketsConfig.getMarkets()
-                                .stream()
-                                .filter((item) -> item.getId().equals(config.getId()))
-                                .distinct()
-                                .collect(Collectors.toList()));
+                return adaptInternalToExternalConfig(Collections.singletonList(savedMarket));
             } else {
                 LOG.warn("Trying to update MarketConfig but id does not exist MarketConfig: " + config +
                         " Existing MarketConfig: " + adaptAllInternalToAllExternalConfig(internalMarketsConfig));
@@ -195,6 +183,7 @@ public class MarketConfigRepositoryXmlDatastore implements MarketConfigRepositor
             marketConfig.setBaseCurrency(item.getBaseCurrency());
             marketConfig.setCounterCurrency(item.getCounterCurrency());
             marketConfig.setTradingStrategyId(item.getTradingStrategyId());
+            marketConfig.setTradeCycleInterval(item.getTradeCycleInterval());
 
             marketConfigItems.add(marketConfig);
         });
@@ -216,6 +205,7 @@ public class MarketConfigRepositoryXmlDatastore implements MarketConfigRepositor
             marketConfig.setBaseCurrency(internalMarketConfig.getBaseCurrency());
             marketConfig.setCounterCurrency(internalMarketConfig.getCounterCurrency());
             marketConfig.setTradingStrategyId(internalMarketConfig.getTradingStrategyId());
+            marketConfig.setTradeCycleInterval(internalMarketConfig.getTradeCycleInterval());
 
             return marketConfig;
         }
@@ -231,6 +221,7 @@ public class MarketConfigRepositoryXmlDatastore implements MarketConfigRepositor
         marketType.setBaseCurrency(externalMarketConfig.getBaseCurrency());
         marketType.setCounterCurrency(externalMarketConfig.getCounterCurrency());
         marketType.setTradingStrategyId(externalMarketConfig.getTradingStrategyId());
+        marketType.setTradeCycleInterval(externalMarketConfig.getTradeCycleInterval());
         return marketType;
     }
 
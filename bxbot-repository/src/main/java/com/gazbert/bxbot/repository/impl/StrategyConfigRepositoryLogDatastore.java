@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.strategy.StrategyConfig;
+import com.gazbert.bxbot.repository.StrategyConfigRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A log datastore implementation of the Strategy config repository.
+ * <p>
+ * Each Strategy config is its own record, keyed by id.
+ *
+ * @author gazbert
+ */
+@Repository("strategyConfigRepository")
+@Profile(LogDatastore.PROFILE)
+@Transactional
+public class StrategyConfigRepositoryLogDatastore implements StrategyConfigRepository {
+
+    static final String KEY_PREFIX = "strategy/";
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final LogDatastore logDatastore;
+
+
+    @Autowired
+    public StrategyConfigRepositoryLogDatastore(LogDatastore logDatastore) {
+        this.logDatastore = logDatastore;
+    }
+
+    @Override
+    public List<StrategyConfig> findAll() {
+        LOG.info(() -> "Fetching all Strategy configs...");
+        return logDatastore.getAll(KEY_PREFIX, StrategyConfig.class);
+    }
+
+    @Override
+    public StrategyConfig findById(String id) {
+        LOG.info(() -> "Fetching Strategy config for id: " + id);
+        return logDatastore.get(KEY_PREFIX + id, StrategyConfig.class);
+    }
+
+    @Override
+    public StrategyConfig save(StrategyConfig config) {
+
+        if (config.getId() == null || config.getId().isEmpty()) {
+
+            LOG.info(() -> "About to create StrategyConfig: " + config);
+
+            final StrategyConfig newStrategyConfig = new StrategyConfig(config);
+            newStrategyConfig.setId(generateUuid());
+            logDatastore.put(KEY_PREFIX + newStrategyConfig.getId(), newStrategyConfig);
+            return logDatastore.get(KEY_PREFIX + newStrategyConfig.getId(), StrategyConfig.class);
+
+        } else {
+
+            LOG.info(() -> "About to update StrategyConfig: " + config);
+
+            if (logDatastore.get(KEY_PREFIX + config.getId(), StrategyConfig.class) != null) {
+                logDatastore.put(KEY_PREFIX + config.getId(), config);
+                return logDatastore.get(KEY_PREFIX + config.getId(), StrategyConfig.class);
+            } else {
+                LOG.warn("Trying to update StrategyConfig but id does not exist StrategyConfig: " + config);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public StrategyConfig delete(String id) {
+
+        LOG.info(() -> "Deleting Strategy config for id: " + id);
+
+        final StrategyConfig strategyToRemove = logDatastore.get(KEY_PREFIX + id, StrategyConfig.class);
+        if (strategyToRemove != null) {
+            logDatastore.delete(KEY_PREFIX + id);
+            return strategyToRemove;
+        } else {
+            LOG.warn("Trying to delete StrategyConfig but id does not exist. StrategyConfig id: " + id);
+            return null;
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private String generateUuid() {
+        return UUID.randomUUID().toString();
+    }
+}
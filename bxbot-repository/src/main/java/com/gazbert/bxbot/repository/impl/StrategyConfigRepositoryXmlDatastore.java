@@ -32,6 +32,7 @@ import com.gazbert.bxbot.domain.strategy.StrategyConfig;
 import com.gazbert.bxbot.repository.StrategyConfigRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -50,6 +51,7 @@ import static com.gazbert.bxbot.datastore.FileLocations.STRATEGIES_CONFIG_XSD_FI
  * @author gazbert
  */
 @Repository("strategyConfigRepository")
+@Profile("!" + LogDatastore.PROFILE)
 @Transactional
 public class StrategyConfigRepositoryXmlDatastore implements StrategyConfigRepository {
 
@@ -102,19 +104,12 @@ public class StrategyConfigRepositoryXmlDatastore implements StrategyConfigRepos
                 final StrategyConfig newStrategyConfig = new StrategyConfig(config);
                 newStrategyConfig.setId(generateUuid());
 
-                internalStrategiesConfig.getStrategies().add(adaptExternalToInternalConfig(newStrategyConfig));
+                final StrategyType savedStrategy = adaptExternalToInternalConfig(newStrategyConfig);
+                internalStrategiesConfig.getStrategies().add(savedStrategy);
                 ConfigurationManager.saveConfig(TradingStrategiesType.class, internalStrategiesConfig,
                         STRATEGIES_CONFIG_XML_FILENAME);
 
-                final TradingStrategiesType updatedInternalStrategiesConfig = ConfigurationManager.loadConfig(
-                        TradingStrategiesType.class, STRATEGIES_CONFIG_XML_FILENAME, STRATEGIES_CONFIG_XSD_FILENAME);
-
-                return adaptInternalToExternalConfig(
-                        updatedInternalStrategiesConfig.getStrategies()
-                                .stream()
-                                .filter((item) -> item.getId().equals(newStrategyConfig.getId()))
-                                .distinct()
-                                .collect(Collectors.toList()));
+                return adaptInternalToExternalConfig(Collections.singletonList(savedStrategy));
             } else {
                 throw new IllegalStateException("Trying to create new StrategyConfig but null/empty id already exists. " +
                         "StrategyConfig: " + config + " Existing StrategyConfigs: "
@@ -128,18 +123,11 @@ public class StrategyConfigRepositoryXmlDatastore implements StrategyConfigRepos
             if (!strategyTypes.isEmpty()) {
 
                 internalStrategiesConfig.getStrategies().remove(strategyTypes.get(0)); // will only be 1 unique strat
-                internalStrategiesConfig.getStrategies().add(adaptExternalToInternalConfig(config));
+                final StrategyType savedStrategy = adaptExternalToInternalConfig(config);
+                internalStrategiesConfig.getStrategies().add(savedStrategy);
                 ConfigurationManager.saveConfig(TradingStrategiesType.class, internalStrategiesConfig, STRATEGIES_CONFIG_XML_FILENAME);
 
-                final TradingStrategiesType updatedInternalStrategiesConfig = ConfigurationManager.loadConfig(
-                        TradingStrategiesType.class, STRATEGIES_CONFIG_XML_FILENAME, STRATEGIES_CONFIG_XSD_FILENAME);
-
-                return adaptInternalToExternalConfig(
-                        updatedInternalStrategiesConfig.getStrategies()
-                                .stream()
-                                .filter((item) -> item.getId().equals(config.getId()))
-                                .distinct()
-                                .collect(Collectors.toList()));
+                return adaptInternalToExternalConfig(Collections.singletonList(savedStrategy));
             } else {
                 LOG.warn("Trying to update StrategyConfig but id does not exist StrategyConfig: " + config +
                         " Existing StrategyConfig: " + adaptAllInternalToAllExternalConfig(internalStrategiesConfig));
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.domain.strategy.StrategyConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static com.gazbert.bxbot.datastore.FileLocations.EMAIL_ALERTS_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.ENGINE_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.MARKETS_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.STRATEGIES_CONFIG_XML_FILENAME;
+
+/**
+ * One-shot copy of the XML config files into the {@link LogDatastore}.
+ * <p>
+ * Any config file that does not exist is skipped. The XML files are left as they are; once migrated, the bot no
+ * longer reads them.
+ *
+ * @author gazbert
+ */
+final class XmlDatastoreMigrator {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private XmlDatastoreMigrator() {
+    }
+
+    static void migrate(LogDatastore logDatastore) {
+
+        if (configFileExists(ENGINE_CONFIG_XML_FILENAME)) {
+            logDatastore.put(EngineConfigRepositoryLogDatastore.KEY,
+                    new EngineConfigRepositoryXmlDatastore().get());
+        }
+
+        if (configFileExists(EXCHANGE_CONFIG_XML_FILENAME)) {
+            logDatastore.put(ExchangeConfigRepositoryLogDatastore.KEY,
+                    new ExchangeConfigRepositoryXmlDatastore().get());
+        }
+
+        if (configFileExists(EMAIL_ALERTS_CONFIG_XML_FILENAME)) {
+            logDatastore.put(EmailAlertsConfigRepositoryLogDatastore.KEY,
+                    new EmailAlertsConfigRepositoryXmlDatastore().get());
+        }
+
+        if (configFileExists(STRATEGIES_CONFIG_XML_FILENAME)) {
+            final List<StrategyConfig> strategies = new StrategyConfigRepositoryXmlDatastore().findAll();
+            strategies.forEach(strategy ->
+                    logDatastore.put(StrategyConfigRepositoryLogDatastore.KEY_PREFIX + strategy.getId(), strategy));
+            LOG.info(() -> "Migrated " + strategies.size() + " Strategy configs");
+        }
+
+        if (configFileExists(MARKETS_CONFIG_XML_FILENAME)) {
+            final List<MarketConfig> markets = new MarketConfigRepositoryXmlDatastore().findAll();
+            markets.forEach(market ->
+                    logDatastore.put(MarketConfigRepositoryLogDatastore.KEY_PREFIX + market.getId(), market));
+            LOG.info(() -> "Migrated " + markets.size() + " Market configs");
+        }
+    }
+
+    private static boolean configFileExists(String xmlConfigFile) {
+        if (Files.exists(Paths.get(xmlConfigFile))) {
+            LOG.info(() -> "Migrating [" + xmlConfigFile + "] to the log datastore...");
+            return true;
+        }
+        LOG.info(() -> "No [" + xmlConfigFile + "] to migrate to the log datastore");
+        return false;
+    }
+}
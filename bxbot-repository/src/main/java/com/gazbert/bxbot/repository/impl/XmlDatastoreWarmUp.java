@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.datastore.ConfigurationManager;
+import com.gazbert.bxbot.datastore.emailalerts.generated.EmailAlertsType;
+import com.gazbert.bxbot.datastore.engine.generated.EngineType;
+import com.gazbert.bxbot.datastore.exchange.generated.ExchangeType;
+import com.gazbert.bxbot.datastore.market.generated.MarketsType;
+import com.gazbert.bxbot.datastore.strategy.generated.TradingStrategiesType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+import static com.gazbert.bxbot.datastore.FileLocations.EMAIL_ALERTS_CONFIG_XSD_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.ENGINE_CONFIG_XSD_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XSD_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.MARKETS_CONFIG_XSD_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.STRATEGIES_CONFIG_XSD_FILENAME;
+
+/**
+ * Builds the JAXB contexts and compiles the XML Schemas for all of the XML datastore config at startup, so the
+ * Trading Engine and the REST API don't pay for it on their first config load or save.
+ *
+ * @author gazbert
+ */
+@Component
+@Profile("!" + LogDatastore.PROFILE)
+public class XmlDatastoreWarmUp {
+
+    @PostConstruct
+    public void warmUp() {
+        ConfigurationManager.warmUp(EmailAlertsType.class, EMAIL_ALERTS_CONFIG_XSD_FILENAME);
+        ConfigurationManager.warmUp(EngineType.class, ENGINE_CONFIG_XSD_FILENAME);
+        ConfigurationManager.warmUp(ExchangeType.class, EXCHANGE_CONFIG_XSD_FILENAME);
+        ConfigurationManager.warmUp(MarketsType.class, MARKETS_CONFIG_XSD_FILENAME);
+        ConfigurationManager.warmUp(TradingStrategiesType.class, STRATEGIES_CONFIG_XSD_FILENAME);
+    }
+}
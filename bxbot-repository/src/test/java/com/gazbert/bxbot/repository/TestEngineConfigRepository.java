@@ -57,6 +57,12 @@ public class TestEngineConfigRepository {
     private static final String ENGINE_EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal ENGINE_EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
     private static final int ENGINE_TRADE_CYCLE_INTERVAL = 60;
+    private static final Integer ENGINE_STRATEGY_EXECUTION_THREADS = 4;
+    private static final Integer ENGINE_STRATEGY_EXECUTION_TIMEOUT = 30;
+    private static final String ENGINE_TRADE_CYCLE_SCHEDULING = "FIXED_RATE";
+    private static final String ENGINE_MISSED_TRADE_CYCLE_POLICY = "SKIP";
+    private static final Boolean ENGINE_TRADE_CYCLE_CACHING = true;
+    private static final Integer ENGINE_BALANCE_RECONCILE_INTERVAL = 300;
 
 
     @Before
@@ -82,6 +88,12 @@ public class TestEngineConfigRepository {
         assertThat(engineConfig.getEmergencyStopCurrency()).isEqualTo(ENGINE_EMERGENCY_STOP_CURRENCY);
         assertThat(engineConfig.getEmergencyStopBalance()).isEqualTo(ENGINE_EMERGENCY_STOP_BALANCE);
         assertThat(engineConfig.getTradeCycleInterval()).isEqualTo(ENGINE_TRADE_CYCLE_INTERVAL);
+        assertThat(engineConfig.getStrategyExecutionThreads()).isEqualTo(ENGINE_STRATEGY_EXECUTION_THREADS);
+        assertThat(engineConfig.getStrategyExecutionTimeout()).isEqualTo(ENGINE_STRATEGY_EXECUTION_TIMEOUT);
+        assertThat(engineConfig.getTradeCycleScheduling()).isEqualTo(ENGINE_TRADE_CYCLE_SCHEDULING);
+        assertThat(engineConfig.getMissedTradeCyclePolicy()).isEqualTo(ENGINE_MISSED_TRADE_CYCLE_POLICY);
+        assertThat(engineConfig.getTradeCycleCaching()).isEqualTo(ENGINE_TRADE_CYCLE_CACHING);
+        assertThat(engineConfig.getBalanceReconcileInterval()).isEqualTo(ENGINE_BALANCE_RECONCILE_INTERVAL);
 
         PowerMock.verifyAll();
     }
@@ -107,6 +119,12 @@ public class TestEngineConfigRepository {
         assertThat(savedConfig.getEmergencyStopCurrency()).isEqualTo(ENGINE_EMERGENCY_STOP_CURRENCY);
         assertThat(savedConfig.getEmergencyStopBalance()).isEqualTo(ENGINE_EMERGENCY_STOP_BALANCE);
         assertThat(savedConfig.getTradeCycleInterval()).isEqualTo(ENGINE_TRADE_CYCLE_INTERVAL);
+        assertThat(savedConfig.getStrategyExecutionThreads()).isEqualTo(ENGINE_STRATEGY_EXECUTION_THREADS);
+        assertThat(savedConfig.getStrategyExecutionTimeout()).isEqualTo(ENGINE_STRATEGY_EXECUTION_TIMEOUT);
+        assertThat(savedConfig.getTradeCycleScheduling()).isEqualTo(ENGINE_TRADE_CYCLE_SCHEDULING);
+        assertThat(savedConfig.getMissedTradeCyclePolicy()).isEqualTo(ENGINE_MISSED_TRADE_CYCLE_POLICY);
+        assertThat(savedConfig.getTradeCycleCaching()).isEqualTo(ENGINE_TRADE_CYCLE_CACHING);
+        assertThat(savedConfig.getBalanceReconcileInterval()).isEqualTo(ENGINE_BALANCE_RECONCILE_INTERVAL);
 
         PowerMock.verifyAll();
     }
@@ -122,6 +140,12 @@ public class TestEngineConfigRepository {
         internalConfig.setEmergencyStopBalance(ENGINE_EMERGENCY_STOP_BALANCE);
         internalConfig.setEmergencyStopCurrency(ENGINE_EMERGENCY_STOP_CURRENCY);
         internalConfig.setTradeCycleInterval(ENGINE_TRADE_CYCLE_INTERVAL);
+        internalConfig.setStrategyExecutionThreads(ENGINE_STRATEGY_EXECUTION_THREADS);
+        internalConfig.setStrategyExecutionTimeout(ENGINE_STRATEGY_EXECUTION_TIMEOUT);
+        internalConfig.setTradeCycleScheduling(ENGINE_TRADE_CYCLE_SCHEDULING);
+        internalConfig.setMissedTradeCyclePolicy(ENGINE_MISSED_TRADE_CYCLE_POLICY);
+        internalConfig.setTradeCycleCaching(ENGINE_TRADE_CYCLE_CACHING);
+        internalConfig.setBalanceReconcileInterval(ENGINE_BALANCE_RECONCILE_INTERVAL);
         return internalConfig;
     }
 
@@ -132,6 +156,12 @@ public class TestEngineConfigRepository {
         externalConfig.setEmergencyStopBalance(ENGINE_EMERGENCY_STOP_BALANCE);
         externalConfig.setEmergencyStopCurrency(ENGINE_EMERGENCY_STOP_CURRENCY);
         externalConfig.setTradeCycleInterval(ENGINE_TRADE_CYCLE_INTERVAL);
+        externalConfig.setStrategyExecutionThreads(ENGINE_STRATEGY_EXECUTION_THREADS);
+        externalConfig.setStrategyExecutionTimeout(ENGINE_STRATEGY_EXECUTION_TIMEOUT);
+        externalConfig.setTradeCycleScheduling(ENGINE_TRADE_CYCLE_SCHEDULING);
+        externalConfig.setMissedTradeCyclePolicy(ENGINE_MISSED_TRADE_CYCLE_POLICY);
+        externalConfig.setTradeCycleCaching(ENGINE_TRADE_CYCLE_CACHING);
+        externalConfig.setBalanceReconcileInterval(ENGINE_BALANCE_RECONCILE_INTERVAL);
         return externalConfig;
     }
 }
@@ -29,6 +29,7 @@ import com.gazbert.bxbot.domain.exchange.AuthenticationConfig;
 import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
 import com.gazbert.bxbot.domain.exchange.NetworkConfig;
 import com.gazbert.bxbot.domain.exchange.OptionalConfig;
+import com.gazbert.bxbot.domain.exchange.RateLimitConfig;
 import com.gazbert.bxbot.repository.impl.ExchangeConfigRepositoryXmlDatastore;
 import org.junit.Before;
 import org.junit.Test;
@@ -66,6 +67,11 @@ public class TestExchangeConfigRepository {
     private static final String SECRET_CONFIG_ITEM_VALUE = "secret-key";
 
     private static final Integer CONNECTION_TIMEOUT = 30;
+    private static final Integer MAX_CONNECTIONS_PER_HOST = 4;
+    private static final Integer IDLE_CONNECTION_TIMEOUT = 60;
+    private static final String RATE_LIMIT_ENDPOINT_CLASS = "trading";
+    private static final Integer RATE_LIMIT_MAX_REQUESTS = 10;
+    private static final Integer RATE_LIMIT_PERIOD = 1;
     private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504);
     private static final List<String> NON_FATAL_ERROR_MESSAGES = Arrays.asList(
             "Connection refused", "Connection reset", "Remote host closed connection during handshake");
@@ -104,6 +110,13 @@ public class TestExchangeConfigRepository {
         assertThat(exchangeConfig.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
         assertThat(exchangeConfig.getNetworkConfig().getNonFatalErrorCodes()).isEqualTo(NON_FATAL_ERROR_CODES);
         assertThat(exchangeConfig.getNetworkConfig().getNonFatalErrorMessages()).isEqualTo(NON_FATAL_ERROR_MESSAGES);
+        assertThat(exchangeConfig.getNetworkConfig().getMaxConnectionsPerHost()).isEqualTo(MAX_CONNECTIONS_PER_HOST);
+        assertThat(exchangeConfig.getNetworkConfig().getIdleConnectionTimeout()).isEqualTo(IDLE_CONNECTION_TIMEOUT);
+        assertThat(exchangeConfig.getNetworkConfig().getRateLimits().size()).isEqualTo(1);
+        final RateLimitConfig rateLimit = exchangeConfig.getNetworkConfig().getRateLimits().get(0);
+        assertThat(rateLimit.getEndpointClass()).isEqualTo(RATE_LIMIT_ENDPOINT_CLASS);
+        assertThat(rateLimit.getMaxRequests()).isEqualTo(RATE_LIMIT_MAX_REQUESTS);
+        assertThat(rateLimit.getPeriod()).isEqualTo(RATE_LIMIT_PERIOD);
         assertThat(exchangeConfig.getOptionalConfig().getItems().get(BUY_FEE_CONFIG_ITEM_KEY)).isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
         assertThat(exchangeConfig.getOptionalConfig().getItems().get(SELL_FEE_CONFIG_ITEM_KEY)).isEqualTo(SELL_FEE_CONFIG_ITEM_VALUE);
 
@@ -141,6 +154,10 @@ public class TestExchangeConfigRepository {
         assertThat(savedExchangeConfig.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
         assertThat(savedExchangeConfig.getNetworkConfig().getNonFatalErrorCodes()).isEqualTo(NON_FATAL_ERROR_CODES);
         assertThat(savedExchangeConfig.getNetworkConfig().getNonFatalErrorMessages()).isEqualTo(NON_FATAL_ERROR_MESSAGES);
+        assertThat(savedExchangeConfig.getNetworkConfig().getMaxConnectionsPerHost()).isEqualTo(MAX_CONNECTIONS_PER_HOST);
+        assertThat(savedExchangeConfig.getNetworkConfig().getIdleConnectionTimeout()).isEqualTo(IDLE_CONNECTION_TIMEOUT);
+        assertThat(savedExchangeConfig.getNetworkConfig().getRateLimits().get(0).getEndpointClass())
+                .isEqualTo(RATE_LIMIT_ENDPOINT_CLASS);
         assertThat(savedExchangeConfig.getOptionalConfig().getItems().get(BUY_FEE_CONFIG_ITEM_KEY)).isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
         assertThat(savedExchangeConfig.getOptionalConfig().getItems().get(SELL_FEE_CONFIG_ITEM_KEY)).isEqualTo(SELL_FEE_CONFIG_ITEM_VALUE);
 
@@ -171,6 +188,15 @@ public class TestExchangeConfigRepository {
         networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
         networkConfig.setNonFatalErrorCodes(nonFatalErrorCodes);
         networkConfig.setNonFatalErrorMessages(nonFatalErrorMessages);
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        final RateLimitType rateLimit = new RateLimitType();
+        rateLimit.setEndpointClass(RATE_LIMIT_ENDPOINT_CLASS);
+        rateLimit.setMaxRequests(RATE_LIMIT_MAX_REQUESTS);
+        rateLimit.setPeriod(RATE_LIMIT_PERIOD);
+        final RateLimitsType rateLimits = new RateLimitsType();
+        rateLimits.getRateLimits().add(rateLimit);
+        networkConfig.setRateLimits(rateLimits);
 
         final ConfigItemType buyFee = new ConfigItemType();
         buyFee.setName(BUY_FEE_CONFIG_ITEM_KEY);
@@ -203,6 +229,10 @@ public class TestExchangeConfigRepository {
         networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
         networkConfig.setNonFatalErrorCodes(NON_FATAL_ERROR_CODES);
         networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        networkConfig.getRateLimits().add(
+                new RateLimitConfig(RATE_LIMIT_ENDPOINT_CLASS, RATE_LIMIT_MAX_REQUESTS, RATE_LIMIT_PERIOD));
 
         final OptionalConfig optionalConfig = new OptionalConfig();
         optionalConfig.getItems().put(BUY_FEE_CONFIG_ITEM_KEY, BUY_FEE_CONFIG_ITEM_VALUE);
@@ -65,6 +65,7 @@ public class TestMarketConfigRepository {
     private static final String MARKET_1_COUNTER_CURRENCY = "USD";
     private static final boolean MARKET_1_IS_ENABLED = true;
     private static final String MARKET_1_TRADING_STRATEGY_ID = "macd_trend_follower";
+    private static final Integer MARKET_1_TRADE_CYCLE_INTERVAL = 5;
 
     private static final String MARKET_2_ID = "gdax_gbp/btc";
     private static final String MARKET_2_NAME = "BTC/GBP";
@@ -107,6 +108,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfigItems.get(0).getBaseCurrency()).isEqualTo(MARKET_1_BASE_CURRENCY);
         assertThat(marketConfigItems.get(0).getCounterCurrency()).isEqualTo(MARKET_1_COUNTER_CURRENCY);
         assertThat(marketConfigItems.get(0).getTradingStrategyId()).isEqualTo(MARKET_1_TRADING_STRATEGY_ID);
+        assertThat(marketConfigItems.get(0).getTradeCycleInterval()).isEqualTo(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         assertThat(marketConfigItems.get(1).getId()).isEqualTo(MARKET_2_ID);
         assertThat(marketConfigItems.get(1).getName()).isEqualTo(MARKET_2_NAME);
@@ -114,6 +116,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfigItems.get(1).getBaseCurrency()).isEqualTo(MARKET_2_BASE_CURRENCY);
         assertThat(marketConfigItems.get(1).getCounterCurrency()).isEqualTo(MARKET_2_COUNTER_CURRENCY);
         assertThat(marketConfigItems.get(1).getTradingStrategyId()).isEqualTo(MARKET_2_TRADING_STRATEGY_ID);
+        assertThat(marketConfigItems.get(1).getTradeCycleInterval()).isNull();
 
         PowerMock.verifyAll();
     }
@@ -138,6 +141,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfig.getBaseCurrency()).isEqualTo(MARKET_1_BASE_CURRENCY);
         assertThat(marketConfig.getCounterCurrency()).isEqualTo(MARKET_1_COUNTER_CURRENCY);
         assertThat(marketConfig.getTradingStrategyId()).isEqualTo(MARKET_1_TRADING_STRATEGY_ID);
+        assertThat(marketConfig.getTradeCycleInterval()).isEqualTo(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         PowerMock.verifyAll();
     }
@@ -174,12 +178,6 @@ public class TestMarketConfigRepository {
                 anyObject(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME));
 
-        expect(ConfigurationManager.loadConfig(
-                eq(MarketsType.class),
-                eq(MARKETS_CONFIG_XML_FILENAME),
-                eq(MARKETS_CONFIG_XSD_FILENAME))).
-                andReturn(allTheInternalMarketsConfig());
-
         PowerMock.replayAll();
 
         final MarketConfigRepository marketConfigRepository = new MarketConfigRepositoryXmlDatastore();
@@ -191,6 +189,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfig.getBaseCurrency()).isEqualTo(MARKET_1_BASE_CURRENCY);
         assertThat(marketConfig.getCounterCurrency()).isEqualTo(MARKET_1_COUNTER_CURRENCY);
         assertThat(marketConfig.getTradingStrategyId()).isEqualTo(MARKET_1_TRADING_STRATEGY_ID);
+        assertThat(marketConfig.getTradeCycleInterval()).isEqualTo(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         PowerMock.verifyAll();
     }
@@ -227,12 +226,6 @@ public class TestMarketConfigRepository {
                 anyObject(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME));
 
-        expect(ConfigurationManager.loadConfig(
-                eq(MarketsType.class),
-                eq(MARKETS_CONFIG_XML_FILENAME),
-                eq(MARKETS_CONFIG_XSD_FILENAME))).
-                andReturn(allTheInternalMarketsConfigPlusNewOne());
-
         final MarketConfigRepository marketConfigRepository = PowerMock.createPartialMock(
                 MarketConfigRepositoryXmlDatastore.class, MOCKED_GENERATE_UUID_METHOD);
         PowerMock.expectPrivate(marketConfigRepository, MOCKED_GENERATE_UUID_METHOD).andReturn(GENERATED_MARKET_ID);
@@ -276,6 +269,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfig.getBaseCurrency()).isEqualTo(MARKET_1_BASE_CURRENCY);
         assertThat(marketConfig.getCounterCurrency()).isEqualTo(MARKET_1_COUNTER_CURRENCY);
         assertThat(marketConfig.getTradingStrategyId()).isEqualTo(MARKET_1_TRADING_STRATEGY_ID);
+        assertThat(marketConfig.getTradeCycleInterval()).isEqualTo(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         PowerMock.verifyAll();
     }
@@ -311,6 +305,7 @@ public class TestMarketConfigRepository {
         marketType1.setBaseCurrency(MARKET_1_BASE_CURRENCY);
         marketType1.setCounterCurrency(MARKET_1_COUNTER_CURRENCY);
         marketType1.setTradingStrategyId(MARKET_1_TRADING_STRATEGY_ID);
+        marketType1.setTradeCycleInterval(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         final MarketType marketType2 = new MarketType();
         marketType2.setId(MARKET_2_ID);
@@ -327,21 +322,6 @@ public class TestMarketConfigRepository {
         return marketsType;
     }
 
-    private static MarketsType allTheInternalMarketsConfigPlusNewOne() {
-
-        final MarketType newMarket = new MarketType();
-        newMarket.setId(GENERATED_MARKET_ID);
-        newMarket.setName(NEW_MARKET_NAME);
-        newMarket.setEnabled(NEW_MARKET_IS_ENABLED);
-        newMarket.setBaseCurrency(NEW_MARKET_BASE_CURRENCY);
-        newMarket.setCounterCurrency(NEW_MARKET_COUNTER_CURRENCY);
-        newMarket.setTradingStrategyId(NEW_MARKET_TRADING_STRATEGY_ID);
-
-        final MarketsType existingMarketsPlusNewOne = allTheInternalMarketsConfig();
-        existingMarketsPlusNewOne.getMarkets().add(newMarket);
-        return existingMarketsPlusNewOne;
-    }
-
     private static MarketConfig someExternalMarketConfig() {
         return new MarketConfig(MARKET_1_ID, MARKET_1_NAME, MARKET_1_BASE_CURRENCY, MARKET_1_COUNTER_CURRENCY,
                 MARKET_1_IS_ENABLED, MARKET_1_TRADING_STRATEGY_ID);
@@ -185,12 +185,6 @@ public class TestStrategyConfigRepository {
                 anyObject(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME));
 
-        expect(ConfigurationManager.loadConfig(
-                eq(TradingStrategiesType.class),
-                eq(STRATEGIES_CONFIG_XML_FILENAME),
-                eq(STRATEGIES_CONFIG_XSD_FILENAME))).
-                andReturn(allTheInternalStrategiesConfig());
-
         PowerMock.replayAll();
 
         final StrategyConfigRepository strategyConfigRepository = new StrategyConfigRepositoryXmlDatastore();
@@ -240,12 +234,6 @@ public class TestStrategyConfigRepository {
                 anyObject(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME));
 
-        expect(ConfigurationManager.loadConfig(
-                eq(TradingStrategiesType.class),
-                eq(STRATEGIES_CONFIG_XML_FILENAME),
-                eq(STRATEGIES_CONFIG_XSD_FILENAME))).
-                andReturn(allTheInternalStrategiesConfigPlusNewOne());
-
         final StrategyConfigRepository strategyConfigRepository = PowerMock.createPartialMock(
                 StrategyConfigRepositoryXmlDatastore.class, MOCKED_GENERATE_UUID_METHOD);
         PowerMock.expectPrivate(strategyConfigRepository, MOCKED_GENERATE_UUID_METHOD).andReturn(GENERATED_STRAT_ID);
@@ -357,32 +345,6 @@ public class TestStrategyConfigRepository {
         return tradingStrategiesType;
     }
 
-    private static TradingStrategiesType allTheInternalStrategiesConfigPlusNewOne() {
-
-        final ConfigItemType buyPriceConfigItem = new ConfigItemType();
-        buyPriceConfigItem.setName(BUY_PRICE_CONFIG_ITEM_KEY);
-        buyPriceConfigItem.setValue(BUY_PRICE_CONFIG_ITEM_VALUE);
-
-        final ConfigItemType amountToBuyConfigItem = new ConfigItemType();
-        amountToBuyConfigItem.setName(AMOUNT_TO_BUY_CONFIG_ITEM_KEY);
-        amountToBuyConfigItem.setValue(AMOUNT_TO_BUY_CONFIG_ITEM_VALUE);
-
-        final OptionalConfigType configurationType = new OptionalConfigType();
-        configurationType.getConfigItem().add(buyPriceConfigItem);
-        configurationType.getConfigItem().add(amountToBuyConfigItem);
-
-        final StrategyType newStrat = new StrategyType();
-        newStrat.setId(GENERATED_STRAT_ID);
-        newStrat.setName(NEW_STRAT_NAME);
-        newStrat.setDescription(NEW_STRAT_DESCRIPTION);
-        newStrat.setClassName(NEW_STRAT_CLASSNAME);
-        newStrat.setOptionalConfig(configurationType);
-
-        final TradingStrategiesType existingStatsPlusNewOne = allTheInternalStrategiesConfig();
-        existingStatsPlusNewOne.getStrategies().add(newStrat);
-        return existingStatsPlusNewOne;
-    }
-
     private static StrategyConfig someExternalStrategyConfig() {
         final Map<String, String> configItems = new HashMap<>();
         configItems.put(BUY_PRICE_CONFIG_ITEM_KEY, BUY_PRICE_CONFIG_ITEM_VALUE);
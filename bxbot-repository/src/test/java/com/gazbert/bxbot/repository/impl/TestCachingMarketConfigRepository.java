@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.repository.MarketConfigRepository;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.easymock.EasyMock.*;
+
+/**
+ * Tests the caching Market config repository behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestCachingMarketConfigRepository {
+
+    private static final String MARKET_ID = "btc_usd";
+
+    private MarketConfigRepository delegate;
+    private ConfigFileWatcher configFileWatcher;
+
+
+    @Before
+    public void setupForEachTest() {
+        delegate = createMock(MarketConfigRepository.class);
+        configFileWatcher = createMock(ConfigFileWatcher.class);
+    }
+
+    @Test
+    public void whenFindCalledMoreThanOnceThenDelegateIsOnlyReadOnce() {
+
+        expect(configFileWatcher.watch(anyObject(Path.class), anyObject(Runnable.class), anyObject(Runnable.class)))
+                .andReturn(true);
+        expect(delegate.findAll()).andReturn(someMarketConfigs()).once();
+        replay(delegate, configFileWatcher);
+
+        final MarketConfigRepository repository = new CachingMarketConfigRepository(delegate, configFileWatcher);
+        assertThat(repository.findAll().size()).isEqualTo(1);
+        assertThat(repository.findById(MARKET_ID).getId()).isEqualTo(MARKET_ID);
+        assertThat(repository.findById("unknown-id")).isEqualTo(null);
+
+        verify(delegate, configFileWatcher);
+    }
+
+    @Test
+    public void whenSaveCalledThenNextFindReadsDelegate() {
+
+        final MarketConfig marketConfig = someMarketConfigs().get(0);
+
+        expect(configFileWatcher.watch(anyObject(Path.class), anyObject(Runnable.class), anyObject(Runnable.class)))
+                .andReturn(true);
+        expect(delegate.findAll()).andReturn(someMarketConfigs()).times(2);
+        expect(delegate.save(marketConfig)).andReturn(marketConfig);
+        replay(delegate, configFileWatcher);
+
+        final MarketConfigRepository repository = new CachingMarketConfigRepository(delegate, configFileWatcher);
+        repository.findAll();
+        assertThat(repository.save(marketConfig)).isEqualTo(marketConfig);
+        repository.findAll();
+
+        verify(delegate, configFileWatcher);
+    }
+
+    @Test
+    public void whenDeleteCalledThenNextFindReadsDelegate() {
+
+        final MarketConfig marketConfig = someMarketConfigs().get(0);
+
+        expect(configFileWatcher.watch(anyObject(Path.class), anyObject(Runnable.class), anyObject(Runnable.class)))
+                .andReturn(true);
+        expect(delegate.findAll()).andReturn(someMarketConfigs()).times(2);
+        expect(delegate.delete(MARKET_ID)).andReturn(marketConfig);
+        replay(delegate, configFileWatcher);
+
+        final MarketConfigRepository repository = new CachingMarketConfigRepository(delegate, configFileWatcher);
+        repository.findById(MARKET_ID);
+        assertThat(repository.delete(MARKET_ID)).isEqualTo(marketConfig);
+        repository.findById(MARKET_ID);
+
+        verify(delegate, configFileWatcher);
+    }
+
+    @Test
+    public void whenConfigFileCannotBeWatchedThenEveryFindReadsDelegate() {
+
+        expect(configFileWatcher.watch(anyObject(Path.class), anyObject(Runnable.class), anyObject(Runnable.class)))
+                .andReturn(false);
+        expect(delegate.findAll()).andReturn(someMarketConfigs()).times(3);
+        replay(delegate, configFileWatcher);
+
+        final MarketConfigRepository repository = new CachingMarketConfigRepository(delegate, configFileWatcher);
+        repository.findAll();
+        repository.findById(MARKET_ID);
+        repository.findAll();
+
+        verify(delegate, configFileWatcher);
+    }
+
+    @Test
+    public void whenConfigFileStopsBeingWatchedThenEveryFindReadsDelegate() {
+
+        final Capture<Runnable> watchLostListener = newCapture();
+        expect(configFileWatcher.watch(anyObject(Path.class), anyObject(Runnable.class), capture(watchLostListener)))
+                .andReturn(true);
+        expect(delegate.findAll()).andReturn(someMarketConfigs()).times(3);
+        replay(delegate, configFileWatcher);
+
+        final MarketConfigRepository repository = new CachingMarketConfigRepository(delegate, configFileWatcher);
+        repository.findAll();
+        repository.findAll();
+
+        watchLostListener.getValue().run();
+        repository.findAll();
+        repository.findById(MARKET_ID);
+
+        verify(delegate, configFileWatcher);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static List<MarketConfig> someMarketConfigs() {
+        return Collections.singletonList(
+                new MarketConfig(MARKET_ID, "BTC/USD", "btc", "usd", true, "scalping-strategy"));
+    }
+}
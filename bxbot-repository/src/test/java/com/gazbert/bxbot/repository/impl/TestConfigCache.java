@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Tests the config cache behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestConfigCache {
+
+    private static final String MARKET_1_ID = "btc_usd";
+    private static final String MARKET_2_ID = "ltc_usd";
+
+    private AtomicInteger loadCount;
+    private ConfigCache<MarketConfig> cache;
+
+
+    @Before
+    public void setupForEachTest() {
+        loadCount = new AtomicInteger();
+        cache = new ConfigCache<>(this::loadMarkets, MarketConfig::getId, MarketConfig::new);
+    }
+
+    @Test
+    public void whenReadCalledMoreThanOnceThenOnlyFirstReadLoads() {
+
+        assertThat(cache.findAll().size()).isEqualTo(2);
+        assertThat(cache.findById(MARKET_1_ID).getId()).isEqualTo(MARKET_1_ID);
+        assertThat(cache.findById(MARKET_2_ID).getId()).isEqualTo(MARKET_2_ID);
+        assertThat(cache.findAll().size()).isEqualTo(2);
+
+        assertThat(loadCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenFindByIdCalledWithUnknownIdThenReturnNull() {
+        assertThat(cache.findById("unknown-id")).isEqualTo(null);
+    }
+
+    @Test
+    public void whenInvalidatedThenNextReadLoads() {
+
+        cache.findAll();
+        cache.invalidate();
+        cache.findAll();
+        cache.findAll();
+
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenCachedItemReturnedThenItIsACopy() {
+
+        cache.findById(MARKET_1_ID).setName("changed by caller");
+        cache.findAll().forEach(market -> market.setEnabled(false));
+
+        assertThat(cache.findById(MARKET_1_ID).getName()).isEqualTo("BTC/USD");
+        assertThat(cache.findById(MARKET_1_ID).isEnabled()).isEqualTo(true);
+        assertThat(loadCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenDisabledThenEveryReadLoads() {
+
+        cache.disable();
+        cache.findAll();
+        cache.findById(MARKET_1_ID);
+        cache.findAll();
+
+        assertThat(loadCount.get()).isEqualTo(3);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private List<MarketConfig> loadMarkets() {
+        loadCount.incrementAndGet();
+        return Arrays.asList(
+                new MarketConfig(MARKET_1_ID, "BTC/USD", "btc", "usd", true, "scalping-strategy"),
+                new MarketConfig(MARKET_2_ID, "LTC/USD", "ltc", "usd", true, "scalping-strategy"));
+    }
+}
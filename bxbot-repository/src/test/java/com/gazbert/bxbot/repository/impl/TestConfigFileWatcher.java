@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Tests the config file watcher behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestConfigFileWatcher {
+
+    // some platforms poll for file changes every few seconds
+    private static final long CHANGE_TIMEOUT_IN_SECONDS = 30;
+
+    @Rule
+    public TemporaryFolder configDirectory = new TemporaryFolder();
+
+    private ConfigFileWatcher configFileWatcher;
+
+
+    @Before
+    public void setupForEachTest() {
+        configFileWatcher = new ConfigFileWatcher();
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        configFileWatcher.close();
+    }
+
+    @Test
+    public void whenWatchedFileIsModifiedThenListenerIsRun() throws Exception {
+
+        final Path markets = configDirectory.newFile("markets.xml").toPath();
+        final CountDownLatch changed = new CountDownLatch(1);
+
+        assertThat(configFileWatcher.watch(markets, changed::countDown, () -> { })).isEqualTo(true);
+        Files.write(markets, "<markets/>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(changed.await(CHANGE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)).isEqualTo(true);
+    }
+
+    @Test
+    public void whenOtherFileInDirectoryIsModifiedThenListenerIsNotRun() throws Exception {
+
+        final Path markets = configDirectory.newFile("markets.xml").toPath();
+        final Path strategies = configDirectory.newFile("strategies.xml").toPath();
+        final CountDownLatch marketsChanged = new CountDownLatch(1);
+        final CountDownLatch strategiesChanged = new CountDownLatch(1);
+
+        configFileWatcher.watch(markets, marketsChanged::countDown, () -> { });
+        configFileWatcher.watch(strategies, strategiesChanged::countDown, () -> { });
+        Files.write(strategies, "<strategies/>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(strategiesChanged.await(CHANGE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)).isEqualTo(true);
+        assertThat(marketsChanged.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenWatchedDirectoryIsDeletedThenWatchLostListenerIsRun() throws Exception {
+
+        final Path directory = configDirectory.newFolder("config").toPath();
+        final Path markets = Files.createFile(directory.resolve("markets.xml"));
+        final CountDownLatch watchLost = new CountDownLatch(1);
+
+        assertThat(configFileWatcher.watch(markets, () -> { }, watchLost::countDown)).isEqualTo(true);
+        Files.delete(markets);
+        Files.delete(directory);
+
+        assertThat(watchLost.await(CHANGE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)).isEqualTo(true);
+    }
+
+    @Test
+    public void whenDirectoryDoesNotExistThenWatchReturnsFalse() {
+        final Path missing = Paths.get(configDirectory.getRoot().getPath(), "missing", "markets.xml");
+        assertThat(configFileWatcher.watch(missing, () -> { }, () -> { })).isEqualTo(false);
+    }
+}
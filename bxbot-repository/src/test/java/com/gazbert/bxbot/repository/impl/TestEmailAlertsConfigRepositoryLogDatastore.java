@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.emailalerts.EmailAlertsConfig;
+import com.gazbert.bxbot.domain.emailalerts.SmtpConfig;
+import com.gazbert.bxbot.repository.EmailAlertsConfigRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Tests the log datastore Email Alerts config repository behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestEmailAlertsConfigRepositoryLogDatastore {
+
+    private static final boolean ENABLED = true;
+    private static final String HOST = "smtp.host.deathstar.com";
+    private static final int TLS_PORT = 573;
+    private static final String ACCOUNT_USERNAME = "boba@google.com";
+    private static final String ACCOUNT_PASSWORD = "b0b4InD4H0u5e";
+    private static final String FROM_ADDRESS = "boba.fett@Mandalore.com";
+    private static final String TO_ADDRESS = "darth.vader@deathstar.com";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String logFile;
+    private LogDatastore logDatastore;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        logFile = folder.getRoot().toPath().resolve("bxbot-config.log").toString();
+        logDatastore = new LogDatastore(logFile);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenGetCalledBeforeSaveThenReturnNull() {
+        assertThat(new EmailAlertsConfigRepositoryLogDatastore(logDatastore).get()).isEqualTo(null);
+    }
+
+    @Test
+    public void whenSaveCalledThenExpectSavedEmailAlertsConfigToBeReturned() {
+
+        final EmailAlertsConfigRepository repository = new EmailAlertsConfigRepositoryLogDatastore(logDatastore);
+        final EmailAlertsConfig savedEmailAlertsConfig = repository.save(someEmailAlertsConfig());
+
+        assertThat(savedEmailAlertsConfig.isEnabled()).isEqualTo(ENABLED);
+        assertThat(savedEmailAlertsConfig.getSmtpConfig().getHost()).isEqualTo(HOST);
+        assertThat(savedEmailAlertsConfig.getSmtpConfig().getTlsPort()).isEqualTo(TLS_PORT);
+        assertThat(savedEmailAlertsConfig.getSmtpConfig().getAccountUsername()).isEqualTo(ACCOUNT_USERNAME);
+        assertThat(savedEmailAlertsConfig.getSmtpConfig().getAccountPassword()).isEqualTo(ACCOUNT_PASSWORD);
+        assertThat(savedEmailAlertsConfig.getSmtpConfig().getFromAddress()).isEqualTo(FROM_ADDRESS);
+        assertThat(savedEmailAlertsConfig.getSmtpConfig().getToAddress()).isEqualTo(TO_ADDRESS);
+    }
+
+    @Test
+    public void whenDatastoreIsReopenedThenEmailAlertsConfigIsStillThere() {
+
+        new EmailAlertsConfigRepositoryLogDatastore(logDatastore).save(someEmailAlertsConfig());
+
+        logDatastore.close();
+        logDatastore = new LogDatastore(logFile);
+
+        final EmailAlertsConfig emailAlertsConfig = new EmailAlertsConfigRepositoryLogDatastore(logDatastore).get();
+        assertThat(emailAlertsConfig.isEnabled()).isEqualTo(ENABLED);
+        assertThat(emailAlertsConfig.getSmtpConfig().getHost()).isEqualTo(HOST);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static EmailAlertsConfig someEmailAlertsConfig() {
+        final SmtpConfig smtpConfig = new SmtpConfig(HOST, TLS_PORT, ACCOUNT_USERNAME, ACCOUNT_PASSWORD, FROM_ADDRESS,
+                TO_ADDRESS);
+        return new EmailAlertsConfig(ENABLED, smtpConfig);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.repository.EngineConfigRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Tests the log datastore Engine config repository behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestEngineConfigRepositoryLogDatastore {
+
+    private static final String BOT_ID = "avro-707_1";
+    private static final String BOT_NAME = "Avro 707";
+    private static final String EMERGENCY_STOP_CURRENCY = "BTC";
+    private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
+    private static final int TRADE_CYCLE_INTERVAL = 60;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String logFile;
+    private LogDatastore logDatastore;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        logFile = folder.getRoot().toPath().resolve("bxbot-config.log").toString();
+        logDatastore = new LogDatastore(logFile);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenGetCalledBeforeSaveThenReturnNull() {
+        assertThat(new EngineConfigRepositoryLogDatastore(logDatastore).get()).isEqualTo(null);
+    }
+
+    @Test
+    public void whenSaveCalledThenExpectSavedEngineConfigToBeReturned() {
+
+        final EngineConfigRepository repository = new EngineConfigRepositoryLogDatastore(logDatastore);
+        final EngineConfig savedEngineConfig = repository.save(someEngineConfig());
+
+        assertThat(savedEngineConfig.getBotId()).isEqualTo(BOT_ID);
+        assertThat(savedEngineConfig.getBotName()).isEqualTo(BOT_NAME);
+        assertThat(savedEngineConfig.getEmergencyStopCurrency()).isEqualTo(EMERGENCY_STOP_CURRENCY);
+        assertThat(savedEngineConfig.getEmergencyStopBalance()).isEqualTo(EMERGENCY_STOP_BALANCE);
+        assertThat(savedEngineConfig.getTradeCycleInterval()).isEqualTo(TRADE_CYCLE_INTERVAL);
+    }
+
+    @Test
+    public void whenSaveCalledAgainThenEngineConfigIsReplaced() {
+
+        final EngineConfigRepository repository = new EngineConfigRepositoryLogDatastore(logDatastore);
+        repository.save(someEngineConfig());
+
+        final EngineConfig engineConfig = someEngineConfig();
+        engineConfig.setTradeCycleInterval(30);
+        repository.save(engineConfig);
+
+        assertThat(repository.get().getTradeCycleInterval()).isEqualTo(30);
+    }
+
+    @Test
+    public void whenDatastoreIsReopenedThenEngineConfigIsStillThere() {
+
+        new EngineConfigRepositoryLogDatastore(logDatastore).save(someEngineConfig());
+
+        logDatastore.close();
+        logDatastore = new LogDatastore(logFile);
+
+        final EngineConfig engineConfig = new EngineConfigRepositoryLogDatastore(logDatastore).get();
+        assertThat(engineConfig.getBotId()).isEqualTo(BOT_ID);
+        assertThat(engineConfig.getEmergencyStopBalance()).isEqualTo(EMERGENCY_STOP_BALANCE);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static EngineConfig someEngineConfig() {
+        final EngineConfig engineConfig = new EngineConfig();
+        engineConfig.setBotId(BOT_ID);
+        engineConfig.setBotName(BOT_NAME);
+        engineConfig.setEmergencyStopCurrency(EMERGENCY_STOP_CURRENCY);
+        engineConfig.setEmergencyStopBalance(EMERGENCY_STOP_BALANCE);
+        engineConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+        return engineConfig;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.exchange.AuthenticationConfig;
+import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
+import com.gazbert.bxbot.domain.exchange.NetworkConfig;
+import com.gazbert.bxbot.domain.exchange.OptionalConfig;
+import com.gazbert.bxbot.repository.ExchangeConfigRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Tests the log datastore Exchange config repository behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestExchangeConfigRepositoryLogDatastore {
+
+    private static final String EXCHANGE_NAME = "Bitstamp";
+    private static final String EXCHANGE_ADAPTER = "com.gazbert.bxbot.exchanges.BitstampExchangeAdapter";
+    private static final String API_KEY_CONFIG_ITEM_KEY = "key";
+    private static final String API_KEY_CONFIG_ITEM_VALUE = "apiKey--123";
+    private static final Integer CONNECTION_TIMEOUT = 30;
+    private static final Integer HTTP_STATUS_502 = 502;
+    private static final Integer HTTP_STATUS_503 = 503;
+    private static final String BUY_FEE_CONFIG_ITEM_KEY = "buy-fee";
+    private static final String BUY_FEE_CONFIG_ITEM_VALUE = "0.20";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String logFile;
+    private LogDatastore logDatastore;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        logFile = folder.getRoot().toPath().resolve("bxbot-config.log").toString();
+        logDatastore = new LogDatastore(logFile);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenGetCalledBeforeSaveThenReturnNull() {
+        assertThat(new ExchangeConfigRepositoryLogDatastore(logDatastore).get()).isEqualTo(null);
+    }
+
+    @Test
+    public void whenSaveCalledThenExpectSavedExchangeConfigToBeReturned() {
+
+        final ExchangeConfigRepository repository = new ExchangeConfigRepositoryLogDatastore(logDatastore);
+        final ExchangeConfig savedExchangeConfig = repository.save(someExchangeConfig());
+
+        assertThat(savedExchangeConfig.getExchangeName()).isEqualTo(EXCHANGE_NAME);
+        assertThat(savedExchangeConfig.getExchangeAdapter()).isEqualTo(EXCHANGE_ADAPTER);
+        assertThat(savedExchangeConfig.getAuthenticationConfig().getItems().get(API_KEY_CONFIG_ITEM_KEY))
+                .isEqualTo(API_KEY_CONFIG_ITEM_VALUE);
+        assertThat(savedExchangeConfig.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
+        assertThat(savedExchangeConfig.getNetworkConfig().getNonFatalErrorCodes())
+                .containsExactly(HTTP_STATUS_502, HTTP_STATUS_503);
+        assertThat(savedExchangeConfig.getOptionalConfig().getItems().get(BUY_FEE_CONFIG_ITEM_KEY))
+                .isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
+    }
+
+    @Test
+    public void whenDatastoreIsReopenedThenExchangeConfigIsStillThere() {
+
+        new ExchangeConfigRepositoryLogDatastore(logDatastore).save(someExchangeConfig());
+
+        logDatastore.close();
+        logDatastore = new LogDatastore(logFile);
+
+        final ExchangeConfig exchangeConfig = new ExchangeConfigRepositoryLogDatastore(logDatastore).get();
+        assertThat(exchangeConfig.getExchangeName()).isEqualTo(EXCHANGE_NAME);
+        assertThat(exchangeConfig.getNetworkConfig().getNonFatalErrorCodes())
+                .containsExactly(HTTP_STATUS_502, HTTP_STATUS_503);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static ExchangeConfig someExchangeConfig() {
+
+        final Map<String, String> authItems = new HashMap<>();
+        authItems.put(API_KEY_CONFIG_ITEM_KEY, API_KEY_CONFIG_ITEM_VALUE);
+        final AuthenticationConfig authenticationConfig = new AuthenticationConfig();
+        authenticationConfig.setItems(authItems);
+
+        final NetworkConfig networkConfig = new NetworkConfig();
+        networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
+        networkConfig.setNonFatalErrorCodes(Arrays.asList(HTTP_STATUS_502, HTTP_STATUS_503));
+
+        final Map<String, String> optionalItems = new HashMap<>();
+        optionalItems.put(BUY_FEE_CONFIG_ITEM_KEY, BUY_FEE_CONFIG_ITEM_VALUE);
+        final OptionalConfig optionalConfig = new OptionalConfig();
+        optionalConfig.setItems(optionalItems);
+
+        final ExchangeConfig exchangeConfig = new ExchangeConfig();
+        exchangeConfig.setExchangeName(EXCHANGE_NAME);
+        exchangeConfig.setExchangeAdapter(EXCHANGE_ADAPTER);
+        exchangeConfig.setAuthenticationConfig(authenticationConfig);
+        exchangeConfig.setNetworkConfig(networkConfig);
+        exchangeConfig.setOptionalConfig(optionalConfig);
+        return exchangeConfig;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.repository.EngineConfigRepository;
+import com.gazbert.bxbot.repository.MarketConfigRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Tests the log datastore Market and Engine config repositories behave as expected.
+ *
+ * @author gazbert
+ */
+public class TestMarketConfigRepositoryLogDatastore {
+
+    private static final String MARKET_NAME = "BTC/USD";
+    private static final String MARKET_BASE_CURRENCY = "btc";
+    private static final String MARKET_COUNTER_CURRENCY = "usd";
+    private static final boolean MARKET_IS_ENABLED = true;
+    private static final String MARKET_TRADING_STRATEGY_ID = "scalping-strategy";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String logFile;
+    private LogDatastore logDatastore;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        logFile = folder.getRoot().toPath().resolve("bxbot-config.log").toString();
+        logDatastore = new LogDatastore(logFile);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenSaveCalledWithEmptyIdThenExpectCreatedMarketConfigToBeReturned() {
+
+        final MarketConfigRepository repository = new MarketConfigRepositoryLogDatastore(logDatastore);
+        final MarketConfig marketConfig = repository.save(someNewMarketConfig());
+
+        assertThat(marketConfig.getId()).isNotEmpty();
+        assertThat(marketConfig.getName()).isEqualTo(MARKET_NAME);
+        assertThat(repository.findById(marketConfig.getId()).getName()).isEqualTo(MARKET_NAME);
+        assertThat(repository.findAll().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenSaveCalledWithKnownIdThenReturnUpdatedMarketConfig() {
+
+        final MarketConfigRepository repository = new MarketConfigRepositoryLogDatastore(logDatastore);
+        final MarketConfig marketConfig = repository.save(someNewMarketConfig());
+
+        marketConfig.setEnabled(false);
+        final MarketConfig updatedMarketConfig = repository.save(marketConfig);
+
+        assertThat(updatedMarketConfig.isEnabled()).isEqualTo(false);
+        assertThat(repository.findById(marketConfig.getId()).isEnabled()).isEqualTo(false);
+        assertThat(repository.findAll().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenSaveCalledWithUnknownIdThenReturnEmptyMarketConfig() {
+
+        final MarketConfigRepository repository = new MarketConfigRepositoryLogDatastore(logDatastore);
+        final MarketConfig marketConfig = someNewMarketConfig();
+        marketConfig.setId("unknown-id");
+
+        assertThat(repository.save(marketConfig)).isEqualTo(null);
+        assertThat(repository.findAll().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void whenDeleteCalledWithKnownIdThenReturnMatchingMarketConfig() {
+
+        final MarketConfigRepository repository = new MarketConfigRepositoryLogDatastore(logDatastore);
+        final MarketConfig marketConfig = repository.save(someNewMarketConfig());
+
+        assertThat(repository.delete(marketConfig.getId()).getId()).isEqualTo(marketConfig.getId());
+        assertThat(repository.findById(marketConfig.getId())).isEqualTo(null);
+        assertThat(repository.delete(marketConfig.getId())).isEqualTo(null);
+    }
+
+    @Test
+    public void whenDatastoreIsReopenedThenConfigIsStillThere() {
+
+        final MarketConfig marketConfig =
+                new MarketConfigRepositoryLogDatastore(logDatastore).save(someNewMarketConfig());
+
+        final EngineConfig engineConfig = new EngineConfig();
+        engineConfig.setBotId("avro-707_1");
+        engineConfig.setEmergencyStopBalance(new BigDecimal("0.5"));
+        new EngineConfigRepositoryLogDatastore(logDatastore).save(engineConfig);
+
+        logDatastore.close();
+        logDatastore = new LogDatastore(logFile);
+
+        final List<MarketConfig> marketConfigs = new MarketConfigRepositoryLogDatastore(logDatastore).findAll();
+        assertThat(marketConfigs.size()).isEqualTo(1);
+        assertThat(marketConfigs.get(0).getId()).isEqualTo(marketConfig.getId());
+
+        final EngineConfigRepository engineConfigRepository = new EngineConfigRepositoryLogDatastore(logDatastore);
+        assertThat(engineConfigRepository.get().getBotId()).isEqualTo("avro-707_1");
+        assertThat(engineConfigRepository.get().getEmergencyStopBalance()).isEqualTo(new BigDecimal("0.5"));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static MarketConfig someNewMarketConfig() {
+        return new MarketConfig(null, MARKET_NAME, MARKET_BASE_CURRENCY, MARKET_COUNTER_CURRENCY,
+                MARKET_IS_ENABLED, MARKET_TRADING_STRATEGY_ID);
+    }
+}
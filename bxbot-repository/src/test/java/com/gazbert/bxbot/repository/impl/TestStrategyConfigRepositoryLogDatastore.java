@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.strategy.StrategyConfig;
+import com.gazbert.bxbot.repository.StrategyConfigRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Tests the log datastore Strategy config repository behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestStrategyConfigRepositoryLogDatastore {
+
+    private static final String STRAT_NAME = "Long Scalper";
+    private static final String STRAT_DESCRIPTION = "Scalps long on BTC/USD.";
+    private static final String STRAT_CLASSNAME = "com.gazbert.nova.algos.MyLongScalper";
+    private static final String STRAT_BEANNAME = "myLongScalperBean";
+    private static final String BUY_PRICE_CONFIG_ITEM_KEY = "buy-price";
+    private static final String BUY_PRICE_CONFIG_ITEM_VALUE = "671.15";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String logFile;
+    private LogDatastore logDatastore;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        logFile = folder.getRoot().toPath().resolve("bxbot-config.log").toString();
+        logDatastore = new LogDatastore(logFile);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenSaveCalledWithEmptyIdThenExpectCreatedStrategyConfigToBeReturned() {
+
+        final StrategyConfigRepository repository = new StrategyConfigRepositoryLogDatastore(logDatastore);
+        final StrategyConfig strategyConfig = repository.save(someNewStrategyConfig());
+
+        assertThat(strategyConfig.getId()).isNotEmpty();
+        assertThat(strategyConfig.getName()).isEqualTo(STRAT_NAME);
+        assertThat(strategyConfig.getConfigItems().get(BUY_PRICE_CONFIG_ITEM_KEY))
+                .isEqualTo(BUY_PRICE_CONFIG_ITEM_VALUE);
+        assertThat(repository.findById(strategyConfig.getId()).getClassName()).isEqualTo(STRAT_CLASSNAME);
+        assertThat(repository.findAll().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenSaveCalledWithKnownIdThenReturnUpdatedStrategyConfig() {
+
+        final StrategyConfigRepository repository = new StrategyConfigRepositoryLogDatastore(logDatastore);
+        final StrategyConfig strategyConfig = repository.save(someNewStrategyConfig());
+
+        strategyConfig.setDescription("Updated description");
+        final StrategyConfig updatedStrategyConfig = repository.save(strategyConfig);
+
+        assertThat(updatedStrategyConfig.getDescription()).isEqualTo("Updated description");
+        assertThat(repository.findById(strategyConfig.getId()).getDescription()).isEqualTo("Updated description");
+        assertThat(repository.findAll().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenSaveCalledWithUnknownIdThenReturnEmptyStrategyConfig() {
+
+        final StrategyConfigRepository repository = new StrategyConfigRepositoryLogDatastore(logDatastore);
+        final StrategyConfig strategyConfig = someNewStrategyConfig();
+        strategyConfig.setId("unknown-id");
+
+        assertThat(repository.save(strategyConfig)).isEqualTo(null);
+        assertThat(repository.findAll().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void whenDeleteCalledWithKnownIdThenReturnMatchingStrategyConfig() {
+
+        final StrategyConfigRepository repository = new StrategyConfigRepositoryLogDatastore(logDatastore);
+        final StrategyConfig strategyConfig = repository.save(someNewStrategyConfig());
+
+        assertThat(repository.delete(strategyConfig.getId()).getId()).isEqualTo(strategyConfig.getId());
+        assertThat(repository.findById(strategyConfig.getId())).isEqualTo(null);
+        assertThat(repository.delete(strategyConfig.getId())).isEqualTo(null);
+    }
+
+    @Test
+    public void whenDatastoreIsReopenedThenStrategyConfigsAreStillThereInTheOrderTheyWereCreated() {
+
+        final StrategyConfigRepository repository = new StrategyConfigRepositoryLogDatastore(logDatastore);
+        final StrategyConfig firstStrategyConfig = repository.save(someNewStrategyConfig());
+        final StrategyConfig secondStrategyConfig = repository.save(someNewStrategyConfig());
+
+        logDatastore.close();
+        logDatastore = new LogDatastore(logFile);
+
+        final List<StrategyConfig> strategyConfigs = new StrategyConfigRepositoryLogDatastore(logDatastore).findAll();
+        assertThat(strategyConfigs.size()).isEqualTo(2);
+        assertThat(strategyConfigs.get(0).getId()).isEqualTo(firstStrategyConfig.getId());
+        assertThat(strategyConfigs.get(1).getId()).isEqualTo(secondStrategyConfig.getId());
+        assertThat(strategyConfigs.get(1).getConfigItems().get(BUY_PRICE_CONFIG_ITEM_KEY))
+                .isEqualTo(BUY_PRICE_CONFIG_ITEM_VALUE);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static StrategyConfig someNewStrategyConfig() {
+        final Map<String, String> configItems = new HashMap<>();
+        configItems.put(BUY_PRICE_CONFIG_ITEM_KEY, BUY_PRICE_CONFIG_ITEM_VALUE);
+        return new StrategyConfig(null, STRAT_NAME, STRAT_DESCRIPTION, STRAT_CLASSNAME, STRAT_BEANNAME, configItems);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.gazbert.bxbot.datastore.FileLocations.EMAIL_ALERTS_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.ENGINE_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.MARKETS_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.STRATEGIES_CONFIG_XML_FILENAME;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the XML config is migrated to the log datastore as expected.
+ *
+ * @author gazbert
+ */
+public class TestXmlDatastoreMigrator {
+
+    private static final String BOT_ID = "avro-707_1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void whenLogDatastoreIsFirstOpenedThenXmlConfigIsMigratedAndMarkedAsMigrated() throws Exception {
+
+        final AtomicInteger migrationCount = new AtomicInteger();
+        final LogDatastore logDatastore = new LogDatastore(someLogFile(), migrator -> {
+            migrationCount.incrementAndGet();
+            migrator.put(EngineConfigRepositoryLogDatastore.KEY, someEngineConfig());
+        });
+
+        assertThat(migrationCount.get()).isEqualTo(1);
+        assertThat(logDatastore.get(LogDatastore.MIGRATED_FROM_XML_KEY, Boolean.class)).isEqualTo(true);
+        assertThat(logDatastore.get(EngineConfigRepositoryLogDatastore.KEY, EngineConfig.class).getBotId())
+                .isEqualTo(BOT_ID);
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenLogDatastoreIsReopenedThenXmlConfigIsNotMigratedAgain() throws Exception {
+
+        final String logFile = someLogFile();
+        final AtomicInteger migrationCount = new AtomicInteger();
+
+        new LogDatastore(logFile, migrator -> {
+            migrationCount.incrementAndGet();
+            migrator.put(EngineConfigRepositoryLogDatastore.KEY, someEngineConfig());
+        }).close();
+
+        final LogDatastore logDatastore = new LogDatastore(logFile, migrator -> migrationCount.incrementAndGet());
+
+        assertThat(migrationCount.get()).isEqualTo(1);
+        assertThat(logDatastore.get(EngineConfigRepositoryLogDatastore.KEY, EngineConfig.class).getBotId())
+                .isEqualTo(BOT_ID);
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenMigrationFailsThenItIsTriedAgainOnNextOpen() throws Exception {
+
+        final String logFile = someLogFile();
+        try {
+            new LogDatastore(logFile, migrator -> {
+                throw new IllegalStateException("Failed to load XML config");
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("Failed to load XML config");
+        }
+
+        final AtomicInteger migrationCount = new AtomicInteger();
+        final LogDatastore logDatastore = new LogDatastore(logFile, migrator -> migrationCount.incrementAndGet());
+
+        assertThat(migrationCount.get()).isEqualTo(1);
+        assertThat(logDatastore.get(LogDatastore.MIGRATED_FROM_XML_KEY, Boolean.class)).isEqualTo(true);
+        logDatastore.close();
+    }
+
+    @Test
+    public void whenXmlConfigFilesAreMissingThenTheyAreSkipped() throws Exception {
+
+        // the tests run from the module directory, which has no config directory
+        assertThat(Files.exists(Paths.get(ENGINE_CONFIG_XML_FILENAME))).isEqualTo(false);
+        assertThat(Files.exists(Paths.get(EXCHANGE_CONFIG_XML_FILENAME))).isEqualTo(false);
+        assertThat(Files.exists(Paths.get(EMAIL_ALERTS_CONFIG_XML_FILENAME))).isEqualTo(false);
+        assertThat(Files.exists(Paths.get(STRATEGIES_CONFIG_XML_FILENAME))).isEqualTo(false);
+        assertThat(Files.exists(Paths.get(MARKETS_CONFIG_XML_FILENAME))).isEqualTo(false);
+
+        final LogDatastore logDatastore = new LogDatastore(someLogFile());
+
+        assertThat(logDatastore.get(LogDatastore.MIGRATED_FROM_XML_KEY, Boolean.class)).isEqualTo(true);
+        assertThat(logDatastore.get(EngineConfigRepositoryLogDatastore.KEY, Object.class)).isEqualTo(null);
+        assertThat(logDatastore.get(ExchangeConfigRepositoryLogDatastore.KEY, Object.class)).isEqualTo(null);
+        assertThat(logDatastore.get(EmailAlertsConfigRepositoryLogDatastore.KEY, Object.class)).isEqualTo(null);
+        assertThat(logDatastore.getAll(StrategyConfigRepositoryLogDatastore.KEY_PREFIX, Object.class)).isEmpty();
+        assertThat(logDatastore.getAll(MarketConfigRepositoryLogDatastore.KEY_PREFIX, MarketConfig.class)).isEmpty();
+        logDatastore.close();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private String someLogFile() {
+        return folder.getRoot().toPath().resolve("bxbot-config.log").toString();
+    }
+
+    private static EngineConfig someEngineConfig() {
+        final EngineConfig engineConfig = new EngineConfig();
+        engineConfig.setBotId(BOT_ID);
+        return engineConfig;
+    }
+}
@@ -187,8 +187,8 @@ public class ExampleScalpingStrategy implements TradingStrategy {
         LOG.info(() -> market.getName() + " Checking order status...");
 
         try {
-            // Grab the latest order book for the market.
-            final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+            // Grab the top of the latest order book for the market - we only need the best BID and ASK prices.
+            final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId(), 1);
 
             final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
             if (buyOrders.size() == 0) {
@@ -314,18 +314,11 @@ public class ExampleScalpingStrategy implements TradingStrategy {
 
         try {
 
-            // Fetch our current open orders and see if the buy order is still outstanding/open on the exchange
-            final List<OpenOrder> myOrders = tradingApi.getYourOpenOrders(market.getId());
-            boolean lastOrderFound = false;
-            for (final OpenOrder myOrder : myOrders) {
-                if (myOrder.getId().equals(lastOrder.id)) {
-                    lastOrderFound = true;
-                    break;
-                }
-            }
+            // Fetch the status of the buy order and see if it is still outstanding/open on the exchange
+            final OrderStatus lastOrderStatus = tradingApi.getOrderStatus(lastOrder.id, market.getId());
 
-            // If the order is not there, it must have all filled.
-            if (!lastOrderFound) {
+            // If the order is no longer open, it must have all filled.
+            if (!isStillOpen(lastOrderStatus)) {
 
                 LOG.info(() -> market.getName() +
                         " ^^^ Yay!!! Last BUY Order Id [" + lastOrder.id + "] filled at [" + lastOrder.price + "]");
@@ -418,18 +411,11 @@ public class ExampleScalpingStrategy implements TradingStrategy {
 
         try {
 
-            // Fetch our current open orders and see if the sell order is still outstanding/unfilled on the exchange
-            final List<OpenOrder> myOrders = tradingApi.getYourOpenOrders(market.getId());
-            boolean lastOrderFound = false;
-            for (final OpenOrder myOrder : myOrders) {
-                if (myOrder.getId().equals(lastOrder.id)) {
-                    lastOrderFound = true;
-                    break;
-                }
-            }
+            // Fetch the status of the sell order and see if it is still outstanding/unfilled on the exchange
+            final OrderStatus lastOrderStatus = tradingApi.getOrderStatus(lastOrder.id, market.getId());
 
-            // if the order is not there, it must have all filled.
-            if (!lastOrderFound) {
+            // if the order is no longer open, it must have all filled.
+            if (!isStillOpen(lastOrderStatus)) {
 
                 LOG.info(() -> market.getName() +
                         " ^^^ Yay!!! Last SELL Order Id [" + lastOrder.id + "] filled at [" + lastOrder.price + "]");
@@ -526,6 +512,23 @@ public class ExampleScalpingStrategy implements TradingStrategy {
         return amountOfBaseCurrencyToBuy;
     }
 
+    /**
+     * Returns true if the order is still waiting to be filled on the exchange. An order that is no longer open has
+     * either filled or been cancelled outside of the bot.
+     *
+     * @param orderStatus the order's current status on the exchange.
+     * @return true if the order is still open, false otherwise.
+     */
+    private static boolean isStillOpen(OrderStatus orderStatus) {
+        switch (orderStatus.getState()) {
+            case OPEN:
+            case PARTIALLY_FILLED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Loads the config for the strategy. We expect the 'counter-currency-buy-order-amount' and 'minimum-percentage-gain'
      * config items to be present in the {project-root}/config/strategies.xml config file.
@@ -0,0 +1,394 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategies.marketdata;
+
+import com.gazbert.bxbot.trading.api.MarketDataListener;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A local copy of a market's price level (L2) order book, kept up to date from streamed order book updates.
+ * </p>
+ * <p>
+ * Subscribe it to a market with {@link com.gazbert.bxbot.trading.api.MarketDataSubscription}. Each update changes
+ * only the price levels it names, so the book does not have to be fetched or rebuilt for every change. A Trading
+ * Strategy reads it using {@link #getMarketOrderBook(int)}, which copies just the top of the book, or
+ * {@link #getBestBuyOrder()} and {@link #getBestSellOrder()}.
+ * </p>
+ * <p>
+ * Prices are held as whole numbers of ticks, where a tick is 10^-priceScale. Each side keeps its price levels in
+ * sorted primitive arrays with the best price last: a price level is found by binary search, and inserting or removing
+ * one only shifts the levels between it and the top of the book. Most changes are near the top of the book.
+ * </p>
+ * <p>
+ * If an update's sequence number shows that an update has been missed, the book stops applying updates and asks for a
+ * resync. It is back in sync once the next snapshot arrives. The resync callback is run on the market data thread; it
+ * should hand off to another thread before resubscribing or fetching the order book.
+ * </p>
+ * <p>
+ * It is thread safe: the market data thread updates it while the Trading Engine thread reads it.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class LocalOrderBook implements MarketDataListener {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final String marketId;
+    private final int priceScale;
+    private final Runnable resync;
+    private final PriceLevels buyOrders = new PriceLevels(OrderType.BUY);
+    private final PriceLevels sellOrders = new PriceLevels(OrderType.SELL);
+
+    private boolean synced;
+    private long sequence;
+
+
+    /**
+     * Creates an empty order book. It is out of sync until the first snapshot arrives.
+     *
+     * @param marketId   the id of the market.
+     * @param priceScale the maximum number of decimal places in the market's prices.
+     * @param resync     called when an update has been missed or the market data stream has failed; it should get a
+     *                   new order book snapshot sent to this book.
+     */
+    public LocalOrderBook(String marketId, int priceScale, Runnable resync) {
+        this.marketId = marketId;
+        this.priceScale = priceScale;
+        this.resync = resync;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Market data callbacks
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized void onOrderBookSnapshot(MarketOrderBook orderBook, long sequence) {
+        synced = false;
+        buyOrders.clear();
+        sellOrders.clear();
+        applyChanges(orderBook.getBuyOrders());
+        applyChanges(orderBook.getSellOrders());
+        this.sequence = sequence;
+        synced = true;
+    }
+
+    @Override
+    public void onOrderBookUpdate(String marketId, List<MarketOrder> changes, long sequence) {
+
+        synchronized (this) {
+            if (!synced || sequence <= this.sequence) {
+                return; // waiting for a resync, or an update already applied
+            }
+            if (sequence == this.sequence + 1) {
+                applyChanges(changes);
+                this.sequence = sequence;
+                return;
+            }
+            LOG.warn(() -> "Missed order book update for market " + marketId + ": expected sequence "
+                    + (this.sequence + 1) + " but got " + sequence + ". Resyncing order book.");
+            synced = false;
+        }
+        resync.run();
+    }
+
+    @Override
+    public void onDisconnect(String marketId, Throwable cause) {
+        synchronized (this) {
+            synced = false;
+        }
+        if (cause != null) {
+            resync.run();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Order book views
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns true if the book has had a snapshot and every update since.
+     *
+     * @return true if the book is in sync with the exchange.
+     */
+    public synchronized boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Returns the sequence number of the last snapshot or update applied.
+     *
+     * @return the sequence number.
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns a copy of the whole order book.
+     *
+     * @return the market order book.
+     */
+    public MarketOrderBook getMarketOrderBook() {
+        return getMarketOrderBook(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a copy of the top of the order book.
+     *
+     * @param depth the maximum number of BUY and SELL orders to copy.
+     * @return the market order book, with at most depth BUY orders and depth SELL orders.
+     */
+    public synchronized MarketOrderBook getMarketOrderBook(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Order book depth must be at least 1: " + depth);
+        }
+        return new OrderBookView(marketId, sellOrders.copyTop(depth), buyOrders.copyTop(depth));
+    }
+
+    /**
+     * Returns the highest BID.
+     *
+     * @return the best BUY order, or null if there are none.
+     */
+    public synchronized MarketOrder getBestBuyOrder() {
+        return buyOrders.getBest();
+    }
+
+    /**
+     * Returns the lowest ASK.
+     *
+     * @return the best SELL order, or null if there are none.
+     */
+    public synchronized MarketOrder getBestSellOrder() {
+        return sellOrders.getBest();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("marketId", marketId)
+                .add("synced", synced)
+                .add("sequence", sequence)
+                .add("buyLevels", buyOrders.size)
+                .add("sellLevels", sellOrders.size)
+                .toString();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private void applyChanges(List<MarketOrder> changes) {
+        for (final MarketOrder change : changes) {
+            (change.getType() == OrderType.BUY ? buyOrders : sellOrders)
+                    .set(toTicks(change.getPrice()), change.getPrice(), change.getQuantity());
+        }
+    }
+
+    private long toTicks(BigDecimal price) {
+        try {
+            return price.movePointRight(priceScale).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + price + " for market " + marketId + " has more than "
+                    + priceScale + " decimal places", e);
+        }
+    }
+
+    /*
+     * One side of the book. BUY prices are held as ticks and SELL prices as negative ticks, so on both sides the
+     * array is in ascending order with the best price last.
+     */
+    private static final class PriceLevels {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final OrderType orderType;
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private BigDecimal[] prices = new BigDecimal[INITIAL_CAPACITY];
+        private BigDecimal[] quantities = new BigDecimal[INITIAL_CAPACITY];
+        private int size;
+
+        PriceLevels(OrderType orderType) {
+            this.orderType = orderType;
+        }
+
+        void set(long ticks, BigDecimal price, BigDecimal quantity) {
+
+            final long key = orderType == OrderType.BUY ? ticks : -ticks;
+            final int index = Arrays.binarySearch(keys, 0, size, key);
+
+            if (quantity.signum() == 0) {
+                if (index >= 0) {
+                    remove(index);
+                }
+            } else if (index >= 0) {
+                quantities[index] = quantity;
+            } else {
+                insert(-index - 1, key, price, quantity);
+            }
+        }
+
+        void clear() {
+            Arrays.fill(prices, 0, size, null);
+            Arrays.fill(quantities, 0, size, null);
+            size = 0;
+        }
+
+        MarketOrder getBest() {
+            return size == 0 ? null : new PriceLevel(orderType, prices[size - 1], quantities[size - 1]);
+        }
+
+        List<MarketOrder> copyTop(int depth) {
+            final int count = Math.min(depth, size);
+            final List<MarketOrder> marketOrders = new ArrayList<>(count);
+            for (int i = size - 1; i >= size - count; i--) {
+                marketOrders.add(new PriceLevel(orderType, prices[i], quantities[i]));
+            }
+            return marketOrders;
+        }
+
+        private void insert(int index, long key, BigDecimal price, BigDecimal quantity) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(prices, index, prices, index + 1, size - index);
+            System.arraycopy(quantities, index, quantities, index + 1, size - index);
+            keys[index] = key;
+            prices[index] = price;
+            quantities[index] = quantity;
+            size++;
+        }
+
+        private void remove(int index) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+            System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+            size--;
+            prices[size] = null;
+            quantities[size] = null;
+        }
+    }
+
+    /*
+     * A price level copied out of the book.
+     */
+    private static final class PriceLevel implements MarketOrder {
+
+        private final OrderType type;
+        private final BigDecimal price;
+        private final BigDecimal quantity;
+
+        PriceLevel(OrderType type, BigDecimal price, BigDecimal quantity) {
+            this.type = type;
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public OrderType getType() {
+            return type;
+        }
+
+        @Override
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        @Override
+        public BigDecimal getQuantity() {
+            return quantity;
+        }
+
+        @Override
+        public BigDecimal getTotal() {
+            return price.multiply(quantity);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("type", type)
+                    .add("price", price)
+                    .add("quantity", quantity)
+                    .toString();
+        }
+    }
+
+    /*
+     * A copy of the order book taken by getMarketOrderBook.
+     */
+    private static final class OrderBookView implements MarketOrderBook {
+
+        private final String marketId;
+        private final List<MarketOrder> sellOrders;
+        private final List<MarketOrder> buyOrders;
+
+        OrderBookView(String marketId, List<MarketOrder> sellOrders, List<MarketOrder> buyOrders) {
+            this.marketId = marketId;
+            this.sellOrders = Collections.unmodifiableList(sellOrders);
+            this.buyOrders = Collections.unmodifiableList(buyOrders);
+        }
+
+        @Override
+        public String getMarketId() {
+            return marketId;
+        }
+
+        @Override
+        public List<MarketOrder> getSellOrders() {
+            return sellOrders;
+        }
+
+        @Override
+        public List<MarketOrder> getBuyOrders() {
+            return buyOrders;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("marketId", marketId)
+                    .add("sellOrders", sellOrders)
+                    .add("buyOrders", buyOrders)
+                    .toString();
+        }
+    }
+}
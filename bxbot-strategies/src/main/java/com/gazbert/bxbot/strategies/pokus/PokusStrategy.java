@@ -113,8 +113,8 @@ public class PokusStrategy implements TradingStrategy {
         LOG.info("Running on market {} ({} times)", market.getName(), executionRound);
         checkProfitability();
         try {
-            // Grab the latest order book for the market.
-            final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+            // Grab the top of the latest order book for the market - we only need the best BID and ASK prices.
+            final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId(), 1);
 //            LOG.info("Latest order book: {} {}", lineSeparator, orderBook);
 
             final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
@@ -391,21 +391,20 @@ public class PokusStrategy implements TradingStrategy {
      * Pozadavek mohl byt typu BUY nebo SELL a pokud byla cena v pozadavku BUY prilis nizka nebo SELL prilis
      * vysoka pozadavek zustava na burze neuskutecnen.
      * @return true, pokud byl pozadavek uskutecnen. false pokud nebyl
-     * @throws ExchangeNetworkException viz {@link TradingApi#getYourOpenOrders} doc
-     * @throws TradingApiException viv {@link TradingApi#getYourOpenOrders} doc
+     * @throws ExchangeNetworkException viz {@link TradingApi#getOrderStatus} doc
+     * @throws TradingApiException viv {@link TradingApi#getOrderStatus} doc
      */
     private boolean isLastOrderFilled() throws ExchangeNetworkException, TradingApiException {
-        // Fetch our current open orders and see if the buy order is still outstanding/open on the exchange
-        final List<OpenOrder> myOrders = tradingApi.getYourOpenOrders(market.getId());
-        boolean lastOrderFound = false;
-        for (final OpenOrder myOrder : myOrders) {
-            if (myOrder.getId().equals(lastOrder.id)) {
-                lastOrderFound = true;
-                break;
-            }
+        // Fetch the status of the last order and see if it is still outstanding/open on the exchange
+        final OrderStatus lastOrderStatus = tradingApi.getOrderStatus(lastOrder.id, market.getId());
+        switch (lastOrderStatus.getState()) {
+            case OPEN:
+            case PARTIALLY_FILLED:
+                return false;
+            default:
+                // If the order is no longer open, it must be filled.
+                return true;
         }
-        // If the order is not there, it must be filled.
-        return !lastOrderFound;
     }
 
 
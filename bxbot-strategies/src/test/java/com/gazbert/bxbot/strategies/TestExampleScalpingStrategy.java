@@ -101,7 +101,7 @@ public class TestExampleScalpingStrategy {
 
         // expect market order book to be fetched
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook);
+        expect(tradingApi.getMarketOrders(MARKET_ID, 1)).andReturn(marketOrderBook);
         expect(marketOrderBook.getBuyOrders()).andReturn(marketBuyOrders);
         expect(marketOrderBook.getSellOrders()).andReturn(marketSellOrders);
     }
@@ -172,7 +172,7 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the buy order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(new ArrayList<>()); // empty list; order has filled
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(createOrderStatus(OrderState.FILLED));
 
         // expect to send new sell order to exchange
         final BigDecimal requiredProfitInPercent = new BigDecimal("0.02");
@@ -223,13 +223,11 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the buy order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        final OpenOrder unfilledOrder = createMock(OpenOrder.class);
-        final List<OpenOrder> openOrders = new ArrayList<>();
-        openOrders.add(unfilledOrder); // still have open order
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(openOrders);
+        final OrderStatus unfilledOrder = createMock(OrderStatus.class);
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(unfilledOrder);
 
-        // expect strategy to find existing open order and hold current position
-        expect(openOrders.get(0).getId()).andReturn("45345346");
+        // expect strategy to find order is still open and hold current position
+        expect(unfilledOrder.getState()).andReturn(OrderState.OPEN);
 
         replay(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState, unfilledOrder);
 
@@ -273,7 +271,7 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the sell order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(new ArrayList<>()); // empty list; order has filled
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(createOrderStatus(OrderState.FILLED));
 
         // expect to get amount of base currency to buy for given counter currency amount
         expect(market.getId()).andReturn(MARKET_ID);
@@ -330,13 +328,11 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the sell order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        final OpenOrder unfilledOrder = createMock(OpenOrder.class);
-        final List<OpenOrder> openOrders = new ArrayList<>();
-        openOrders.add(unfilledOrder); // still have open order
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(openOrders);
+        final OrderStatus unfilledOrder = createMock(OrderStatus.class);
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(unfilledOrder);
 
-        // expect strategy to find existing open order and hold current position
-        expect(openOrders.get(0).getId()).andReturn("45345346");
+        // expect strategy to find order is still open and hold current position
+        expect(unfilledOrder.getState()).andReturn(OrderState.OPEN);
 
         replay(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState, unfilledOrder);
 
@@ -424,7 +420,7 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the sell order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(new ArrayList<>()); // empty list; order has filled
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(createOrderStatus(OrderState.FILLED));
 
         // expect to get amount of base currency to buy for given counter currency amount
         expect(market.getId()).andReturn(MARKET_ID);
@@ -482,7 +478,7 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the buy order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(new ArrayList<>()); // empty list; order has filled
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(createOrderStatus(OrderState.FILLED));
 
         // expect to send new sell order to exchange and receive timeout exception
         final BigDecimal requiredProfitInPercent = new BigDecimal("0.02");
@@ -577,7 +573,7 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the sell order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(new ArrayList<>()); // empty list; order has filled
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(createOrderStatus(OrderState.FILLED));
 
         // expect to get amount of base currency to buy for given counter currency amount
         expect(market.getId()).andReturn(MARKET_ID);
@@ -635,7 +631,7 @@ public class TestExampleScalpingStrategy {
 
         // expect to check if the buy order has filled
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getYourOpenOrders(MARKET_ID)).andReturn(new ArrayList<>()); // empty list; order has filled
+        expect(tradingApi.getOrderStatus("45345346", MARKET_ID)).andReturn(createOrderStatus(OrderState.FILLED));
 
         // expect to send new sell order to exchange and receive timeout exception
         final BigDecimal requiredProfitInPercent = new BigDecimal("0.02");
@@ -657,4 +653,11 @@ public class TestExampleScalpingStrategy {
 
         verify(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
     }
-}
\ No newline at end of file
+
+    private static OrderStatus createOrderStatus(OrderState state) {
+        final OrderStatus orderStatus = createMock(OrderStatus.class);
+        expect(orderStatus.getState()).andStubReturn(state);
+        replay(orderStatus);
+        return orderStatus;
+    }
+}
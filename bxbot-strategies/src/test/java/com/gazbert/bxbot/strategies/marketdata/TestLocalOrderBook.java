@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategies.marketdata;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Local Order Book behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestLocalOrderBook {
+
+    private static final String MARKET_ID = "btcusd";
+    private static final int PRICE_SCALE = 2;
+
+    private AtomicInteger resyncCount;
+    private LocalOrderBook localOrderBook;
+
+
+    @Before
+    public void setupForEachTest() {
+        resyncCount = new AtomicInteger();
+        localOrderBook = new LocalOrderBook(MARKET_ID, PRICE_SCALE, resyncCount::incrementAndGet);
+        localOrderBook.onOrderBookSnapshot(new MarketOrderBookImpl(MARKET_ID,
+                Arrays.asList(sell("101.00", "1"), sell("102.00", "2"), sell("103.50", "3")),
+                Arrays.asList(buy("100.00", "1"), buy("99.50", "2"), buy("98.00", "3"))), 10);
+    }
+
+    @Test
+    public void testSnapshotIsLoaded() {
+
+        assertTrue(localOrderBook.isSynced());
+        assertEquals(10, localOrderBook.getSequence());
+
+        final MarketOrderBook orderBook = localOrderBook.getMarketOrderBook();
+        assertEquals(MARKET_ID, orderBook.getMarketId());
+        assertPrices(orderBook, new String[]{"101.00", "102.00", "103.50"}, new String[]{"100.00", "99.50", "98.00"});
+        assertEquals(new BigDecimal("3"), orderBook.getSellOrders().get(2).getQuantity());
+        assertEquals(new BigDecimal("199.00"), orderBook.getBuyOrders().get(1).getTotal());
+    }
+
+    @Test
+    public void testUpdatesInsertChangeAndRemovePriceLevels() {
+
+        localOrderBook.onOrderBookUpdate(MARKET_ID, Arrays.asList(
+                buy("100.25", "4"),     // new best bid
+                buy("99.50", "5"),      // changed
+                buy("98.00", "0"),      // removed
+                sell("101.00", "0"),    // best ask removed
+                sell("102.50", "6")), 11);
+
+        final MarketOrderBook orderBook = localOrderBook.getMarketOrderBook();
+        assertPrices(orderBook, new String[]{"102.00", "102.50", "103.50"}, new String[]{"100.25", "100.00", "99.50"});
+        assertEquals(new BigDecimal("5"), orderBook.getBuyOrders().get(2).getQuantity());
+        assertEquals(new BigDecimal("100.25"), localOrderBook.getBestBuyOrder().getPrice());
+        assertEquals(new BigDecimal("102.00"), localOrderBook.getBestSellOrder().getPrice());
+        assertEquals(11, localOrderBook.getSequence());
+    }
+
+    @Test
+    public void testRemovingUnknownPriceLevelIsIgnored() {
+        localOrderBook.onOrderBookUpdate(MARKET_ID, Collections.singletonList(sell("101.50", "0")), 11);
+        assertEquals(3, localOrderBook.getMarketOrderBook().getSellOrders().size());
+    }
+
+    @Test
+    public void testTopOfBookIsCopiedToDepth() {
+
+        final MarketOrderBook orderBook = localOrderBook.getMarketOrderBook(2);
+
+        assertPrices(orderBook, new String[]{"101.00", "102.00"}, new String[]{"100.00", "99.50"});
+    }
+
+    @Test
+    public void testBookGrowsPastInitialCapacity() {
+
+        for (int i = 1; i <= 200; i++) {
+            localOrderBook.onOrderBookUpdate(MARKET_ID, Collections.singletonList(
+                    buy(new BigDecimal("97.99").subtract(BigDecimal.valueOf(i, PRICE_SCALE)).toPlainString(), "1")),
+                    10 + i);
+        }
+
+        assertEquals(203, localOrderBook.getMarketOrderBook().getBuyOrders().size());
+        assertEquals(new BigDecimal("100.00"), localOrderBook.getBestBuyOrder().getPrice());
+    }
+
+    @Test
+    public void testMissedUpdateStopsUpdatesAndRequestsResync() {
+
+        localOrderBook.onOrderBookUpdate(MARKET_ID, Collections.singletonList(buy("100.25", "4")), 12);
+
+        assertFalse(localOrderBook.isSynced());
+        assertEquals(1, resyncCount.get());
+        assertEquals(new BigDecimal("100.00"), localOrderBook.getBestBuyOrder().getPrice());
+
+        // updates are ignored until the resync snapshot arrives
+        localOrderBook.onOrderBookUpdate(MARKET_ID, Collections.singletonList(buy("100.50", "4")), 13);
+        assertEquals(new BigDecimal("100.00"), localOrderBook.getBestBuyOrder().getPrice());
+        assertEquals(1, resyncCount.get());
+
+        localOrderBook.onOrderBookSnapshot(new MarketOrderBookImpl(MARKET_ID,
+                Collections.singletonList(sell("101.00", "1")), Collections.emptyList()), 0);
+
+        assertTrue(localOrderBook.isSynced());
+        assertNull(localOrderBook.getBestBuyOrder());
+        localOrderBook.onOrderBookUpdate(MARKET_ID, Collections.singletonList(buy("100.50", "4")), 1);
+        assertEquals(new BigDecimal("100.50"), localOrderBook.getBestBuyOrder().getPrice());
+    }
+
+    @Test
+    public void testUpdateAlreadyAppliedIsIgnored() {
+
+        localOrderBook.onOrderBookUpdate(MARKET_ID, Collections.singletonList(buy("100.00", "7")), 10);
+
+        assertTrue(localOrderBook.isSynced());
+        assertEquals(new BigDecimal("1"), localOrderBook.getBestBuyOrder().getQuantity());
+        assertEquals(0, resyncCount.get());
+    }
+
+    @Test
+    public void testFailedStreamRequestsResync() {
+
+        localOrderBook.onDisconnect(MARKET_ID, new IllegalStateException("Connection reset"));
+
+        assertFalse(localOrderBook.isSynced());
+        assertEquals(1, resyncCount.get());
+    }
+
+    @Test
+    public void testClosedStreamDoesNotRequestResync() {
+
+        localOrderBook.onDisconnect(MARKET_ID, null);
+
+        assertFalse(localOrderBook.isSynced());
+        assertEquals(0, resyncCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPriceWithTooManyDecimalPlacesIsRejected() {
+        localOrderBook.onOrderBookUpdate(MARKET_ID, Collections.singletonList(buy("100.001", "1")), 11);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static MarketOrder buy(String price, String quantity) {
+        return new MarketOrderImpl(OrderType.BUY, new BigDecimal(price), new BigDecimal(quantity));
+    }
+
+    private static MarketOrder sell(String price, String quantity) {
+        return new MarketOrderImpl(OrderType.SELL, new BigDecimal(price), new BigDecimal(quantity));
+    }
+
+    private static void assertPrices(MarketOrderBook orderBook, String[] sellPrices, String[] buyPrices) {
+        assertEquals(sellPrices.length, orderBook.getSellOrders().size());
+        for (int i = 0; i < sellPrices.length; i++) {
+            assertEquals(new BigDecimal(sellPrices[i]), orderBook.getSellOrders().get(i).getPrice());
+        }
+        assertEquals(buyPrices.length, orderBook.getBuyOrders().size());
+        for (int i = 0; i < buyPrices.length; i++) {
+            assertEquals(new BigDecimal(buyPrices[i]), orderBook.getBuyOrders().get(i).getPrice());
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.gazbert.bxbot.strategies.pokus;
 
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.OrderStatusImpl;
 import com.gazbert.bxbot.strategy.api.StrategyConfig;
 import com.gazbert.bxbot.trading.api.*;
 import org.easymock.*;
@@ -14,7 +14,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import static org.easymock.EasyMock.*;
@@ -66,7 +65,7 @@ public class PokusStrategyTets {
     @Test
     public void execute_sendsInitialBuyOrderWhenItIsFirstCalled() throws Exception {
         // Record state (mock object records methods calls)
-        expect(tradingApiMock.getMarketOrders(MARKET_ID))
+        expect(tradingApiMock.getMarketOrders(MARKET_ID, 1))
                 .andReturn(createMarketOrderBook());
         expect(tradingApiMock.getLatestMarketPrice(MARKET_ID))
                 .andReturn(GDAX_LAST_MARKET_PRICE);
@@ -75,8 +74,8 @@ public class PokusStrategyTets {
                 PokusStrategy.COUNTER_CURRENCY_BUY_ORDER_AMOUNT.divide(GDAX_LAST_MARKET_PRICE, 8 , RoundingMode.HALF_DOWN),
                 GDAX_BUY_PRICE))
                 .andReturn(GDAX_ORDER_ID);
-        expect(tradingApiMock.getYourOpenOrders(MARKET_ID))
-            .andReturn(Collections.singletonList(createOpenOrder()));
+        expect(tradingApiMock.getOrderStatus(GDAX_ORDER_ID, MARKET_ID))
+            .andReturn(createOpenOrderStatus());
 
         replay(tradingApiMock);
 
@@ -85,8 +84,8 @@ public class PokusStrategyTets {
     }
 
 
-    private OpenOrder createOpenOrder() { ;
-        return new OpenOrderImpl(GDAX_ORDER_ID, null, null, null, null, null, null, null);
+    private OrderStatus createOpenOrderStatus() {
+        return new OrderStatusImpl(GDAX_ORDER_ID, MARKET_ID, com.gazbert.bxbot.trading.api.OrderState.OPEN, null, null);
     }
     private MarketOrderBook createMarketOrderBook() {
         List<MarketOrder> buyOrders= Arrays.asList(new MarketOrderImpl(OrderType.BUY, BigDecimal.valueOf(13350.00), BigDecimal.valueOf(6.98), null));
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * Asynchronous companion to BX-bot's {@link TradingApi}.
+ * </p>
+ * <p>
+ * Each call returns straight away and the result is delivered through a {@link CompletableFuture}, so a Trading Strategy
+ * can fire off independent calls - e.g. fetch the order book, its open orders, and its balance - and have them
+ * overlap instead of making one round trip to the exchange after another.
+ * </p>
+ * <p>
+ * Exchange Adapters that support async calls implement this interface alongside {@link TradingApi}. Trading Strategies
+ * can check whether the TradingApi they were given is also an AsyncTradingApi.
+ * </p>
+ * <p>
+ * If a call fails, the future completes exceptionally with an {@link ExchangeNetworkException} or
+ * {@link TradingApiException}; these have the same meaning as for the blocking {@link TradingApi} calls.
+ * {@link CompletableFuture#get()} wraps it in an {@link java.util.concurrent.ExecutionException} and
+ * {@link CompletableFuture#join()} wraps it in a {@link java.util.concurrent.CompletionException}.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public interface AsyncTradingApi {
+
+    /**
+     * Fetches latest <em>market</em> orders for a given market.
+     *
+     * @param marketId the id of the market.
+     * @return a future for the market order book.
+     * @see TradingApi#getMarketOrders(String)
+     */
+    CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId);
+
+    /**
+     * Fetches <em>your</em> current open orders, i.e. the orders placed by the bot.
+     *
+     * @param marketId the id of the market.
+     * @return a future for your current open orders.
+     * @see TradingApi#getYourOpenOrders(String)
+     */
+    CompletableFuture<List<OpenOrder>> getYourOpenOrdersAsync(String marketId);
+
+    /**
+     * Places an order on the exchange.
+     *
+     * @param marketId  the id of the market.
+     * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+     * @param quantity  amount of units you are buying/selling in this order.
+     * @param price     the price per unit you are buying/selling at.
+     * @return a future for the id of the order.
+     * @see TradingApi#createOrder(String, OrderType, BigDecimal, BigDecimal)
+     */
+    CompletableFuture<String> createOrderAsync(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price);
+
+    /**
+     * Cancels your existing order on the exchange.
+     *
+     * @param orderId  your order Id.
+     * @param marketId the id of the market the order was placed on, e.g. btc_usd
+     * @return a future for true if order cancelled ok, false otherwise.
+     * @see TradingApi#cancelOrder(String, String)
+     */
+    CompletableFuture<Boolean> cancelOrderAsync(String orderId, String marketId);
+
+    /**
+     * Fetches the balance of your wallets on the exchange.
+     *
+     * @return a future for your wallet balance info.
+     * @see TradingApi#getBalanceInfo()
+     */
+    CompletableFuture<BalanceInfo> getBalanceInfoAsync();
+}
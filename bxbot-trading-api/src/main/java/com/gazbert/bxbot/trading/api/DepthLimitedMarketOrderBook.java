@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Market Order Book truncated to the best {@code depth} BUY and SELL orders.
+ * <p>
+ * Created by {@link MarketOrderBook#limitDepth(MarketOrderBook, int)}; it is the one implementation of order book
+ * depth limiting, used by the {@link TradingApi} default and by the Exchange Adapters.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class DepthLimitedMarketOrderBook implements MarketOrderBook {
+
+    private final String marketId;
+    private final List<MarketOrder> sellOrders;
+    private final List<MarketOrder> buyOrders;
+
+
+    DepthLimitedMarketOrderBook(MarketOrderBook marketOrderBook, int depth) {
+        this.marketId = marketOrderBook.getMarketId();
+        this.sellOrders = limit(marketOrderBook.getSellOrders(), depth);
+        this.buyOrders = limit(marketOrderBook.getBuyOrders(), depth);
+    }
+
+    @Override
+    public String getMarketId() {
+        return marketId;
+    }
+
+    @Override
+    public List<MarketOrder> getSellOrders() {
+        return sellOrders;
+    }
+
+    @Override
+    public List<MarketOrder> getBuyOrders() {
+        return buyOrders;
+    }
+
+    private static List<MarketOrder> limit(List<MarketOrder> marketOrders, int depth) {
+        return new ArrayList<>(marketOrders.subList(0, Math.min(depth, marketOrders.size())));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("marketId", marketId)
+                .add("sellOrders", sellOrders)
+                .add("buyOrders", buyOrders)
+                .toString();
+    }
+}
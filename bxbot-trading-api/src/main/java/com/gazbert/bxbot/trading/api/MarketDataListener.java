@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Receives streamed market data from a {@link MarketDataSubscription}.
+ * </p>
+ * <p>
+ * All the callbacks do nothing by default, so a listener only implements the ones it needs. Not every exchange
+ * publishes every type of market data - see the Exchange Adapter documentation.
+ * </p>
+ * <p>
+ * Order book updates are numbered so a listener maintaining its own copy of the order book can spot a missed update.
+ * The numbers come from the exchange if it sequences its updates; otherwise the Exchange Adapter numbers them
+ * consecutively from the snapshot's sequence number.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public interface MarketDataListener {
+
+    /**
+     * Called when the best BUY or SELL order for the market changes.
+     *
+     * @param marketId      the id of the market.
+     * @param bestBuyOrder  the highest BID. Its quantity is null if the exchange only publishes the price.
+     * @param bestSellOrder the lowest ASK. Its quantity is null if the exchange only publishes the price.
+     */
+    default void onTopOfBook(String marketId, MarketOrder bestBuyOrder, MarketOrder bestSellOrder) {
+    }
+
+    /**
+     * Called with the full order book when the subscription starts, and again if the exchange resends it.
+     * Any copy of the order book built from earlier updates must be replaced.
+     *
+     * @param orderBook the market order book.
+     * @param sequence  the sequence number of the snapshot.
+     */
+    default void onOrderBookSnapshot(MarketOrderBook orderBook, long sequence) {
+    }
+
+    /**
+     * Called when price levels in the order book change. Each change is given as a Market Order holding the new total
+     * quantity at that price; a quantity of zero means the price level has been removed.
+     *
+     * @param marketId the id of the market.
+     * @param changes  the changed price levels.
+     * @param sequence the sequence number of the update.
+     */
+    default void onOrderBookUpdate(String marketId, List<MarketOrder> changes, long sequence) {
+    }
+
+    /**
+     * Called when a trade takes place on the market. The trade is given as a Market Order: its type is the taker's side,
+     * i.e. BUY if a buyer took an ASK off the order book.
+     *
+     * @param marketId the id of the market.
+     * @param trade    the trade.
+     */
+    default void onTrade(String marketId, MarketOrder trade) {
+    }
+
+    /**
+     * Called when the exchange connection is closed or fails. The listener will get no more market data unless it
+     * subscribes again.
+     *
+     * @param marketId the id of the market.
+     * @param cause    the error that closed the connection, or null if it was closed cleanly.
+     */
+    default void onDisconnect(String marketId, Throwable cause) {
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+/**
+ * <p>
+ * Streaming market data extension to BX-bot's {@link TradingApi}.
+ * </p>
+ * <p>
+ * Polling {@link TradingApi#getMarketOrders(String)} means a Trading Strategy only sees the market once per trade
+ * cycle. A subscription opens a WebSocket connection to the exchange and pushes top of book changes, order book
+ * updates, and trades to a {@link MarketDataListener} as soon as the exchange publishes them.
+ * </p>
+ * <p>
+ * Exchange Adapters that can stream market data implement this interface alongside {@link TradingApi}. Trading
+ * Strategies can check whether the TradingApi they were given is also a MarketDataSubscription.
+ * </p>
+ * <p>
+ * Listeners are called on the WebSocket connection's thread, not the Trading Engine's thread. They must be thread-safe
+ * and return quickly; a slow listener delays every update behind it.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public interface MarketDataSubscription {
+
+    /**
+     * Subscribes to market data for a given market. Each subscription has its own exchange connection, so the listener
+     * always gets an order book snapshot before the updates to it.
+     *
+     * @param marketId the id of the market.
+     * @param listener the listener to send the market data to.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+     * @throws TradingApiException      if the subscription failed for any reason other than a network error.
+     */
+    void subscribeToMarketData(String marketId, MarketDataListener listener)
+            throws ExchangeNetworkException, TradingApiException;
+
+    /**
+     * Unsubscribes a listener from market data for a given market and closes its exchange connection.
+     *
+     * @param marketId the id of the market.
+     * @param listener the listener to stop sending market data to.
+     */
+    void unsubscribeFromMarketData(String marketId, MarketDataListener listener);
+}
@@ -63,4 +63,34 @@ public interface MarketOrderBook {
      * @return current BUY orders for the market.
      */
     List<MarketOrder> getBuyOrders();
+
+    /**
+     * Checks an order book depth requested by a Trading Strategy.
+     *
+     * @param depth the requested order book depth.
+     * @throws IllegalArgumentException if the depth is less than 1.
+     */
+    static void checkDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Order book depth must be at least 1 but was: " + depth);
+        }
+    }
+
+    /**
+     * Truncates a Market Order Book to the requested depth. Exchanges can send back more orders than were asked for,
+     * e.g. GDAX only has 'best order' and 'top 50' order books.
+     *
+     * @param marketOrderBook the Market Order Book to truncate.
+     * @param depth           the requested order book depth. Must be at least 1.
+     * @return the Market Order Book if it is within the depth, otherwise a copy with at most {@code depth} BUY orders
+     * and {@code depth} SELL orders.
+     * @throws IllegalArgumentException if the depth is less than 1.
+     */
+    static MarketOrderBook limitDepth(MarketOrderBook marketOrderBook, int depth) {
+        checkDepth(depth);
+        if (marketOrderBook.getSellOrders().size() <= depth && marketOrderBook.getBuyOrders().size() <= depth) {
+            return marketOrderBook;
+        }
+        return new DepthLimitedMarketOrderBook(marketOrderBook, depth);
+    }
 }
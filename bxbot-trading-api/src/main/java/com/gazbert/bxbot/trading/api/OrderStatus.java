@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+
+/**
+ * Represents the status of one of <em>your</em> orders on the exchange.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public interface OrderStatus {
+
+    /**
+     * Returns the ID for this order.
+     *
+     * @return the ID of the order.
+     */
+    String getId();
+
+    /**
+     * Returns the id of the market this order was placed on.
+     *
+     * @return the id of the market.
+     */
+    String getMarketId();
+
+    /**
+     * Returns the state of the order.
+     *
+     * @return the state of the order.
+     */
+    OrderState getState();
+
+    /**
+     * Returns the Quantity of the order that has been filled. If the Exchange does not provide this information, the
+     * value will be null.
+     *
+     * @return the Quantity filled if the Exchange provides this information, null otherwise.
+     */
+    BigDecimal getFilledQuantity();
+
+    /**
+     * Returns the Original total order quantity. If the Exchange does not provide this information, the value will be
+     * null.
+     *
+     * @return the Original total order quantity if the Exchange provides this information, null otherwise.
+     */
+    BigDecimal getOriginalQuantity();
+}
@@ -24,6 +24,8 @@
 package com.gazbert.bxbot.trading.api;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -79,6 +81,34 @@ public interface TradingApi {
      */
     MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException;
 
+    /**
+     * Fetches latest <em>market</em> orders for a given market, limited to the best {@code depth} BUY and SELL orders.
+     * <p>
+     * Use this call if your Trading Strategy only looks at the top of the order book: Exchange Adapters ask the
+     * exchange for the requested depth where the exchange supports it, so a lot less data is sent and parsed.
+     * <p>
+     * The default implementation fetches the full order book and truncates it.
+     *
+     * @param marketId the id of the market.
+     * @param depth    the maximum number of BUY orders and SELL orders to return. Must be at least 1.
+     * @return the market order book, with at most {@code depth} BUY orders and {@code depth} SELL orders.
+     * @throws IllegalArgumentException if the depth is less than 1.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange. This is
+     *                                  implementation specific for each Exchange Adapter - see the documentation for the
+     *                                  adapter you are using. You could retry the API call, or exit from your Trading Strategy
+     *                                  and let the Trading Engine execute your Trading Strategy at the next trade cycle.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  bad as happened; you would probably want to wrap this exception in a
+     *                                  StrategyException and let the Trading Engine shutdown the bot immediately
+     *                                  to prevent unexpected losses.
+     */
+    default MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+
+        MarketOrderBook.checkDepth(depth);
+        return MarketOrderBook.limitDepth(getMarketOrders(marketId), depth);
+    }
+
     /**
      * Fetches <em>your</em> current open orders, i.e. the orders placed by the bot.
      *
@@ -95,6 +125,85 @@ public interface TradingApi {
      */
     List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException;
 
+    /**
+     * Fetches the status of one of <em>your</em> orders, i.e. an order placed by the bot.
+     * <p>
+     * Use this call to find out if an order has been filled: Exchange Adapters look the order up by its id where the
+     * exchange supports it, so only that one order is sent back instead of all your open orders.
+     * <p>
+     * The default implementation scans your open orders for the order id. If the order is not found, it is assumed to
+     * have been {@link OrderState#FILLED} and the filled quantity is not known.
+     *
+     * @param orderId  your order Id.
+     * @param marketId the id of the market the order was placed on, e.g. btc_usd
+     * @return the status of the order.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange. This is
+     *                                  implementation specific for each Exchange Adapter - see the documentation for the
+     *                                  adapter you are using. You could retry the API call, or exit from your Trading Strategy
+     *                                  and let the Trading Engine execute your Trading Strategy at the next trade cycle.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  bad as happened; you would probably want to wrap this exception in a
+     *                                  StrategyException and let the Trading Engine shutdown the bot immediately
+     *                                  to prevent unexpected losses.
+     */
+    default OrderStatus getOrderStatus(String orderId, String marketId)
+            throws ExchangeNetworkException, TradingApiException {
+
+        OrderState state = OrderState.FILLED;
+        BigDecimal filledQuantity = null;
+        BigDecimal originalQuantity = null;
+
+        for (final OpenOrder openOrder : getYourOpenOrders(marketId)) {
+            if (openOrder.getId().equals(orderId)) {
+                originalQuantity = openOrder.getOriginalQuantity();
+                if (originalQuantity != null) {
+                    filledQuantity = originalQuantity.subtract(openOrder.getQuantity());
+                }
+                state = filledQuantity != null && filledQuantity.signum() > 0
+                        ? OrderState.PARTIALLY_FILLED : OrderState.OPEN;
+                break;
+            }
+        }
+
+        final OrderState orderState = state;
+        final BigDecimal orderFilledQuantity = filledQuantity;
+        final BigDecimal orderOriginalQuantity = originalQuantity;
+
+        return new OrderStatus() {
+            @Override
+            public String getId() {
+                return orderId;
+            }
+
+            @Override
+            public String getMarketId() {
+                return marketId;
+            }
+
+            @Override
+            public OrderState getState() {
+                return orderState;
+            }
+
+            @Override
+            public BigDecimal getFilledQuantity() {
+                return orderFilledQuantity;
+            }
+
+            @Override
+            public BigDecimal getOriginalQuantity() {
+                return orderOriginalQuantity;
+            }
+
+            @Override
+            public String toString() {
+                return "OrderStatus{id=" + orderId + ", marketId=" + marketId + ", state=" + orderState
+                        + ", filledQuantity=" + orderFilledQuantity + ", originalQuantity=" + orderOriginalQuantity
+                        + "}";
+            }
+        };
+    }
+
     /**
      * Places an order on the exchange.
      *
@@ -132,6 +241,106 @@ public interface TradingApi {
      */
     boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException;
 
+    /**
+     * Places a batch of orders on the exchange.
+     * <p>
+     * Use this call when you need to place lots of orders at once, e.g. to refresh a grid of quotes: Exchange Adapters
+     * send the batch in as few API calls as the exchange allows, or place the orders in parallel.
+     * <p>
+     * The default implementation places the orders one after another.
+     * <p>
+     * If an exception is thrown, some of the orders may still have been placed. The ids of the orders that were placed
+     * are attached to the exception - see {@link TradingApiException#getPlacedOrderIds()} and
+     * {@link ExchangeNetworkException#getPlacedOrderIds()}. An order that failed with a network error might also have
+     * been placed - call {@link #getYourOpenOrders(String)} to find out.
+     *
+     * @param orderRequests the orders to place.
+     * @return the ids of the orders, in the same order as the order requests.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange. This is
+     *                                  implementation specific for each Exchange Adapter - see the documentation for the
+     *                                  adapter you are using. You could retry the API call, or exit from your Trading Strategy
+     *                                  and let the Trading Engine execute your Trading Strategy at the next trade cycle.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  bad as happened; you would probably want to wrap this exception in a
+     *                                  StrategyException and let the Trading Engine shutdown the bot immediately
+     *                                  to prevent unexpected losses.
+     */
+    default List<String> createOrders(List<OrderRequest> orderRequests)
+            throws ExchangeNetworkException, TradingApiException {
+
+        final List<String> orderIds = new ArrayList<>(orderRequests.size());
+        try {
+            for (final OrderRequest orderRequest : orderRequests) {
+                orderIds.add(createOrder(orderRequest.getMarketId(), orderRequest.getOrderType(),
+                        orderRequest.getQuantity(), orderRequest.getPrice()));
+            }
+        } catch (ExchangeNetworkException e) {
+            orderIds.addAll(Collections.nCopies(orderRequests.size() - orderIds.size(), null));
+            throw new ExchangeNetworkException(e.getMessage(), e, orderIds);
+        } catch (TradingApiException e) {
+            orderIds.addAll(Collections.nCopies(orderRequests.size() - orderIds.size(), null));
+            throw new TradingApiException(e.getMessage(), e, orderIds);
+        }
+        return orderIds;
+    }
+
+    /**
+     * Cancels a batch of your existing orders on the exchange.
+     * <p>
+     * Exchange Adapters send the batch in as few API calls as the exchange allows, or cancel the orders in parallel.
+     * <p>
+     * The default implementation cancels the orders one after another.
+     *
+     * @param orderIds your order Ids.
+     * @param marketId the id of the market the orders were placed on, e.g. btc_usd
+     * @return true if all the orders were cancelled ok, false otherwise.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange. This is
+     *                                  implementation specific for each Exchange Adapter - see the documentation for the
+     *                                  adapter you are using. You could retry the API call, or exit from your Trading Strategy
+     *                                  and let the Trading Engine execute your Trading Strategy at the next trade cycle.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  bad as happened; you would probably want to wrap this exception in a
+     *                                  StrategyException and let the Trading Engine shutdown the bot immediately
+     *                                  to prevent unexpected losses.
+     */
+    default boolean cancelOrders(List<String> orderIds, String marketId)
+            throws ExchangeNetworkException, TradingApiException {
+
+        boolean allCancelled = true;
+        for (final String orderId : orderIds) {
+            allCancelled &= cancelOrder(orderId, marketId);
+        }
+        return allCancelled;
+    }
+
+    /**
+     * Cancels all of your open orders for a given market.
+     * <p>
+     * Exchange Adapters use the exchange's mass-cancel API call where it has one. The Trading Engine calls this for
+     * every market when the Emergency Stop balance is breached.
+     * <p>
+     * The default implementation fetches your open orders and cancels them using {@link #cancelOrders(List, String)}.
+     *
+     * @param marketId the id of the market, e.g. btc_usd
+     * @return true if all the open orders were cancelled ok, false otherwise.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange. This is
+     *                                  implementation specific for each Exchange Adapter - see the documentation for the
+     *                                  adapter you are using. You could retry the API call, or exit from your Trading Strategy
+     *                                  and let the Trading Engine execute your Trading Strategy at the next trade cycle.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  bad as happened; you would probably want to wrap this exception in a
+     *                                  StrategyException and let the Trading Engine shutdown the bot immediately
+     *                                  to prevent unexpected losses.
+     */
+    default boolean cancelAllOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+
+        final List<String> orderIds = new ArrayList<>();
+        for (final OpenOrder openOrder : getYourOpenOrders(marketId)) {
+            orderIds.add(openOrder.getId());
+        }
+        return orderIds.isEmpty() || cancelOrders(orderIds, marketId);
+    }
+
     /**
      * Fetches the latest price for a given market.
      * This is usually in BTC for altcoin markets and USD for BTC/USD markets - see the Exchange Adapter documentation.
@@ -201,4 +410,13 @@ public interface TradingApi {
      *                                  to prevent unexpected losses.
      */
     BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) throws TradingApiException, ExchangeNetworkException;
+
+    /**
+     * Tells the Exchange Adapter that your exchange fees have changed, e.g. after your trading volume moved you into a
+     * different fee tier, so any fees it has cached are fetched from the exchange again.
+     * <p>
+     * The default implementation does nothing; it is for Exchange Adapters that do not cache fees.
+     */
+    default void invalidateExchangeFees() {
+    }
 }
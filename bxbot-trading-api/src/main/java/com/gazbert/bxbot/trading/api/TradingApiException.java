@@ -23,6 +23,10 @@
 
 package com.gazbert.bxbot.trading.api;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * <p>
  * This exception is thrown from Exchange Adapter implementations when there is a problem making an API call to the exchange.
@@ -44,6 +48,8 @@ public class TradingApiException extends Exception {
 
     private static final long serialVersionUID = -8279304672615688060L;
 
+    private final List<String> placedOrderIds;
+
     /**
      * Constructor builds exception with error message.
      *
@@ -51,6 +57,7 @@ public class TradingApiException extends Exception {
      */
     public TradingApiException(String msg) {
         super(msg);
+        this.placedOrderIds = Collections.emptyList();
     }
 
     /**
@@ -61,5 +68,30 @@ public class TradingApiException extends Exception {
      */
     public TradingApiException(String msg, Throwable e) {
         super(msg, e);
+        this.placedOrderIds = Collections.emptyList();
+    }
+
+    /**
+     * Constructor builds exception for a failed batch of orders, with the ids of the orders that were placed before
+     * it failed.
+     *
+     * @param msg            the error message.
+     * @param e              the original exception.
+     * @param placedOrderIds the ids of the orders, in the same order as the order requests; null for each order that
+     *                       was not placed.
+     */
+    public TradingApiException(String msg, Throwable e, List<String> placedOrderIds) {
+        super(msg, e);
+        this.placedOrderIds = Collections.unmodifiableList(new ArrayList<>(placedOrderIds));
+    }
+
+    /**
+     * Returns the ids of the orders placed by a batch order call before it failed, in the same order as the order
+     * requests - see {@link TradingApi#createOrders(List)}. An id is null for each order that was not placed.
+     *
+     * @return the placed order ids; empty if the exception was not thrown by a batch order call.
+     */
+    public List<String> getPlacedOrderIds() {
+        return placedOrderIds;
     }
 }
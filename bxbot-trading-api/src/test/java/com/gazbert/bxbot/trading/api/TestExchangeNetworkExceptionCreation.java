@@ -25,6 +25,8 @@ package com.gazbert.bxbot.trading.api;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 /**
@@ -49,4 +51,14 @@ public class TestExchangeNetworkExceptionCreation {
         assertEquals(ERROR_MSG, exception.getMessage());
         assertEquals(CAUSE, exception.getCause());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCreationOfExceptionWithPlacedOrderIdsIsAsExpected() {
+        final ExchangeNetworkException exception =
+                new ExchangeNetworkException(ERROR_MSG, CAUSE, Arrays.asList(null, "5678"));
+        assertEquals(ERROR_MSG, exception.getMessage());
+        assertEquals(CAUSE, exception.getCause());
+        assertEquals(Arrays.asList(null, "5678"), exception.getPlacedOrderIds());
+        assertTrue(new ExchangeNetworkException(ERROR_MSG).getPlacedOrderIds().isEmpty());
+    }
+}
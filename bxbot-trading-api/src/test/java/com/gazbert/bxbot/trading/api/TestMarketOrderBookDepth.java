@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests Market Order Books are limited to the requested depth as expected.
+ *
+ * @author gazbert
+ */
+public class TestMarketOrderBookDepth {
+
+    private static final String MARKET_ID = "btc_usd";
+
+
+    @Test
+    public void testOrderBookWithinDepthIsReturnedAsIs() {
+        final MarketOrderBook marketOrderBook = someMarketOrderBook(2, 1);
+        assertSame(marketOrderBook, MarketOrderBook.limitDepth(marketOrderBook, 2));
+    }
+
+    @Test
+    public void testOrderBookIsTruncatedToDepth() {
+        final MarketOrderBook marketOrderBook = someMarketOrderBook(5, 1);
+        final MarketOrderBook limitedMarketOrderBook = MarketOrderBook.limitDepth(marketOrderBook, 2);
+
+        assertEquals(MARKET_ID, limitedMarketOrderBook.getMarketId());
+        assertEquals(marketOrderBook.getSellOrders().subList(0, 2), limitedMarketOrderBook.getSellOrders());
+        assertEquals(marketOrderBook.getBuyOrders(), limitedMarketOrderBook.getBuyOrders());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDepthLessThanOneIsRejected() {
+        MarketOrderBook.limitDepth(someMarketOrderBook(1, 1), 0);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static MarketOrderBook someMarketOrderBook(int sellOrderCount, int buyOrderCount) {
+        final List<MarketOrder> sellOrders = someMarketOrders(OrderType.SELL, sellOrderCount);
+        final List<MarketOrder> buyOrders = someMarketOrders(OrderType.BUY, buyOrderCount);
+        return new MarketOrderBook() {
+            @Override
+            public String getMarketId() {
+                return MARKET_ID;
+            }
+
+            @Override
+            public List<MarketOrder> getSellOrders() {
+                return sellOrders;
+            }
+
+            @Override
+            public List<MarketOrder> getBuyOrders() {
+                return buyOrders;
+            }
+        };
+    }
+
+    private static List<MarketOrder> someMarketOrders(OrderType orderType, int count) {
+        final List<MarketOrder> marketOrders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final BigDecimal price = new BigDecimal(1000 + i);
+            marketOrders.add(new MarketOrder() {
+                @Override
+                public OrderType getType() {
+                    return orderType;
+                }
+
+                @Override
+                public BigDecimal getPrice() {
+                    return price;
+                }
+
+                @Override
+                public BigDecimal getQuantity() {
+                    return BigDecimal.ONE;
+                }
+
+                @Override
+                public BigDecimal getTotal() {
+                    return price;
+                }
+            });
+        }
+        return marketOrders;
+    }
+}
@@ -25,7 +25,10 @@ package com.gazbert.bxbot.trading.api;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests Trading API Exception is created as expected.
@@ -49,4 +52,13 @@ public class TestTradingApiExceptionCreation {
         assertEquals(ERROR_MSG, exception.getMessage());
         assertEquals(CAUSE, exception.getCause());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCreationOfExceptionWithPlacedOrderIdsIsAsExpected() {
+        final TradingApiException exception = new TradingApiException(ERROR_MSG, CAUSE, Arrays.asList("1234", null));
+        assertEquals(ERROR_MSG, exception.getMessage());
+        assertEquals(CAUSE, exception.getCause());
+        assertEquals(Arrays.asList("1234", null), exception.getPlacedOrderIds());
+        assertTrue(new TradingApiException(ERROR_MSG).getPlacedOrderIds().isEmpty());
+    }
+}
@@ -33,16 +33,61 @@ import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * The generic configuration manager loads config from a given XML config file.
+ * <p>
+ * JAXB contexts and compiled XML Schemas are expensive to build and are thread-safe, so they are built once per
+ * config package and XSD file and shared. Marshallers and Unmarshallers are not thread-safe; each thread keeps its
+ * own per config package.
+ * <p>
+ * Config is saved by marshalling it to a temp file next to the config file, fsync-ing it, and then renaming it over
+ * the config file. A crash mid-save leaves the old config file in place, and a load never sees a half-written file.
+ * <p>
+ * Saves can optionally be written behind: the config is marshalled straight away, but written to disk after a
+ * delay. Saves to the same file during the delay replace the pending write, so a burst of updates costs one disk
+ * write. Loads of a file with a pending write are served from the pending write.
+ * <p>
+ * Each config file has its own {@link StampedLock}. A save holds the write lock only while it renames the temp file
+ * over the config file. A load reads the file's bytes under an optimistic read and only takes the read lock if a
+ * save got in while it was reading. Parsing happens outside the lock, so loads and saves of different files never
+ * wait on each other, and loads of the same file run in parallel.
  *
  * @author gazbert
  */
 public final class ConfigurationManager {
 
     private static final Logger LOG = LogManager.getLogger();
-    private final static Object MUTEX = new Object();
+    private static final ConcurrentMap<Path, StampedLock> FILE_LOCKS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Schema> SCHEMAS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ConfigurationStats> STATS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Map<String, Unmarshaller>> UNMARSHALLERS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<String, Marshaller>> MARSHALLERS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final Object WRITE_BEHIND_LOCK = new Object();
+    private static final Object FLUSH_LOCK = new Object();
+    private static final Map<String, byte[]> PENDING_WRITES = new HashMap<>();
+    private static ScheduledExecutorService writeBehindExecutor;
+    private static long writeBehindDelayInMillis;
 
     private ConfigurationManager() {
     }
@@ -53,29 +98,28 @@ public final class ConfigurationManager {
     public static <T> T loadConfig(Class<T> configClass, String xmlConfigFile, String xmlSchemaFile) {
 
         LOG.info(() -> "Loading configuration for [" + configClass + "] from: " + xmlConfigFile + " ...");
+        final long startTime = System.nanoTime();
 
         try {
-            final JAXBContext jaxbContext = JAXBContext.newInstance(configClass.getPackage().getName());
-            final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+            final Unmarshaller unmarshaller = getUnmarshaller(configClass);
 
             // optional schema validation
-            if (xmlSchemaFile != null) {
-                final InputStream xsdStream = ConfigurationManager.class.getClassLoader().getResourceAsStream(xmlSchemaFile);
-                final StreamSource xsdSource = new StreamSource(xsdStream);
-                final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-                final Schema schema = sf.newSchema(xsdSource);
-                unmarshaller.setSchema(schema);
+            unmarshaller.setSchema(xmlSchemaFile != null ? getSchema(xmlSchemaFile) : null);
+
+            final byte[] pendingWrite;
+            synchronized (WRITE_BEHIND_LOCK) {
+                pendingWrite = PENDING_WRITES.get(xmlConfigFile);
             }
 
-            synchronized (MUTEX) {
-                final FileInputStream fileInputStream = new FileInputStream(xmlConfigFile);
-                final JAXBElement<?> requestedConfigRootXmlElement = (JAXBElement<?>) unmarshaller.unmarshal(fileInputStream);
-                final T requestedConfig = (T) requestedConfigRootXmlElement.getValue();
-                fileInputStream.close();
+            final byte[] configBytes = pendingWrite != null ? pendingWrite : readConfigFile(xmlConfigFile);
+            final JAXBElement<?> requestedConfigRootXmlElement =
+                    (JAXBElement<?>) unmarshaller.unmarshal(new ByteArrayInputStream(configBytes));
+            final T requestedConfig = (T) requestedConfigRootXmlElement.getValue();
 
-                LOG.info(() -> "Loaded and set configuration for [" + configClass + "] successfully!");
-                return requestedConfig;
-            }
+            final long durationInMicros = recordLoad(configClass, startTime);
+            LOG.info(() -> "Loaded and set configuration for [" + configClass + "] successfully in "
+                    + durationInMicros + " micros!");
+            return requestedConfig;
 
         } catch (JAXBException | SAXException e) {
             final String errorMsg = "Failed to load [" + xmlConfigFile + "] file and validate it using XML Schema [" + xmlSchemaFile + "]";
@@ -94,18 +138,20 @@ public final class ConfigurationManager {
     public static <T> void saveConfig(Class<T> configClass, T config, String xmlConfigFile) {
 
         LOG.info(() -> "Saving configuration for [" + configClass + "] to: " + xmlConfigFile + " ...");
+        final long startTime = System.nanoTime();
 
         try {
-            final JAXBContext context = JAXBContext.newInstance(config.getClass());
-            final Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+            final Marshaller marshaller = getMarshaller(configClass);
+            final ByteArrayOutputStream marshalledConfig = new ByteArrayOutputStream();
+            marshaller.marshal(config, marshalledConfig);
 
-            synchronized (MUTEX) {
-                final FileOutputStream fileOutputStream = new FileOutputStream(xmlConfigFile);
-                marshaller.marshal(config, fileOutputStream);
-                fileOutputStream.close();
+            if (!scheduleWrite(xmlConfigFile, marshalledConfig.toByteArray())) {
+                writeAtomically(xmlConfigFile, marshalledConfig.toByteArray());
             }
 
+            final long durationInMicros = recordSave(configClass, startTime);
+            LOG.info(() -> "Saved configuration for [" + configClass + "] successfully in " + durationInMicros + " micros!");
+
         } catch (JAXBException e) {
             final String errorMsg = "Failed to save config to [" + xmlConfigFile + "] file.";
             LOG.error(errorMsg, e);
@@ -116,4 +162,280 @@ public final class ConfigurationManager {
             throw new IllegalStateException(errorMsg, e);
         }
     }
+
+    /*
+     * Builds the JAXB context and compiles the XML Schema for the given config up front, so the first load or save
+     * does not pay for it. Safe to call more than once.
+     */
+    public static void warmUp(Class<?> configClass, String xmlSchemaFile) {
+
+        LOG.info(() -> "Warming up configuration for [" + configClass + "] ...");
+        final long startTime = System.nanoTime();
+
+        try {
+            getJaxbContext(configClass);
+            if (xmlSchemaFile != null) {
+                getSchema(xmlSchemaFile);
+            }
+        } catch (JAXBException | SAXException e) {
+            final String errorMsg = "Failed to warm up config for [" + configClass + "] using XML Schema [" + xmlSchemaFile + "]";
+            LOG.error(errorMsg, e);
+            throw new IllegalArgumentException(errorMsg, e);
+        }
+
+        final long durationInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        LOG.info(() -> "Warmed up configuration for [" + configClass + "] in " + durationInMillis + " millis");
+    }
+
+    /*
+     * Writes saves behind by the given delay. Saves made before this is called have already been written.
+     */
+    public static void enableWriteBehind(long delay, TimeUnit timeUnit) {
+
+        synchronized (WRITE_BEHIND_LOCK) {
+            if (writeBehindExecutor == null) {
+                writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "bxbot-config-write-behind");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            writeBehindDelayInMillis = timeUnit.toMillis(delay);
+        }
+        LOG.info(() -> "Config saves will be written behind by " + timeUnit.toMillis(delay) + " millis");
+    }
+
+    /*
+     * Writes any pending saves and goes back to writing saves straight away.
+     */
+    public static void disableWriteBehind() {
+
+        final ScheduledExecutorService executor;
+        synchronized (WRITE_BEHIND_LOCK) {
+            executor = writeBehindExecutor;
+            writeBehindExecutor = null;
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+            flush();
+            LOG.info(() -> "Config saves will be written straight away");
+        }
+    }
+
+    /*
+     * Writes any pending saves now.
+     */
+    public static void flush() {
+
+        final String[] xmlConfigFiles;
+        synchronized (WRITE_BEHIND_LOCK) {
+            xmlConfigFiles = PENDING_WRITES.keySet().toArray(new String[0]);
+        }
+
+        for (final String xmlConfigFile : xmlConfigFiles) {
+            flushPendingWrite(xmlConfigFile);
+        }
+    }
+
+    /*
+     * Returns the load and save timings for the given config class.
+     */
+    public static ConfigurationStats getStats(Class<?> configClass) {
+        return STATS.computeIfAbsent(configClass, key -> new ConfigurationStats());
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static JAXBContext getJaxbContext(Class<?> configClass) throws JAXBException {
+        final String contextPath = configClass.getPackage().getName();
+        final JAXBContext jaxbContext = JAXB_CONTEXTS.get(contextPath);
+        if (jaxbContext != null) {
+            return jaxbContext;
+        }
+
+        // a duplicate context built by a racing thread is harmless; first one in wins
+        final JAXBContext newJaxbContext = JAXBContext.newInstance(contextPath);
+        final JAXBContext existingJaxbContext = JAXB_CONTEXTS.putIfAbsent(contextPath, newJaxbContext);
+        return existingJaxbContext != null ? existingJaxbContext : newJaxbContext;
+    }
+
+    private static Schema getSchema(String xmlSchemaFile) throws SAXException {
+        final Schema schema = SCHEMAS.get(xmlSchemaFile);
+        if (schema != null) {
+            return schema;
+        }
+
+        final InputStream xsdStream = ConfigurationManager.class.getClassLoader().getResourceAsStream(xmlSchemaFile);
+        final StreamSource xsdSource = new StreamSource(xsdStream);
+        final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        final Schema newSchema = sf.newSchema(xsdSource);
+        final Schema existingSchema = SCHEMAS.putIfAbsent(xmlSchemaFile, newSchema);
+        return existingSchema != null ? existingSchema : newSchema;
+    }
+
+    private static Unmarshaller getUnmarshaller(Class<?> configClass) throws JAXBException {
+        final Map<String, Unmarshaller> unmarshallers = UNMARSHALLERS.get();
+        Unmarshaller unmarshaller = unmarshallers.get(configClass.getPackage().getName());
+        if (unmarshaller == null) {
+            unmarshaller = getJaxbContext(configClass).createUnmarshaller();
+            unmarshallers.put(configClass.getPackage().getName(), unmarshaller);
+        }
+        return unmarshaller;
+    }
+
+    private static Marshaller getMarshaller(Class<?> configClass) throws JAXBException {
+        final Map<String, Marshaller> marshallers = MARSHALLERS.get();
+        Marshaller marshaller = marshallers.get(configClass.getPackage().getName());
+        if (marshaller == null) {
+            marshaller = getJaxbContext(configClass).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+            marshallers.put(configClass.getPackage().getName(), marshaller);
+        }
+        return marshaller;
+    }
+
+    /*
+     * Returns false if saves are being written straight away.
+     */
+    private static boolean scheduleWrite(String xmlConfigFile, byte[] marshalledConfig) {
+
+        synchronized (WRITE_BEHIND_LOCK) {
+            if (writeBehindExecutor == null) {
+                return false;
+            }
+
+            // a flush is already scheduled if there's a pending write - it will pick up this one instead
+            if (PENDING_WRITES.put(xmlConfigFile, marshalledConfig) == null) {
+                writeBehindExecutor.schedule(() -> flushPendingWrite(xmlConfigFile), writeBehindDelayInMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+    }
+
+    private static void flushPendingWrite(String xmlConfigFile) {
+
+        synchronized (FLUSH_LOCK) {
+
+            final byte[] marshalledConfig;
+            synchronized (WRITE_BEHIND_LOCK) {
+                marshalledConfig = PENDING_WRITES.get(xmlConfigFile);
+            }
+            if (marshalledConfig == null) {
+                return; // already flushed
+            }
+
+            try {
+                writeAtomically(xmlConfigFile, marshalledConfig);
+            } catch (IOException e) {
+                // leave it pending; the next flush will retry
+                LOG.error("Failed to write pending config to [" + xmlConfigFile + "] file.", e);
+                return;
+            }
+
+            synchronized (WRITE_BEHIND_LOCK) {
+                if (PENDING_WRITES.get(xmlConfigFile) == marshalledConfig) {
+                    PENDING_WRITES.remove(xmlConfigFile);
+                } else if (writeBehindExecutor != null) {
+                    // saved again while we were writing
+                    writeBehindExecutor.schedule(() -> flushPendingWrite(xmlConfigFile), writeBehindDelayInMillis,
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    private static byte[] readConfigFile(String xmlConfigFile) throws IOException {
+
+        final Path configFile = Paths.get(xmlConfigFile).toAbsolutePath();
+        final StampedLock fileLock = getFileLock(configFile);
+
+        final long optimisticStamp = fileLock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            try {
+                final byte[] configBytes = Files.readAllBytes(configFile);
+                if (fileLock.validate(optimisticStamp)) {
+                    return configBytes;
+                }
+            } catch (IOException e) {
+                if (fileLock.validate(optimisticStamp)) {
+                    throw e;
+                }
+                // the file was being replaced while we read it - try again under the read lock
+            }
+        }
+
+        final long stamp = fileLock.readLock();
+        try {
+            return Files.readAllBytes(configFile);
+        } finally {
+            fileLock.unlockRead(stamp);
+        }
+    }
+
+    private static StampedLock getFileLock(Path configFile) {
+        return FILE_LOCKS.computeIfAbsent(configFile.normalize(), key -> new StampedLock());
+    }
+
+    private static void writeAtomically(String xmlConfigFile, byte[] marshalledConfig) throws IOException {
+
+        final Path configFile = Paths.get(xmlConfigFile).toAbsolutePath();
+        final Path configDirectory = configFile.getParent();
+        final Path tempFile = configDirectory.resolve(configFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(marshalledConfig);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            // keep the config file's permissions, e.g. exchange.xml may only be readable by its owner
+            if (Files.exists(configFile)) {
+                try {
+                    Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(configFile));
+                } catch (UnsupportedOperationException e) {
+                    // not a POSIX file system
+                }
+            }
+
+            // the fallback move is not atomic on every platform, so loads must not read while it runs
+            final StampedLock fileLock = getFileLock(configFile);
+            final long stamp = fileLock.writeLock();
+            try {
+                Files.move(tempFile, configFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, configFile, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                fileLock.unlockWrite(stamp);
+            }
+
+            // make the rename itself durable; not every platform can open a directory
+            try (FileChannel directoryChannel = FileChannel.open(configDirectory, StandardOpenOption.READ)) {
+                directoryChannel.force(true);
+            } catch (IOException e) {
+                LOG.debug("Could not fsync config directory [" + configDirectory + "]", e);
+            }
+
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static long recordLoad(Class<?> configClass, long startTime) {
+        final long durationInMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+        getStats(configClass).recordLoad(durationInMicros);
+        return durationInMicros;
+    }
+
+    private static long recordSave(Class<?> configClass, long startTime) {
+        final long durationInMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+        getStats(configClass).recordSave(durationInMicros);
+        return durationInMicros;
+    }
 }
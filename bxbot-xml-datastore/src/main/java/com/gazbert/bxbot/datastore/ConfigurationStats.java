@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.datastore;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Load and save timings for a config class.
+ * <p>
+ * Updated by the {@link ConfigurationManager}; safe to read from any thread.
+ *
+ * @author gazbert
+ */
+public final class ConfigurationStats {
+
+    private long loadCount;
+    private long lastLoadDurationInMicros;
+    private long maxLoadDurationInMicros;
+    private long totalLoadDurationInMicros;
+
+    private long saveCount;
+    private long lastSaveDurationInMicros;
+    private long maxSaveDurationInMicros;
+    private long totalSaveDurationInMicros;
+
+
+    synchronized void recordLoad(long durationInMicros) {
+        loadCount++;
+        lastLoadDurationInMicros = durationInMicros;
+        maxLoadDurationInMicros = Math.max(maxLoadDurationInMicros, durationInMicros);
+        totalLoadDurationInMicros += durationInMicros;
+    }
+
+    synchronized void recordSave(long durationInMicros) {
+        saveCount++;
+        lastSaveDurationInMicros = durationInMicros;
+        maxSaveDurationInMicros = Math.max(maxSaveDurationInMicros, durationInMicros);
+        totalSaveDurationInMicros += durationInMicros;
+    }
+
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    public synchronized long getLastLoadDurationInMicros() {
+        return lastLoadDurationInMicros;
+    }
+
+    public synchronized long getMaxLoadDurationInMicros() {
+        return maxLoadDurationInMicros;
+    }
+
+    public synchronized long getMeanLoadDurationInMicros() {
+        return loadCount == 0 ? 0 : totalLoadDurationInMicros / loadCount;
+    }
+
+    public synchronized long getSaveCount() {
+        return saveCount;
+    }
+
+    public synchronized long getLastSaveDurationInMicros() {
+        return lastSaveDurationInMicros;
+    }
+
+    public synchronized long getMaxSaveDurationInMicros() {
+        return maxSaveDurationInMicros;
+    }
+
+    public synchronized long getMeanSaveDurationInMicros() {
+        return saveCount == 0 ? 0 : totalSaveDurationInMicros / saveCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("loadCount", loadCount)
+                .add("lastLoadDurationInMicros", lastLoadDurationInMicros)
+                .add("maxLoadDurationInMicros", maxLoadDurationInMicros)
+                .add("meanLoadDurationInMicros", getMeanLoadDurationInMicros())
+                .add("saveCount", saveCount)
+                .add("lastSaveDurationInMicros", lastSaveDurationInMicros)
+                .add("maxSaveDurationInMicros", maxSaveDurationInMicros)
+                .add("meanSaveDurationInMicros", getMeanSaveDurationInMicros())
+                .toString();
+    }
+}
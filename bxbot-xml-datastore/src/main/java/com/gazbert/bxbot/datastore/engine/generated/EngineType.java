@@ -57,6 +57,44 @@ import java.math.BigDecimal;
  *             &lt;/restriction&gt;
  *           &lt;/simpleType&gt;
  *         &lt;/element&gt;
+ *         &lt;element name="strategy-execution-threads" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="strategy-execution-timeout" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="trade-cycle-scheduling" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string"&gt;
+ *               &lt;enumeration value="FIXED_DELAY"/&gt;
+ *               &lt;enumeration value="FIXED_RATE"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="missed-trade-cycle-policy" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string"&gt;
+ *               &lt;enumeration value="SKIP"/&gt;
+ *               &lt;enumeration value="COALESCE"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="trade-cycle-caching" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/&gt;
+ *         &lt;element name="balance-reconcile-interval" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
  *       &lt;/sequence&gt;
  *     &lt;/restriction&gt;
  *   &lt;/complexContent&gt;
@@ -71,7 +109,13 @@ import java.math.BigDecimal;
     "botName",
     "emergencyStopCurrency",
     "emergencyStopBalance",
-    "tradeCycleInterval"
+    "tradeCycleInterval",
+    "strategyExecutionThreads",
+    "strategyExecutionTimeout",
+    "tradeCycleScheduling",
+    "missedTradeCyclePolicy",
+    "tradeCycleCaching",
+    "balanceReconcileInterval"
 })
 @XmlRootElement(name="engine")
 public class EngineType {
@@ -86,6 +130,18 @@ public class EngineType {
     protected BigDecimal emergencyStopBalance;
     @XmlElement(name = "trade-cycle-interval")
     protected int tradeCycleInterval;
+    @XmlElement(name = "strategy-execution-threads")
+    protected Integer strategyExecutionThreads;
+    @XmlElement(name = "strategy-execution-timeout")
+    protected Integer strategyExecutionTimeout;
+    @XmlElement(name = "trade-cycle-scheduling")
+    protected String tradeCycleScheduling;
+    @XmlElement(name = "missed-trade-cycle-policy")
+    protected String missedTradeCyclePolicy;
+    @XmlElement(name = "trade-cycle-caching")
+    protected Boolean tradeCycleCaching;
+    @XmlElement(name = "balance-reconcile-interval")
+    protected Integer balanceReconcileInterval;
 
     /**
      * Gets the value of the botId property.
@@ -199,4 +255,148 @@ public class EngineType {
         this.tradeCycleInterval = value;
     }
 
+    /**
+     * Gets the value of the strategyExecutionThreads property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getStrategyExecutionThreads() {
+        return strategyExecutionThreads;
+    }
+
+    /**
+     * Sets the value of the strategyExecutionThreads property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setStrategyExecutionThreads(Integer value) {
+        this.strategyExecutionThreads = value;
+    }
+
+    /**
+     * Gets the value of the strategyExecutionTimeout property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getStrategyExecutionTimeout() {
+        return strategyExecutionTimeout;
+    }
+
+    /**
+     * Sets the value of the strategyExecutionTimeout property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setStrategyExecutionTimeout(Integer value) {
+        this.strategyExecutionTimeout = value;
+    }
+
+    /**
+     * Gets the value of the tradeCycleScheduling property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getTradeCycleScheduling() {
+        return tradeCycleScheduling;
+    }
+
+    /**
+     * Sets the value of the tradeCycleScheduling property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setTradeCycleScheduling(String value) {
+        this.tradeCycleScheduling = value;
+    }
+
+    /**
+     * Gets the value of the missedTradeCyclePolicy property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getMissedTradeCyclePolicy() {
+        return missedTradeCyclePolicy;
+    }
+
+    /**
+     * Sets the value of the missedTradeCyclePolicy property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setMissedTradeCyclePolicy(String value) {
+        this.missedTradeCyclePolicy = value;
+    }
+
+    /**
+     * Gets the value of the tradeCycleCaching property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isTradeCycleCaching() {
+        return tradeCycleCaching;
+    }
+
+    /**
+     * Sets the value of the tradeCycleCaching property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setTradeCycleCaching(Boolean value) {
+        this.tradeCycleCaching = value;
+    }
+
+    /**
+     * Gets the value of the balanceReconcileInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getBalanceReconcileInterval() {
+        return balanceReconcileInterval;
+    }
+
+    /**
+     * Sets the value of the balanceReconcileInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setBalanceReconcileInterval(Integer value) {
+        this.balanceReconcileInterval = value;
+    }
+
 }
@@ -32,6 +32,21 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;/element&gt;
  *         &lt;element name="non-fatal-error-codes" type="{}non-fatal-error-codesType" minOccurs="0"/&gt;
  *         &lt;element name="non-fatal-error-messages" type="{}non-fatal-error-messagesType" minOccurs="0"/&gt;
+ *         &lt;element name="max-connections-per-host" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="idle-connection-timeout" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="rate-limits" type="{}rate-limitsType" minOccurs="0"/&gt;
  *       &lt;/sequence&gt;
  *     &lt;/restriction&gt;
  *   &lt;/complexContent&gt;
@@ -44,7 +59,10 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "network-configType", propOrder = {
     "connectionTimeout",
     "nonFatalErrorCodes",
-    "nonFatalErrorMessages"
+    "nonFatalErrorMessages",
+    "maxConnectionsPerHost",
+    "idleConnectionTimeout",
+    "rateLimits"
 })
 public class NetworkConfigType {
 
@@ -54,6 +72,12 @@ public class NetworkConfigType {
     protected NonFatalErrorCodesType nonFatalErrorCodes;
     @XmlElement(name = "non-fatal-error-messages")
     protected NonFatalErrorMessagesType nonFatalErrorMessages;
+    @XmlElement(name = "max-connections-per-host")
+    protected Integer maxConnectionsPerHost;
+    @XmlElement(name = "idle-connection-timeout")
+    protected Integer idleConnectionTimeout;
+    @XmlElement(name = "rate-limits")
+    protected RateLimitsType rateLimits;
 
     /**
      * Gets the value of the connectionTimeout property.
@@ -127,4 +151,76 @@ public class NetworkConfigType {
         this.nonFatalErrorMessages = value;
     }
 
+    /**
+     * Gets the value of the maxConnectionsPerHost property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the value of the maxConnectionsPerHost property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setMaxConnectionsPerHost(Integer value) {
+        this.maxConnectionsPerHost = value;
+    }
+
+    /**
+     * Gets the value of the idleConnectionTimeout property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * Sets the value of the idleConnectionTimeout property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setIdleConnectionTimeout(Integer value) {
+        this.idleConnectionTimeout = value;
+    }
+
+    /**
+     * Gets the value of the rateLimits property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link RateLimitsType }
+     *     
+     */
+    public RateLimitsType getRateLimits() {
+        return rateLimits;
+    }
+
+    /**
+     * Sets the value of the rateLimits property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link RateLimitsType }
+     *     
+     */
+    public void setRateLimits(RateLimitsType value) {
+        this.rateLimits = value;
+    }
+
 }
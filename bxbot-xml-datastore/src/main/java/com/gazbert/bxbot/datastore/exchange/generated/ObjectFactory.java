@@ -88,6 +88,22 @@ public class ObjectFactory {
         return new NonFatalErrorCodesType();
     }
 
+    /**
+     * Create an instance of {@link RateLimitsType }
+     * 
+     */
+    public RateLimitsType createRateLimitsType() {
+        return new RateLimitsType();
+    }
+
+    /**
+     * Create an instance of {@link RateLimitType }
+     * 
+     */
+    public RateLimitType createRateLimitType() {
+        return new RateLimitType();
+    }
+
     /**
      * Create an instance of {@link ConfigItemType }
      * 
@@ -61,6 +61,13 @@ import javax.xml.bind.annotation.XmlType;
  *             &lt;/restriction&gt;
  *           &lt;/simpleType&gt;
  *         &lt;/element&gt;
+ *         &lt;element name="trade-cycle-interval" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
  *       &lt;/sequence&gt;
  *     &lt;/restriction&gt;
  *   &lt;/complexContent&gt;
@@ -76,7 +83,8 @@ import javax.xml.bind.annotation.XmlType;
     "baseCurrency",
     "counterCurrency",
     "enabled",
-    "tradingStrategyId"
+    "tradingStrategyId",
+    "tradeCycleInterval"
 })
 public class MarketType {
 
@@ -91,6 +99,8 @@ public class MarketType {
     protected boolean enabled;
     @XmlElement(name = "trading-strategy-id", required = true)
     protected String tradingStrategyId;
+    @XmlElement(name = "trade-cycle-interval")
+    protected Integer tradeCycleInterval;
 
     /**
      * Gets the value of the id property.
@@ -228,4 +238,28 @@ public class MarketType {
         this.tradingStrategyId = value;
     }
 
+    /**
+     * Gets the value of the tradeCycleInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getTradeCycleInterval() {
+        return tradeCycleInterval;
+    }
+
+    /**
+     * Sets the value of the tradeCycleInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setTradeCycleInterval(Integer value) {
+        this.tradeCycleInterval = value;
+    }
+
 }
@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.datastore;
+
+import com.gazbert.bxbot.datastore.engine.generated.EngineType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Configuration Manager reuses its JAXB contexts and schemas, records load and save timings, and writes
+ * config safely.
+ *
+ * @author gazbert
+ */
+public class TestConfigurationManager {
+
+    private static final String XML_SCHEMA_FILENAME = "com/gazbert/bxbot/datastore/config/engine.xsd";
+    private static final String VALID_XML_CONFIG_FILENAME = "src/test/config/engine/valid-engine.xml";
+    private static final String XML_CONFIG_TO_SAVE_FILENAME = "src/test/config/engine/saved-engine-stats.xml";
+    private static final String XML_CONFIG_TO_WRITE_BEHIND_FILENAME = "src/test/config/engine/saved-engine-write-behind.xml";
+    private static final String XML_CONFIG_TO_SHARE_FILENAME = "src/test/config/engine/saved-engine-shared.xml";
+
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        ConfigurationManager.disableWriteBehind();
+        Files.deleteIfExists(FileSystems.getDefault().getPath(XML_CONFIG_TO_WRITE_BEHIND_FILENAME));
+        Files.deleteIfExists(FileSystems.getDefault().getPath(XML_CONFIG_TO_SHARE_FILENAME));
+    }
+
+    @Test
+    public void testWarmUpCanBeCalledMoreThanOnce() {
+        ConfigurationManager.warmUp(EngineType.class, XML_SCHEMA_FILENAME);
+        ConfigurationManager.warmUp(EngineType.class, XML_SCHEMA_FILENAME);
+
+        final EngineType engine = ConfigurationManager.loadConfig(EngineType.class,
+                VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+        assertEquals("avro-707_1", engine.getBotId());
+    }
+
+    @Test
+    public void testLoadsAreTimed() {
+
+        final ConfigurationStats stats = ConfigurationManager.getStats(EngineType.class);
+        final long loadCountBefore = stats.getLoadCount();
+
+        ConfigurationManager.loadConfig(EngineType.class, VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+        ConfigurationManager.loadConfig(EngineType.class, VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+
+        assertEquals(loadCountBefore + 2, stats.getLoadCount());
+        assertTrue(stats.getMaxLoadDurationInMicros() >= stats.getLastLoadDurationInMicros());
+        assertTrue(stats.getMaxLoadDurationInMicros() >= stats.getMeanLoadDurationInMicros());
+    }
+
+    @Test
+    public void testFailedLoadsAreNotTimed() {
+
+        final ConfigurationStats stats = ConfigurationManager.getStats(EngineType.class);
+        final long loadCountBefore = stats.getLoadCount();
+
+        try {
+            ConfigurationManager.loadConfig(EngineType.class, "src/test/config/engine/missing-engine.xml",
+                    XML_SCHEMA_FILENAME);
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(loadCountBefore, stats.getLoadCount());
+    }
+
+    @Test
+    public void testSavesAreTimed() throws Exception {
+
+        final EngineType engine = ConfigurationManager.loadConfig(EngineType.class,
+                VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+
+        final ConfigurationStats stats = ConfigurationManager.getStats(EngineType.class);
+        final long saveCountBefore = stats.getSaveCount();
+
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_SAVE_FILENAME);
+        assertEquals(saveCountBefore + 1, stats.getSaveCount());
+
+        // the cached marshaller round-trips the config
+        final EngineType engineReloaded = ConfigurationManager.loadConfig(EngineType.class,
+                XML_CONFIG_TO_SAVE_FILENAME, XML_SCHEMA_FILENAME);
+        assertEquals(engine.getBotId(), engineReloaded.getBotId());
+
+        // cleanup
+        Files.delete(FileSystems.getDefault().getPath(XML_CONFIG_TO_SAVE_FILENAME));
+    }
+
+    @Test
+    public void testSaveLeavesNoTempFilesBehind() throws Exception {
+
+        final EngineType engine = ConfigurationManager.loadConfig(EngineType.class,
+                VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_SAVE_FILENAME);
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_SAVE_FILENAME);
+
+        final File[] tempFiles = new File("src/test/config/engine").listFiles((dir, name) -> name.endsWith(".tmp"));
+        assertEquals(0, tempFiles.length);
+
+        // cleanup
+        Files.delete(FileSystems.getDefault().getPath(XML_CONFIG_TO_SAVE_FILENAME));
+    }
+
+    @Test
+    public void testWriteBehindCoalescesSavesAndServesLoadsFromPendingWrite() throws Exception {
+
+        ConfigurationManager.enableWriteBehind(1, TimeUnit.HOURS);
+
+        final EngineType engine = ConfigurationManager.loadConfig(EngineType.class,
+                VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+        engine.setBotName("first save");
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_WRITE_BEHIND_FILENAME);
+        engine.setBotName("second save");
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_WRITE_BEHIND_FILENAME);
+
+        // not written yet, but loads see the latest save
+        assertFalse(new File(XML_CONFIG_TO_WRITE_BEHIND_FILENAME).exists());
+        assertEquals("second save", ConfigurationManager.loadConfig(EngineType.class,
+                XML_CONFIG_TO_WRITE_BEHIND_FILENAME, XML_SCHEMA_FILENAME).getBotName());
+
+        ConfigurationManager.flush();
+
+        assertTrue(new File(XML_CONFIG_TO_WRITE_BEHIND_FILENAME).exists());
+        assertEquals("second save", ConfigurationManager.loadConfig(EngineType.class,
+                XML_CONFIG_TO_WRITE_BEHIND_FILENAME, XML_SCHEMA_FILENAME).getBotName());
+    }
+
+    @Test
+    public void testDisablingWriteBehindWritesPendingSaves() throws Exception {
+
+        ConfigurationManager.enableWriteBehind(1, TimeUnit.HOURS);
+
+        final EngineType engine = ConfigurationManager.loadConfig(EngineType.class,
+                VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_WRITE_BEHIND_FILENAME);
+        assertFalse(new File(XML_CONFIG_TO_WRITE_BEHIND_FILENAME).exists());
+
+        ConfigurationManager.disableWriteBehind();
+        assertTrue(new File(XML_CONFIG_TO_WRITE_BEHIND_FILENAME).exists());
+    }
+
+    @Test
+    public void testWriteBehindWritesAfterDelay() throws Exception {
+
+        ConfigurationManager.enableWriteBehind(10, TimeUnit.MILLISECONDS);
+
+        final EngineType engine = ConfigurationManager.loadConfig(EngineType.class,
+                VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_WRITE_BEHIND_FILENAME);
+
+        final long giveUpTime = System.currentTimeMillis() + 10000;
+        while (!new File(XML_CONFIG_TO_WRITE_BEHIND_FILENAME).exists() && System.currentTimeMillis() < giveUpTime) {
+            Thread.sleep(10);
+        }
+        assertTrue(new File(XML_CONFIG_TO_WRITE_BEHIND_FILENAME).exists());
+    }
+
+    @Test
+    public void testConcurrentLoadsNeverSeeAPartialSave() throws Exception {
+
+        final EngineType engine = ConfigurationManager.loadConfig(EngineType.class,
+                VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+        ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_SHARE_FILENAME);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Future<?> saves = executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    ConfigurationManager.saveConfig(EngineType.class, engine, XML_CONFIG_TO_SHARE_FILENAME);
+                }
+            });
+
+            final Future<?> sharedFileLoads = executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    final EngineType loaded = ConfigurationManager.loadConfig(EngineType.class,
+                            XML_CONFIG_TO_SHARE_FILENAME, XML_SCHEMA_FILENAME);
+                    assertEquals(engine.getBotId(), loaded.getBotId());
+                }
+            });
+
+            final Future<?> otherFileLoads = executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    ConfigurationManager.loadConfig(EngineType.class, VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+                }
+            });
+
+            // rethrows any load failure
+            saves.get(30, TimeUnit.SECONDS);
+            sharedFileLoads.get(30, TimeUnit.SECONDS);
+            otherFileLoads.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -55,6 +55,12 @@ public class TestEngineConfigurationManagement {
     private static final String EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
     private static final int TRADE_CYCLE_INTERVAL = 60;
+    private static final Integer STRATEGY_EXECUTION_THREADS = 4;
+    private static final Integer STRATEGY_EXECUTION_TIMEOUT = 30;
+    private static final String TRADE_CYCLE_SCHEDULING = "FIXED_RATE";
+    private static final String MISSED_TRADE_CYCLE_POLICY = "COALESCE";
+    private static final Boolean TRADE_CYCLE_CACHING = true;
+    private static final Integer BALANCE_RECONCILE_INTERVAL = 300;
 
 
     @Test
@@ -68,6 +74,12 @@ public class TestEngineConfigurationManagement {
         assertEquals(EMERGENCY_STOP_CURRENCY, engine.getEmergencyStopCurrency());
         assertTrue(EMERGENCY_STOP_BALANCE.compareTo(engine.getEmergencyStopBalance()) == 0);
         assertTrue(TRADE_CYCLE_INTERVAL == engine.getTradeCycleInterval());
+        assertEquals(STRATEGY_EXECUTION_THREADS, engine.getStrategyExecutionThreads());
+        assertEquals(STRATEGY_EXECUTION_TIMEOUT, engine.getStrategyExecutionTimeout());
+        assertEquals(TRADE_CYCLE_SCHEDULING, engine.getTradeCycleScheduling());
+        assertEquals(MISSED_TRADE_CYCLE_POLICY, engine.getMissedTradeCyclePolicy());
+        assertEquals(TRADE_CYCLE_CACHING, engine.isTradeCycleCaching());
+        assertEquals(BALANCE_RECONCILE_INTERVAL, engine.getBalanceReconcileInterval());
     }
 
     @Test(expected = IllegalStateException.class)
@@ -89,6 +101,12 @@ public class TestEngineConfigurationManagement {
         engineConfig.setEmergencyStopCurrency(EMERGENCY_STOP_CURRENCY);
         engineConfig.setEmergencyStopBalance(EMERGENCY_STOP_BALANCE);
         engineConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+        engineConfig.setStrategyExecutionThreads(STRATEGY_EXECUTION_THREADS);
+        engineConfig.setStrategyExecutionTimeout(STRATEGY_EXECUTION_TIMEOUT);
+        engineConfig.setTradeCycleScheduling(TRADE_CYCLE_SCHEDULING);
+        engineConfig.setMissedTradeCyclePolicy(MISSED_TRADE_CYCLE_POLICY);
+        engineConfig.setTradeCycleCaching(TRADE_CYCLE_CACHING);
+        engineConfig.setBalanceReconcileInterval(BALANCE_RECONCILE_INTERVAL);
 
         ConfigurationManager.saveConfig(EngineType.class, engineConfig, XML_CONFIG_TO_SAVE_FILENAME);
 
@@ -101,6 +119,12 @@ public class TestEngineConfigurationManagement {
         assertEquals(EMERGENCY_STOP_CURRENCY, engineReloaded.getEmergencyStopCurrency());
         assertTrue(EMERGENCY_STOP_BALANCE.compareTo(engineReloaded.getEmergencyStopBalance()) == 0);
         assertTrue(TRADE_CYCLE_INTERVAL == engineReloaded.getTradeCycleInterval());
+        assertEquals(STRATEGY_EXECUTION_THREADS, engineReloaded.getStrategyExecutionThreads());
+        assertEquals(STRATEGY_EXECUTION_TIMEOUT, engineReloaded.getStrategyExecutionTimeout());
+        assertEquals(TRADE_CYCLE_SCHEDULING, engineReloaded.getTradeCycleScheduling());
+        assertEquals(MISSED_TRADE_CYCLE_POLICY, engineReloaded.getMissedTradeCyclePolicy());
+        assertEquals(TRADE_CYCLE_CACHING, engineReloaded.isTradeCycleCaching());
+        assertEquals(BALANCE_RECONCILE_INTERVAL, engineReloaded.getBalanceReconcileInterval());
 
         // cleanup
         Files.delete(FileSystems.getDefault().getPath(XML_CONFIG_TO_SAVE_FILENAME));
@@ -62,6 +62,14 @@ public class TestExchangeConfigurationManagement {
     private static final String SECRET_CONFIG_ITEM_VALUE = "your-secret-key";
 
     private static final Integer CONNECTION_TIMEOUT = 30;
+    private static final Integer MAX_CONNECTIONS_PER_HOST = 4;
+    private static final Integer IDLE_CONNECTION_TIMEOUT = 60;
+    private static final String ALL_ENDPOINT_CLASS = "all";
+    private static final int ALL_MAX_REQUESTS = 600;
+    private static final int ALL_PERIOD = 600;
+    private static final String MARKET_DATA_ENDPOINT_CLASS = "market-data";
+    private static final int MARKET_DATA_MAX_REQUESTS = 1;
+    private static final int MARKET_DATA_PERIOD = 1;
     private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504, 520, 522, 525);
     private static final List<String> NON_FATAL_ERROR_MESSAGES = Arrays.asList(
             "Connection refused",
@@ -94,6 +102,16 @@ public class TestExchangeConfigurationManagement {
         assertThat(exchangeType.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
         assertTrue(exchangeType.getNetworkConfig().getNonFatalErrorCodes().getCodes().containsAll(NON_FATAL_ERROR_CODES));
         assertTrue(exchangeType.getNetworkConfig().getNonFatalErrorMessages().getMessages().containsAll(NON_FATAL_ERROR_MESSAGES));
+        assertThat(exchangeType.getNetworkConfig().getMaxConnectionsPerHost()).isEqualTo(MAX_CONNECTIONS_PER_HOST);
+        assertThat(exchangeType.getNetworkConfig().getIdleConnectionTimeout()).isEqualTo(IDLE_CONNECTION_TIMEOUT);
+
+        final List<RateLimitType> rateLimits = exchangeType.getNetworkConfig().getRateLimits().getRateLimits();
+        assertThat(rateLimits.get(0).getEndpointClass()).isEqualTo(ALL_ENDPOINT_CLASS);
+        assertThat(rateLimits.get(0).getMaxRequests()).isEqualTo(ALL_MAX_REQUESTS);
+        assertThat(rateLimits.get(0).getPeriod()).isEqualTo(ALL_PERIOD);
+        assertThat(rateLimits.get(1).getEndpointClass()).isEqualTo(MARKET_DATA_ENDPOINT_CLASS);
+        assertThat(rateLimits.get(1).getMaxRequests()).isEqualTo(MARKET_DATA_MAX_REQUESTS);
+        assertThat(rateLimits.get(1).getPeriod()).isEqualTo(MARKET_DATA_PERIOD);
 
         assertThat(exchangeType.getOptionalConfig().getConfigItems().get(0).getName()).isEqualTo(BUY_FEE_CONFIG_ITEM_KEY);
         assertThat(exchangeType.getOptionalConfig().getConfigItems().get(0).getValue()).isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
@@ -137,6 +155,15 @@ public class TestExchangeConfigurationManagement {
         networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
         networkConfig.setNonFatalErrorCodes(nonFatalErrorCodes);
         networkConfig.setNonFatalErrorMessages(nonFatalErrorMessages);
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        final RateLimitType marketDataRateLimit = new RateLimitType();
+        marketDataRateLimit.setEndpointClass(MARKET_DATA_ENDPOINT_CLASS);
+        marketDataRateLimit.setMaxRequests(MARKET_DATA_MAX_REQUESTS);
+        marketDataRateLimit.setPeriod(MARKET_DATA_PERIOD);
+        final RateLimitsType rateLimits = new RateLimitsType();
+        rateLimits.getRateLimits().add(marketDataRateLimit);
+        networkConfig.setRateLimits(rateLimits);
 
         final ConfigItemType buyFee = new ConfigItemType();
         buyFee.setName(BUY_FEE_CONFIG_ITEM_KEY);
@@ -173,6 +200,12 @@ public class TestExchangeConfigurationManagement {
         assertThat(exchangeReloaded.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
         assertTrue(exchangeReloaded.getNetworkConfig().getNonFatalErrorCodes().getCodes().containsAll(NON_FATAL_ERROR_CODES));
         assertTrue(exchangeReloaded.getNetworkConfig().getNonFatalErrorMessages().getMessages().containsAll(NON_FATAL_ERROR_MESSAGES));
+        assertThat(exchangeReloaded.getNetworkConfig().getMaxConnectionsPerHost()).isEqualTo(MAX_CONNECTIONS_PER_HOST);
+        assertThat(exchangeReloaded.getNetworkConfig().getIdleConnectionTimeout()).isEqualTo(IDLE_CONNECTION_TIMEOUT);
+        final RateLimitType rateLimitReloaded = exchangeReloaded.getNetworkConfig().getRateLimits().getRateLimits().get(0);
+        assertThat(rateLimitReloaded.getEndpointClass()).isEqualTo(MARKET_DATA_ENDPOINT_CLASS);
+        assertThat(rateLimitReloaded.getMaxRequests()).isEqualTo(MARKET_DATA_MAX_REQUESTS);
+        assertThat(rateLimitReloaded.getPeriod()).isEqualTo(MARKET_DATA_PERIOD);
 
         assertThat(exchangeReloaded.getOptionalConfig().getConfigItems().get(0).getName()).isEqualTo(BUY_FEE_CONFIG_ITEM_KEY);
         assertThat(exchangeReloaded.getOptionalConfig().getConfigItems().get(0).getValue()).isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);